@@ -0,0 +1,237 @@
+package StockMainAction;
+
+import StockMainAction.model.SimulationClock;
+import StockMainAction.model.StockMarketModel;
+import StockMainAction.model.TickProfiler;
+import StockMainAction.model.game.GameSettings;
+import StockMainAction.util.logging.MarketLogger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 無頭快轉模擬 - 不建立 Swing 視圖，直接連續執行 N 個 tick 並輸出摘要檔
+ *
+ * <pre>
+ * java -cp ... StockMainAction.HeadlessSimulationRunner --seed=42 --ticks=5000 --output=summary.txt
+ * </pre>
+ *
+ * 除了 GameSettings 的 --seed/--mode/--speed 之外，支援：
+ * --ticks=N（預設 1000）、--output=檔案（預設 simulation-summary.txt）、
+ * --parallel（啟用平行決策）、--threads=N（平行決策執行緒數）、
+ * --population=N（加入 N 人的散戶群體）、--population-cash=金額（每人資金，預設 10000）、
+ * --journal-capacity=N（成交記錄保留筆數，預設 10000）。
+ * 模擬時間由虛擬時鐘推進，每個 tick 前進 speed 對應的毫秒數，不受實際執行速度影響。
+ */
+public final class HeadlessSimulationRunner {
+
+    private static final MarketLogger logger = MarketLogger.getInstance();
+    private static final long EPOCH_MILLIS = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+
+    private final GameSettings settings;
+    private final int ticks;
+    private final boolean parallel;
+    private final int threads;
+    private final Consumer<StockMarketModel> setup;
+
+    public HeadlessSimulationRunner(GameSettings settings, int ticks, boolean parallel, int threads) {
+        this(settings, ticks, parallel, threads, model -> { });
+    }
+
+    /**
+     * @param setup 模型建立後、第一個 tick 之前的設定（例如套用策略參數）
+     */
+    public HeadlessSimulationRunner(GameSettings settings, int ticks, boolean parallel, int threads,
+            Consumer<StockMarketModel> setup) {
+        this.settings = java.util.Objects.requireNonNull(settings, "settings");
+        if (ticks <= 0) throw new IllegalArgumentException("ticks must be positive: " + ticks);
+        this.ticks = ticks;
+        this.parallel = parallel;
+        this.threads = threads;
+        this.setup = java.util.Objects.requireNonNull(setup, "setup");
+    }
+
+    public static void main(String[] args) {
+        GameSettings settings = GameSettings.load(args);
+        int ticks = Integer.parseInt(argValue(args, "--ticks=", "1000"));
+        Path output = Path.of(argValue(args, "--output=", "simulation-summary.txt"));
+        boolean parallel = hasFlag(args, "--parallel");
+        int threads = Integer.parseInt(argValue(args, "--threads=", "0"));
+        int population = Integer.parseInt(argValue(args, "--population=", "0"));
+        double populationCash = Double.parseDouble(argValue(args, "--population-cash=", "10000"));
+        int journalCapacity = Integer.parseInt(argValue(args, "--journal-capacity=",
+                String.valueOf(StockMarketModel.DEFAULT_TRANSACTION_HISTORY)));
+
+        Summary summary = new HeadlessSimulationRunner(settings, ticks, parallel, threads, model -> {
+            if (population > 0) model.enableRetailPopulation(population, populationCash);
+            if (journalCapacity != StockMarketModel.DEFAULT_TRANSACTION_HISTORY) {
+                model.setTransactionHistoryCapacity(journalCapacity);
+            }
+        }).run();
+        try {
+            summary.writeTo(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法寫入摘要檔：" + output, e);
+        }
+        System.out.printf(Locale.ROOT, "%d ticks, %d trades, final price %.2f, %.1f ticks/sec -> %s%n",
+                summary.ticks(), summary.trades(), summary.finalPrice(), summary.ticksPerSecond(),
+                output.toAbsolutePath());
+    }
+
+    /**
+     * 建立模型並連續執行所有 tick（呼叫端執行緒，不經排程器也不經 EDT）
+     */
+    public Summary run() {
+        long stepMillis = settings.getSpeed().getPeriodMillis() > 0 ? settings.getSpeed().getPeriodMillis() : 1000L;
+        // 虛擬時鐘由模型每個 tick 推進，模擬時間與實際執行速度無關
+        SimulationClock clock = new SimulationClock(EPOCH_MILLIS, ZoneOffset.UTC);
+        clock.setTickMillis(stepMillis);
+        AtomicLong trades = new AtomicLong();
+        AtomicLong volume = new AtomicLong();
+
+        try (StockMarketModel model = new StockMarketModel(settings.getSeed(), clock)) {
+            model.setUiNotificationsEnabled(false);
+            model.setParallelDecisionPhase(parallel);
+            if (threads > 0) model.setDecisionParallelism(threads);
+            setup.accept(model);
+            model.getOrderBook().addTradeExecutedListener(event -> {
+                trades.incrementAndGet();
+                volume.addAndGet(event.volume());
+            });
+
+            // 參與者清單順序固定（散戶共用同一 traderType），以位置對應期初/期末資產
+            List<StockMarketModel.TraderSnapshot> opening = model.getTraderSnapshots();
+            double openPrice = model.getStock().getPrice();
+            double high = openPrice;
+            double low = openPrice;
+
+            logger.info(String.format("無頭模擬開始：seed=%d, ticks=%d, parallel=%b",
+                    settings.getSeed(), ticks, parallel), "HEADLESS_RUNNER");
+            long started = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                model.runTick();
+                double price = model.getStock().getPrice();
+                high = Math.max(high, price);
+                low = Math.min(low, price);
+            }
+            long elapsedNanos = System.nanoTime() - started;
+
+            List<StockMarketModel.TraderSnapshot> closing = model.getTraderSnapshots();
+            List<TraderResult> traders = new ArrayList<>(closing.size());
+            for (int i = 0; i < closing.size(); i++) {
+                StockMarketModel.TraderSnapshot snapshot = closing.get(i);
+                double start = i < opening.size() ? opening.get(i).totalAssets : snapshot.totalAssets;
+                traders.add(new TraderResult(i, snapshot.traderType, snapshot.role, start, snapshot.totalAssets));
+            }
+            Summary summary = new Summary(settings.getSeed(), settings.getMode().name(), ticks,
+                    elapsedNanos, trades.get(), volume.get(), openPrice, model.getStock().getPrice(),
+                    high, low, traders, model.getTickProfiler().snapshot());
+            logger.info(String.format("無頭模擬完成：%d 筆成交，%.1f ticks/sec",
+                    summary.trades(), summary.ticksPerSecond()), "HEADLESS_RUNNER");
+            return summary;
+        }
+    }
+
+    /**
+     * 單一參與者的損益
+     */
+    public record TraderResult(int index, String traderType, String role, double startAssets, double endAssets) {
+        public double pnl() {
+            return endAssets - startAssets;
+        }
+
+        public double pnlPct() {
+            return startAssets > 0 ? pnl() / startAssets * 100.0 : 0.0;
+        }
+    }
+
+    /**
+     * 模擬摘要
+     */
+    public record Summary(long seed, String mode, int ticks, long elapsedNanos, long trades, long volume,
+            double openPrice, double finalPrice, double highPrice, double lowPrice,
+            List<TraderResult> traders, TickProfiler.Snapshot profile) {
+
+        public Summary {
+            traders = List.copyOf(traders);
+        }
+
+        public double ticksPerSecond() {
+            return elapsedNanos > 0 ? ticks / (elapsedNanos / 1e9) : 0.0;
+        }
+
+        /**
+         * 寫出 key=value 摘要，最後附上參與者損益與各階段耗時 CSV 區段
+         */
+        public void writeTo(Path file) throws IOException {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.write(format("seed=%d%n", seed));
+                out.write(format("mode=%s%n", mode));
+                out.write(format("ticks=%d%n", ticks));
+                out.write(format("elapsedMillis=%d%n", elapsedNanos / 1_000_000L));
+                out.write(format("ticksPerSecond=%.2f%n", ticksPerSecond()));
+                out.write(format("trades=%d%n", trades));
+                out.write(format("volume=%d%n", volume));
+                out.write(format("openPrice=%.4f%n", openPrice));
+                out.write(format("finalPrice=%.4f%n", finalPrice));
+                out.write(format("highPrice=%.4f%n", highPrice));
+                out.write(format("lowPrice=%.4f%n", lowPrice));
+                if (profile != null) out.write(format("tickOverruns=%d%n", profile.overruns()));
+                out.write(format("%n[traders]%n"));
+                out.write(format("index,traderType,role,startAssets,endAssets,pnl,pnlPct%n"));
+                for (TraderResult trader : traders) {
+                    out.write(format("%d,%s,%s,%.2f,%.2f,%.2f,%.4f%n", trader.index(),
+                            trader.traderType(), trader.role(),
+                            trader.startAssets(), trader.endAssets(), trader.pnl(), trader.pnlPct()));
+                }
+                if (profile != null) {
+                    out.write(format("%n[phases]%n"));
+                    writeStats(out, profile.phases());
+                    out.write(format("%n[agents]%n"));
+                    writeStats(out, profile.agentClasses());
+                }
+            }
+        }
+
+        private static void writeStats(Writer out, List<TickProfiler.Stat> stats) throws IOException {
+            out.write(format("name,count,meanMicros,p50Micros,p99Micros,maxMicros%n"));
+            for (TickProfiler.Stat stat : stats) {
+                out.write(format("%s,%d,%.1f,%.1f,%.1f,%.1f%n", stat.name(), stat.count(),
+                        stat.meanNanos() / 1e3, stat.p50Nanos() / 1e3, stat.p99Nanos() / 1e3,
+                        stat.allTimeMaxNanos() / 1e3));
+            }
+        }
+
+        private static String format(String pattern, Object... args) {
+            return String.format(Locale.ROOT, pattern, args);
+        }
+    }
+
+    static String argValue(String[] args, String prefix, String fallback) {
+        if (args == null) return fallback;
+        for (String arg : args) {
+            if (arg != null && arg.startsWith(prefix)) return arg.substring(prefix.length()).trim();
+        }
+        return fallback;
+    }
+
+    private static boolean hasFlag(String[] args, String flag) {
+        if (args == null) return false;
+        for (String arg : args) {
+            if (flag.equals(arg)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,482 @@
+package StockMainAction;
+
+import StockMainAction.model.MainForceStrategyWithOrderBook.MainForceLimitConfig;
+import StockMainAction.model.StockMarketModel;
+import StockMainAction.model.game.GameMode;
+import StockMainAction.model.game.GameSettings;
+import StockMainAction.model.game.SimulationSpeed;
+import StockMainAction.util.logging.MarketLogger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * 蒙地卡羅參數掃描 - 以網格或隨機搜尋產生多組策略參數，
+ * 每組參數以獨立種子建立 StockMarketModel，在所有核心上同時無頭執行固定 tick 數，
+ * 結果寫成一列一次模擬的 CSV 表。
+ *
+ * <pre>
+ * java -cp ... StockMainAction.ParameterSweep --spec=sweep.properties --output=results.csv [--threads=N] [--logs=dir]
+ * </pre>
+ *
+ * 規格檔（properties）：
+ * <pre>
+ * mode=grid                 # grid 或 random
+ * ticks=2000                # 每次模擬的 tick 數
+ * replicas=3                # 每組參數重複的種子數
+ * seed=1                    # 基礎種子
+ * samples=50                # random 模式抽樣組數
+ * param.retail.riskPerTrade=0.01,0.03,0.05    # 值列表
+ * param.noise.biasWeight=0.1:0.6:6             # grid：起:迄:點數；random：起:迄
+ * param.mainForce.maxDeviationMarkup=0.02:0.08
+ * </pre>
+ *
+ * 參數前綴：retail（RetailStrategyConfig）、noise（NoiseAdaptiveConfig）、
+ * mainForce（MainForceLimitConfig 的欄位）。每次模擬在各自的 MarketLogger 隔離範圍內執行，
+ * 委託序號由各自的訂單簿配發，模擬之間不共用可變的靜態狀態。
+ */
+public final class ParameterSweep {
+
+    private static final MarketLogger logger = MarketLogger.getInstance();
+
+    private static final Set<String> RETAIL_PARAMETERS = Set.of("riskPerTrade", "randomTradeProb",
+            "spreadLimitRatio", "rsiBuy", "rsiSell", "trendEntry", "macdHistEntry", "minTradeWaitTicks",
+            "lossCooldownPerLoss");
+    private static final Set<String> NOISE_PARAMETERS = Set.of("sampleMin", "followHi", "followLo",
+            "biasWeight", "maxChaseTicks", "marketProbMin", "marketProbMax", "cancelProbBase",
+            "cancelProbSlope", "replaceThBase", "replaceThSlope");
+    // 主力參數：鍵名對應 MainForceLimitConfig 欄位，整數/毫秒欄位四捨五入
+    private static final Map<String, ObjDoubleConsumer<MainForceLimitConfig>> MAIN_FORCE_PARAMETERS =
+            mainForceParameters();
+
+    // 損益彙總欄位（依 TraderSnapshot.role）
+    private static final Map<String, String> ROLE_COLUMNS = roleColumns();
+
+    private final Spec spec;
+    private final int threads;
+    private final Path logDirectory;
+
+    /**
+     * @param threads 同時執行的模擬數，<=0 表示使用所有核心
+     * @param logDirectory 每次模擬的日誌目錄，null 表示只保留 WARN 以上且不寫檔
+     */
+    public ParameterSweep(Spec spec, int threads, Path logDirectory) {
+        this.spec = java.util.Objects.requireNonNull(spec, "spec");
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.logDirectory = logDirectory;
+    }
+
+    public static void main(String[] args) {
+        Path specFile = Path.of(HeadlessSimulationRunner.argValue(args, "--spec=", "sweep.properties"));
+        Path output = Path.of(HeadlessSimulationRunner.argValue(args, "--output=", "sweep-results.csv"));
+        int threads = Integer.parseInt(HeadlessSimulationRunner.argValue(args, "--threads=", "0"));
+        String logs = HeadlessSimulationRunner.argValue(args, "--logs=", "");
+        try {
+            Spec spec = Spec.load(specFile);
+            List<RunResult> results = new ParameterSweep(spec, threads, logs.isEmpty() ? null : Path.of(logs)).run();
+            writeResults(spec, results, output);
+            System.out.printf(Locale.ROOT, "%d runs -> %s%n", results.size(), output.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 執行所有模擬，回傳依執行編號排序的結果
+     */
+    public List<RunResult> run() {
+        List<RunPlan> plans = spec.plan();
+        logger.info(String.format("參數掃描開始：%d 次模擬，%d 執行緒", plans.size(), threads), "PARAMETER_SWEEP");
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "parameter-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<RunResult>> futures = new ArrayList<>(plans.size());
+            for (RunPlan plan : plans) {
+                futures.add(pool.submit(() -> runIsolated(plan)));
+            }
+            List<RunResult> results = new ArrayList<>(plans.size());
+            for (Future<RunResult> future : futures) {
+                results.add(future.get());
+            }
+            logger.info(String.format("參數掃描完成：%d 次模擬", results.size()), "PARAMETER_SWEEP");
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parameter sweep interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("parameter sweep run failed: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("try")
+    private RunResult runIsolated(RunPlan plan) {
+        Path logFile = logDirectory == null ? null
+                : logDirectory.resolve(String.format(Locale.ROOT, "run-%05d.log", plan.index()));
+        MarketLogger runLogger = MarketLogger.isolated(
+                logFile == null ? MarketLogger.LEVEL_WARN : MarketLogger.LEVEL_INFO, logFile);
+        try (MarketLogger.Scope ignored = MarketLogger.isolate(runLogger)) {
+            GameSettings settings = new GameSettings(plan.seed(), GameMode.SANDBOX, SimulationSpeed.NORMAL);
+            HeadlessSimulationRunner.Summary summary = new HeadlessSimulationRunner(settings, spec.ticks(),
+                    false, 0, model -> applyParameters(model, plan.parameters())).run();
+            return new RunResult(plan, summary);
+        }
+    }
+
+    /**
+     * 將掃描參數套用到模型（經過各設定原本的夾值驗證）
+     */
+    public static void applyParameters(StockMarketModel model, Map<String, Double> parameters) {
+        Map<String, Double> retail = new LinkedHashMap<>();
+        Map<String, Double> noise = new LinkedHashMap<>();
+        Map<String, Double> mainForce = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : parameters.entrySet()) {
+            String name = entry.getKey();
+            if (name.startsWith("retail.")) retail.put(name.substring(7), entry.getValue());
+            else if (name.startsWith("noise.")) noise.put(name.substring(6), entry.getValue());
+            else if (name.startsWith("mainForce.")) mainForce.put(name.substring(10), entry.getValue());
+            else throw new IllegalArgumentException("Unknown sweep parameter: " + name);
+        }
+
+        if (!retail.isEmpty()) {
+            StockMarketModel.RetailStrategyConfig c = model.getRetailStrategyConfig();
+            model.setRetailStrategyConfig(new StockMarketModel.RetailStrategyConfig(
+                    c.model,
+                    value(retail, "riskPerTrade", c.riskPerTrade),
+                    value(retail, "randomTradeProb", c.randomTradeProb),
+                    value(retail, "spreadLimitRatio", c.spreadLimitRatio),
+                    value(retail, "rsiBuy", c.rsiBuy),
+                    value(retail, "rsiSell", c.rsiSell),
+                    value(retail, "trendEntry", c.trendEntry),
+                    value(retail, "macdHistEntry", c.macdHistEntry),
+                    (int) Math.round(value(retail, "minTradeWaitTicks", c.minTradeWaitTicks)),
+                    (int) Math.round(value(retail, "lossCooldownPerLoss", c.lossCooldownPerLoss))));
+        }
+        if (!noise.isEmpty()) {
+            StockMarketModel.NoiseAdaptiveConfig c = model.getNoiseAdaptiveConfig();
+            model.setNoiseAdaptiveConfig(new StockMarketModel.NoiseAdaptiveConfig(
+                    c.enabled,
+                    (int) Math.round(value(noise, "sampleMin", c.sampleMin)),
+                    value(noise, "followHi", c.followHi),
+                    value(noise, "followLo", c.followLo),
+                    value(noise, "biasWeight", c.biasWeight),
+                    (int) Math.round(value(noise, "maxChaseTicks", c.maxChaseTicks)),
+                    value(noise, "marketProbMin", c.marketProbMin),
+                    value(noise, "marketProbMax", c.marketProbMax),
+                    value(noise, "cancelProbBase", c.cancelProbBase),
+                    value(noise, "cancelProbSlope", c.cancelProbSlope),
+                    value(noise, "replaceThBase", c.replaceThBase),
+                    value(noise, "replaceThSlope", c.replaceThSlope)));
+        }
+        if (!mainForce.isEmpty()) {
+            MainForceLimitConfig c = model.getMainForce().getLimitConfig();
+            for (Map.Entry<String, Double> entry : mainForce.entrySet()) {
+                MAIN_FORCE_PARAMETERS.get(entry.getKey()).accept(c, entry.getValue());
+            }
+            model.getMainForce().applyLimitConfig(c);
+        }
+    }
+
+    private static double value(Map<String, Double> overrides, String name, double fallback) {
+        Double v = overrides.get(name);
+        return v == null ? fallback : v;
+    }
+
+    private static Map<String, ObjDoubleConsumer<MainForceLimitConfig>> mainForceParameters() {
+        Map<String, ObjDoubleConsumer<MainForceLimitConfig>> m = new LinkedHashMap<>();
+        m.put("accumulateMinTicks", (c, v) -> c.accumulateMinTicks = (int) Math.round(v));
+        m.put("accumulateMaxTicks", (c, v) -> c.accumulateMaxTicks = (int) Math.round(v));
+        m.put("markupMinTicks", (c, v) -> c.markupMinTicks = (int) Math.round(v));
+        m.put("markupMaxTicks", (c, v) -> c.markupMaxTicks = (int) Math.round(v));
+        m.put("distributeMinTicks", (c, v) -> c.distributeMinTicks = (int) Math.round(v));
+        m.put("distributeMaxTicks", (c, v) -> c.distributeMaxTicks = (int) Math.round(v));
+        m.put("washMinTicks", (c, v) -> c.washMinTicks = (int) Math.round(v));
+        m.put("washMaxTicks", (c, v) -> c.washMaxTicks = (int) Math.round(v));
+        m.put("replaceIntervalTicks", (c, v) -> c.replaceIntervalTicks = (int) Math.round(v));
+        m.put("orderManagementIntervalTicks", (c, v) -> c.orderManagementIntervalTicks = (int) Math.round(v));
+        m.put("maxDeviationIdle", (c, v) -> c.maxDeviationIdle = v);
+        m.put("maxDeviationAccumulate", (c, v) -> c.maxDeviationAccumulate = v);
+        m.put("maxDeviationMarkup", (c, v) -> c.maxDeviationMarkup = v);
+        m.put("maxDeviationDistribute", (c, v) -> c.maxDeviationDistribute = v);
+        m.put("maxDeviationWash", (c, v) -> c.maxDeviationWash = v);
+        m.put("maxAgeIdleMs", (c, v) -> c.maxAgeIdleMs = Math.round(v));
+        m.put("maxAgeAccumulateMs", (c, v) -> c.maxAgeAccumulateMs = Math.round(v));
+        m.put("maxAgeMarkupMs", (c, v) -> c.maxAgeMarkupMs = Math.round(v));
+        m.put("maxAgeDistributeMs", (c, v) -> c.maxAgeDistributeMs = Math.round(v));
+        m.put("maxAgeWashMs", (c, v) -> c.maxAgeWashMs = Math.round(v));
+        m.put("markupCancelBuyBelowRatio", (c, v) -> c.markupCancelBuyBelowRatio = v);
+        m.put("markupCancelSellAboveRatio", (c, v) -> c.markupCancelSellAboveRatio = v);
+        m.put("distributeCancelSellAboveRatio", (c, v) -> c.distributeCancelSellAboveRatio = v);
+        m.put("washCancelBuyBelowRatio", (c, v) -> c.washCancelBuyBelowRatio = v);
+        m.put("washCancelSellAboveRatio", (c, v) -> c.washCancelSellAboveRatio = v);
+        m.put("riskExposureWeight", (c, v) -> c.riskExposureWeight = v);
+        m.put("riskUnrealizedWeight", (c, v) -> c.riskUnrealizedWeight = v);
+        m.put("riskDrawdownWeight", (c, v) -> c.riskDrawdownWeight = v);
+        m.put("riskVolatilityWeight", (c, v) -> c.riskVolatilityWeight = v);
+        m.put("riskTrendWeight", (c, v) -> c.riskTrendWeight = v);
+        m.put("riskUnrealizedLossFull", (c, v) -> c.riskUnrealizedLossFull = v);
+        m.put("riskDrawdownFull", (c, v) -> c.riskDrawdownFull = v);
+        m.put("riskVolatilityFull", (c, v) -> c.riskVolatilityFull = v);
+        m.put("riskTrendDownFull", (c, v) -> c.riskTrendDownFull = v);
+        m.put("riskProfitReliefMax", (c, v) -> c.riskProfitReliefMax = v);
+        m.put("riskProfitReliefSlope", (c, v) -> c.riskProfitReliefSlope = v);
+        return Collections.unmodifiableMap(m);
+    }
+
+    static void validateParameterName(String name) {
+        if (name.startsWith("retail.") && RETAIL_PARAMETERS.contains(name.substring(7))) return;
+        if (name.startsWith("noise.") && NOISE_PARAMETERS.contains(name.substring(6))) return;
+        if (name.startsWith("mainForce.") && MAIN_FORCE_PARAMETERS.containsKey(name.substring(10))) return;
+        throw new IllegalArgumentException("Unknown sweep parameter: " + name);
+    }
+
+    /**
+     * 寫出結果表：每列一次模擬，欄位為參數、成交統計、價格與各角色損益總和
+     */
+    public static void writeResults(Spec spec, List<RunResult> results, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder header = new StringBuilder("run,seed");
+            for (String name : spec.parameterNames()) header.append(',').append(name);
+            header.append(",ticks,trades,volume,openPrice,finalPrice,highPrice,lowPrice");
+            for (String column : ROLE_COLUMNS.values()) header.append(',').append(column);
+            header.append(",ticksPerSecond\n");
+            out.write(header.toString());
+
+            for (RunResult result : results) {
+                HeadlessSimulationRunner.Summary s = result.summary();
+                StringBuilder row = new StringBuilder();
+                row.append(result.plan().index()).append(',').append(result.plan().seed());
+                for (String name : spec.parameterNames()) {
+                    row.append(',').append(format("%.6f", result.plan().parameters().get(name)));
+                }
+                row.append(',').append(s.ticks()).append(',').append(s.trades()).append(',').append(s.volume())
+                        .append(',').append(format("%.4f", s.openPrice()))
+                        .append(',').append(format("%.4f", s.finalPrice()))
+                        .append(',').append(format("%.4f", s.highPrice()))
+                        .append(',').append(format("%.4f", s.lowPrice()));
+                Map<String, Double> pnl = result.pnlByRole();
+                for (String role : ROLE_COLUMNS.keySet()) {
+                    row.append(',').append(format("%.2f", pnl.getOrDefault(role, 0.0)));
+                }
+                row.append(',').append(format("%.2f", s.ticksPerSecond())).append('\n');
+                out.write(row.toString());
+            }
+        }
+    }
+
+    private static Map<String, String> roleColumns() {
+        Map<String, String> columns = new LinkedHashMap<>();
+        columns.put("主力", "mainForcePnl");
+        columns.put("做市", "marketMakerPnl");
+        columns.put("噪音", "noisePnl");
+        columns.put("散戶", "retailPnl");
+        columns.put("個人", "personalPnl");
+        return Collections.unmodifiableMap(columns);
+    }
+
+    private static String format(String pattern, double value) {
+        return String.format(Locale.ROOT, pattern, value);
+    }
+
+    /**
+     * 一次模擬的參數與種子
+     */
+    public record RunPlan(int index, long seed, Map<String, Double> parameters) {
+        public RunPlan {
+            parameters = Collections.unmodifiableMap(new LinkedHashMap<>(parameters));
+        }
+    }
+
+    /**
+     * 一次模擬的結果
+     */
+    public record RunResult(RunPlan plan, HeadlessSimulationRunner.Summary summary) {
+        /** 依角色加總損益 */
+        public Map<String, Double> pnlByRole() {
+            Map<String, Double> totals = new LinkedHashMap<>();
+            for (HeadlessSimulationRunner.TraderResult trader : summary.traders()) {
+                totals.merge(trader.role(), trader.pnl(), Double::sum);
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * 掃描規格：網格（所有組合）或隨機搜尋（samples 組），每組參數各跑 replicas 個種子
+     */
+    public static final class Spec {
+
+        public enum Mode { GRID, RANDOM }
+
+        private final Mode mode;
+        private final int ticks;
+        private final int replicas;
+        private final long seed;
+        private final int samples;
+        private final Map<String, Dimension> dimensions;
+
+        /**
+         * 單一參數的取值：列表，或 [low, high] 區間（grid 時依 steps 等分）
+         */
+        private record Dimension(double[] values, double low, double high, int steps) {
+            static Dimension parse(String name, String text) {
+                String t = text.trim();
+                try {
+                    if (t.contains(":")) {
+                        String[] parts = t.split(":");
+                        if (parts.length < 2 || parts.length > 3) {
+                            throw new IllegalArgumentException("range must be low:high[:steps]");
+                        }
+                        double low = Double.parseDouble(parts[0].trim());
+                        double high = Double.parseDouble(parts[1].trim());
+                        int steps = parts.length == 3 ? Integer.parseInt(parts[2].trim()) : 5;
+                        if (high < low || steps < 1) throw new IllegalArgumentException("empty range");
+                        return new Dimension(null, low, high, steps);
+                    }
+                    String[] parts = t.split(",");
+                    double[] values = new double[parts.length];
+                    for (int i = 0; i < parts.length; i++) values[i] = Double.parseDouble(parts[i].trim());
+                    return new Dimension(values, 0, 0, 0);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid values for " + name + ": " + text, e);
+                }
+            }
+
+            double[] gridValues() {
+                if (values != null) return values;
+                if (steps == 1) return new double[]{low};
+                double[] grid = new double[steps];
+                for (int i = 0; i < steps; i++) grid[i] = low + (high - low) * i / (steps - 1);
+                return grid;
+            }
+
+            double sample(SplittableRandom random) {
+                if (values != null) return values[random.nextInt(values.length)];
+                return high > low ? random.nextDouble(low, high) : low;
+            }
+        }
+
+        private Spec(Mode mode, int ticks, int replicas, long seed, int samples, Map<String, Dimension> dimensions) {
+            if (ticks <= 0) throw new IllegalArgumentException("ticks must be positive");
+            if (replicas <= 0) throw new IllegalArgumentException("replicas must be positive");
+            if (mode == Mode.RANDOM && samples <= 0) throw new IllegalArgumentException("samples must be positive");
+            this.mode = mode;
+            this.ticks = ticks;
+            this.replicas = replicas;
+            this.seed = seed;
+            this.samples = samples;
+            this.dimensions = Collections.unmodifiableMap(new LinkedHashMap<>(dimensions));
+        }
+
+        public static Spec load(Path file) throws IOException {
+            Properties props = new Properties();
+            try (InputStream input = Files.newInputStream(file)) {
+                props.load(input);
+            }
+            // Properties 不保留順序；依參數名稱排序讓輸出欄位穩定
+            List<String> names = new ArrayList<>();
+            for (String key : props.stringPropertyNames()) {
+                if (key.startsWith("param.")) names.add(key.substring(6));
+            }
+            Collections.sort(names);
+            Map<String, String> parameters = new LinkedHashMap<>();
+            for (String name : names) parameters.put(name, props.getProperty("param." + name));
+            return of(Mode.valueOf(props.getProperty("mode", "grid").trim().toUpperCase(Locale.ROOT)),
+                    Integer.parseInt(props.getProperty("ticks", "1000").trim()),
+                    Integer.parseInt(props.getProperty("replicas", "1").trim()),
+                    Long.parseLong(props.getProperty("seed", "1").trim()),
+                    Integer.parseInt(props.getProperty("samples", "20").trim()),
+                    parameters);
+        }
+
+        /**
+         * @param parameters 參數名稱 → 取值字串（列表 "a,b,c" 或區間 "low:high[:steps]"）
+         */
+        public static Spec of(Mode mode, int ticks, int replicas, long seed, int samples,
+                Map<String, String> parameters) {
+            Map<String, Dimension> dimensions = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                validateParameterName(entry.getKey());
+                dimensions.put(entry.getKey(), Dimension.parse(entry.getKey(), entry.getValue()));
+            }
+            return new Spec(mode, ticks, replicas, seed, samples, dimensions);
+        }
+
+        public int ticks() {
+            return ticks;
+        }
+
+        public List<String> parameterNames() {
+            return new ArrayList<>(dimensions.keySet());
+        }
+
+        /**
+         * 展開所有模擬；種子由基礎種子決定，與執行緒數無關
+         */
+        public List<RunPlan> plan() {
+            List<Map<String, Double>> sets = mode == Mode.GRID ? gridSets() : randomSets();
+            SplittableRandom seeds = new SplittableRandom(seed);
+            List<RunPlan> plans = new ArrayList<>(sets.size() * replicas);
+            for (Map<String, Double> set : sets) {
+                for (int r = 0; r < replicas; r++) {
+                    plans.add(new RunPlan(plans.size(), seeds.nextLong(), set));
+                }
+            }
+            return plans;
+        }
+
+        private List<Map<String, Double>> gridSets() {
+            List<Map<String, Double>> sets = new ArrayList<>();
+            sets.add(new LinkedHashMap<>());
+            for (Map.Entry<String, Dimension> entry : dimensions.entrySet()) {
+                List<Map<String, Double>> expanded = new ArrayList<>();
+                for (Map<String, Double> partial : sets) {
+                    for (double v : entry.getValue().gridValues()) {
+                        Map<String, Double> next = new LinkedHashMap<>(partial);
+                        next.put(entry.getKey(), v);
+                        expanded.add(next);
+                    }
+                }
+                sets = expanded;
+            }
+            return sets;
+        }
+
+        private List<Map<String, Double>> randomSets() {
+            SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+            List<Map<String, Double>> sets = new ArrayList<>(samples);
+            for (int i = 0; i < samples; i++) {
+                Map<String, Double> set = new LinkedHashMap<>();
+                for (Map.Entry<String, Dimension> entry : dimensions.entrySet()) {
+                    set.put(entry.getKey(), entry.getValue().sample(random));
+                }
+                sets.add(set);
+            }
+            return sets;
+        }
+    }
+}
@@ -1,13 +1,13 @@
 package StockMainAction;
 
 import StockMainAction.controller.StockMarketController;
+import StockMainAction.model.SimulationClock;
 import StockMainAction.model.StockMarketModel;
 import StockMainAction.model.game.GameSettings;
 import StockMainAction.util.logging.LogViewerWindow;
 import StockMainAction.util.logging.MarketLogger;
 import StockMainAction.view.ControlView;
 import StockMainAction.view.MainView;
-import java.time.Clock;
 import javax.swing.*;
 
 /**
@@ -41,7 +41,7 @@ public class StockMarketSimulation {
             try {
                 GameSettings settings = GameSettings.load(args);
                 // 1. 建立模型 (Model) - 包含所有業務邏輯和數據
-                StockMarketModel model = new StockMarketModel(settings.getSeed(), Clock.systemUTC());
+                StockMarketModel model = new StockMarketModel(settings.getSeed(), SimulationClock.startingNow());
                 logger.info("市場模型初始化完成", "APPLICATION_START");
 
                 // 2. 建立視圖 (View) - 用戶界面組件
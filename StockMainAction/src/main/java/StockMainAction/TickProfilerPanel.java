@@ -0,0 +1,160 @@
+package StockMainAction;
+
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.List;
+import java.util.Map;
+import StockMainAction.model.TickProfiler;
+
+/**
+ * 效能分析面板 - 顯示每個模擬 tick 各階段與各類代理人的耗時（p50/p99/max）與超時統計
+ */
+public class TickProfilerPanel extends JPanel {
+
+    private static final String[] COLUMNS = {"項目", "次數", "平均(ms)", "p50(ms)", "p99(ms)", "最大(ms)"};
+    private static final int REFRESH_MILLIS = 1000;
+
+    private final JLabel summaryLabel;
+    private final JLabel overrunLabel;
+    private final DefaultTableModel phaseModel;
+    private final DefaultTableModel agentModel;
+    private final Timer refreshTimer;
+    private TickProfiler profiler;
+
+    /**
+     * 構造函數 - 初始化效能分析面板
+     */
+    public TickProfilerPanel() {
+        setLayout(new BorderLayout(5, 5));
+        setBorder(BorderFactory.createTitledBorder(
+                BorderFactory.createEtchedBorder(),
+                "Tick 效能分析",
+                TitledBorder.CENTER,
+                TitledBorder.TOP));
+
+        // 摘要區（tick 數、超時次數、超時主要階段）
+        JPanel summaryPanel = new JPanel(new GridLayout(2, 1, 5, 5));
+        summaryLabel = new JLabel("尚未開始模擬");
+        summaryLabel.setFont(summaryLabel.getFont().deriveFont(Font.BOLD));
+        overrunLabel = new JLabel(" ");
+        summaryPanel.add(summaryLabel);
+        summaryPanel.add(overrunLabel);
+
+        // 階段表與代理人類別表
+        phaseModel = createTableModel();
+        agentModel = createTableModel();
+        JPanel tablesPanel = new JPanel(new GridLayout(2, 1, 5, 5));
+        tablesPanel.add(wrapTable("各階段（每 tick）", phaseModel));
+        tablesPanel.add(wrapTable("各類代理人（每次決策）", agentModel));
+
+        // 按鈕區
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton resetButton = new JButton("重設統計");
+        resetButton.addActionListener(e -> {
+            if (profiler != null) {
+                profiler.reset();
+                refresh();
+            }
+        });
+        buttonPanel.add(resetButton);
+
+        add(summaryPanel, BorderLayout.NORTH);
+        add(tablesPanel, BorderLayout.CENTER);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        // 只在面板顯示時刷新，避免背景分頁持續排序樣本
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> {
+            if (isShowing()) refresh();
+        });
+        refreshTimer.setRepeats(true);
+    }
+
+    /**
+     * 綁定模型的計時器並開始定時刷新
+     */
+    public void setProfiler(TickProfiler profiler) {
+        this.profiler = profiler;
+        if (profiler != null) {
+            refreshTimer.start();
+            refresh();
+        } else {
+            refreshTimer.stop();
+        }
+    }
+
+    /**
+     * 停止定時刷新
+     */
+    public void close() {
+        refreshTimer.stop();
+    }
+
+    /**
+     * 以目前快照更新表格（EDT 呼叫）
+     */
+    public void refresh() {
+        if (profiler == null) return;
+        TickProfiler.Snapshot snapshot = profiler.snapshot();
+        summaryLabel.setText(String.format("已統計 %d 個 tick，超時 %d 次（%.1f%%），週期 %.0f ms",
+                snapshot.ticks(), snapshot.overruns(), snapshot.overrunRatio() * 100.0,
+                snapshot.budgetNanos() / 1e6));
+        overrunLabel.setText(formatOverruns(snapshot.overrunsByPhase()));
+        fill(phaseModel, snapshot.phases(), true);
+        fill(agentModel, snapshot.agentClasses(), false);
+    }
+
+    private static String formatOverruns(Map<String, Long> overrunsByPhase) {
+        if (overrunsByPhase.isEmpty()) return "超時主因：無";
+        StringBuilder sb = new StringBuilder("超時主因：");
+        overrunsByPhase.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> sb.append(phaseLabel(e.getKey())).append(' ').append(e.getValue()).append(" 次  "));
+        return sb.toString().trim();
+    }
+
+    private static String phaseLabel(String name) {
+        try {
+            return TickProfiler.Phase.valueOf(name).getLabel();
+        } catch (IllegalArgumentException e) {
+            return name;
+        }
+    }
+
+    private static void fill(DefaultTableModel model, List<TickProfiler.Stat> stats, boolean phases) {
+        model.setRowCount(0);
+        for (TickProfiler.Stat stat : stats) {
+            model.addRow(new Object[]{
+                phases ? phaseLabel(stat.name()) : stat.name(),
+                stat.count(),
+                millis(stat.meanNanos()),
+                millis(stat.p50Nanos()),
+                millis(stat.p99Nanos()),
+                millis(stat.allTimeMaxNanos())
+            });
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+    private static DefaultTableModel createTableModel() {
+        return new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private static JComponent wrapTable(String title, DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createTitledBorder(title));
+        scrollPane.setPreferredSize(new Dimension(420, 160));
+        return scrollPane;
+    }
+}
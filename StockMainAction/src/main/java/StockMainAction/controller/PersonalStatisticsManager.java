@@ -6,6 +6,7 @@ import StockMainAction.model.PersonalAI;
 import StockMainAction.model.core.PersonalStatistics;
 import StockMainAction.model.user.UserAccount;
 import StockMainAction.util.logging.MarketLogger;
+import java.time.Clock;
 
 /**
  * 個人統計管理器 - 負責統計數據的業務邏輯
@@ -23,7 +24,17 @@ public class PersonalStatisticsManager {
      * @param initialCash 初始資金
      */
     public PersonalStatisticsManager(UserAccount userAccount, PersonalAI personalAI, double initialCash) {
-        this.statistics = new PersonalStatistics(userAccount, personalAI, initialCash);
+        this(userAccount, personalAI, initialCash, Clock.systemDefaultZone());
+    }
+
+    /**
+     * 以指定時鐘（通常為模型的模擬時鐘）記錄交易時間
+     *
+     * @param clock 交易紀錄使用的時鐘
+     */
+    public PersonalStatisticsManager(UserAccount userAccount, PersonalAI personalAI, double initialCash,
+            Clock clock) {
+        this.statistics = new PersonalStatistics(userAccount, personalAI, initialCash, clock);
         logger.info("個人統計管理器初始化，初始資金: " + initialCash, "STATS_MANAGER");
     }
 
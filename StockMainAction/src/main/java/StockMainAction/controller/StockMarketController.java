@@ -2,6 +2,7 @@ package StockMainAction.controller;
 
 import StockMainAction.MatchingEnginePanel;
 import StockMainAction.model.StockMarketModel;
+import StockMainAction.model.TickScheduler;
 import StockMainAction.model.core.MatchingMode;
 import StockMainAction.model.core.OrderBook;
 import StockMainAction.model.core.Order;
@@ -77,9 +78,14 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
     private int latestGameScore;
     private String latestGameRank = "-";
     private String latestScenarioEventText = "尚無事件";
+    // 以「距上次刷新的 tick 數」節流（高速模式下畫面節流會略過部分 tick，取餘數判斷可能永遠不成立）
+    private int lastStatsRefreshStep;
+    private int lastWatchlistRefreshStep;
+    private int lastTraderTableRefreshStep;
     private final TradeExecutedListener personalTradeListener = this::recordPersonalTrade;
     private final StockMarketModel.TransactionListener tapeTransactionListener = this::forwardTransactionToTape;
     private final AtomicBoolean closed = new AtomicBoolean();
+    private Timer tickRateTimer;
 
     // 初始資金配置（用於損益計算）—統一由模型提供
     public final double initialRetailCash;
@@ -144,7 +150,8 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
         // 安全地初始化個人統計管理器；失敗時保持 Optional.empty()，後續呼叫一律透過 ifPresent/map
         try {
             UserAccount userAccount = model.getUserInvestor().getAccount();
-            this.personalStatsMgr = Optional.of(new PersonalStatisticsManager(userAccount, initialPersonalCash));
+            this.personalStatsMgr = Optional.of(new PersonalStatisticsManager(userAccount, null,
+                    initialPersonalCash, model.getClock()));
             logger.info("個人統計管理器初始化成功", "CONTROLLER_INIT");
         } catch (Exception e) {
             logger.error("初始化個人統計管理器失敗: " + e.getMessage(), "CONTROLLER_INIT");
@@ -216,6 +223,11 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
         // 初始化撮合引擎控制
         initializeMatchingEngineControl();
 
+        // 效能分析面板：綁定模型的 tick 計時器
+        if (controlView.getTickProfilerPanel() != null) {
+            controlView.getTickProfilerPanel().setProfiler(model.getTickProfiler());
+        }
+
         // 🔄 修正：更新日誌訊息以包含所有功能
         logger.info("控制器初始化完成，包括撮合引擎控制、價格提醒功能和個人統計功能", "CONTROLLER_INIT");
     }
@@ -237,6 +249,11 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
                 applySimulationSpeed(speed);
             }
 
+            @Override
+            public void onOverrunPolicyChanged(TickScheduler.OverrunPolicy policy) {
+                if (policy != null) model.setOverrunPolicy(policy);
+            }
+
             @Override
             public void onSaveSettings() {
                 saveGameSettings();
@@ -245,6 +262,15 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
         applyGameMode(gameSettings.getMode());
         applySimulationSpeed(gameSettings.getSpeed());
         updateGameProgress();
+
+        // 每秒刷新實際/目標 tick 速率（與 tick 脫鉤）
+        tickRateTimer = new Timer(1000, e -> {
+            TickScheduler.Stats stats = model.getTickSchedulerStats();
+            if (stats == null) return;
+            panel.updateTickRate(stats.actualTicksPerSecond(), stats.targetTicksPerSecond(),
+                    model.getSkippedUiFrames(), stats.overruns());
+        });
+        tickRateTimer.start();
     }
 
     private void initializeRiskControl() {
@@ -583,6 +609,7 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
 
     public void close() {
         if (!closed.compareAndSet(false, true)) return;
+        if (tickRateTimer != null) tickRateTimer.stop();
         interventionService.close();
         model.removeModelListener(this);
         model.removeTransactionListener(tapeTransactionListener);
@@ -861,16 +888,19 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
             quickTradePanel.updateCurrentPrice(price);
         }
 
+        int step = model.getTimeStep();
         personalStatsMgr.ifPresent(mgr -> {
             mgr.updateCurrentPrice(price);
-            if (model.getTimeStep() % 10 == 0) {
+            if (step - lastStatsRefreshStep >= 10) {
+                lastStatsRefreshStep = step;
                 SwingUtilities.invokeLater(() ->
                     controlView.getPersonalStatsPanel().updateStatistics(mgr.getStatistics()));
             }
         });
         GameDashboardPanel gamePanel = controlView.getGameDashboardPanel();
-        if (model.getTimeStep() % 5 == 0 && gamePanel != null) {
-            gamePanel.updateWatchlist(marketWatchlist.update(model.getTimeStep(), currentEventBias));
+        if (step - lastWatchlistRefreshStep >= 5 && gamePanel != null) {
+            lastWatchlistRefreshStep = step;
+            gamePanel.updateWatchlist(marketWatchlist.update(step, currentEventBias));
             updateGameProgress();
         }
         evaluateRiskOrders(price);
@@ -900,7 +930,9 @@ public class StockMarketController implements StockMarketModel.ModelListener, Pr
         // 新增：更新「市場參與者」表格（主力/做市/噪音/散戶/個人）
         // 為避免 UI 過度頻繁刷新，這裡每 2 tick 更新一次即可
         try {
-            if (model.getTimeStep() % 2 == 0) {
+            int step = model.getTimeStep();
+            if (step - lastTraderTableRefreshStep >= 2) {
+                lastTraderTableRefreshStep = step;
                 mainView.updateTraderInfoTable(model.getTraderSnapshots());
             }
         } catch (Exception uiEx1) {
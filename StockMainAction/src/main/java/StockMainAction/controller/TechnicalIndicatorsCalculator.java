@@ -1,36 +1,42 @@
 package StockMainAction.controller;
-import java.util.ArrayList;
-import java.util.List;
 
+import StockMainAction.model.indicator.Bollinger;
+import StockMainAction.model.indicator.IndicatorPipeline;
+import StockMainAction.model.indicator.Kdj;
+import StockMainAction.model.indicator.Macd;
 
 /**
  * 技術指標計算器
  * 負責計算MACD、布林帶、KDJ等技術指標
+ *
+ * 指標由 {@link IndicatorPipeline} 串流更新：每次 {@link #updatePriceData} 單次走訪所有指標，
+ * 為 O(1) 且不配置物件；MACD 的 EMA、布林帶的滾動和、KDJ 的區間極值皆為管線共用的中間量。
  */
 public class TechnicalIndicatorsCalculator {
 
-    private List<Double> priceHistory;
-    private List<Double> highHistory;
-    private List<Double> lowHistory;
-
     // MACD參數
-    private int macdShortPeriod = 12;
-    private int macdLongPeriod = 26;
-    private int macdSignalPeriod = 9;
+    private final int macdShortPeriod = 12;
+    private final int macdLongPeriod = 26;
+    private final int macdSignalPeriod = 9;
 
     // 布林帶參數
-    private int bollingerPeriod = 20;
-    private double bollingerStdDevMultiplier = 2.0;
+    private final int bollingerPeriod = 20;
+    private final double bollingerStdDevMultiplier = 2.0;
 
     // KDJ參數
-    private int kdjPeriod = 9;
-    private int kPeriod = 3;
-    private int dPeriod = 3;
+    private final int kdjPeriod = 9;
+    private final int dPeriod = 3;
+
+    private final IndicatorPipeline pipeline = new IndicatorPipeline();
+    private final Macd macd;
+    private final Bollinger bollinger;
+    private final Kdj kdj;
 
     public TechnicalIndicatorsCalculator() {
-        this.priceHistory = new ArrayList<>();
-        this.highHistory = new ArrayList<>();
-        this.lowHistory = new ArrayList<>();
+        macd = pipeline.add(new Macd(pipeline, macdShortPeriod, macdLongPeriod, macdSignalPeriod));
+        bollinger = pipeline.add(new Bollinger(pipeline, bollingerPeriod, bollingerStdDevMultiplier));
+        // 沿用簡化版 KDJ（K = RSV，D = 最近 RSV 平均）
+        kdj = pipeline.add(new Kdj(pipeline, kdjPeriod, 1, dPeriod, Kdj.Mode.SIMPLE));
     }
 
     /**
@@ -51,17 +57,7 @@ public class TechnicalIndicatorsCalculator {
             high = low;
             low = tmp;
         }
-        priceHistory.add(price);
-        highHistory.add(high);
-        lowHistory.add(low);
-
-        // 限制歷史數據大小，保持性能
-        int maxHistorySize = 1000;
-        while (priceHistory.size() > maxHistorySize || highHistory.size() > maxHistorySize || lowHistory.size() > maxHistorySize) {
-            if (!priceHistory.isEmpty()) priceHistory.remove(0);
-            if (!highHistory.isEmpty()) highHistory.remove(0);
-            if (!lowHistory.isEmpty()) lowHistory.remove(0);
-        }
+        pipeline.update(price, high, low, price, 0L);
     }
 
     /**
@@ -70,29 +66,17 @@ public class TechnicalIndicatorsCalculator {
      * @return [macdLine, signalLine, histogram] 或 null 如果數據不足
      */
     public synchronized double[] calculateMACD() {
-        List<Double> prices = List.copyOf(priceHistory);
-        if (prices.size() < macdLongPeriod + macdSignalPeriod) {
+        if (pipeline.getUpdateCount() < macdLongPeriod + macdSignalPeriod || !macd.isReady()) {
             return null; // 數據不足
         }
 
-        // 計算短期和長期EMA
-        double shortEMA = calculateEMA(prices, macdShortPeriod);
-        double longEMA = calculateEMA(prices, macdLongPeriod);
-
-        // MACD線 = 短期EMA - 長期EMA
-        double macdLine = shortEMA - longEMA;
-
-        // 計算信號線（MACD線的EMA）
-        List<Double> macdHistory = calculateMACDHistory(prices);
-        double signalLine = calculateEMA(macdHistory, macdSignalPeriod);
-
-        // 柱狀圖 = MACD線 - 信號線
-        double histogram = macdLine - signalLine;
-
-        if (!Double.isFinite(macdLine) || !Double.isFinite(signalLine) || !Double.isFinite(histogram)) {
-            return null;
+        double[] result = macd.values();
+        for (double v : result) {
+            if (!Double.isFinite(v)) {
+                return null;
+            }
         }
-        return new double[]{macdLine, signalLine, histogram};
+        return result;
     }
 
     /**
@@ -101,21 +85,10 @@ public class TechnicalIndicatorsCalculator {
      * @return [upperBand, middleBand, lowerBand] 或 null 如果數據不足
      */
     public synchronized double[] calculateBollingerBands() {
-        if (priceHistory.size() < bollingerPeriod) {
+        if (pipeline.getUpdateCount() < bollingerPeriod) {
             return null; // 數據不足
         }
-
-        // 計算中軌（簡單移動平均）
-        double middleBand = calculateSMA(priceHistory, bollingerPeriod);
-
-        // 計算標準差
-        double stdDev = calculateStandardDeviation(priceHistory, bollingerPeriod);
-
-        // 上軌和下軌
-        double upperBand = middleBand + (bollingerStdDevMultiplier * stdDev);
-        double lowerBand = middleBand - (bollingerStdDevMultiplier * stdDev);
-
-        return new double[]{upperBand, middleBand, lowerBand};
+        return bollinger.values();
     }
 
     /**
@@ -124,179 +97,16 @@ public class TechnicalIndicatorsCalculator {
      * @return [kValue, dValue, jValue] 或 null 如果數據不足
      */
     public synchronized double[] calculateKDJ() {
-        int n = Math.min(priceHistory.size(), Math.min(highHistory.size(), lowHistory.size()));
-        if (n < kdjPeriod) {
+        if (pipeline.getUpdateCount() < kdjPeriod) {
             return null; // 數據不足
         }
-
-        // 計算RSV (Raw Stochastic Value)
-        double currentPrice = priceHistory.get(n - 1);
-        double highestHigh = getHighestHigh(kdjPeriod);
-        double lowestLow = getLowestLow(kdjPeriod);
-
-        double rsv = 50.0; // 預設中性，避免極端值造成後續J失真
-        if (highestHigh > 0 && lowestLow != Double.MAX_VALUE && highestHigh != lowestLow) {
-            rsv = ((currentPrice - lowestLow) / (highestHigh - lowestLow)) * 100;
-        }
-
-        // 簡化版KDJ計算（實際應用中會使用更複雜的平滑算法）
-        double kValue = rsv; // 簡化：K = RSV
-        List<Double> kHist = getKHistory();
-        // 若樣本不足，先用 K 當作 D，避免 0 造成 J 爆衝
-        double dValue = (kHist.size() >= dPeriod) ? calculateSMA(kHist, dPeriod) : kValue;
-        double jValue = 3 * kValue - 2 * dValue; // J = 3K - 2D
-
-        return new double[]{kValue, dValue, jValue};
-    }
-
-    // ========== 輔助計算方法 ==========
-    /**
-     * 計算指數移動平均（EMA）
-     */
-    private double calculateEMA(List<Double> data, int period) {
-        if (data.size() < period) {
-            return 0;
-        }
-        // 初始種子用最早 period 筆的 SMA
-        double sum = 0;
-        for (int i = 0; i < period; i++) sum += data.get(i);
-        double ema = sum / period;
-        double multiplier = 2.0 / (period + 1);
-        for (int i = period; i < data.size(); i++) {
-            ema = (data.get(i) - ema) * multiplier + ema;
-        }
-        return ema;
+        return kdj.values();
     }
 
     /**
-     * 計算簡單移動平均（SMA）
+     * 底層指標管線（可再註冊額外指標，例如 ATR、OBV）
      */
-    private double calculateSMA(List<Double> data, int period) {
-        if (data.size() < period) {
-            return 0;
-        }
-
-        double sum = 0;
-        for (int i = data.size() - period; i < data.size(); i++) {
-            sum += data.get(i);
-        }
-
-        return sum / period;
-    }
-
-    /**
-     * 計算標準差
-     */
-    private double calculateStandardDeviation(List<Double> data, int period) {
-        if (data.size() < period) {
-            return 0;
-        }
-
-        double mean = calculateSMA(data, period);
-        double sumSquaredDiff = 0;
-
-        for (int i = data.size() - period; i < data.size(); i++) {
-            double diff = data.get(i) - mean;
-            sumSquaredDiff += diff * diff;
-        }
-
-        return Math.sqrt(sumSquaredDiff / period);
-    }
-
-    /**
-     * 獲取指定期間內的最高價
-     */
-    private double getHighestHigh(int period) {
-        if (highHistory.size() < period) {
-            return 0;
-        }
-
-        double highest = highHistory.get(highHistory.size() - period);
-        for (int i = highHistory.size() - period + 1; i < highHistory.size(); i++) {
-            highest = Math.max(highest, highHistory.get(i));
-        }
-
-        return highest;
-    }
-
-    /**
-     * 獲取指定期間內的最低價
-     */
-    private double getLowestLow(int period) {
-        if (lowHistory.size() < period) {
-            return Double.MAX_VALUE;
-        }
-
-        double lowest = lowHistory.get(lowHistory.size() - period);
-        for (int i = lowHistory.size() - period + 1; i < lowHistory.size(); i++) {
-            lowest = Math.min(lowest, lowHistory.get(i));
-        }
-
-        return lowest;
-    }
-
-    /**
-     * 計算MACD歷史數據（用於信號線計算）
-     */
-    private List<Double> calculateMACDHistory(List<Double> prices) {
-        List<Double> macdHistory = new ArrayList<>();
-
-        for (int i = macdLongPeriod; i <= prices.size(); i++) {
-            List<Double> subPrices = prices.subList(0, i);
-            double shortEMA = calculateEMA(subPrices, macdShortPeriod);
-            double longEMA = calculateEMA(subPrices, macdLongPeriod);
-            macdHistory.add(shortEMA - longEMA);
-        }
-
-        return macdHistory;
-    }
-
-    /**
-     * 獲取K值歷史數據（簡化版）
-     */
-    private List<Double> getKHistory() {
-        // 簡化實作：返回最近幾個RSV值
-        List<Double> kHistory = new ArrayList<>();
-        int n = Math.min(priceHistory.size(), Math.min(highHistory.size(), lowHistory.size()));
-        if (n <= 0) return kHistory;
-
-        for (int i = Math.max(0, n - dPeriod); i < n; i++) {
-            if (i >= kdjPeriod - 1) {
-                // 計算該點的RSV
-                double price = priceHistory.get(i);
-                double high = getHighestHighAt(i, kdjPeriod);
-                double low = getLowestLowAt(i, kdjPeriod);
-
-                double rsv = 0;
-                if (high != low) {
-                    rsv = ((price - low) / (high - low)) * 100;
-                }
-                kHistory.add(rsv);
-            }
-        }
-
-        return kHistory;
-    }
-
-    private double getHighestHighAt(int index, int period) {
-        if (highHistory.isEmpty()) return 0.0;
-        int safeIndex = Math.min(index, highHistory.size() - 1);
-        int start = Math.max(0, safeIndex - period + 1);
-        double highest = highHistory.get(start);
-        for (int i = start + 1; i <= safeIndex; i++) {
-            highest = Math.max(highest, highHistory.get(i));
-        }
-        return highest;
-    }
-
-    private double getLowestLowAt(int index, int period) {
-        if (lowHistory.isEmpty()) return Double.MAX_VALUE;
-        int safeIndex = Math.min(index, lowHistory.size() - 1);
-        int start = Math.max(0, safeIndex - period + 1);
-        double lowest = lowHistory.get(start);
-        for (int i = start + 1; i <= safeIndex; i++) {
-            lowest = Math.min(lowest, lowHistory.get(i));
-        }
-        return lowest;
+    public IndicatorPipeline getPipeline() {
+        return pipeline;
     }
 }
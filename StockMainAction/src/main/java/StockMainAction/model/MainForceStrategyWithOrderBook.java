@@ -8,6 +8,7 @@ import StockMainAction.model.core.OrderBook;
 import StockMainAction.model.core.Stock;
 import StockMainAction.model.core.OrderSide;
 import StockMainAction.model.strategy.OrderIntent;
+import StockMainAction.model.strategy.StrategyExecutionResult;
 import StockMainAction.model.strategy.OrderAgeTracker;
 import java.time.Clock;
 import java.util.Deque;
@@ -19,7 +20,6 @@ import java.util.Random;
 import StockMainAction.util.logging.MarketLogger;
 import StockMainAction.util.logging.LogicAudit;
 import java.util.Arrays;
-import StockMainAction.model.core.Transaction;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -64,6 +64,11 @@ public class MainForceStrategyWithOrderBook implements Trader {
                 "STRATEGY_FALLBACK", "main-force", 60_000);
     }
 
+    // 本 tick 的共用市場快照（指標、最佳五檔、Tape 統計只在 tick 開始時讀取一次）
+    private MarketContext context() {
+        return model.getMarketContext();
+    }
+
     // ===== 主力狀態機（更像主力的操作） =====
     private enum Phase { 待機, 吸籌, 拉抬, 出貨, 洗盤 }
     private Phase phase = Phase.待機;
@@ -466,9 +471,9 @@ public class MainForceStrategyWithOrderBook implements Trader {
         try {
             double currentPrice = stock.getPrice();
             double availableFunds = account.getAvailableFunds();
-            double sma = model.getMarketAnalyzer().calculateSMA();
-            double rsi = model.getMarketAnalyzer().getRSI();
-            double volatility = model.getMarketAnalyzer().calculateVolatility();
+            double sma = context().getSma();
+            double rsi = context().getRsi();
+            double volatility = context().getVolatility();
             double riskFactor = getRiskFactor(); // 計算主力的風險係數
 
             logger.info(String.format(
@@ -479,7 +484,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
             // 嘗試獲取價格趨勢
             double recentTrend = 0.0;
             try {
-                recentTrend = model.getMarketAnalyzer().getRecentPriceTrend();
+                recentTrend = context().getRecentPriceTrend();
                 logger.debug(String.format("最近價格趨勢: %.4f", recentTrend), "MAIN_FORCE_TREND");
             } catch (Exception e) {
                 logger.warn("無法獲取價格趨勢：" + e.getMessage(), "MAIN_FORCE_TREND");
@@ -527,7 +532,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
                         break;
                     case 吸籌:
                         if (phaseTicks >= getMinTicksForPhase(Phase.吸籌)
-                                && getAccumulatedStocks() > 500 && (recentTrend > 0.02 || sig.outPct >= model.getEventEffectiveThresholdOr(65) || sig.tickImbalance > 0.25)) {
+                                && getAccumulatedStocks() > 500 && (recentTrend > 0.02 || sig.outPct >= context().getEventThreshold() || sig.tickImbalance > 0.25)) {
                             phase = Phase.拉抬; phaseTicks = 0;
                             LogicAudit.info("MAIN_FORCE_PHASE", "吸籌 -> 拉抬");
                             decisionLog.append("【切換階段】吸籌 -> 拉抬\n");
@@ -553,7 +558,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
                             phase = Phase.待機; phaseTicks = 0;
                             LogicAudit.info("MAIN_FORCE_PHASE", "出貨 -> 待機");
                             decisionLog.append("【切換階段】出貨 -> 待機\n");
-                        } else if ((recentTrend < -0.03 || sig.inPct >= model.getEventEffectiveThresholdOr(65) || sig.tickImbalance < -0.25) && phaseTicks >= 10) {
+                        } else if ((recentTrend < -0.03 || sig.inPct >= context().getEventThreshold() || sig.tickImbalance < -0.25) && phaseTicks >= 10) {
                             phase = Phase.洗盤; phaseTicks = 0;
                             LogicAudit.info("MAIN_FORCE_PHASE", "出貨 -> 洗盤");
                             decisionLog.append("【切換階段】出貨 -> 洗盤\n");
@@ -578,7 +583,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
                         case 吸籌: {
                             double speedFactor = 1.0 + Math.min(1.0, sig.vps / 800.0);
                             double evtScale = 1.0;
-                            try { if (model != null) evtScale = model.getEventPositionScale(); }
+                            try { if (model != null) evtScale = context().getEventPositionScale(); }
                             catch (Exception ignore) { logOptionalFailure(ignore); }
                             int vol = Math.max(50, (int)(calculateValueBuyVolume() * 0.2 * speedFactor * evtScale * computeTechScale()));
                             // 分層掛單：在現價下方多層吸籌
@@ -605,11 +610,12 @@ public class MainForceStrategyWithOrderBook implements Trader {
                                     for (int i = buys.size() - 1; i >= 0 && maxCancel > 0; i--) {
                                         Order bo = buys.get(i);
                                         if (bo.getTrader() == this && bo.getPrice() < currentPrice * 0.98) {
-                                            if (orderBook.cancelOrder(bo.getId())) {
-                                                maxCancel--;
+                                            if (cancelOrder(orderBook, bo.getId(), () -> {
                                                 tickCanceledOrders++;
                                                 totalCanceledOrders++;
                                                 LogicAudit.info("MAIN_FORCE_CANCEL", String.format("buy id=%s px=%.4f", bo.getId(), bo.getPrice()));
+                                            })) {
+                                                maxCancel--;
                                             }
                                         }
                                     }
@@ -627,13 +633,13 @@ public class MainForceStrategyWithOrderBook implements Trader {
                             double wallBoost = wall.sellWall ? 1.3 : 1.0;
                             double flowBoost = 1.0 + Math.max(0.0, Math.min(0.5, sig.tickImbalance)); // 失衡偏多時增加至+50%
                             double evtScale = 1.0;
-                            try { if (model != null) evtScale = model.getEventPositionScale(); }
+                            try { if (model != null) evtScale = context().getEventPositionScale(); }
                             catch (Exception ignore) { logOptionalFailure(ignore); }
                             // 指標倉位縮放：MACD 直方 >0 放大、<0 縮小；K>80 減倉，K<20 放大
                             double techScale = 1.0;
                             try {
-                                double macdHist = model.getLastMacdHist();
-                                double kVal = model.getLastK();
+                                double macdHist = context().getMacdHist();
+                                double kVal = context().getK();
                                 if (!Double.isNaN(macdHist)) techScale *= (1.0 + Math.max(-0.2, Math.min(0.2, macdHist * 0.5)));
                                 if (!Double.isNaN(kVal)) { if (kVal > 80) techScale *= 0.85; else if (kVal < 20) techScale *= 1.15; }
         } catch (Exception ignore) { logOptionalFailure(ignore); }
@@ -649,11 +655,10 @@ public class MainForceStrategyWithOrderBook implements Trader {
                                         Order so = sellSnapshot.get(i);
                                         // 只允許主力撤自己的賣單，避免誤傷用戶掛單
                                         if (so != null && so.getTrader() == this && so.getPrice() <= currentPrice * 1.01) {
-                                            boolean ok = orderBook.cancelOrder(so.getId());
-                                            if (ok) {
+                                            cancelOrder(orderBook, so.getId(), () -> {
                                                 decisionLog.append(String.format("【MARKUP】撤銷賣單ID=%s 價格=%.2f 量=%d\n", so.getId(), so.getPrice(), so.getVolume()));
                                                 LogicAudit.info("MAIN_FORCE_CANCEL", String.format("sell id=%s px=%.4f", so.getId(), so.getPrice()));
-                                            }
+                                            });
                                         }
                                     }
                                 }
@@ -668,7 +673,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
                             if (hold > 0) {
                                 double speedFactor = 1.0 + Math.min(1.0, sig.vps / 800.0);
                                 double evtScale = 1.0;
-                                try { if (model != null) evtScale = model.getEventPositionScale(); }
+                                try { if (model != null) evtScale = context().getEventPositionScale(); }
                                 catch (Exception ignore) { logOptionalFailure(ignore); }
                                 int chunk = Math.max(20, (int)(hold / 5 * speedFactor * evtScale * computeTechScale()));
                                 int placed = 0;
@@ -695,11 +700,12 @@ public class MainForceStrategyWithOrderBook implements Trader {
                                         for (int i = sells.size() - 1; i >= 0 && maxCancel > 0; i--) {
                                             Order so = sells.get(i);
                                             if (so.getTrader() == this && so.getPrice() > currentPrice * 1.02) {
-                                                if (orderBook.cancelOrder(so.getId())) {
-                                                    maxCancel--;
+                                                if (cancelOrder(orderBook, so.getId(), () -> {
                                                     tickCanceledOrders++;
                                                     totalCanceledOrders++;
                                                     LogicAudit.info("MAIN_FORCE_CANCEL", String.format("sell id=%s px=%.4f", so.getId(), so.getPrice()));
+                                                })) {
+                                                    maxCancel--;
                                                 }
                                             }
                                         }
@@ -713,9 +719,9 @@ public class MainForceStrategyWithOrderBook implements Trader {
                         }
                         case 洗盤: {
                             double evtScale = 1.0;
-                            try { if (model != null) evtScale = model.getEventPositionScale(); }
+                            try { if (model != null) evtScale = context().getEventPositionScale(); }
                             catch (Exception ignore) { logOptionalFailure(ignore); }
-                            int wash = (int)(calculateWashVolume(volatility) * (sig.inPct >= model.getEventEffectiveThresholdOr(65) ? 1.3 : 1.0) * evtScale);
+                            int wash = (int)(calculateWashVolume(volatility) * (sig.inPct >= context().getEventThreshold() ? 1.3 : 1.0) * evtScale);
                             洗盤操作(wash);
                             decisionLog.append(String.format("【WASH】洗盤賣出 %d 股\n", wash));
                             cooldownTicks = 2;
@@ -861,9 +867,9 @@ public class MainForceStrategyWithOrderBook implements Trader {
         try {
             double limitPrice = computeBuyLimitPrice(
                     stock.getPrice(),
-                    model.getMarketAnalyzer().getSMA(),
-                    model.getMarketAnalyzer().getRSI(),
-                    model.getMarketAnalyzer().getVolatility()
+                    context().getSma(),
+                    context().getRsi(),
+                    context().getVolatility()
             );
 
             logger.debug(String.format(
@@ -918,9 +924,9 @@ public class MainForceStrategyWithOrderBook implements Trader {
         try {
             double limitPrice = computeSellLimitPrice(
                     stock.getPrice(),
-                    model.getMarketAnalyzer().getSMA(),
-                    model.getMarketAnalyzer().getRSI(),
-                    model.getMarketAnalyzer().getVolatility()
+                    context().getSma(),
+                    context().getRsi(),
+                    context().getVolatility()
             );
 
             logger.debug(String.format(
@@ -992,18 +998,18 @@ public class MainForceStrategyWithOrderBook implements Trader {
             // 根據洗盤需求決定訂單類型
             if (random.nextDouble() < 0.3) {
                 // FOK賣單
-                boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
-                        volume, price * 0.99, "main force wash FOK sell")).accepted();
-                if (success) {
-                    logger.info(String.format(
-                            "洗盤操作成功：FOK賣出 %d 股 @ %.2f",
-                            volume, price * 0.99
-                    ), "MAIN_FORCE_WASH");
-                    return volume;
-                } else {
-                    logger.warn("洗盤操作失敗：FOK賣單未成交", "MAIN_FORCE_WASH");
-                    return 0;
-                }
+                StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
+                        volume, price * 0.99, "main force wash FOK sell"), r -> {
+                    if (r.accepted()) {
+                        logger.info(String.format(
+                                "洗盤操作成功：FOK賣出 %d 股 @ %.2f",
+                                volume, price * 0.99
+                        ), "MAIN_FORCE_WASH");
+                    } else {
+                        logger.warn("洗盤操作失敗：FOK賣單未成交", "MAIN_FORCE_WASH");
+                    }
+                });
+                return submittedOrFilled(result, volume);
             } else {
                 // 普通限價賣單
                 Order sellOrder = Order.createLimitSellOrder(price, volume, this);
@@ -1051,13 +1057,11 @@ public class MainForceStrategyWithOrderBook implements Trader {
             boolean usedMarket = false;
             int executedVolume = volume;
             try {
-                double tps = model != null ? model.getRecentTPS(40) : 0.0;
-                double imb = model != null ? model.getRecentTickImbalance(40) : 0.0;
+                double tps = model != null ? context().getFlow().tps() : 0.0;
+                double imb = model != null ? context().getFlow().tickImbalance() : 0.0;
                 boolean strongFlow = (tps >= 2.5) && (imb > 0.20);
                 if (strongFlow) {
-                    var result = executeIntent(orderBook, OrderIntent.market(OrderSide.BUY,
-                            volume, "main force market buy"));
-                    executedVolume = result.execution() != null ? result.execution().filledVolume() : 0;
+                    executedVolume = liftMarketBuy(volume, price);
                     usedMarket = true;
                 } else {
                     double px = stock.getPrice() * 1.001; // 小幅抬價
@@ -1068,18 +1072,11 @@ public class MainForceStrategyWithOrderBook implements Trader {
                             volume, px, "main force limit buy"));
                 }
             } catch (Exception ex) {
-                var result = executeIntent(orderBook, OrderIntent.market(OrderSide.BUY,
-                        volume, "main force market buy"));
-                executedVolume = result.execution() != null ? result.execution().filledVolume() : 0;
+                executedVolume = liftMarketBuy(volume, price);
                 usedMarket = true;
             }
 
-            if (usedMarket) {
-                logger.info(String.format(
-                        "拉抬操作完成：市價買入 %d/%d 股，預計成本上限 %.2f",
-                        executedVolume, volume, price * volume
-                ), "MAIN_FORCE_LIFT");
-            } else {
+            if (!usedMarket) {
                 logger.info(String.format(
                         "拉抬操作成功：限價靠檔買入 %d 股，掛價參考 %.2f",
                         volume, price
@@ -1090,10 +1087,10 @@ public class MainForceStrategyWithOrderBook implements Trader {
             try {
                 InOutTapeSignal sig = computeInOutAndSpeed();
                 WallInfo wall = computeOrderBookWalls();
-                int effTh = model != null ? model.getEventEffectiveThresholdOr(65) : 65;
-                double posScale = model != null ? model.getEventPositionScale() : 1.0;
-                double macdHist = model != null ? model.getLastMacdHist() : Double.NaN;
-                double kVal = model != null ? model.getLastK() : Double.NaN;
+                int effTh = model != null ? context().getEventThreshold() : 65;
+                double posScale = model != null ? context().getEventPositionScale() : 1.0;
+                double macdHist = model != null ? context().getMacdHist() : Double.NaN;
+                double kVal = model != null ? context().getK() : Double.NaN;
                 long delta = (long)Math.max(0, sig.outPct) - (long)Math.max(0, sig.inPct);
                 StockMainAction.util.logging.DecisionFactorLogger.log(
                         "MainForce", getPhaseName(), "LIFT", usedMarket?"MARKET":"LIMIT",
@@ -1111,6 +1108,32 @@ public class MainForceStrategyWithOrderBook implements Trader {
         }
     }
 
+    // 市價拉抬：成交結果（平行決策階段於排序提交後）回呼時才記錄
+    private int liftMarketBuy(int volume, double price) {
+        StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.market(OrderSide.BUY,
+                volume, "main force market buy"), r -> logger.info(String.format(
+                        "拉抬操作完成：市價買入 %d/%d 股，預計成本上限 %.2f",
+                        r.filledVolume(), volume, price * volume
+                ), "MAIN_FORCE_LIFT"));
+        return result.pending() ? volume : result.filledVolume();
+    }
+
+    private int marketSell(int volume) {
+        StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.market(OrderSide.SELL,
+                volume, "main force market sell"), r -> logger.info(String.format(
+                        "市價賣出完成：實際賣出 %d/%d 股",
+                        r.filledVolume(), volume
+                ), "MAIN_FORCE_MARKET_SELL"));
+        return result.pending() ? volume : result.filledVolume();
+    }
+
+    /**
+     * FOK 結果換算成交量；平行決策階段尚未執行，回傳提交量（與限價單相同）
+     */
+    private static int submittedOrFilled(StrategyExecutionResult result, int volume) {
+        return result.pending() || result.accepted() ? volume : 0;
+    }
+
     /**
      * 市價賣出操作
      */
@@ -1134,13 +1157,11 @@ public class MainForceStrategyWithOrderBook implements Trader {
             boolean usedMarket = false;
             int executedVolume = volume;
             try {
-                double tps = model != null ? model.getRecentTPS(40) : 0.0;
-                double imb = model != null ? model.getRecentTickImbalance(40) : 0.0;
+                double tps = model != null ? context().getFlow().tps() : 0.0;
+                double imb = model != null ? context().getFlow().tickImbalance() : 0.0;
                 boolean strongFlow = (tps >= 2.5) && (imb < -0.20);
                 if (strongFlow) {
-                    var result = executeIntent(orderBook, OrderIntent.market(OrderSide.SELL,
-                            volume, "main force market sell"));
-                    executedVolume = result.execution() != null ? result.execution().filledVolume() : 0;
+                    executedVolume = marketSell(volume);
                     usedMarket = true;
                 } else {
                     double px = stock.getPrice() * 0.999; // 小幅讓價
@@ -1151,18 +1172,11 @@ public class MainForceStrategyWithOrderBook implements Trader {
                             volume, px, "main force limit sell"));
                 }
             } catch (Exception ex) {
-                var result = executeIntent(orderBook, OrderIntent.market(OrderSide.SELL,
-                        volume, "main force market sell"));
-                executedVolume = result.execution() != null ? result.execution().filledVolume() : 0;
+                executedVolume = marketSell(volume);
                 usedMarket = true;
             }
 
-            if (usedMarket) {
-                logger.info(String.format(
-                        "市價賣出完成：實際賣出 %d/%d 股",
-                        executedVolume, volume
-                ), "MAIN_FORCE_MARKET_SELL");
-            } else {
+            if (!usedMarket) {
                 logger.info(String.format(
                         "限價靠檔賣出成功：預計賣出 %d 股",
                         volume
@@ -1173,10 +1187,10 @@ public class MainForceStrategyWithOrderBook implements Trader {
             try {
                 InOutTapeSignal sig = computeInOutAndSpeed();
                 WallInfo wall = computeOrderBookWalls();
-                int effTh = model != null ? model.getEventEffectiveThresholdOr(65) : 65;
-                double posScale = model != null ? model.getEventPositionScale() : 1.0;
-                double macdHist = model != null ? model.getLastMacdHist() : Double.NaN;
-                double kVal = model != null ? model.getLastK() : Double.NaN;
+                int effTh = model != null ? context().getEventThreshold() : 65;
+                double posScale = model != null ? context().getEventPositionScale() : 1.0;
+                double macdHist = model != null ? context().getMacdHist() : Double.NaN;
+                double kVal = model != null ? context().getK() : Double.NaN;
                 long delta = (long)Math.max(0, sig.outPct) - (long)Math.max(0, sig.inPct);
                 StockMainAction.util.logging.DecisionFactorLogger.log(
                         "MainForce", getPhaseName(), "SELL", usedMarket?"MARKET":"LIMIT",
@@ -1214,22 +1228,21 @@ public class MainForceStrategyWithOrderBook implements Trader {
             }
 
             // 使用FOK買單
-            boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
-                    volume, price, "main force precise FOK buy")).accepted();
-
-            if (success) {
-                logger.info(String.format(
-                        "精確控制買入成功：FOK買入 %d 股 @ %.2f",
-                        volume, price
-                ), "MAIN_FORCE_PRECISE_BUY");
-                return volume;
-            } else {
-                logger.warn(String.format(
-                        "精確控制買入失敗：無法完全成交 %d 股 @ %.2f",
-                        volume, price
-                ), "MAIN_FORCE_PRECISE_BUY");
-                return 0;
-            }
+            StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
+                    volume, price, "main force precise FOK buy"), r -> {
+                if (r.accepted()) {
+                    logger.info(String.format(
+                            "精確控制買入成功：FOK買入 %d 股 @ %.2f",
+                            volume, price
+                    ), "MAIN_FORCE_PRECISE_BUY");
+                } else {
+                    logger.warn(String.format(
+                            "精確控制買入失敗：無法完全成交 %d 股 @ %.2f",
+                            volume, price
+                    ), "MAIN_FORCE_PRECISE_BUY");
+                }
+            });
+            return submittedOrFilled(result, volume);
         } catch (Exception e) {
             logger.error(String.format(
                     "精確控制買入異常：買入量=%d, 錯誤=%s",
@@ -1259,22 +1272,21 @@ public class MainForceStrategyWithOrderBook implements Trader {
             }
 
             // 使用FOK賣單
-            boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
-                    volume, price, "main force precise FOK sell")).accepted();
-
-            if (success) {
-                logger.info(String.format(
-                        "精確控制賣出成功：FOK賣出 %d 股 @ %.2f",
-                        volume, price
-                ), "MAIN_FORCE_PRECISE_SELL");
-                return volume;
-            } else {
-                logger.warn(String.format(
-                        "精確控制賣出失敗：無法完全成交 %d 股 @ %.2f",
-                        volume, price
-                ), "MAIN_FORCE_PRECISE_SELL");
-                return 0;
-            }
+            StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
+                    volume, price, "main force precise FOK sell"), r -> {
+                if (r.accepted()) {
+                    logger.info(String.format(
+                            "精確控制賣出成功：FOK賣出 %d 股 @ %.2f",
+                            volume, price
+                    ), "MAIN_FORCE_PRECISE_SELL");
+                } else {
+                    logger.warn(String.format(
+                            "精確控制賣出失敗：無法完全成交 %d 股 @ %.2f",
+                            volume, price
+                    ), "MAIN_FORCE_PRECISE_SELL");
+                }
+            });
+            return submittedOrFilled(result, volume);
         } catch (Exception e) {
             logger.error(String.format(
                     "精確控制賣出異常：賣出量=%d, 錯誤=%s",
@@ -1508,7 +1520,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
             double vol = 0.0;
             try {
                 if (model != null && model.getMarketAnalyzer() != null) {
-                    vol = Math.max(0.0, model.getMarketAnalyzer().calculateVolatility());
+                    vol = Math.max(0.0, context().getVolatility());
                 }
         } catch (Exception ignore) { logOptionalFailure(ignore); }
             double volatilityRisk = clamp(vol / Math.max(0.005, riskVolatilityFull), 0.0, 1.0);
@@ -1517,7 +1529,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
             double trendRisk = 0.0;
             try {
                 if (model != null && model.getMarketAnalyzer() != null) {
-                    double trend = model.getMarketAnalyzer().getRecentPriceTrend();
+                    double trend = context().getRecentPriceTrend();
                     trendRisk = clamp((-trend) / Math.max(0.005, riskTrendDownFull), 0.0, 1.0) * exposureRisk;
                 }
         } catch (Exception ignore) { logOptionalFailure(ignore); }
@@ -1550,26 +1562,12 @@ public class MainForceStrategyWithOrderBook implements Trader {
     private InOutTapeSignal computeInOutAndSpeed() {
         InOutTapeSignal s = new InOutTapeSignal();
         try {
-            java.util.List<Transaction> recent = model.getRecentTransactions(50);
-            if (recent.isEmpty()) return s;
-            long now = System.currentTimeMillis();
-            long earliest = recent.get(0).getTimestamp();
-            long spanMs = Math.max(1000L, now - earliest);
-            long inVol = 0, outVol = 0, vol = 0;
-            int buyTicks = 0, sellTicks = 0;
-            for (Transaction t : recent) {
-                vol += t.getVolume();
-                // 以 buyerInitiated 判定：買方主動=外盤；賣方主動=內盤
-                if (t.isBuyerInitiated()) { outVol += t.getVolume(); buyTicks++; } else { inVol += t.getVolume(); sellTicks++; }
-            }
-            long tot = Math.max(1, inVol + outVol);
-            s.inPct = (int)Math.round(inVol * 100.0 / tot);
-            s.outPct = 100 - s.inPct;
-            double secs = spanMs / 1000.0;
-            s.tps = recent.size() / Math.max(1.0, secs);
-            s.vps = vol / Math.max(1.0, secs);
-            int n = Math.max(1, buyTicks + sellTicks);
-            s.tickImbalance = (buyTicks - sellTicks) / (double) n; // >0 偏多，<0 偏空
+            MarketContext.TapeStats tape = context().getTape();
+            s.inPct = tape.inPct();
+            s.outPct = tape.outPct();
+            s.tps = tape.tps();
+            s.vps = tape.vps();
+            s.tickImbalance = tape.tickImbalance(); // >0 偏多，<0 偏空
         } catch (Exception ignore) { logOptionalFailure(ignore); }
         return s;
     }
@@ -1578,12 +1576,16 @@ public class MainForceStrategyWithOrderBook implements Trader {
     private WallInfo computeOrderBookWalls() {
         WallInfo w = new WallInfo();
         try {
-            java.util.List<StockMainAction.model.core.Order> buys = orderBook.getTopBuyOrders(5);
-            java.util.List<StockMainAction.model.core.Order> sells = orderBook.getTopSellOrders(5);
-            int buySum = buys.stream().mapToInt(StockMainAction.model.core.Order::getVolume).sum();
-            int sellSum = sells.stream().mapToInt(StockMainAction.model.core.Order::getVolume).sum();
-            int maxB = buys.stream().mapToInt(StockMainAction.model.core.Order::getVolume).max().orElse(0);
-            int maxS = sells.stream().mapToInt(StockMainAction.model.core.Order::getVolume).max().orElse(0);
+            MarketContext ctx = context();
+            int buySum = 0, sellSum = 0, maxB = 0, maxS = 0;
+            for (int i = 0; i < ctx.getBidLevels(); i++) {
+                buySum += ctx.getBidVolume(i);
+                maxB = Math.max(maxB, ctx.getBidVolume(i));
+            }
+            for (int i = 0; i < ctx.getAskLevels(); i++) {
+                sellSum += ctx.getAskVolume(i);
+                maxS = Math.max(maxS, ctx.getAskVolume(i));
+            }
             w.buyWall = buySum>0 && maxB*100/buySum>=40 && maxB>= (int)(1.5 * Math.max(1, maxS));
             w.sellWall = sellSum>0 && maxS*100/sellSum>=40 && maxS>= (int)(1.5 * Math.max(1, maxB));
         } catch (Exception ignore) { logOptionalFailure(ignore); }
@@ -1594,8 +1596,8 @@ public class MainForceStrategyWithOrderBook implements Trader {
     private double computeTechScale() {
         double scale = 1.0;
         try {
-            double macdHist = model != null ? model.getLastMacdHist() : Double.NaN;
-            double kVal = model != null ? model.getLastK() : Double.NaN;
+            double macdHist = model != null ? context().getMacdHist() : Double.NaN;
+            double kVal = model != null ? context().getK() : Double.NaN;
             if (!Double.isNaN(macdHist)) {
                 double adj = Math.max(-0.2, Math.min(0.2, macdHist * 0.5)); // ±20%
                 scale *= (1.0 + adj);
@@ -1614,7 +1616,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
         if (orderBook == null || model == null) return;
         
         double currentPrice = model.getStock().getPrice();
-        double sma = model.getMarketAnalyzer().calculateSMA();
+        double sma = context().getSma();
         
         List<Order> myOrders = new ArrayList<>();
         myOrders.addAll(orderBook.getBuyOrders().stream()
@@ -1673,7 +1675,7 @@ public class MainForceStrategyWithOrderBook implements Trader {
             
             // 執行取消
             if (shouldCancel) {
-                orderBook.cancelOrder(order.getId());
+                cancelOrder(orderBook, order.getId());
                 orderAges.remove(order.getId());
                 logger.info(String.format(
                     "[主力訂單管理] 取消%s訂單，價格=%.2f，原因=%s，階段=%s",
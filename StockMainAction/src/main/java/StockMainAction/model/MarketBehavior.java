@@ -6,6 +6,7 @@ import StockMainAction.model.core.OrderBook;
 import StockMainAction.model.core.Stock;
 import StockMainAction.model.core.OrderSide;
 import StockMainAction.model.strategy.OrderIntent;
+import StockMainAction.model.strategy.StrategyExecutionResult;
 import StockMainAction.StockMarketSimulation;
 import StockMainAction.model.user.UserAccount;
 import java.util.List;
@@ -14,6 +15,7 @@ import StockMainAction.util.logging.MarketLogger;
 import StockMainAction.util.logging.LogicAudit;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.time.Clock;
 
 /**
  * 市場波動 - 負責模擬智能的市場波動。根據市場條件動態生成訂單，並提交給訂單簿。實現 Trader 接口，作為市場的一個參與者。
@@ -44,6 +46,7 @@ public class MarketBehavior implements Trader {
 
     // 需要在類的成員變量中添加
     private long lastOrderTime = 0; // 上次下單時間
+    private final Clock clock;
     private static final long ORDER_COOLDOWN_MS = 2000; // 下單冷卻時間，2秒
 
     /**
@@ -60,6 +63,12 @@ public class MarketBehavior implements Trader {
 
     public MarketBehavior(double initialPrice, double initialFunds, int initialStocks,
             StockMarketModel model, OrderBook orderBook, Random random) {
+        this(initialPrice, initialFunds, initialStocks, model, orderBook, random, Clock.systemUTC());
+    }
+
+    public MarketBehavior(double initialPrice, double initialFunds, int initialStocks,
+            StockMarketModel model, OrderBook orderBook, Random random, Clock clock) {
+        this.clock = java.util.Objects.requireNonNull(clock, "clock");
         this.longTermMeanPrice = initialPrice;
         this.account = new UserAccount(initialFunds, initialStocks);
         this.model = model;
@@ -88,10 +97,10 @@ public class MarketBehavior implements Trader {
     @Override
     public void updateAfterTransaction(String type, int volume, double price) {
         if (type.equals("buy")) {
-            logger.info(String.format("限價買入後更新：%d 股，成交價 %.2f", volume, price), "MARKET_BEHAVIOR");
+            logger.infof("MARKET_BEHAVIOR", "限價買入後更新：%d 股，成交價 %.2f", volume, price);
         } else if (type.equals("sell")) {
             // 限價單賣出：增加現金
-            logger.info(String.format("限價賣出後更新：%d 股，成交價 %.2f", volume, price), "MARKET_BEHAVIOR");
+            logger.infof("MARKET_BEHAVIOR", "限價賣出後更新：%d 股，成交價 %.2f", volume, price);
         }
         // 可在此更新介面標籤或其他 UI
     }
@@ -100,9 +109,9 @@ public class MarketBehavior implements Trader {
     public void updateAverageCostPrice(String type, int volume, double price) {
         // 市價單的狀態更新，如需更細緻的平均成本計算，可在此實作
         if ("buy".equals(type)) {
-            logger.info(String.format("市價買入後更新：%d 股，成交價 %.2f", volume, price), "MARKET_BEHAVIOR");
+            logger.infof("MARKET_BEHAVIOR", "市價買入後更新：%d 股，成交價 %.2f", volume, price);
         } else if ("sell".equals(type)) {
-            logger.info(String.format("市價賣出後更新：%d 股，成交價 %.2f", volume, price), "MARKET_BEHAVIOR");
+            logger.infof("MARKET_BEHAVIOR", "市價賣出後更新：%d 股，成交價 %.2f", volume, price);
         }
     }
 
@@ -117,14 +126,14 @@ public class MarketBehavior implements Trader {
     public void marketFluctuation(Stock stock, OrderBook orderBook, double volatility, int recentVolume) {
         try {
             timeStep++;
+            // 每個 tick 都會執行，DEBUG 關閉時整段診斷輸出不組參數
+            final boolean debug = logger.isDebugEnabled("MARKET_BEHAVIOR");
 
-            LogicAudit.info("MARKET_BEHAVIOR", String.format("start t=%d price=%.4f vol=%.4f recentVol=%d",
-                    timeStep, stock.getPrice(), volatility, recentVolume));
-
-            logger.debug(String.format(
-                    "市場波動開始：時間步=%d, 當前價格=%.2f, 波動率=%.4f, 近期成交量=%d",
-                    timeStep, stock.getPrice(), volatility, recentVolume
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "市場波動開始：時間步=%d, 當前價格=%.2f, 波動率=%.4f, 近期成交量=%d",
+                        timeStep, stock.getPrice(), volatility, recentVolume);
+            }
 
             double currentPrice = stock.getPrice();
 
@@ -132,91 +141,99 @@ public class MarketBehavior implements Trader {
             double drift = marketTrend * 0.01;
             double shock = volatility * random.nextGaussian();
 
-            logger.debug(String.format(
-                    "市場趨勢計算：趨勢因子=%.4f, 隨機衝擊=%.4f",
-                    drift, shock
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "市場趨勢計算：趨勢因子=%.4f, 隨機衝擊=%.4f",
+                        drift, shock);
+            }
 
             // 2. 均值回歸
             double meanReversionSpeed = 0.005;
             double meanReversion = meanReversionSpeed * (longTermMeanPrice - currentPrice);
 
-            logger.debug(String.format(
-                    "均值回歸：長期均價=%.2f, 回歸因子=%.4f",
-                    longTermMeanPrice, meanReversion
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "均值回歸：長期均價=%.2f, 回歸因子=%.4f",
+                        longTermMeanPrice, meanReversion);
+            }
 
             // 3. 加入時間因素（開盤/收盤波動較大）
             double timeVolatilityFactor = getTimeVolatilityFactor();
 
-            logger.debug(String.format(
-                    "時間波動因子：時間步=%d, 因子=%.4f",
-                    timeStep, timeVolatilityFactor
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "時間波動因子：時間步=%d, 因子=%.4f",
+                        timeStep, timeVolatilityFactor);
+            }
 
             // 4. 突發事件
             double eventImpact = 0.0;
             if (random.nextDouble() < 0.01) {
                 eventImpact = currentPrice * (0.02 * (random.nextDouble() - 0.5));
-                logger.info(String.format(
+                logger.infof("MARKET_BEHAVIOR",
                         "突發事件發生：影響=%.4f",
-                        eventImpact
-                ), "MARKET_BEHAVIOR");
+                        eventImpact);
             }
 
             // 5. 計算價格變動
             double priceChangeRatio = drift + shock + meanReversion + eventImpact;
             priceChangeRatio *= timeVolatilityFactor;
 
-            logger.debug(String.format(
-                    "初始價格變動計算：變動比率=%.4f",
-                    priceChangeRatio
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "初始價格變動計算：變動比率=%.4f",
+                        priceChangeRatio);
+            }
 
             // 6. 訂單簿買賣不平衡
             double orderImbalance = calculateOrderImbalance(orderBook);
             priceChangeRatio += orderImbalance * 0.005;
 
-            logger.debug(String.format(
-                    "訂單不平衡影響：不平衡度=%.4f, 調整後變動比率=%.4f",
-                    orderImbalance, priceChangeRatio
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "訂單不平衡影響：不平衡度=%.4f, 調整後變動比率=%.4f",
+                        orderImbalance, priceChangeRatio);
+            }
 
             // === A. 技術面 ===
-            double sma = model.getMarketAnalyzer().calculateSMA();
+            double sma = model.getMarketContext().getSma();
             double smaScore = Double.isNaN(sma) ? 0
                     : (currentPrice - sma) / sma; // 正值 → 價格高於均線
 
-            logger.debug(String.format(
-                    "技術面分析：SMA=%.2f, SMA分數=%.4f",
-                    sma, smaScore
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "技術面分析：SMA=%.2f, SMA分數=%.4f",
+                        sma, smaScore);
+            }
 
             // === B. 訂單簿面 ===
             double imbalanceScore = orderImbalance; // 已是 -1 ~ +1 之間
 
-            logger.debug(String.format(
-                    "訂單簿分析：不平衡分數=%.4f",
-                    imbalanceScore
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "訂單簿分析：不平衡分數=%.4f",
+                        imbalanceScore);
+            }
 
             // === C. 動能面 ===
             double momentumScore = priceChangeRatio; // -0.x ~ +0.x
 
-            logger.debug(String.format(
-                    "動能面分析：動能分數=%.4f",
-                    momentumScore
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "動能面分析：動能分數=%.4f",
+                        momentumScore);
+            }
 
             // === D. 量能面 ===
-            double avgVol = model.getMarketAnalyzer().getRecentAverageVolume();
+            double avgVol = model.getMarketContext().getRecentAverageVolume();
             double volumeScore = (avgVol == 0) ? 0
                     : (recentVolume - avgVol) / avgVol; // 放大 >0、縮量 <0
 
-            logger.debug(String.format(
-                    "量能面分析：平均成交量=%.2f, 量能分數=%.4f",
-                    avgVol, volumeScore
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "量能面分析：平均成交量=%.2f, 量能分數=%.4f",
+                        avgVol, volumeScore);
+            }
 
             // === E. 加權總分 ===
             double sentimentScore
@@ -225,37 +242,39 @@ public class MarketBehavior implements Trader {
                     + momentumScore * momentumWeight
                     + volumeScore * volumeWeight;
 
-            logger.info(String.format(
+            logger.infof("MARKET_BEHAVIOR",
                     "市場情緒綜合分數：%.4f (技術面權重=%.2f, 訂單簿權重=%.2f, 動能權重=%.2f, 量能權重=%.2f)",
-                    sentimentScore, smaWeight, imbalanceWeight, momentumWeight, volumeWeight
-            ), "MARKET_BEHAVIOR");
+                    sentimentScore, smaWeight, imbalanceWeight, momentumWeight, volumeWeight);
 
             // 7. 價格層級影響
             double priceLevelImpact = calculatePriceLevelImpact(orderBook);
             priceChangeRatio += priceLevelImpact * 0.005;
 
-            logger.debug(String.format(
-                    "價格層級影響：層級影響=%.4f, 調整後變動比率=%.4f",
-                    priceLevelImpact, priceChangeRatio
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "價格層級影響：層級影響=%.4f, 調整後變動比率=%.4f",
+                        priceLevelImpact, priceChangeRatio);
+            }
 
             // 8. 大單影響
             double largeOrderImpact = calculateLargeOrderImpact(orderBook);
             priceChangeRatio += largeOrderImpact;
 
-            logger.debug(String.format(
-                    "大單影響：大單影響=%.4f, 調整後變動比率=%.4f",
-                    largeOrderImpact, priceChangeRatio
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "大單影響：大單影響=%.4f, 調整後變動比率=%.4f",
+                        largeOrderImpact, priceChangeRatio);
+            }
 
             // 9. 成交量影響
             double volumeImpact = (recentVolume > 1000) ? 0.002 : (recentVolume < 100) ? -0.002 : 0.0;
             priceChangeRatio += volumeImpact;
 
-            logger.debug(String.format(
-                    "成交量影響：成交量=%d, 影響=%.4f, 調整後變動比率=%.4f",
-                    recentVolume, volumeImpact, priceChangeRatio
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "成交量影響：成交量=%d, 影響=%.4f, 調整後變動比率=%.4f",
+                        recentVolume, volumeImpact, priceChangeRatio);
+            }
 
             // 10. 新訂單價格
             double newOrderPrice = currentPrice * (1 + priceChangeRatio);
@@ -266,10 +285,11 @@ public class MarketBehavior implements Trader {
             newOrderPrice = Math.max(newOrderPrice, 0.1);
 
             if (originalNewPrice != newOrderPrice) {
-                logger.debug(String.format(
-                        "價格限制調整：原始計算價格=%.2f, 限制後價格=%.2f",
-                        originalNewPrice, newOrderPrice
-                ), "MARKET_BEHAVIOR");
+                if (debug) {
+                    logger.debugf("MARKET_BEHAVIOR",
+                            "價格限制調整：原始計算價格=%.2f, 限制後價格=%.2f",
+                            originalNewPrice, newOrderPrice);
+                }
             }
 
             // 11. 隨機浮動
@@ -277,38 +297,47 @@ public class MarketBehavior implements Trader {
             double priceBeforeRandom = newOrderPrice;
             newOrderPrice += newOrderPrice * randomFactor;
 
-            logger.debug(String.format(
-                    "隨機價格浮動：隨機因子=%.4f, 浮動前價格=%.2f, 浮動後價格=%.2f",
-                    randomFactor, priceBeforeRandom, newOrderPrice
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "隨機價格浮動：隨機因子=%.4f, 浮動前價格=%.2f, 浮動後價格=%.2f",
+                        randomFactor, priceBeforeRandom, newOrderPrice);
+            }
 
             // 12. 決定訂單量，並決定要下買單或賣單
             int orderVolume = calculateOrderVolume(volatility, recentVolume);
 
-            logger.debug(String.format(
-                    "訂單量計算：波動率=%.4f, 近期成交量=%d, 計算訂單量=%d",
-                    volatility, recentVolume, orderVolume
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "訂單量計算：波動率=%.4f, 近期成交量=%d, 計算訂單量=%d",
+                        volatility, recentVolume, orderVolume);
+            }
 
             // 修改：添加主動交易防抖機制，避免在短時間內多次下單
-            long currentTime = System.currentTimeMillis();
+            long currentTime = clock.millis();
             boolean shouldPlaceOrder = true;
 
+            // 本步完整計算過程寫入二進位事件日誌；未啟用時保留原本的文字稽核
+            if (!MarketEvents.marketFluctuation(currentTime, timeStep, currentPrice, volatility, recentVolume,
+                    drift, shock, meanReversion, timeVolatilityFactor, orderImbalance, sentimentScore,
+                    newOrderPrice, orderVolume)) {
+                LogicAudit.info("MARKET_BEHAVIOR", String.format("start t=%d price=%.4f vol=%.4f recentVol=%d",
+                        timeStep, currentPrice, volatility, recentVolume));
+            }
+
             // 如果距離上次下單時間太短，不進行交易
             if (currentTime - lastOrderTime < ORDER_COOLDOWN_MS) {
                 shouldPlaceOrder = false;
-                logger.debug(String.format(
-                        "交易防抖：距上次下單時間過短(%d ms)，跳過此次下單",
-                        currentTime - lastOrderTime
-                ), "MARKET_BEHAVIOR");
+                if (debug) {
+                    logger.debugf("MARKET_BEHAVIOR",
+                            "交易防抖：距上次下單時間過短(%d ms)，跳過此次下單",
+                            currentTime - lastOrderTime);
+                }
             }
 
             // 先計算本步的 bestBid/bestAsk/mid/makerOffset，供下單與撤單共同使用
-            List<Order> bestBids = orderBook.getTopBuyOrders(1);
-            List<Order> bestAsks = orderBook.getTopSellOrders(1);
-
-            double bestBid = bestBids.isEmpty() ? 0 : bestBids.get(0).getPrice();
-            double bestAsk = bestAsks.isEmpty() ? 0 : bestAsks.get(0).getPrice();
+            MarketContext context = model.getMarketContext();
+            double bestBid = context.getBestBid();
+            double bestAsk = context.getBestAsk();
 
             double mid;
             if (bestBid > 0 && bestAsk > 0 && bestBid <= bestAsk) {
@@ -350,8 +379,8 @@ public class MarketBehavior implements Trader {
                     executeIntent(orderBook, OrderIntent.limit(OrderSide.BUY,
                             buyOrder.getVolume(), buyPrice, "market maker quote buy"));
                     placed = true;
-                    logger.info(String.format("做市掛買：%d 股 @ %.2f (mid=%.2f, spread=%.3f%%)",
-                            buyVolume, buyPrice, mid, spreadRatio * 100), "MARKET_BEHAVIOR_MM");
+                    logger.infof("MARKET_BEHAVIOR_MM", "做市掛買：%d 股 @ %.2f (mid=%.2f, spread=%.3f%%)",
+                            buyVolume, buyPrice, mid, spreadRatio * 100);
                 }
 
                 if (sellVolume > 0 && sellPrice > 0) {
@@ -359,8 +388,8 @@ public class MarketBehavior implements Trader {
                     executeIntent(orderBook, OrderIntent.limit(OrderSide.SELL,
                             sellOrder.getVolume(), sellPrice, "market maker quote sell"));
                     placed = true;
-                    logger.info(String.format("做市掛賣：%d 股 @ %.2f (mid=%.2f, spread=%.3f%%)",
-                            sellVolume, sellPrice, mid, spreadRatio * 100), "MARKET_BEHAVIOR_MM");
+                    logger.infof("MARKET_BEHAVIOR_MM", "做市掛賣：%d 股 @ %.2f (mid=%.2f, spread=%.3f%%)",
+                            sellVolume, sellPrice, mid, spreadRatio * 100);
                 }
 
                 if (!placed) {
@@ -381,11 +410,9 @@ public class MarketBehavior implements Trader {
                     if (ob.getPrice() > 0 && mid > 0) {
                         double diff = (mid - ob.getPrice()) / mid; // 買單價低於 mid 太多
                         if (diff > replaceThreshold) {
-                            boolean ok = orderBook.cancelOrder(ob.getId());
-                            if (ok) {
-                                LogicAudit.info("MM_CANCEL", String.format("buy id=%s px=%.4f mid=%.4f diff=%.4f",
-                                        ob.getId(), ob.getPrice(), mid, diff));
-                            }
+                            cancelOrder(orderBook, ob.getId(), () ->
+                                    LogicAudit.info("MM_CANCEL", String.format("buy id=%s px=%.4f mid=%.4f diff=%.4f",
+                                            ob.getId(), ob.getPrice(), mid, diff)));
                         }
                     }
                 }
@@ -397,11 +424,9 @@ public class MarketBehavior implements Trader {
                     if (os.getPrice() > 0 && mid > 0) {
                         double diff = (os.getPrice() - mid) / mid; // 賣單價高於 mid 太多
                         if (diff > replaceThreshold) {
-                            boolean ok = orderBook.cancelOrder(os.getId());
-                            if (ok) {
-                                LogicAudit.info("MM_CANCEL", String.format("sell id=%s px=%.4f mid=%.4f diff=%.4f",
-                                        os.getId(), os.getPrice(), mid, diff));
-                            }
+                            cancelOrder(orderBook, os.getId(), () ->
+                                    LogicAudit.info("MM_CANCEL", String.format("sell id=%s px=%.4f mid=%.4f diff=%.4f",
+                                            os.getId(), os.getPrice(), mid, diff)));
                         }
                     }
                 }
@@ -413,28 +438,31 @@ public class MarketBehavior implements Trader {
             double oldLongTermMeanPrice = longTermMeanPrice;
             longTermMeanPrice = (longTermMeanPrice * (timeStep - 1) + currentPrice) / timeStep;
 
-            logger.debug(String.format(
-                    "更新長期平均價格：舊均價=%.2f, 新均價=%.2f",
-                    oldLongTermMeanPrice, longTermMeanPrice
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "更新長期平均價格：舊均價=%.2f, 新均價=%.2f",
+                        oldLongTermMeanPrice, longTermMeanPrice);
+            }
 
             // 更新市場趨勢
             double oldMarketTrend = marketTrend;
             marketTrend = 0.95 * marketTrend + (random.nextDouble() - 0.5) * 0.01;
             marketTrend = Math.max(-0.5, Math.min(marketTrend, 0.5));
 
-            logger.debug(String.format(
-                    "更新市場趨勢：舊趨勢=%.4f, 新趨勢=%.4f",
-                    oldMarketTrend, marketTrend
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "更新市場趨勢：舊趨勢=%.4f, 新趨勢=%.4f",
+                        oldMarketTrend, marketTrend);
+            }
 
             // 台股撮合：股價（last price）應由「成交」決定，不應由 MarketBehavior 直接 setPrice 造價。
             // 這裡保留 newOrderPrice 作為下單參考，但不直接改寫 stock.price，也不推進非成交的價格序列。
 
-            logger.debug(String.format(
-                    "市場波動結束：時間步=%d",
-                    timeStep
-            ), "MARKET_BEHAVIOR");
+            if (debug) {
+                logger.debugf("MARKET_BEHAVIOR",
+                        "市場波動結束：時間步=%d",
+                        timeStep);
+            }
         } catch (Exception e) {
             logger.error(String.format(
                     "市場波動異常：%s",
@@ -460,19 +488,17 @@ public class MarketBehavior implements Trader {
      */
     private int 限價買單操作(OrderBook orderBook, double orderPrice, int orderVolume) {
         try {
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_BUY",
                     "開始限價買單操作：價格=%.2f, 數量=%d",
-                    orderPrice, orderVolume
-            ), "MARKET_BEHAVIOR_BUY");
+                    orderPrice, orderVolume);
 
             double cost = orderPrice * orderVolume;
             double funds = account.getAvailableFunds();
 
             if (funds < cost) {
-                logger.warn(String.format(
+                logger.warnf("MARKET_BEHAVIOR_BUY",
                         "限價買單資金不足：需要=%.2f, 可用=%.2f, 數量=%d, 價格=%.2f",
-                        cost, funds, orderVolume, orderPrice
-                ), "MARKET_BEHAVIOR_BUY");
+                        cost, funds, orderVolume, orderPrice);
                 return 0;
             }
 
@@ -481,10 +507,9 @@ public class MarketBehavior implements Trader {
             executeIntent(orderBook, OrderIntent.limit(OrderSide.BUY,
                     orderVolume, orderPrice, "market behavior limit buy"));
 
-            logger.info(String.format(
+            logger.infof("MARKET_BEHAVIOR_BUY",
                     "限價買單提交成功：數量=%d, 價格=%.2f, 預計成本=%.2f",
-                    orderVolume, orderPrice, cost
-            ), "MARKET_BEHAVIOR_BUY");
+                    orderVolume, orderPrice, cost);
 
             return orderVolume;
         } catch (Exception e) {
@@ -513,18 +538,16 @@ public class MarketBehavior implements Trader {
      */
     private int 限價賣單操作(OrderBook orderBook, double orderPrice, int orderVolume) {
         try {
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_SELL",
                     "開始限價賣單操作：價格=%.2f, 數量=%d",
-                    orderPrice, orderVolume
-            ), "MARKET_BEHAVIOR_SELL");
+                    orderPrice, orderVolume);
 
             int hold = account.getStockInventory();
 
             if (hold < orderVolume) {
-                logger.warn(String.format(
+                logger.warnf("MARKET_BEHAVIOR_SELL",
                         "限價賣單持股不足：需要=%d, 可用=%d, 價格=%.2f",
-                        orderVolume, hold, orderPrice
-                ), "MARKET_BEHAVIOR_SELL");
+                        orderVolume, hold, orderPrice);
                 return 0;
             }
 
@@ -533,10 +556,9 @@ public class MarketBehavior implements Trader {
             executeIntent(orderBook, OrderIntent.limit(OrderSide.SELL,
                     orderVolume, orderPrice, "market behavior limit sell"));
 
-            logger.info(String.format(
+            logger.infof("MARKET_BEHAVIOR_SELL",
                     "限價賣單提交成功：數量=%d, 價格=%.2f, 預計收入=%.2f",
-                    orderVolume, orderPrice, orderPrice * orderVolume
-            ), "MARKET_BEHAVIOR_SELL");
+                    orderVolume, orderPrice, orderPrice * orderVolume);
 
             return orderVolume;
         } catch (Exception e) {
@@ -565,36 +587,32 @@ public class MarketBehavior implements Trader {
      */
     private int 市價買單操作(OrderBook orderBook, double estimatedPrice, int orderVolume) {
         try {
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_BUY",
                     "開始市價買單操作：估算價格=%.2f, 數量=%d",
-                    estimatedPrice, orderVolume
-            ), "MARKET_BEHAVIOR_BUY");
+                    estimatedPrice, orderVolume);
 
             // 以估算價格檢查資金是否足夠
             double estimatedCost = estimatedPrice * orderVolume;
             double funds = account.getAvailableFunds();
 
             if (funds < estimatedCost) {
-                logger.warn(String.format(
+                logger.warnf("MARKET_BEHAVIOR_BUY",
                         "市價買單資金不足：需要(估計)=%.2f, 可用=%.2f, 數量=%d, 估算價格=%.2f",
-                        estimatedCost, funds, orderVolume, estimatedPrice
-                ), "MARKET_BEHAVIOR_BUY");
+                        estimatedCost, funds, orderVolume, estimatedPrice);
                 return 0;
             }
 
             // 直接使用 marketBuy 方法執行市價單
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_BUY",
                     "執行市價買單：數量=%d, 估算價格=%.2f",
-                    orderVolume, estimatedPrice
-            ), "MARKET_BEHAVIOR_BUY");
+                    orderVolume, estimatedPrice);
 
             executeIntent(orderBook, OrderIntent.market(OrderSide.BUY,
                     orderVolume, "market behavior market buy"));
 
-            logger.info(String.format(
+            logger.infof("MARKET_BEHAVIOR_BUY",
                     "市價買單提交成功：數量=%d, 估計成本=%.2f",
-                    orderVolume, estimatedCost
-            ), "MARKET_BEHAVIOR_BUY");
+                    orderVolume, estimatedCost);
 
             return orderVolume;
         } catch (Exception e) {
@@ -622,34 +640,30 @@ public class MarketBehavior implements Trader {
      */
     private int 市價賣單操作(OrderBook orderBook, int orderVolume) {
         try {
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_SELL",
                     "開始市價賣單操作：數量=%d",
-                    orderVolume
-            ), "MARKET_BEHAVIOR_SELL");
+                    orderVolume);
 
             int hold = account.getStockInventory();
 
             if (hold < orderVolume) {
-                logger.warn(String.format(
+                logger.warnf("MARKET_BEHAVIOR_SELL",
                         "市價賣單持股不足：需要=%d, 可用=%d",
-                        orderVolume, hold
-                ), "MARKET_BEHAVIOR_SELL");
+                        orderVolume, hold);
                 return 0;
             }
 
             // 直接使用 marketSell 方法執行市價單
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_SELL",
                     "執行市價賣單：數量=%d",
-                    orderVolume
-            ), "MARKET_BEHAVIOR_SELL");
+                    orderVolume);
 
             executeIntent(orderBook, OrderIntent.market(OrderSide.SELL,
                     orderVolume, "market behavior market sell"));
 
-            logger.info(String.format(
+            logger.infof("MARKET_BEHAVIOR_SELL",
                     "市價賣單提交成功：數量=%d",
-                    orderVolume
-            ), "MARKET_BEHAVIOR_SELL");
+                    orderVolume);
 
             return orderVolume;
         } catch (Exception e) {
@@ -678,44 +692,39 @@ public class MarketBehavior implements Trader {
      */
     private int FOK買單操作(OrderBook orderBook, double orderPrice, int orderVolume) {
         try {
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_FOK_BUY",
                     "開始FOK買單操作：價格=%.2f, 數量=%d",
-                    orderPrice, orderVolume
-            ), "MARKET_BEHAVIOR_FOK_BUY");
+                    orderPrice, orderVolume);
 
             double cost = orderPrice * orderVolume;
             double funds = account.getAvailableFunds();
 
             if (funds < cost) {
-                logger.warn(String.format(
+                logger.warnf("MARKET_BEHAVIOR_FOK_BUY",
                         "FOK買單資金不足：需要=%.2f, 可用=%.2f, 數量=%d, 價格=%.2f",
-                        cost, funds, orderVolume, orderPrice
-                ), "MARKET_BEHAVIOR_FOK_BUY");
+                        cost, funds, orderVolume, orderPrice);
                 return 0;
             }
 
             // 使用 submitFokBuyOrder 方法提交FOK買單
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_FOK_BUY",
                     "提交FOK買單：價格=%.2f, 數量=%d",
-                    orderPrice, orderVolume
-            ), "MARKET_BEHAVIOR_FOK_BUY");
-
-            boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
-                    orderVolume, orderPrice, "market behavior FOK buy")).accepted();
-
-            if (success) {
-                logger.info(String.format(
-                        "FOK買單成功：數量=%d, 價格=%.2f, 預計成本=%.2f",
-                        orderVolume, orderPrice, cost
-                ), "MARKET_BEHAVIOR_FOK_BUY");
-                return orderVolume;
-            } else {
-                logger.warn(String.format(
-                        "FOK買單失敗：無法完全滿足，數量=%d, 價格=%.2f",
-                        orderVolume, orderPrice
-                ), "MARKET_BEHAVIOR_FOK_BUY");
-                return 0;
-            }
+                    orderPrice, orderVolume);
+
+            StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
+                    orderVolume, orderPrice, "market behavior FOK buy"), r -> {
+                if (r.accepted()) {
+                    logger.infof("MARKET_BEHAVIOR_FOK_BUY",
+                            "FOK買單成功：數量=%d, 價格=%.2f, 預計成本=%.2f",
+                            orderVolume, orderPrice, cost);
+                } else {
+                    logger.warnf("MARKET_BEHAVIOR_FOK_BUY",
+                            "FOK買單失敗：無法完全滿足，數量=%d, 價格=%.2f",
+                            orderVolume, orderPrice);
+                }
+            });
+            // 平行決策階段尚未執行：與限價單相同回傳提交量
+            return result.pending() || result.accepted() ? orderVolume : 0;
         } catch (Exception e) {
             logger.error(String.format(
                     "FOK買單異常：%s",
@@ -742,43 +751,38 @@ public class MarketBehavior implements Trader {
      */
     private int FOK賣單操作(OrderBook orderBook, double orderPrice, int orderVolume) {
         try {
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_FOK_SELL",
                     "開始FOK賣單操作：價格=%.2f, 數量=%d",
-                    orderPrice, orderVolume
-            ), "MARKET_BEHAVIOR_FOK_SELL");
+                    orderPrice, orderVolume);
 
             int hold = account.getStockInventory();
 
             if (hold < orderVolume) {
-                logger.warn(String.format(
+                logger.warnf("MARKET_BEHAVIOR_FOK_SELL",
                         "FOK賣單持股不足：需要=%d, 可用=%d, 價格=%.2f",
-                        orderVolume, hold, orderPrice
-                ), "MARKET_BEHAVIOR_FOK_SELL");
+                        orderVolume, hold, orderPrice);
                 return 0;
             }
 
             // 使用 submitFokSellOrder 方法提交FOK賣單
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_FOK_SELL",
                     "提交FOK賣單：價格=%.2f, 數量=%d",
-                    orderPrice, orderVolume
-            ), "MARKET_BEHAVIOR_FOK_SELL");
-
-            boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
-                    orderVolume, orderPrice, "market behavior FOK sell")).accepted();
-
-            if (success) {
-                logger.info(String.format(
-                        "FOK賣單成功：數量=%d, 價格=%.2f, 預計收入=%.2f",
-                        orderVolume, orderPrice, orderPrice * orderVolume
-                ), "MARKET_BEHAVIOR_FOK_SELL");
-                return orderVolume;
-            } else {
-                logger.warn(String.format(
-                        "FOK賣單失敗：無法完全滿足，數量=%d, 價格=%.2f",
-                        orderVolume, orderPrice
-                ), "MARKET_BEHAVIOR_FOK_SELL");
-                return 0;
-            }
+                    orderPrice, orderVolume);
+
+            StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
+                    orderVolume, orderPrice, "market behavior FOK sell"), r -> {
+                if (r.accepted()) {
+                    logger.infof("MARKET_BEHAVIOR_FOK_SELL",
+                            "FOK賣單成功：數量=%d, 價格=%.2f, 預計收入=%.2f",
+                            orderVolume, orderPrice, orderPrice * orderVolume);
+                } else {
+                    logger.warnf("MARKET_BEHAVIOR_FOK_SELL",
+                            "FOK賣單失敗：無法完全滿足，數量=%d, 價格=%.2f",
+                            orderVolume, orderPrice);
+                }
+            });
+            // 平行決策階段尚未執行：與限價單相同回傳提交量
+            return result.pending() || result.accepted() ? orderVolume : 0;
         } catch (Exception e) {
             logger.error(String.format(
                     "FOK賣單異常：%s",
@@ -809,10 +813,9 @@ public class MarketBehavior implements Trader {
             List<Order> topBuyOrders = orderBook.getTopBuyOrders(levels);
             List<Order> topSellOrders = orderBook.getTopSellOrders(levels);
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
                     "價格層級分析：取得買單=%d個, 賣單=%d個",
-                    topBuyOrders.size(), topSellOrders.size()
-            ), "MARKET_BEHAVIOR_ANALYSIS");
+                    topBuyOrders.size(), topSellOrders.size());
 
             double buySupport = 0.0;
             double sellResistance = 0.0;
@@ -827,10 +830,9 @@ public class MarketBehavior implements Trader {
                 sellResistance += sellOrder.getVolume() * sellOrder.getPrice() / Math.pow(1.05, i);
             }
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
                     "價格層級支撐阻力：買單支撐=%.2f, 賣單阻力=%.2f",
-                    buySupport, sellResistance
-            ), "MARKET_BEHAVIOR_ANALYSIS");
+                    buySupport, sellResistance);
 
             if (buySupport + sellResistance == 0) {
                 logger.debug("價格層級影響：買賣總量為零，返回0", "MARKET_BEHAVIOR_ANALYSIS");
@@ -838,10 +840,9 @@ public class MarketBehavior implements Trader {
             }
             impact = (buySupport - sellResistance) / (buySupport + sellResistance);
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
                     "價格層級影響結果：%.4f",
-                    impact
-            ), "MARKET_BEHAVIOR_ANALYSIS");
+                    impact);
             return impact;
         } catch (Exception e) {
             logger.error(String.format(
@@ -864,9 +865,8 @@ public class MarketBehavior implements Trader {
      */
     private double calculateOrderImbalance(OrderBook orderBook) {
         try {
-            logger.debug(String.format(
-                    "開始計算訂單不平衡"
-            ), "MARKET_BEHAVIOR_ANALYSIS");
+            logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
+                    "開始計算訂單不平衡");
 
             double buyVolume = 0.0;
             double sellVolume = 0.0;
@@ -874,10 +874,9 @@ public class MarketBehavior implements Trader {
             List<Order> topBuys = orderBook.getTopBuyOrders(10);
             List<Order> topSells = orderBook.getTopSellOrders(10);
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
                     "訂單不平衡分析：取得買單=%d個, 賣單=%d個",
-                    topBuys.size(), topSells.size()
-            ), "MARKET_BEHAVIOR_ANALYSIS");
+                    topBuys.size(), topSells.size());
 
             for (Order b : topBuys) {
                 buyVolume += b.getVolume() * b.getPrice();
@@ -886,24 +885,21 @@ public class MarketBehavior implements Trader {
                 sellVolume += s.getVolume() * s.getPrice();
             }
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
                     "訂單不平衡總量：買單總量=%.2f, 賣單總量=%.2f",
-                    buyVolume, sellVolume
-            ), "MARKET_BEHAVIOR_ANALYSIS");
+                    buyVolume, sellVolume);
 
             if (buyVolume + sellVolume == 0) {
-                logger.debug(String.format(
-                        "訂單不平衡計算：買賣總量為零，返回0"
-                ), "MARKET_BEHAVIOR_ANALYSIS");
+                logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
+                        "訂單不平衡計算：買賣總量為零，返回0");
                 return 0.0;
             }
 
             double imbalance = (buyVolume - sellVolume) / (buyVolume + sellVolume);
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_ANALYSIS",
                     "訂單不平衡結果：%.4f",
-                    imbalance
-            ), "MARKET_BEHAVIOR_ANALYSIS");
+                    imbalance);
             return imbalance;
         } catch (Exception e) {
             logger.error(String.format(
@@ -962,20 +958,18 @@ public class MarketBehavior implements Trader {
      */
     private int calculateOrderVolume(double volatility, int recentVolume) {
         try {
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_VOLUME",
                     "開始計算訂單量：波動率=%.4f, 近期成交量=%d",
-                    volatility, recentVolume
-            ), "MARKET_BEHAVIOR_VOLUME");
+                    volatility, recentVolume);
 
             // 基於波動性與近期成交量
             int baseVolume = 1000;
             int calculatedVolume = (int) (baseVolume * (1 + volatility * 0.1) + recentVolume * 0.01);
             int finalVolume = Math.max(calculatedVolume, 100);
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_VOLUME",
                     "訂單量計算結果：基礎量=%d, 計算量=%d, 最終量=%d",
-                    baseVolume, calculatedVolume, finalVolume
-            ), "MARKET_BEHAVIOR_VOLUME");
+                    baseVolume, calculatedVolume, finalVolume);
 
             return finalVolume;
         } catch (Exception e) {
@@ -1004,10 +998,9 @@ public class MarketBehavior implements Trader {
 
             double factor = (currentMinute < 30 || currentMinute > 210) ? 1.5 : 1.0;
 
-            logger.debug(String.format(
+            logger.debugf("MARKET_BEHAVIOR_TIME",
                     "時間波動因子計算：時間步=%d, 模擬分鐘=%d, 計算因子=%.2f",
-                    timeStep, currentMinute, factor
-            ), "MARKET_BEHAVIOR_TIME");
+                    timeStep, currentMinute, factor);
 
             return factor;
         } catch (Exception e) {
@@ -0,0 +1,215 @@
+package StockMainAction.model;
+
+import StockMainAction.model.core.Order;
+import StockMainAction.model.core.TapeMetricsEngine;
+
+import java.util.List;
+
+/**
+ * 每個 tick 建立一次的不可變市場快照，供所有代理人共用。
+ * 價格、技術指標、最佳五檔、Tape 統計與事件參數都在 tick 開始時讀取一次，
+ * 代理人決策期間不再各自呼叫 MarketAnalyzer / OrderBook 的同步方法。
+ */
+public final class MarketContext {
+
+    /** 主力內外盤統計使用的時間窗（毫秒，模擬時間） */
+    public static final long TAPE_WINDOW_MILLIS = 30_000L;
+    /** 散戶市價單門檻使用的時間窗（毫秒，模擬時間） */
+    public static final long FLOW_WINDOW_MILLIS = 20_000L;
+    /** 保存的委託簿檔數 */
+    public static final int DEPTH_LEVELS = 5;
+    /** 事件門檻未設定時的預設值 */
+    public static final int DEFAULT_EVENT_THRESHOLD = 65;
+
+    private final int timeStep;
+    private final double price;
+    private final double sma;
+    private final double rsi;
+    private final double volatility;
+    private final double trend;
+    private final double recentPriceTrend;
+    private final double recentAverageVolume;
+    private final double macdHist;
+    private final double k;
+    private final double[] bidPrices;
+    private final int[] bidVolumes;
+    private final double[] askPrices;
+    private final int[] askVolumes;
+    private final TapeStats tape;
+    private final TapeStats flow;
+    private final int eventThreshold;
+    private final double eventPositionScale;
+
+    /**
+     * 近期成交統計（內外盤比例、每秒筆數/量、買賣筆數失衡），以時間窗計算
+     */
+    public record TapeStats(int inPct, int outPct, double tps, double vps, double tickImbalance) {
+        public static final TapeStats EMPTY = new TapeStats(0, 0, 0.0, 0.0, 0.0);
+
+        /**
+         * 由 Tape 統計引擎的時間窗結果轉換
+         */
+        static TapeStats of(TapeMetricsEngine.Window window) {
+            if (window.isEmpty()) {
+                return EMPTY;
+            }
+            return new TapeStats(window.inPct(), window.outPct(), window.tradesPerSecond(),
+                    window.volumePerSecond(), window.tickImbalance());
+        }
+    }
+
+    private MarketContext(int timeStep, double price, MarketAnalyzer analyzer, double macdHist, double k,
+            List<Order> bids, List<Order> asks, TapeMetricsEngine tapeMetrics, long now,
+            int eventThreshold, double eventPositionScale) {
+        this.timeStep = timeStep;
+        this.price = price;
+        // 同一份分析快照，確保各欄位彼此一致
+        MarketAnalyzer.Snapshot stats = analyzer.snapshot();
+        this.sma = stats.sma();
+        this.rsi = stats.rsi();
+        this.volatility = stats.volatility();
+        this.trend = stats.trendUsingMA();
+        this.recentPriceTrend = stats.priceTrend();
+        this.recentAverageVolume = stats.recentAverageVolume();
+        this.macdHist = macdHist;
+        this.k = k;
+        this.bidPrices = new double[bids.size()];
+        this.bidVolumes = new int[bids.size()];
+        for (int i = 0; i < bids.size(); i++) {
+            bidPrices[i] = bids.get(i).getPrice();
+            bidVolumes[i] = bids.get(i).getVolume();
+        }
+        this.askPrices = new double[asks.size()];
+        this.askVolumes = new int[asks.size()];
+        for (int i = 0; i < asks.size(); i++) {
+            askPrices[i] = asks.get(i).getPrice();
+            askVolumes[i] = asks.get(i).getVolume();
+        }
+        this.tape = TapeStats.of(tapeMetrics.window(TAPE_WINDOW_MILLIS, now));
+        this.flow = TapeStats.of(tapeMetrics.window(FLOW_WINDOW_MILLIS, now));
+        this.eventThreshold = eventThreshold;
+        this.eventPositionScale = eventPositionScale;
+    }
+
+    /**
+     * 從模型讀取一次所有代理人需要的市場資料
+     */
+    static MarketContext capture(StockMarketModel model, long now) {
+        return new MarketContext(
+                model.getTimeStep(),
+                model.getStock().getPrice(),
+                model.getMarketAnalyzer(),
+                model.getLastMacdHist(),
+                model.getLastK(),
+                model.getOrderBook().getTopBuyOrders(DEPTH_LEVELS),
+                model.getOrderBook().getTopSellOrders(DEPTH_LEVELS),
+                model.getTapeMetrics(),
+                now,
+                model.getEventEffectiveThresholdOr(DEFAULT_EVENT_THRESHOLD),
+                model.getEventPositionScale());
+    }
+
+    public int getTimeStep() {
+        return timeStep;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public double getSma() {
+        return sma;
+    }
+
+    public double getRsi() {
+        return rsi;
+    }
+
+    public double getVolatility() {
+        return volatility;
+    }
+
+    /** 均線趨勢（MarketAnalyzer.getTrendUsingMA） */
+    public double getTrend() {
+        return trend;
+    }
+
+    /** 近期價格趨勢（MarketAnalyzer.getRecentPriceTrend） */
+    public double getRecentPriceTrend() {
+        return recentPriceTrend;
+    }
+
+    public double getRecentAverageVolume() {
+        return recentAverageVolume;
+    }
+
+    public double getMacdHist() {
+        return macdHist;
+    }
+
+    public double getK() {
+        return k;
+    }
+
+    /** 買一價，沒有買單時為 0 */
+    public double getBestBid() {
+        return bidPrices.length > 0 ? bidPrices[0] : 0.0;
+    }
+
+    /** 賣一價，沒有賣單時為 0 */
+    public double getBestAsk() {
+        return askPrices.length > 0 ? askPrices[0] : 0.0;
+    }
+
+    /** 買賣價差占中價比例，任一側缺單時為 0 */
+    public double getSpreadRatio() {
+        double bid = getBestBid(), ask = getBestAsk();
+        if (bid <= 0 || ask <= 0 || bid > ask) {
+            return 0.0;
+        }
+        return (ask - bid) / ((bid + ask) / 2.0);
+    }
+
+    public int getBidLevels() {
+        return bidPrices.length;
+    }
+
+    public int getAskLevels() {
+        return askPrices.length;
+    }
+
+    public double getBidPrice(int level) {
+        return bidPrices[level];
+    }
+
+    public int getBidVolume(int level) {
+        return bidVolumes[level];
+    }
+
+    public double getAskPrice(int level) {
+        return askPrices[level];
+    }
+
+    public int getAskVolume(int level) {
+        return askVolumes[level];
+    }
+
+    /** 最近 {@link #TAPE_WINDOW_MILLIS} 的成交統計 */
+    public TapeStats getTape() {
+        return tape;
+    }
+
+    /** 最近 {@link #FLOW_WINDOW_MILLIS} 的成交統計 */
+    public TapeStats getFlow() {
+        return flow;
+    }
+
+    /** 事件模式有效門檻（預設 {@link #DEFAULT_EVENT_THRESHOLD}） */
+    public int getEventThreshold() {
+        return eventThreshold;
+    }
+
+    public double getEventPositionScale() {
+        return eventPositionScale;
+    }
+}
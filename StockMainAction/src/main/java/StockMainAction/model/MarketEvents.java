@@ -0,0 +1,242 @@
+package StockMainAction.model;
+
+import StockMainAction.model.core.OrderType;
+import StockMainAction.model.core.Trade;
+import StockMainAction.util.logging.MarketLogger;
+import StockMainAction.util.logging.event.EventLog;
+import StockMainAction.util.logging.event.EventSchema;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 模擬遙測事件 - 高頻的代理人決策、下單、成交與 tick 分段耗時以二進位事件寫入
+ * {@link EventLog}（定寬欄位、不格式化字串），離線再以
+ * {@link StockMainAction.util.logging.event.EventLogDecoder} 轉成文字或 CSV。
+ *
+ * 預設關閉（檔案不輪替，長時間執行會持續成長）：-Dmarket.eventlog=true 寫到日誌目錄
+ * （-Dmarket.log.dir，預設 ~/.stock-main-action/logs）的 market_events_*.evl，其他值視為檔案路徑。
+ * MarketLogger 隔離範圍內（參數掃描）不寫共用的事件檔。
+ */
+public final class MarketEvents {
+
+    public static final EventSchema AGENT_DECISION = EventSchema.builder(1, "AGENT_DECISION")
+            .symbolField("agentType")
+            .symbolField("agentId")
+            .doubleField("price")
+            .doubleField("cash")
+            .intField("positionBefore")
+            .intField("positionAfter")
+            .doubleField("sma")
+            .doubleField("rsi")
+            .doubleField("volatility")
+            .build();
+
+    public static final EventSchema ORDER_SUBMITTED = EventSchema.builder(2, "ORDER_SUBMITTED")
+            .symbolField("traderType")
+            .symbolField("orderType")
+            .booleanField("buy")
+            .doubleField("price")
+            .intField("volume")
+            .intField("filled")
+            .booleanField("accepted")
+            .symbolField("reason")
+            .build();
+
+    public static final EventSchema FILL = EventSchema.builder(3, "FILL")
+            .longField("tradeId")
+            .doubleField("price")
+            .intField("volume")
+            .booleanField("buyerInitiated")
+            .symbolField("orderType")
+            .symbolField("buyerType")
+            .symbolField("sellerType")
+            .build();
+
+    public static final EventSchema TICK_PHASES = tickPhasesSchema();
+
+    public static final EventSchema MARKET_FLUCTUATION = EventSchema.builder(5, "MARKET_FLUCTUATION")
+            .longField("step")
+            .doubleField("price")
+            .doubleField("volatility")
+            .intField("recentVolume")
+            .doubleField("drift")
+            .doubleField("shock")
+            .doubleField("meanReversion")
+            .doubleField("timeFactor")
+            .doubleField("orderImbalance")
+            .doubleField("sentiment")
+            .doubleField("targetPrice")
+            .intField("orderVolume")
+            .build();
+
+    private static final DateTimeFormatter FILE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final Object LOCK = new Object();
+    private static volatile EventLog log;
+    private static volatile boolean initialized;
+
+    private MarketEvents() {
+    }
+
+    // 每個 tick 階段一個欄位（奈秒），欄位順序即 TickProfiler.Phase 的順序
+    private static EventSchema tickPhasesSchema() {
+        EventSchema.Builder builder = EventSchema.builder(4, "TICK_PHASES").longField("tick");
+        for (TickProfiler.Phase phase : TickProfiler.Phase.values()) {
+            builder.longField(phase.name());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 目前執行緒可寫入的事件日誌；停用或位於隔離範圍時為 null
+     */
+    public static EventLog current() {
+        if (MarketLogger.isIsolated()) return null;
+        if (!initialized) {
+            synchronized (LOCK) {
+                if (!initialized) {
+                    log = openDefault();
+                    initialized = true;
+                }
+            }
+        }
+        return log;
+    }
+
+    public static boolean isEnabled() {
+        return current() != null;
+    }
+
+    /**
+     * 改用指定的事件日誌（null 表示停用），回傳先前的日誌；呼叫端負責關閉
+     */
+    public static EventLog install(EventLog eventLog) {
+        synchronized (LOCK) {
+            EventLog previous = log;
+            log = eventLog;
+            initialized = true;
+            return previous;
+        }
+    }
+
+    private static EventLog openDefault() {
+        String value = System.getProperty("market.eventlog", "").trim();
+        String flag = value.toLowerCase();
+        if (flag.isEmpty() || "false".equals(flag) || "0".equals(flag) || "off".equals(flag) || "no".equals(flag)) {
+            return null;
+        }
+        Path target;
+        if ("true".equals(flag) || "1".equals(flag) || "on".equals(flag) || "yes".equals(flag)) {
+            String configured = System.getProperty("market.log.dir", "").trim();
+            Path dir = configured.isEmpty()
+                    ? Paths.get(System.getProperty("user.home"), ".stock-main-action" + File.separator + "logs")
+                    : Paths.get(configured);
+            target = dir.resolve("market_events_" + LocalDateTime.now().format(FILE_FORMATTER) + ".evl");
+        } else {
+            target = Paths.get(value);
+        }
+        try {
+            EventLog opened = EventLog.open(target);
+            try {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(opened), "market-event-shutdown"));
+            } catch (RuntimeException ignored) {
+                // The last buffered events may be lost when shutdown hooks are restricted.
+            }
+            return opened;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("無法建立事件日誌，已停用：" + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeQuietly(EventLog eventLog) {
+        try {
+            eventLog.close();
+        } catch (IOException e) {
+            System.err.println("事件日誌關閉失敗：" + e.getMessage());
+        }
+    }
+
+    public static void agentDecision(long timestamp, String agentType, String agentId, double price, double cash,
+                                     int positionBefore, int positionAfter, double sma, double rsi,
+                                     double volatility) {
+        EventLog events = current();
+        if (events == null || !events.begin(AGENT_DECISION, timestamp)) return;
+        try {
+            events.putSymbol(agentType).putSymbol(agentId).putDouble(price).putDouble(cash)
+                    .putInt(positionBefore).putInt(positionAfter)
+                    .putDouble(sma).putDouble(rsi).putDouble(volatility);
+        } finally {
+            events.end();
+        }
+    }
+
+    /**
+     * @param price 限價或 FOK 限價；市價單為 NaN
+     * @param filled 立即成交量（限價單為 0）
+     * @param reason 拒絕或未完全成交的原因，成功時為 null
+     */
+    public static void orderSubmitted(long timestamp, String traderType, OrderType orderType, boolean buy,
+                                      double price, int volume, int filled, boolean accepted, String reason) {
+        EventLog events = current();
+        if (events == null || !events.begin(ORDER_SUBMITTED, timestamp)) return;
+        try {
+            events.putSymbol(traderType).putSymbol(orderType == null ? null : orderType.name()).putBoolean(buy)
+                    .putDouble(price).putInt(volume).putInt(filled).putBoolean(accepted).putSymbol(reason);
+        } finally {
+            events.end();
+        }
+    }
+
+    public static void fill(Trade trade) {
+        EventLog events = current();
+        if (events == null || !events.begin(FILL, trade.timestamp())) return;
+        try {
+            events.putLong(trade.id()).putDouble(trade.price()).putInt(trade.volume())
+                    .putBoolean(trade.buyerInitiated()).putSymbol(trade.orderType().name())
+                    .putSymbol(trade.buyerTypeName()).putSymbol(trade.sellerTypeName());
+        } finally {
+            events.end();
+        }
+    }
+
+    /**
+     * @param phaseNanos 依 TickProfiler.Phase 順序的各階段耗時
+     */
+    public static void tickPhases(long timestamp, long tick, long[] phaseNanos) {
+        EventLog events = current();
+        if (events == null || !events.begin(TICK_PHASES, timestamp)) return;
+        try {
+            events.putLong(tick);
+            for (int i = 0; i < TICK_PHASES.fieldCount() - 1; i++) {
+                events.putLong(phaseNanos[i]);
+            }
+        } finally {
+            events.end();
+        }
+    }
+
+    /**
+     * 市場波動一步的完整計算過程
+     *
+     * @return 是否已寫入事件日誌（未啟用時呼叫端可改寫文字日誌）
+     */
+    public static boolean marketFluctuation(long timestamp, long step, double price, double volatility,
+                                            int recentVolume, double drift, double shock, double meanReversion,
+                                            double timeFactor, double orderImbalance, double sentiment,
+                                            double targetPrice, int orderVolume) {
+        EventLog events = current();
+        if (events == null || !events.begin(MARKET_FLUCTUATION, timestamp)) return false;
+        try {
+            events.putLong(step).putDouble(price).putDouble(volatility).putInt(recentVolume)
+                    .putDouble(drift).putDouble(shock).putDouble(meanReversion).putDouble(timeFactor)
+                    .putDouble(orderImbalance).putDouble(sentiment).putDouble(targetPrice).putInt(orderVolume);
+        } finally {
+            events.end();
+        }
+        return true;
+    }
+}
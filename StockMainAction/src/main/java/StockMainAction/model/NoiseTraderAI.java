@@ -37,6 +37,7 @@ public class NoiseTraderAI implements Trader {
     private volatile StockMarketModel.NoiseSignalQuality noiseQuality;
     private volatile boolean adaptiveEnabled = true;
     private volatile StockMarketModel.NoiseAdaptiveConfig adaptiveConfig;
+    private volatile MarketContext marketContext;
 
     // [ADAPT] 參數上限/下限
     private int baseCooldownMin = 1;
@@ -63,6 +64,11 @@ public class NoiseTraderAI implements Trader {
         this.noiseQuality = q;
     }
 
+    // 本 tick 的共用市場快照（未設定時直接讀訂單簿）
+    public void setMarketContext(MarketContext context) {
+        this.marketContext = context;
+    }
+
     public void setNoiseAdaptiveConfig(StockMarketModel.NoiseAdaptiveConfig cfg) {
         this.adaptiveConfig = cfg;
     }
@@ -121,10 +127,16 @@ public class NoiseTraderAI implements Trader {
         // 取得買一/賣一
         double bestBid = 0.0;
         double bestAsk = 0.0;
-        List<Order> topBuys = orderBook.getTopBuyOrders(1);
-        List<Order> topSells = orderBook.getTopSellOrders(1);
-        if (!topBuys.isEmpty() && topBuys.get(0) != null) bestBid = topBuys.get(0).getPrice();
-        if (!topSells.isEmpty() && topSells.get(0) != null) bestAsk = topSells.get(0).getPrice();
+        MarketContext context = marketContext;
+        if (context != null) {
+            bestBid = context.getBestBid();
+            bestAsk = context.getBestAsk();
+        } else {
+            List<Order> topBuys = orderBook.getTopBuyOrders(1);
+            List<Order> topSells = orderBook.getTopSellOrders(1);
+            if (!topBuys.isEmpty() && topBuys.get(0) != null) bestBid = topBuys.get(0).getPrice();
+            if (!topSells.isEmpty() && topSells.get(0) != null) bestAsk = topSells.get(0).getPrice();
+        }
 
         // 沒有對手盤就不做主動吃單
         if (bestBid <= 0 && bestAsk <= 0) {
@@ -253,7 +265,7 @@ public class NoiseTraderAI implements Trader {
                 if (ob == null) continue;
                 double diff = (mid - ob.getPrice()) / mid;
                 if (diff > replaceThreshold) {
-                    if (orderBook.cancelOrder(ob.getId())) toCancel--;
+                    if (cancelOrder(orderBook, ob.getId())) toCancel--;
                 }
             }
             for (Order os : mySells) {
@@ -261,7 +273,7 @@ public class NoiseTraderAI implements Trader {
                 if (os == null) continue;
                 double diff = (os.getPrice() - mid) / mid;
                 if (diff > replaceThreshold) {
-                    if (orderBook.cancelOrder(os.getId())) toCancel--;
+                    if (cancelOrder(orderBook, os.getId())) toCancel--;
                 }
             }
         } catch (Exception ignore) { logOptionalFailure(ignore); }
@@ -287,7 +299,7 @@ public class NoiseTraderAI implements Trader {
                 if (px <= 0) continue;
                 double diff = (mid - px) / mid;
                 if (diff > th) {
-                    if (orderBook.cancelOrder(o.getId())) toCancel--;
+                    if (cancelOrder(orderBook, o.getId())) toCancel--;
                 }
             }
 
@@ -299,7 +311,7 @@ public class NoiseTraderAI implements Trader {
                 if (px <= 0) continue;
                 double diff = (px - mid) / mid;
                 if (diff > th) {
-                    if (orderBook.cancelOrder(o.getId())) toCancel--;
+                    if (cancelOrder(orderBook, o.getId())) toCancel--;
                 }
             }
         } catch (Exception ignore) { logOptionalFailure(ignore); }
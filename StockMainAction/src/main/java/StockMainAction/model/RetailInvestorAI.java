@@ -7,6 +7,7 @@ import StockMainAction.model.core.OrderBook;
 import StockMainAction.model.core.Stock;
 import StockMainAction.model.core.OrderSide;
 import StockMainAction.model.strategy.OrderIntent;
+import StockMainAction.model.strategy.StrategyExecutionResult;
 import StockMainAction.model.strategy.OrderAgeTracker;
 import StockMainAction.StockMarketSimulation;
 import java.util.Random;
@@ -22,6 +23,8 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +52,11 @@ public class RetailInvestorAI implements Trader {
         logger.debugThrottled("散戶策略選配訊號降級：" + ex.getMessage(),
                 "STRATEGY_FALLBACK", "retail", 60_000);
     }
+
+    // 本 tick 的共用市場快照（指標、最佳五檔、Tape 統計只在 tick 開始時讀取一次）
+    private MarketContext context() {
+        return model.getMarketContext();
+    }
     private StockMarketModel model;
 
     // 訂單管理相關
@@ -206,7 +214,7 @@ public class RetailInvestorAI implements Trader {
                 peakPriceSinceEntry = Math.max(peakPriceSinceEntry, price);
             }
             touchTradeStep();
-            logger.info(String.format("【散戶-限價買入更新】散戶 %s 買入 %d 股，價格 %.2f", traderID, volume, price), "RETAIL_TRANSACTION");
+            logger.infof("RETAIL_TRANSACTION", "【散戶-限價買入更新】散戶 %s 買入 %d 股，價格 %.2f", traderID, volume, price);
         } else if ("sell".equals(type)) {
             // 限價單賣出
             // === 已實現損益更新（限價賣成交；庫存已由撮合端 consumeFrozenStocks）===
@@ -224,7 +232,7 @@ public class RetailInvestorAI implements Trader {
                 takeProfitPrice = null;
             }
             touchTradeStep();
-            logger.info(String.format("【散戶-限價賣出更新】散戶 %s 賣出 %d 股，價格 %.2f", traderID, volume, price), "RETAIL_TRANSACTION");
+            logger.infof("RETAIL_TRANSACTION", "【散戶-限價賣出更新】散戶 %s 賣出 %d 股，價格 %.2f", traderID, volume, price);
         }
 
         // 通過 model 更新 UI
@@ -246,7 +254,7 @@ public class RetailInvestorAI implements Trader {
                 peakPriceSinceEntry = Math.max(peakPriceSinceEntry, price);
             }
             touchTradeStep();
-            logger.info(String.format("【散戶-市價買入更新】散戶 %s 買入 %d 股，價格 %.2f", traderID, volume, price), "RETAIL_TRANSACTION");
+            logger.infof("RETAIL_TRANSACTION", "【散戶-市價買入更新】散戶 %s 買入 %d 股，價格 %.2f", traderID, volume, price);
         } else if ("sell".equals(type)) {
             // 扣股並加款
             // 市價賣：此處會直接扣可用庫存（非 freeze）
@@ -264,7 +272,7 @@ public class RetailInvestorAI implements Trader {
                 takeProfitPrice = null;
             }
             touchTradeStep();
-            logger.info(String.format("【散戶-市價賣出更新】散戶 %s 賣出 %d 股，價格 %.2f", traderID, volume, price), "RETAIL_TRANSACTION");
+            logger.infof("RETAIL_TRANSACTION", "【散戶-市價賣出更新】散戶 %s 賣出 %d 股，價格 %.2f", traderID, volume, price);
         }
 
         // 通過 model 更新 UI
@@ -293,20 +301,24 @@ public class RetailInvestorAI implements Trader {
             orderCancelCounter = 0;
             cancelOutdatedOrders();
         }
-        
+        // 每位散戶每個 tick 都會執行：全域 DEBUG 未開啟時略過所有診斷參數（分類篩選仍由 debugf 處理）
+        final boolean debug = logger.isEnabled(MarketLogger.LEVEL_DEBUG, null);
+
         try {
-            logger.debug(String.format(
-                    "散戶%s 決策分析開始：可用資金=%.2f, 當前股價=%.2f",
-                    traderID, account.getAvailableFunds(), stock.getPrice()
-            ), "RETAIL_INVESTOR_DECISION");
+            if (debug) {
+                logger.debugf("RETAIL_INVESTOR_DECISION",
+                        "散戶%s 決策分析開始：可用資金=%.2f, 當前股價=%.2f",
+                        traderID, account.getAvailableFunds(), stock.getPrice());
+            }
 
             this.orderBook = orderBook; // 如需使用私有函式下單時需有此參考
             double availableFunds = account.getAvailableFunds();
             double currentPrice = stock.getPrice();
-            double sma = model.getMarketAnalyzer().calculateSMA();
-            double rsi = model.getMarketAnalyzer().getRSI();
-            double volatility = model.getMarketAnalyzer().getVolatility();
+            double sma = context().getSma();
+            double rsi = context().getRsi();
+            double volatility = context().getVolatility();
             StringBuilder decisionReason = new StringBuilder();
+            int positionBefore = getAccumulatedStocks();
 
             // === 讀取 UI/Model 下發的散戶策略設定 ===
             StockMarketModel.RetailStrategyConfig cfg =
@@ -326,13 +338,10 @@ public class RetailInvestorAI implements Trader {
 
             // === 成交環境檢查：價差過大不做（避免被滑價/被動成交磨損） ===
             double bestBid = 0.0, bestAsk = 0.0, mid = currentPrice;
-            try {
-                List<Order> topBuys = orderBook.getTopBuyOrders(1);
-                List<Order> topSells = orderBook.getTopSellOrders(1);
-                if (!topBuys.isEmpty() && topBuys.get(0) != null) bestBid = topBuys.get(0).getPrice();
-                if (!topSells.isEmpty() && topSells.get(0) != null) bestAsk = topSells.get(0).getPrice();
-                if (bestBid > 0 && bestAsk > 0 && bestBid <= bestAsk) mid = (bestBid + bestAsk) / 2.0;
-            } catch (Exception ignore) { logOptionalFailure(ignore); }
+            MarketContext ctx = context();
+            bestBid = ctx.getBestBid();
+            bestAsk = ctx.getBestAsk();
+            if (bestBid > 0 && bestAsk > 0 && bestBid <= bestAsk) mid = (bestBid + bestAsk) / 2.0;
             double spreadRatio = (bestBid > 0 && bestAsk > 0 && mid > 0) ? (bestAsk - bestBid) / mid : 0.0;
             double spreadLimit = Math.max(0.0, Math.min(0.05, cfg.spreadLimitRatio));
             if (spreadRatio > spreadLimit) {
@@ -341,12 +350,12 @@ public class RetailInvestorAI implements Trader {
 
             // === 訊號：趨勢 + MACD/KDJ + RSI ===
             double trend = 0.0;
-            try { trend = model.getMarketAnalyzer().getTrendUsingMA(); }
+            try { trend = context().getTrend(); }
             catch (Exception ignore) { logOptionalFailure(ignore); }
             double macdHist = Double.NaN, k = Double.NaN;
-            try { macdHist = model.getLastMacdHist(); }
+            try { macdHist = context().getMacdHist(); }
             catch (Exception ignore) { logOptionalFailure(ignore); }
-            try { k = model.getLastK(); }
+            try { k = context().getK(); }
             catch (Exception ignore) { logOptionalFailure(ignore); }
 
             boolean hasPos = getTotalPosition() > 0;
@@ -362,7 +371,7 @@ public class RetailInvestorAI implements Trader {
                 if (peakPriceSinceEntry > 0 && currentPrice < peakPriceSinceEntry * (1.0 - trail)) {
                     int sellAmt = Math.max(1, (int) Math.floor(getAccumulatedStocks() * 0.5));
                     double px = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                    限價賣出操作(sellAmt, px);
+                    限價賣出操作(sellAmt, px, null);
                     decisionReason.append("【移動停損】回落 ").append(String.format("%.2f%%", trail * 100))
                             .append(" 減倉 ").append(sellAmt).append(" 股\n");
                 }
@@ -373,7 +382,7 @@ public class RetailInvestorAI implements Trader {
                 if (trend < -trendExit && momentumFlipDown && getAccumulatedStocks() > 0) {
                     int sellAmt = Math.max(1, (int) Math.floor(getAccumulatedStocks() * 0.5));
                     double px = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                    限價賣出操作(sellAmt, px);
+                    限價賣出操作(sellAmt, px, null);
                     decisionReason.append("【趨勢轉弱】減倉 ").append(sellAmt).append(" 股\n");
                 }
             }
@@ -382,35 +391,39 @@ public class RetailInvestorAI implements Trader {
             double dynamicBuyThreshold = buyThreshold * (0.8 + 0.4 * random.nextDouble());
             double dynamicSellThreshold = sellThreshold * (0.8 + 0.4 * random.nextDouble());
 
-            logger.debug(String.format(
-                    "散戶%s 動態門檻：買入門檻=%.4f, 賣出門檻=%.4f, 是否忽略門檻=%b",
-                    traderID, dynamicBuyThreshold, dynamicSellThreshold, ignoreThreshold
-            ), "RETAIL_INVESTOR_DECISION");
+            if (debug) {
+                logger.debugf("RETAIL_INVESTOR_DECISION",
+                        "散戶%s 動態門檻：買入門檻=%.4f, 賣出門檻=%.4f, 是否忽略門檻=%b",
+                        traderID, dynamicBuyThreshold, dynamicSellThreshold, ignoreThreshold);
+            }
 
             if (this.orderBook == null) {
                 this.orderBook = orderBook; // 確保每次執行時有訂單簿
-                logger.debug(String.format(
-                        "散戶%s 初始化訂單簿",
-                        traderID
-                ), "RETAIL_INVESTOR_DECISION");
+                if (debug) {
+                    logger.debugf("RETAIL_INVESTOR_DECISION",
+                            "散戶%s 初始化訂單簿",
+                            traderID);
+                }
             }
 
             if (this.stock == null) {
                 this.stock = stock; // 確保 stock 不為 null
-                logger.debug(String.format(
-                        "散戶%s 初始化股票參考",
-                        traderID
-                ), "RETAIL_INVESTOR_DECISION");
+                if (debug) {
+                    logger.debugf("RETAIL_INVESTOR_DECISION",
+                            "散戶%s 初始化股票參考",
+                            traderID);
+                }
             }
 
             // 可能改變是否忽略門檻
             boolean previousIgnoreThreshold = ignoreThreshold;
             if (random.nextDouble() < 0.1) {
                 ignoreThreshold = !ignoreThreshold;
-                logger.debug(String.format(
-                        "散戶%s 忽略門檻狀態變更：從 %b 變更為 %b",
-                        traderID, previousIgnoreThreshold, ignoreThreshold
-                ), "RETAIL_INVESTOR_DECISION");
+                if (debug) {
+                    logger.debugf("RETAIL_INVESTOR_DECISION",
+                            "散戶%s 忽略門檻狀態變更：從 %b 變更為 %b",
+                            traderID, previousIgnoreThreshold, ignoreThreshold);
+                }
             }
 
             if (!Double.isNaN(sma)) {
@@ -418,10 +431,11 @@ public class RetailInvestorAI implements Trader {
                 priceDifferenceRatio = Math.max(-0.5, Math.min(priceDifferenceRatio, 0.5));
                 double actionProbability = random.nextDouble();
 
-                logger.debug(String.format(
-                        "散戶%s 市場分析：SMA=%.2f, 價格差異比率=%.4f, 執行概率=%.4f, RSI=%.2f, 波動性=%.4f",
-                        traderID, sma, priceDifferenceRatio, actionProbability, rsi, volatility
-                ), "RETAIL_INVESTOR_DECISION");
+                if (debug) {
+                    logger.debugf("RETAIL_INVESTOR_DECISION",
+                            "散戶%s 市場分析：SMA=%.2f, 價格差異比率=%.4f, 執行概率=%.4f, RSI=%.2f, 波動性=%.4f",
+                            traderID, sma, priceDifferenceRatio, actionProbability, rsi, volatility);
+                }
 
                 // 先嘗試依個人策略型別執行一次行為，但改成「訊號足夠強」才允許
                 double allowTrend = Math.max(0.0, Math.min(1.0, cfg.trendEntry));
@@ -432,252 +446,252 @@ public class RetailInvestorAI implements Trader {
                             actionProbability, availableFunds, decisionReason, stock);
                     if (acted) {
                         if (model != null) model.sendInfoMessage(decisionReason.toString());
-                        logger.debug(String.format(
-                                "散戶%s 以個人策略完成決策：%s",
-                                traderID, decisionReason.toString()
-                        ), "RETAIL_INVESTOR_DECISION");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_DECISION",
+                                    "散戶%s 以個人策略完成決策：%s",
+                                    traderID, decisionReason.toString());
+                        }
+                        MarketEvents.agentDecision(orderBook.getClock().millis(), getTraderType(), traderID,
+                                currentPrice, availableFunds, positionBefore, getAccumulatedStocks(),
+                                sma, rsi, volatility);
                         return;
                     }
                 }
 
                 // 停損 / 止盈
-                logger.debug(String.format(
-                        "散戶%s 檢查停損/止盈：停損價=%.2f, 止盈價=%.2f, 當前價格=%.2f",
-                        traderID, stopLossPrice != null ? stopLossPrice : 0.0, takeProfitPrice != null ? takeProfitPrice : 0.0, currentPrice
-                ), "RETAIL_INVESTOR_STOP_POINTS");
+                if (debug) {
+                    logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
+                            "散戶%s 檢查停損/止盈：停損價=%.2f, 止盈價=%.2f, 當前價格=%.2f",
+                            traderID, stopLossPrice != null ? stopLossPrice : 0.0, takeProfitPrice != null ? takeProfitPrice : 0.0, currentPrice);
+                }
                 handleStopLossTakeProfit(currentPrice, decisionReason);
 
                 // 忽略門檻
                 if (this.shouldIgnoreThreshold()) {
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_DECISION",
                             "散戶%s 忽略門檻策略：可用資金=%.2f, 價格差異比率=%.4f",
-                            traderID, availableFunds, priceDifferenceRatio
-                    ), "RETAIL_INVESTOR_DECISION");
+                            traderID, availableFunds, priceDifferenceRatio);
 
                     if (availableFunds >= currentPrice && priceDifferenceRatio < 0 && actionProbability > 0.3) {
                         int buyAmount = calculateTransactionVolume(availableFunds, currentPrice, volatility);
                         decisionReason.append("【忽略門檻】隨機決定買入 ").append(buyAmount).append(" 股。");
-                        logger.debug(String.format(
-                                "散戶%s 忽略門檻買入：計算買入量=%d",
-                                traderID, buyAmount
-                        ), "RETAIL_INVESTOR_BUY");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_BUY",
+                                    "散戶%s 忽略門檻買入：計算買入量=%d",
+                                    traderID, buyAmount);
+                        }
 
                         if (random.nextBoolean()) {
-                            logger.debug(String.format(
-                                    "散戶%s 選擇市價買入，嘗試買入數量=%d",
-                                    traderID, buyAmount
-                            ), "RETAIL_INVESTOR_BUY");
-                            int actualBuy = 市價買入操作(buyAmount);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_BUY",
+                                        "散戶%s 選擇市價買入，嘗試買入數量=%d",
+                                        traderID, buyAmount);
+                            }
+                            int actualBuy = 市價買入操作(buyAmount, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                             if (actualBuy > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_BUY",
                                         "散戶%s 忽略門檻市價買入成功：買入 %d 股",
-                                        traderID, actualBuy
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, actualBuy);
                                 decisionReason.append("【成功】市價買入 " + actualBuy + " 股。\n");
-                                setStopLossAndTakeProfit(currentPrice, volatility);
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_BUY",
                                         "散戶%s 忽略門檻市價買入失敗：買入量 %d",
-                                        traderID, buyAmount
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, buyAmount);
                             }
                         } else {
                             double buyLimitPrice = computeBuyLimitPrice(currentPrice, sma, rsi, volatility);
-                            logger.debug(String.format(
-                                    "散戶%s 選擇限價買入，嘗試買入數量=%d，限價=%.2f",
-                                    traderID, buyAmount, buyLimitPrice
-                            ), "RETAIL_INVESTOR_BUY");
-                            int actualBuy = 限價買入操作(buyAmount, buyLimitPrice);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_BUY",
+                                        "散戶%s 選擇限價買入，嘗試買入數量=%d，限價=%.2f",
+                                        traderID, buyAmount, buyLimitPrice);
+                            }
+                            int actualBuy = 限價買入操作(buyAmount, buyLimitPrice, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                             if (actualBuy > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_BUY",
                                         "散戶%s 忽略門檻限價買入成功：買入 %d 股，價格=%.2f",
-                                        traderID, actualBuy, buyLimitPrice
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, actualBuy, buyLimitPrice);
                                 decisionReason.append("【成功】限價買入 " + actualBuy + " 股，價格 " + decimalFormat.format(buyLimitPrice) + "。\n");
-                                setStopLossAndTakeProfit(currentPrice, volatility);
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_BUY",
                                         "散戶%s 忽略門檻限價買入失敗：買入量 %d，限價=%.2f",
-                                        traderID, buyAmount, buyLimitPrice
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, buyAmount, buyLimitPrice);
                                 //decisionReason.append("【失敗】限價買入。資金或賣單量不足。\n");
                             }
                         }
                     } else if (getAccumulatedStocks() > 0 && priceDifferenceRatio > 0 && actionProbability > 0.3) {
                         int sellAmount = calculateSellVolume(priceDifferenceRatio, volatility);
-                        logger.debug(String.format(
-                                "散戶%s 忽略門檻賣出：計算賣出量=%d",
-                                traderID, sellAmount
-                        ), "RETAIL_INVESTOR_SELL");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_SELL",
+                                    "散戶%s 忽略門檻賣出：計算賣出量=%d",
+                                    traderID, sellAmount);
+                        }
                         decisionReason.append("【忽略門檻】隨機決定賣出 ").append(sellAmount).append(" 股。");
 
                         if (random.nextBoolean()) {
-                            logger.debug(String.format(
-                                    "散戶%s 選擇市價賣出，嘗試賣出數量=%d",
-                                    traderID, sellAmount
-                            ), "RETAIL_INVESTOR_SELL");
-                            int actualSell = 市價賣出操作(sellAmount);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_SELL",
+                                        "散戶%s 選擇市價賣出，嘗試賣出數量=%d",
+                                        traderID, sellAmount);
+                            }
+                            int actualSell = 市價賣出操作(sellAmount, null);
                             if (actualSell > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_SELL",
                                         "散戶%s 忽略門檻市價賣出成功：賣出 %d 股",
-                                        traderID, actualSell
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, actualSell);
                                 decisionReason.append("【成功】市價賣出 ").append(actualSell).append(" 股。\n");
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_SELL",
                                         "散戶%s 忽略門檻市價賣出失敗：賣出量 %d",
-                                        traderID, sellAmount
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, sellAmount);
                                 //decisionReason.append("【失敗】市價賣出。持股或買單量不足。\n");
                             }
                         } else {
                             double sellLimitPrice = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                            logger.debug(String.format(
-                                    "散戶%s 選擇限價賣出，嘗試賣出數量=%d，限價=%.2f",
-                                    traderID, sellAmount, sellLimitPrice
-                            ), "RETAIL_INVESTOR_SELL");
-                            int actualSell = 限價賣出操作(sellAmount, sellLimitPrice);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_SELL",
+                                        "散戶%s 選擇限價賣出，嘗試賣出數量=%d，限價=%.2f",
+                                        traderID, sellAmount, sellLimitPrice);
+                            }
+                            int actualSell = 限價賣出操作(sellAmount, sellLimitPrice, null);
                             if (actualSell > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_SELL",
                                         "散戶%s 忽略門檻限價賣出成功：賣出 %d 股，價格=%.2f",
-                                        traderID, actualSell, sellLimitPrice
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, actualSell, sellLimitPrice);
                                 decisionReason.append("【成功】限價賣出 ").append(actualSell).append(" 股，價格 " + decimalFormat.format(sellLimitPrice) + "。\n");
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_SELL",
                                         "散戶%s 忽略門檻限價賣出失敗：賣出量 %d，限價=%.2f",
-                                        traderID, sellAmount, sellLimitPrice
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, sellAmount, sellLimitPrice);
                                 //decisionReason.append("【失敗】限價賣出。持股或買單量不足。\n");
                             }
                         }
 
                         stopLossPrice = null;
                         takeProfitPrice = null;
-                        logger.debug(String.format(
-                                "散戶%s 重置停損/止盈設定",
-                                traderID
-                        ), "RETAIL_INVESTOR_STOP_POINTS");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
+                                    "散戶%s 重置停損/止盈設定",
+                                    traderID);
+                        }
                     }
                 } else {
                     // 遵循門檻
-                    logger.debug(String.format(
-                            "散戶%s 遵循門檻策略：價格差異比率=%.4f, 買入門檻=%.4f, 賣出門檻=%.4f",
-                            traderID, priceDifferenceRatio, -dynamicBuyThreshold, dynamicSellThreshold
-                    ), "RETAIL_INVESTOR_DECISION");
+                    if (debug) {
+                        logger.debugf("RETAIL_INVESTOR_DECISION",
+                                "散戶%s 遵循門檻策略：價格差異比率=%.4f, 買入門檻=%.4f, 賣出門檻=%.4f",
+                                traderID, priceDifferenceRatio, -dynamicBuyThreshold, dynamicSellThreshold);
+                    }
 
                     if (priceDifferenceRatio < -dynamicBuyThreshold && availableFunds >= currentPrice && actionProbability > 0.2) {
                         int buyAmount = calculateTransactionVolume(availableFunds, currentPrice, volatility);
-                        logger.debug(String.format(
-                                "散戶%s 遵循門檻買入：計算買入量=%d",
-                                traderID, buyAmount
-                        ), "RETAIL_INVESTOR_BUY");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_BUY",
+                                    "散戶%s 遵循門檻買入：計算買入量=%d",
+                                    traderID, buyAmount);
+                        }
                         decisionReason.append(String.format("【遵循門檻】股價低於 SMA 的 %.2f%% 門檻，買入 %d 股。",
                                 dynamicBuyThreshold * 100, buyAmount));
 
                         if (random.nextBoolean()) {
-                            logger.debug(String.format(
-                                    "散戶%s 選擇市價買入，嘗試買入數量=%d",
-                                    traderID, buyAmount
-                            ), "RETAIL_INVESTOR_BUY");
-                            int actualBuy = 市價買入操作(buyAmount);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_BUY",
+                                        "散戶%s 選擇市價買入，嘗試買入數量=%d",
+                                        traderID, buyAmount);
+                            }
+                            int actualBuy = 市價買入操作(buyAmount, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                             if (actualBuy > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_BUY",
                                         "散戶%s 遵循門檻市價買入成功：買入 %d 股",
-                                        traderID, actualBuy
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, actualBuy);
                                 decisionReason.append("【成功】市價買入 " + actualBuy + " 股。\n");
-                                setStopLossAndTakeProfit(currentPrice, volatility);
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_BUY",
                                         "散戶%s 遵循門檻市價買入失敗：買入量 %d",
-                                        traderID, buyAmount
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, buyAmount);
                                 //decisionReason.append("【失敗】市價買入。資金或掛單量不足。\n");
                             }
                         } else {
                             double buyLimitPrice = computeBuyLimitPrice(currentPrice, sma, rsi, volatility);
-                            logger.debug(String.format(
-                                    "散戶%s 選擇限價買入，嘗試買入數量=%d，限價=%.2f",
-                                    traderID, buyAmount, buyLimitPrice
-                            ), "RETAIL_INVESTOR_BUY");
-                            int actualBuy = 限價買入操作(buyAmount, buyLimitPrice);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_BUY",
+                                        "散戶%s 選擇限價買入，嘗試買入數量=%d，限價=%.2f",
+                                        traderID, buyAmount, buyLimitPrice);
+                            }
+                            int actualBuy = 限價買入操作(buyAmount, buyLimitPrice, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                             if (actualBuy > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_BUY",
                                         "散戶%s 遵循門檻限價買入成功：買入 %d 股，價格=%.2f",
-                                        traderID, actualBuy, buyLimitPrice
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, actualBuy, buyLimitPrice);
                                 decisionReason.append("【成功】限價買入 " + actualBuy + " 股，價格 " + decimalFormat.format(buyLimitPrice) + "。\n");
-                                setStopLossAndTakeProfit(currentPrice, volatility);
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_BUY",
                                         "散戶%s 遵循門檻限價買入失敗：買入量 %d，限價=%.2f",
-                                        traderID, buyAmount, buyLimitPrice
-                                ), "RETAIL_INVESTOR_BUY");
+                                        traderID, buyAmount, buyLimitPrice);
                                 //decisionReason.append("【失敗】限價買入。資金或賣單量不足。\n");
                             }
                         }
                     } else if (priceDifferenceRatio > dynamicSellThreshold && getAccumulatedStocks() > 0 && actionProbability > 0.2) {
                         int sellAmount = calculateSellVolume(priceDifferenceRatio, volatility);
-                        logger.debug(String.format(
-                                "散戶%s 遵循門檻賣出：計算賣出量=%d",
-                                traderID, sellAmount
-                        ), "RETAIL_INVESTOR_SELL");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_SELL",
+                                    "散戶%s 遵循門檻賣出：計算賣出量=%d",
+                                    traderID, sellAmount);
+                        }
                         decisionReason.append(String.format("【遵循門檻】股價高於 SMA 的 %.2f%% 門檻，賣出 %d 股。",
                                 dynamicSellThreshold * 100, sellAmount));
 
                         if (random.nextBoolean()) {
-                            logger.debug(String.format(
-                                    "散戶%s 選擇市價賣出，嘗試賣出數量=%d",
-                                    traderID, sellAmount
-                            ), "RETAIL_INVESTOR_SELL");
-                            int actualSell = 市價賣出操作(sellAmount);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_SELL",
+                                        "散戶%s 選擇市價賣出，嘗試賣出數量=%d",
+                                        traderID, sellAmount);
+                            }
+                            int actualSell = 市價賣出操作(sellAmount, null);
                             if (actualSell > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_SELL",
                                         "散戶%s 遵循門檻市價賣出成功：賣出 %d 股",
-                                        traderID, actualSell
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, actualSell);
                                 decisionReason.append("【成功】市價賣出 " + actualSell + " 股。\n");
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_SELL",
                                         "散戶%s 遵循門檻市價賣出失敗：賣出量 %d",
-                                        traderID, sellAmount
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, sellAmount);
                                 //decisionReason.append("【失敗】市價賣出。持股或買單量不足。\n");
                             }
                         } else {
                             double sellLimitPrice = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                            logger.debug(String.format(
-                                    "散戶%s 選擇限價賣出，嘗試賣出數量=%d，限價=%.2f",
-                                    traderID, sellAmount, sellLimitPrice
-                            ), "RETAIL_INVESTOR_SELL");
-                            int actualSell = 限價賣出操作(sellAmount, sellLimitPrice);
+                            if (debug) {
+                                logger.debugf("RETAIL_INVESTOR_SELL",
+                                        "散戶%s 選擇限價賣出，嘗試賣出數量=%d，限價=%.2f",
+                                        traderID, sellAmount, sellLimitPrice);
+                            }
+                            int actualSell = 限價賣出操作(sellAmount, sellLimitPrice, null);
                             if (actualSell > 0) {
-                                logger.info(String.format(
+                                logger.infof("RETAIL_INVESTOR_SELL",
                                         "散戶%s 遵循門檻限價賣出成功：賣出 %d 股，價格=%.2f",
-                                        traderID, actualSell, sellLimitPrice
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, actualSell, sellLimitPrice);
                                 decisionReason.append("【成功】限價賣出 ").append(actualSell).append(" 股，價格 " + decimalFormat.format(sellLimitPrice) + "。\n");
                             } else {
-                                logger.warn(String.format(
+                                logger.warnf("RETAIL_INVESTOR_SELL",
                                         "散戶%s 遵循門檻限價賣出失敗：賣出量 %d，限價=%.2f",
-                                        traderID, sellAmount, sellLimitPrice
-                                ), "RETAIL_INVESTOR_SELL");
+                                        traderID, sellAmount, sellLimitPrice);
                                 //decisionReason.append("【失敗】限價賣出。持股或買單量不足。\n");
                             }
                         }
 
                         stopLossPrice = null;
                         takeProfitPrice = null;
-                        logger.debug(String.format(
-                                "散戶%s 重置停損/止盈設定",
-                                traderID
-                        ), "RETAIL_INVESTOR_STOP_POINTS");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
+                                    "散戶%s 重置停損/止盈設定",
+                                    traderID);
+                        }
                     } else if (random.nextDouble() < Math.max(0.0, Math.min(0.2, cfg.randomTradeProb))) {
-                        logger.debug(String.format(
-                                "散戶%s 觸發隨機交易機制，執行概率=%.4f",
-                                traderID, random.nextDouble()
-                        ), "RETAIL_INVESTOR_RANDOM");
+                        if (debug) {
+                            logger.debugf("RETAIL_INVESTOR_RANDOM",
+                                    "散戶%s 觸發隨機交易機制，執行概率=%.4f",
+                                    traderID, random.nextDouble());
+                        }
                         executeRandomTransaction(availableFunds, currentPrice, decisionReason, stock);
                     }
                 }
@@ -701,83 +715,77 @@ public class RetailInvestorAI implements Trader {
                 if (allowRsiBuy && rsi < rsiBuy && availableFunds >= currentPrice && trend > -0.4) {
                     int buyAmount = calculateTransactionVolume(availableFunds, currentPrice, volatility);
                     decisionReason.append("【RSI < 30】買入訊號，嘗試買入 ").append(buyAmount).append(" 股。");
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_RSI_BUY",
                             "散戶%s RSI 買入策略：RSI=%.2f, 可用資金=%.2f",
-                            traderID, rsi, availableFunds
-                    ), "RETAIL_INVESTOR_RSI_BUY");
+                            traderID, rsi, availableFunds);
                     // RSI 超賣：改用限價（避免掃單滑價），並用新定價靠檔提高成交率
                     double buyPx = computeBuyLimitPrice(currentPrice, sma, rsi, volatility);
-                    int actualBuy = 限價買入操作(buyAmount, buyPx);
+                    int actualBuy = 限價買入操作(buyAmount, buyPx, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                     if (actualBuy > 0) {
-                        logger.info(String.format(
+                        logger.infof("RETAIL_INVESTOR_RSI_BUY",
                                 "散戶%s RSI 買入成功：買入 %d 股，RSI=%.2f",
-                                traderID, actualBuy, rsi
-                        ), "RETAIL_INVESTOR_RSI_BUY");
+                                traderID, actualBuy, rsi);
                         decisionReason.append("【成功】限價買入 " + actualBuy + " 股。\n");
-                        setStopLossAndTakeProfit(currentPrice, volatility);
                     } else {
-                        logger.warn(String.format(
+                        logger.warnf("RETAIL_INVESTOR_RSI_BUY",
                                 "散戶%s RSI 買入失敗：買入量 %d，RSI=%.2f",
-                                traderID, buyAmount, rsi
-                        ), "RETAIL_INVESTOR_RSI_BUY");
+                                traderID, buyAmount, rsi);
                         //decisionReason.append("【失敗】市價買入。資金或掛單量不足。\n");
                     }
                 } else if (allowRsiSell && rsi > rsiSell && getAccumulatedStocks() > 0) {
                     int sellAmount = calculateSellVolume(priceDifferenceRatio, volatility);
                     decisionReason.append("【RSI > 70】賣出訊號，嘗試賣出 ").append(sellAmount).append(" 股。");
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_RSI_SELL",
                             "散戶%s RSI 賣出策略：RSI=%.2f, 持股數量=%d",
-                            traderID, rsi, getAccumulatedStocks()
-                    ), "RETAIL_INVESTOR_RSI_SELL");
+                            traderID, rsi, getAccumulatedStocks());
                     // RSI 超買：改用限價（避免砍賣），並用新定價靠檔提高成交率
                     double sellPx = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                    int actualSell = 限價賣出操作(sellAmount, sellPx);
+                    int actualSell = 限價賣出操作(sellAmount, sellPx, null);
                     if (actualSell > 0) {
-                        logger.info(String.format(
+                        logger.infof("RETAIL_INVESTOR_RSI_SELL",
                                 "散戶%s RSI 賣出成功：賣出 %d 股，RSI=%.2f",
-                                traderID, actualSell, rsi
-                        ), "RETAIL_INVESTOR_RSI_SELL");
+                                traderID, actualSell, rsi);
                         decisionReason.append("【成功】限價賣出 ").append(actualSell).append(" 股。\n");
                     } else {
-                        logger.warn(String.format(
+                        logger.warnf("RETAIL_INVESTOR_RSI_SELL",
                                 "散戶%s RSI 賣出失敗：賣出量 %d，RSI=%.2f",
-                                traderID, sellAmount, rsi
-                        ), "RETAIL_INVESTOR_RSI_SELL");
+                                traderID, sellAmount, rsi);
                         //decisionReason.append("【失敗】市價賣出。持股或買單量不足。\n");
                     }
                     stopLossPrice = null;
                     takeProfitPrice = null;
-                    logger.debug(String.format(
-                            "散戶%s 重置停損/止盈設定",
-                            traderID
-                    ), "RETAIL_INVESTOR_STOP_POINTS");
+                    if (debug) {
+                        logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
+                                "散戶%s 重置停損/止盈設定",
+                                traderID);
+                    }
                 }
 
                 if (model != null) {
                     model.sendInfoMessage(decisionReason.toString());
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_DECISION",
                             "散戶%s 無法更新 UI，model 為 null",
-                            traderID
-                    ), "RETAIL_INVESTOR_DECISION");
+                            traderID);
                 }
-                logger.debug(String.format(
-                        "散戶%s 決策完成，結果：%s",
-                        traderID, decisionReason.toString()
-                ), "RETAIL_INVESTOR_DECISION");
+                if (debug) {
+                    logger.debugf("RETAIL_INVESTOR_DECISION",
+                            "散戶%s 決策完成，結果：%s",
+                            traderID, decisionReason.toString());
+                }
+                MarketEvents.agentDecision(orderBook.getClock().millis(), getTraderType(), traderID,
+                        currentPrice, availableFunds, positionBefore, getAccumulatedStocks(), sma, rsi, volatility);
             } else {
                 if (model != null) {
                     model.sendInfoMessage("【散戶】尚無法計算 SMA，暫無決策。\n");
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_DECISION",
                             "散戶%s 無法更新 UI，model 為 null",
-                            traderID
-                    ), "RETAIL_INVESTOR_DECISION");
+                            traderID);
                 }
-                logger.warn(String.format(
+                logger.warnf("RETAIL_INVESTOR_DECISION",
                         "散戶%s 無法計算 SMA，暫無決策",
-                        traderID
-                ), "RETAIL_INVESTOR_DECISION");
+                        traderID);
             }
         } catch (Exception e) {
             logger.error(String.format(
@@ -797,75 +805,65 @@ public class RetailInvestorAI implements Trader {
     private void handleStopLossTakeProfit(double currentPrice, StringBuilder decisionReason) {
         // 停損
         if (stopLossPrice != null && currentPrice <= stopLossPrice) {
-            logger.info(String.format(
+            logger.infof("RETAIL_INVESTOR_STOP_LOSS",
                     "散戶%s 觸發停損：停損價=%.2f, 當前價格=%.2f",
-                    traderID, stopLossPrice, currentPrice
-            ), "RETAIL_INVESTOR_STOP_LOSS");
+                    traderID, stopLossPrice, currentPrice);
 
             int sellAll = getAccumulatedStocks();
             if (sellAll > 0) {
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_STOP_LOSS",
                         "散戶%s 停損賣出：嘗試賣出數量=%d",
-                        traderID, sellAll
-                ), "RETAIL_INVESTOR_STOP_LOSS");
+                        traderID, sellAll);
 
-                int actualSell = 市價賣出操作(sellAll);
+                int actualSell = 市價賣出操作(sellAll, null);
                 if (actualSell > 0) {
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_STOP_LOSS",
                             "散戶%s 停損賣出成功：賣出 %d 股",
-                            traderID, actualSell
-                    ), "RETAIL_INVESTOR_STOP_LOSS");
+                            traderID, actualSell);
                     decisionReason.append("【停損觸發】市價賣出全部 ").append(actualSell).append(" 股。\n");
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_STOP_LOSS",
                             "散戶%s 停損賣出失敗：賣出量 %d",
-                            traderID, sellAll
-                    ), "RETAIL_INVESTOR_STOP_LOSS");
+                            traderID, sellAll);
                     //decisionReason.append("【停損觸發】失敗，持股或買單量不足。\n");
                 }
             }
             stopLossPrice = null;
             takeProfitPrice = null;
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
                     "散戶%s 停損後重置停損/止盈設定",
-                    traderID
-            ), "RETAIL_INVESTOR_STOP_POINTS");
+                    traderID);
         }
         // 止盈
         if (takeProfitPrice != null && currentPrice >= takeProfitPrice) {
-            logger.info(String.format(
+            logger.infof("RETAIL_INVESTOR_TAKE_PROFIT",
                     "散戶%s 觸發止盈：止盈價=%.2f, 當前價格=%.2f",
-                    traderID, takeProfitPrice, currentPrice
-            ), "RETAIL_INVESTOR_TAKE_PROFIT");
+                    traderID, takeProfitPrice, currentPrice);
 
             int sellAll = getAccumulatedStocks();
             if (sellAll > 0) {
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_TAKE_PROFIT",
                         "散戶%s 止盈賣出：嘗試賣出數量=%d",
-                        traderID, sellAll
-                ), "RETAIL_INVESTOR_TAKE_PROFIT");
+                        traderID, sellAll);
 
-                int actualSell = 市價賣出操作(sellAll);
+                int actualSell = 市價賣出操作(sellAll, null);
                 if (actualSell > 0) {
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_TAKE_PROFIT",
                             "散戶%s 止盈賣出成功：賣出 %d 股",
-                            traderID, actualSell
-                    ), "RETAIL_INVESTOR_TAKE_PROFIT");
+                            traderID, actualSell);
                     decisionReason.append("【止盈觸發】市價賣出全部 ").append(actualSell).append(" 股。\n");
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_TAKE_PROFIT",
                             "散戶%s 止盈賣出失敗：賣出量 %d",
-                            traderID, sellAll
-                    ), "RETAIL_INVESTOR_TAKE_PROFIT");
+                            traderID, sellAll);
                     //decisionReason.append("【止盈觸發】失敗，持股或買單量不足。\n");
                 }
             }
             stopLossPrice = null;
             takeProfitPrice = null;
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
                     "散戶%s 止盈後重置停損/止盈設定",
-                    traderID
-            ), "RETAIL_INVESTOR_STOP_POINTS");
+                    traderID);
         }
     }
 
@@ -874,180 +872,157 @@ public class RetailInvestorAI implements Trader {
      * 隨機交易 - 增強版，加入不同訂單類型
      */
     private void executeRandomTransaction(double availableFunds, double currentPrice, StringBuilder decisionReason, Stock stock) {
-        double sma = model.getMarketAnalyzer().calculateSMA();
-        double rsi = model.getMarketAnalyzer().getRSI();
-        double volatility = model.getMarketAnalyzer().getVolatility();
+        double sma = context().getSma();
+        double rsi = context().getRsi();
+        double volatility = context().getVolatility();
 
         // 選擇交易類型
         String txType = random.nextDouble() < 0.5 ? "buy" : "sell";
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_RANDOM",
                 "散戶%s 隨機交易：選擇交易類型=%s, 可用資金=%.2f, 當前價格=%.2f",
-                traderID, txType, availableFunds, currentPrice
-        ), "RETAIL_INVESTOR_RANDOM");
+                traderID, txType, availableFunds, currentPrice);
 
         if ("buy".equals(txType) && availableFunds >= currentPrice) {
             int buyAmount = random.nextInt(50) + 1; // 1~50 股
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_RANDOM",
                     "散戶%s 隨機買入：決定買入數量=%d",
-                    traderID, buyAmount
-            ), "RETAIL_INVESTOR_RANDOM");
+                    traderID, buyAmount);
 
             // 選擇訂單類型
             double orderTypeRandom = random.nextDouble();
             if (orderTypeRandom < 0.4) {
                 // 40% 機率市價單
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_RANDOM",
                         "散戶%s 隨機買入：選擇市價單，機率=%.4f",
-                        traderID, orderTypeRandom
-                ), "RETAIL_INVESTOR_RANDOM");
+                        traderID, orderTypeRandom);
 
-                int actualBuy = 市價買入操作(buyAmount);
+                int actualBuy = 市價買入操作(buyAmount, () -> setStopLossAndTakeProfit(currentPrice, context().getVolatility()));
                 if (actualBuy > 0) {
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機市價買入成功：買入 %d 股",
-                            traderID, actualBuy
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, actualBuy);
                     decisionReason.append("【隨機操作】市價買入 ").append(actualBuy).append(" 股。\n");
-                    setStopLossAndTakeProfit(currentPrice, model.getMarketAnalyzer().getVolatility());
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機市價買入失敗：買入量 %d",
-                            traderID, buyAmount
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, buyAmount);
                 }
             } else if (orderTypeRandom < 0.9) {
                 // 50% 機率限價單
                 double buyLimitPrice = computeBuyLimitPrice(currentPrice, sma, rsi, volatility);
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_RANDOM",
                         "散戶%s 隨機買入：選擇限價單，機率=%.4f, 限價=%.2f",
-                        traderID, orderTypeRandom, buyLimitPrice
-                ), "RETAIL_INVESTOR_RANDOM");
+                        traderID, orderTypeRandom, buyLimitPrice);
 
-                int actualBuy = 限價買入操作(buyAmount, buyLimitPrice);
+                int actualBuy = 限價買入操作(buyAmount, buyLimitPrice, () -> setStopLossAndTakeProfit(currentPrice, context().getVolatility()));
                 if (actualBuy > 0) {
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機限價買入成功：買入 %d 股，價格=%.2f",
-                            traderID, actualBuy, buyLimitPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, actualBuy, buyLimitPrice);
                     decisionReason.append("【隨機操作】限價買入 ").append(actualBuy).append(" 股，價格 " + decimalFormat.format(buyLimitPrice) + "。\n");
-                    setStopLossAndTakeProfit(currentPrice, model.getMarketAnalyzer().getVolatility());
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機限價買入失敗：買入量 %d，限價=%.2f",
-                            traderID, buyAmount, buyLimitPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, buyAmount, buyLimitPrice);
                 }
             } else {
                 // 10% 機率FOK單
                 double buyPrice = computeBuyLimitPrice(currentPrice, sma, rsi, volatility);
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_RANDOM",
                         "散戶%s 隨機買入：選擇FOK單，機率=%.4f, 價格=%.2f",
-                        traderID, orderTypeRandom, buyPrice
-                ), "RETAIL_INVESTOR_RANDOM");
-
-                boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
-                        buyAmount, buyPrice, "retail random FOK buy")).accepted();
-                if (success) {
-                    logger.info(String.format(
-                            "散戶%s 隨機FOK買入成功：買入 %d 股，價格=%.2f",
-                            traderID, buyAmount, buyPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
-                    decisionReason.append("【隨機操作】FOK買入 ").append(buyAmount).append(" 股，價格 " + decimalFormat.format(buyPrice) + "。\n");
-                    setStopLossAndTakeProfit(currentPrice, model.getMarketAnalyzer().getVolatility());
-                } else {
-                    logger.warn(String.format(
-                            "散戶%s 隨機FOK買入失敗：買入量 %d，價格=%.2f",
-                            traderID, buyAmount, buyPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
-                    decisionReason.append("【隨機操作】FOK買入失敗，無法完全滿足。\n");
-                }
+                        traderID, orderTypeRandom, buyPrice);
+
+                executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
+                        buyAmount, buyPrice, "retail random FOK buy"), r -> {
+                    if (r.accepted()) {
+                        logger.infof("RETAIL_INVESTOR_RANDOM",
+                                "散戶%s 隨機FOK買入成功：買入 %d 股，價格=%.2f",
+                                traderID, buyAmount, buyPrice);
+                        decisionReason.append("【隨機操作】FOK買入 ").append(buyAmount).append(" 股，價格 " + decimalFormat.format(buyPrice) + "。\n");
+                        setStopLossAndTakeProfit(currentPrice, context().getVolatility());
+                    } else {
+                        logger.warnf("RETAIL_INVESTOR_RANDOM",
+                                "散戶%s 隨機FOK買入失敗：買入量 %d，價格=%.2f",
+                                traderID, buyAmount, buyPrice);
+                        decisionReason.append("【隨機操作】FOK買入失敗，無法完全滿足。\n");
+                    }
+                });
             }
         } else if (getAccumulatedStocks() > 0) {
             int sellAmount = random.nextInt(getAccumulatedStocks()) + 1;
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_RANDOM",
                     "散戶%s 隨機賣出：決定賣出數量=%d, 持股數量=%d",
-                    traderID, sellAmount, getAccumulatedStocks()
-            ), "RETAIL_INVESTOR_RANDOM");
+                    traderID, sellAmount, getAccumulatedStocks());
 
             // 選擇訂單類型
             double orderTypeRandom = random.nextDouble();
             if (orderTypeRandom < 0.4) {
                 // 40% 機率市價單
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_RANDOM",
                         "散戶%s 隨機賣出：選擇市價單，機率=%.4f",
-                        traderID, orderTypeRandom
-                ), "RETAIL_INVESTOR_RANDOM");
+                        traderID, orderTypeRandom);
 
-                int actualSell = 市價賣出操作(sellAmount);
+                int actualSell = 市價賣出操作(sellAmount, null);
                 if (actualSell > 0) {
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機市價賣出成功：賣出 %d 股",
-                            traderID, actualSell
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, actualSell);
                     decisionReason.append("【隨機操作】市價賣出 ").append(actualSell).append(" 股。\n");
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機市價賣出失敗：賣出量 %d",
-                            traderID, sellAmount
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, sellAmount);
                 }
             } else if (orderTypeRandom < 0.9) {
                 // 50% 機率限價單
                 double sellLimitPrice = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_RANDOM",
                         "散戶%s 隨機賣出：選擇限價單，機率=%.4f, 限價=%.2f",
-                        traderID, orderTypeRandom, sellLimitPrice
-                ), "RETAIL_INVESTOR_RANDOM");
+                        traderID, orderTypeRandom, sellLimitPrice);
 
-                int actualSell = 限價賣出操作(sellAmount, sellLimitPrice);
+                int actualSell = 限價賣出操作(sellAmount, sellLimitPrice, null);
                 if (actualSell > 0) {
-                    logger.info(String.format(
+                    logger.infof("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機限價賣出成功：賣出 %d 股，價格=%.2f",
-                            traderID, actualSell, sellLimitPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, actualSell, sellLimitPrice);
                     decisionReason.append("【隨機操作】限價賣出 ").append(actualSell).append(" 股，價格 " + decimalFormat.format(sellLimitPrice) + "。\n");
                 } else {
-                    logger.warn(String.format(
+                    logger.warnf("RETAIL_INVESTOR_RANDOM",
                             "散戶%s 隨機限價賣出失敗：賣出量 %d，限價=%.2f",
-                            traderID, sellAmount, sellLimitPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
+                            traderID, sellAmount, sellLimitPrice);
                 }
             } else {
                 // 10% 機率FOK單
                 double sellPrice = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                logger.debug(String.format(
+                logger.debugf("RETAIL_INVESTOR_RANDOM",
                         "散戶%s 隨機賣出：選擇FOK單，機率=%.4f, 價格=%.2f",
-                        traderID, orderTypeRandom, sellPrice
-                ), "RETAIL_INVESTOR_RANDOM");
-
-                boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
-                        sellAmount, sellPrice, "retail random FOK sell")).accepted();
-                if (success) {
-                    logger.info(String.format(
-                            "散戶%s 隨機FOK賣出成功：賣出 %d 股，價格=%.2f",
-                            traderID, sellAmount, sellPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
-                    decisionReason.append("【隨機操作】FOK賣出 ").append(sellAmount).append(" 股，價格 " + decimalFormat.format(sellPrice) + "。\n");
-                } else {
-                    logger.warn(String.format(
-                            "散戶%s 隨機FOK賣出失敗：賣出量 %d，價格=%.2f",
-                            traderID, sellAmount, sellPrice
-                    ), "RETAIL_INVESTOR_RANDOM");
-                    decisionReason.append("【隨機操作】FOK賣出失敗，無法完全滿足。\n");
-                }
+                        traderID, orderTypeRandom, sellPrice);
+
+                executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
+                        sellAmount, sellPrice, "retail random FOK sell"), r -> {
+                    if (r.accepted()) {
+                        logger.infof("RETAIL_INVESTOR_RANDOM",
+                                "散戶%s 隨機FOK賣出成功：賣出 %d 股，價格=%.2f",
+                                traderID, sellAmount, sellPrice);
+                        decisionReason.append("【隨機操作】FOK賣出 ").append(sellAmount).append(" 股，價格 " + decimalFormat.format(sellPrice) + "。\n");
+                    } else {
+                        logger.warnf("RETAIL_INVESTOR_RANDOM",
+                                "散戶%s 隨機FOK賣出失敗：賣出量 %d，價格=%.2f",
+                                traderID, sellAmount, sellPrice);
+                        decisionReason.append("【隨機操作】FOK賣出失敗，無法完全滿足。\n");
+                    }
+                });
             }
 
             stopLossPrice = null;
             takeProfitPrice = null;
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
                     "散戶%s 隨機賣出後重置停損/止盈設定",
-                    traderID
-            ), "RETAIL_INVESTOR_STOP_POINTS");
+                    traderID);
         } else {
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_RANDOM",
                     "散戶%s 隨機交易：無法執行交易，資金不足或無持股",
-                    traderID
-            ), "RETAIL_INVESTOR_RANDOM");
+                    traderID);
         }
     }
 
@@ -1061,12 +1036,10 @@ public class RetailInvestorAI implements Trader {
 
         // 取最佳一檔，避免「買單掛到現價以上」變成追買
         double bestBid = 0.0, bestAsk = 0.0;
-        try {
-            List<Order> topBuys = orderBook.getTopBuyOrders(1);
-            List<Order> topSells = orderBook.getTopSellOrders(1);
-            if (!topBuys.isEmpty() && topBuys.get(0) != null) bestBid = topBuys.get(0).getPrice();
-            if (!topSells.isEmpty() && topSells.get(0) != null) bestAsk = topSells.get(0).getPrice();
-        } catch (Exception ignore) { logOptionalFailure(ignore); }
+        if (model != null) {
+            bestBid = context().getBestBid();
+            bestAsk = context().getBestAsk();
+        }
 
         // 波動以「比例」處理（MarketAnalyzer 的 volatility 是價格標準差，需除以價格）
         double volRatio = (currentPrice > 0) ? Math.abs(volatility) / currentPrice : 0.0;
@@ -1103,12 +1076,10 @@ public class RetailInvestorAI implements Trader {
         if (orderBook == null) return currentPrice;
 
         double bestBid = 0.0, bestAsk = 0.0;
-        try {
-            List<Order> topBuys = orderBook.getTopBuyOrders(1);
-            List<Order> topSells = orderBook.getTopSellOrders(1);
-            if (!topBuys.isEmpty() && topBuys.get(0) != null) bestBid = topBuys.get(0).getPrice();
-            if (!topSells.isEmpty() && topSells.get(0) != null) bestAsk = topSells.get(0).getPrice();
-        } catch (Exception ignore) { logOptionalFailure(ignore); }
+        if (model != null) {
+            bestBid = context().getBestBid();
+            bestAsk = context().getBestAsk();
+        }
 
         double volRatio = (currentPrice > 0) ? Math.abs(volatility) / currentPrice : 0.0;
 
@@ -1133,10 +1104,20 @@ public class RetailInvestorAI implements Trader {
     }
 
     // ========== 實際掛單操作 (成功/失敗印出) ==========
+    // 以下下單操作的 onDone（可為 null）在下單成功時執行：一般模式立即執行；平行決策階段
+    // 於排序提交、實際執行後才執行，並回傳提交量。依成交結果更新的狀態（停損/止盈）放在 onDone 內。
+
+    private static Consumer<StrategyExecutionResult> onSuccess(Runnable onDone,
+                                                               Predicate<StrategyExecutionResult> success) {
+        return onDone == null ? null : r -> {
+            if (success.test(r)) onDone.run();
+        };
+    }
+
     /**
      * 修改散戶AI類的市價買入操作方法 - 使用新的市價單API
      */
-    private int 市價買入操作(int buyAmount) {
+    private int 市價買入操作(int buyAmount, Runnable onDone) {
         double price = stock.getPrice();
         double totalCost = price * buyAmount;
         double funds = account.getAvailableFunds();
@@ -1156,17 +1137,15 @@ public class RetailInvestorAI implements Trader {
 
         // 市價單門檻化：僅在強趨勢與高速度時允許
         try {
-            double tps = model != null ? model.getRecentTPS(40) : 0.0;
-            double imb = model != null ? model.getRecentTickImbalance(40) : 0.0;
+            double tps = model != null ? context().getFlow().tps() : 0.0;
+            double imb = model != null ? context().getFlow().tickImbalance() : 0.0;
             boolean strongFlow = (tps >= 2.0) && (imb > 0.15); // 可調參
             if (!strongFlow) {
                 // 降級為限價單：貼近買一/賣一之間（避免追買）
                 double px = stock.getPrice();
                 try {
-                    List<Order> topBuys = orderBook.getTopBuyOrders(1);
-                    List<Order> topSells = orderBook.getTopSellOrders(1);
-                    double bestBid = (!topBuys.isEmpty() && topBuys.get(0) != null) ? topBuys.get(0).getPrice() : 0.0;
-                    double bestAsk = (!topSells.isEmpty() && topSells.get(0) != null) ? topSells.get(0).getPrice() : 0.0;
+                    double bestBid = model != null ? context().getBestBid() : 0.0;
+                    double bestAsk = model != null ? context().getBestAsk() : 0.0;
                     if (bestBid > 0) {
                         double tick = orderBook.getTickSize(bestBid);
                         px = bestBid + tick; // 只加一檔，提高成交但不跨太多
@@ -1177,21 +1156,21 @@ public class RetailInvestorAI implements Trader {
                 Order buyOrder = Order.createLimitBuyOrder(px, buyAmount, this);
                 trackOrderCreation(buyOrder.getId());
                 executeIntent(orderBook, OrderIntent.limit(OrderSide.BUY,
-                        buyAmount, px, "retail limit buy"));
+                        buyAmount, px, "retail limit buy"), onSuccess(onDone, r -> true));
                 return buyAmount;
             }
         } catch (Exception ignore) { logOptionalFailure(ignore); }
 
         // 使用新的市價買單API
         var result = executeIntent(orderBook, OrderIntent.market(OrderSide.BUY,
-                buyAmount, "retail market buy"));
-        return result.execution() != null ? result.execution().filledVolume() : 0;
+                buyAmount, "retail market buy"), onSuccess(onDone, r -> r.filledVolume() > 0));
+        return result.pending() ? buyAmount : result.filledVolume();
     }
 
     /**
      * 修改散戶AI類的市價賣出操作方法 - 使用新的市價單API
      */
-    private int 市價賣出操作(int sellAmount) {
+    private int 市價賣出操作(int sellAmount, Runnable onDone) {
         int hold = getAccumulatedStocks();
         if (hold < sellAmount) {
             // 持股不足
@@ -1200,17 +1179,15 @@ public class RetailInvestorAI implements Trader {
 
         // 市價單門檻化：僅在強趨勢與高速度時允許
         try {
-            double tps = model != null ? model.getRecentTPS(40) : 0.0;
-            double imb = model != null ? model.getRecentTickImbalance(40) : 0.0;
+            double tps = model != null ? context().getFlow().tps() : 0.0;
+            double imb = model != null ? context().getFlow().tickImbalance() : 0.0;
             boolean strongFlow = (tps >= 2.0) && (imb < -0.15); // 可調參
             if (!strongFlow) {
                 // 降級為限價單：貼近賣一/買一之間（避免砍賣）
                 double px = stock.getPrice();
                 try {
-                    List<Order> topBuys = orderBook.getTopBuyOrders(1);
-                    List<Order> topSells = orderBook.getTopSellOrders(1);
-                    double bestBid = (!topBuys.isEmpty() && topBuys.get(0) != null) ? topBuys.get(0).getPrice() : 0.0;
-                    double bestAsk = (!topSells.isEmpty() && topSells.get(0) != null) ? topSells.get(0).getPrice() : 0.0;
+                    double bestBid = model != null ? context().getBestBid() : 0.0;
+                    double bestAsk = model != null ? context().getBestAsk() : 0.0;
                     if (bestAsk > 0) {
                         double tick = orderBook.getTickSize(bestAsk);
                         px = bestAsk - tick; // 只讓一檔，提高成交但不砍太多
@@ -1221,15 +1198,15 @@ public class RetailInvestorAI implements Trader {
                 Order sellOrder = Order.createLimitSellOrder(px, sellAmount, this);
                 trackOrderCreation(sellOrder.getId());
                 executeIntent(orderBook, OrderIntent.limit(OrderSide.SELL,
-                        sellAmount, px, "retail limit sell"));
+                        sellAmount, px, "retail limit sell"), onSuccess(onDone, r -> true));
                 return sellAmount;
             }
         } catch (Exception ignore) { logOptionalFailure(ignore); }
 
         // 使用新的市價賣單API
         var result = executeIntent(orderBook, OrderIntent.market(OrderSide.SELL,
-                sellAmount, "retail market sell"));
-        return result.execution() != null ? result.execution().filledVolume() : 0;
+                sellAmount, "retail market sell"), onSuccess(onDone, r -> r.filledVolume() > 0));
+        return result.pending() ? sellAmount : result.filledVolume();
     }
 
     /**
@@ -1237,9 +1214,10 @@ public class RetailInvestorAI implements Trader {
      *
      * @param amount 欲買股數
      * @param suggestedPrice 系統計算的建議價格
-     * @return 實際買入股數 (0=失敗)
+     * @param onDone 下單成功時執行（見上方說明）
+     * @return 實際買入股數 (0=失敗；平行決策階段為提交量)
      */
-    private int 限價買入操作(int amount, double suggestedPrice) {
+    private int 限價買入操作(int amount, double suggestedPrice, Runnable onDone) {
         double funds = account.getAvailableFunds();
         double currentPrice = stock.getPrice();
 
@@ -1262,21 +1240,22 @@ public class RetailInvestorAI implements Trader {
         // 決定訂單類型 (根據隨機性和當前模式)
         if (random.nextDouble() < 0.1) {
             // 10% 機率使用FOK訂單
-            boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
-                    amount, finalPrice, "retail FOK buy")).accepted();
-            if (success) {
-                logger.info("提交FOK買單成功：" + amount + " 股，價格 " + finalPrice, "RETAIL_INVESTOR_DECISION");
-                return amount;
-            } else {
-                logger.info("提交FOK買單失敗：無法完全滿足，quantity=" + amount, "RETAIL_INVESTOR_DECISION");
-                return 0;
-            }
+            StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
+                    amount, finalPrice, "retail FOK buy"), r -> {
+                if (r.accepted()) {
+                    logger.info("提交FOK買單成功：" + amount + " 股，價格 " + finalPrice, "RETAIL_INVESTOR_DECISION");
+                    if (onDone != null) onDone.run();
+                } else {
+                    logger.info("提交FOK買單失敗：無法完全滿足，quantity=" + amount, "RETAIL_INVESTOR_DECISION");
+                }
+            });
+            return result.pending() || result.accepted() ? amount : 0;
         } else {
             // 90% 機率使用普通限價單
             Order buyOrder = Order.createLimitBuyOrder(finalPrice, amount, this);
             trackOrderCreation(buyOrder.getId());
             executeIntent(orderBook, OrderIntent.limit(OrderSide.BUY,
-                    amount, finalPrice, "retail limit buy"));
+                    amount, finalPrice, "retail limit buy"), onSuccess(onDone, r -> true));
             return amount;
         }
     }
@@ -1334,14 +1313,13 @@ public class RetailInvestorAI implements Trader {
      */
     private double 智能決定買入價格(double suggestedPrice, double currentPrice) {
         // 獲取市場分析數據
-        double sma = model.getMarketAnalyzer().calculateSMA();
-        double rsi = model.getMarketAnalyzer().getRSI();
-        double volatility = model.getMarketAnalyzer().getVolatility();
+        double sma = context().getSma();
+        double rsi = context().getRsi();
+        double volatility = context().getVolatility();
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能買入定價開始：當前價格=%.2f, 建議價格=%.2f, SMA=%.2f, RSI=%.2f, 波動性=%.4f",
-                traderID, currentPrice, suggestedPrice, sma, rsi, volatility
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, currentPrice, suggestedPrice, sma, rsi, volatility);
 
         // 1. 基於市場狀況的決策因子
         double marketConditionFactor = 0.0;
@@ -1419,15 +1397,13 @@ public class RetailInvestorAI implements Trader {
         // 調整為市場最小單位並返回
         double adjustedPrice = orderBook.adjustPriceToUnit(finalPrice);
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能買入定價因子：RSI因子=%.4f, 波動因子=%.4f, SMA因子=%.4f, 隨機因子=%.4f, 風險偏好=%.4f, 急迫因子=%.4f",
-                traderID, rsiFactor, volatilityFactor, smaDiffFactor, randomFactor, riskAppetite, urgencyFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, rsiFactor, volatilityFactor, smaDiffFactor, randomFactor, riskAppetite, urgencyFactor);
 
-        logger.info(String.format(
+        logger.infof("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能買入定價結果：市價=%.2f, 計算價格=%.2f, 價格調整=%.2f%%, 市場因子=%.4f, 個性因子=%.4f, 技術因子=%.4f",
-                traderID, currentPrice, adjustedPrice, priceFactor * 100, marketConditionFactor, personalityFactor, technicalFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, currentPrice, adjustedPrice, priceFactor * 100, marketConditionFactor, personalityFactor, technicalFactor);
 
         return adjustedPrice;
     }
@@ -1437,9 +1413,10 @@ public class RetailInvestorAI implements Trader {
      *
      * @param amount 欲賣股數
      * @param suggestedPrice 系統計算的建議價格
-     * @return 實際賣出股數 (0=失敗)
+     * @param onDone 下單成功時執行（見上方說明）
+     * @return 實際賣出股數 (0=失敗；平行決策階段為提交量)
      */
-    private int 限價賣出操作(int amount, double suggestedPrice) {
+    private int 限價賣出操作(int amount, double suggestedPrice, Runnable onDone) {
         int hold = getAccumulatedStocks();
         double currentPrice = stock.getPrice();
 
@@ -1461,21 +1438,22 @@ public class RetailInvestorAI implements Trader {
         // 決定訂單類型 (根據隨機性和當前模式)
         if (random.nextDouble() < 0.1) {
             // 10% 機率使用FOK訂單
-            boolean success = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
-                    amount, finalPrice, "retail FOK sell")).accepted();
-            if (success) {
-                logger.info("提交FOK賣單成功：" + amount + " 股，價格 " + finalPrice, "RETAIL_INVESTOR_DECISION");
-                return amount;
-            } else {
-                logger.info("提交FOK賣單失敗：無法完全滿足，quantity=" + amount, "RETAIL_INVESTOR_DECISION");
-                return 0;
-            }
+            StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.SELL,
+                    amount, finalPrice, "retail FOK sell"), r -> {
+                if (r.accepted()) {
+                    logger.info("提交FOK賣單成功：" + amount + " 股，價格 " + finalPrice, "RETAIL_INVESTOR_DECISION");
+                    if (onDone != null) onDone.run();
+                } else {
+                    logger.info("提交FOK賣單失敗：無法完全滿足，quantity=" + amount, "RETAIL_INVESTOR_DECISION");
+                }
+            });
+            return result.pending() || result.accepted() ? amount : 0;
         } else {
             // 90% 機率使用普通限價單
             Order sellOrder = Order.createLimitSellOrder(finalPrice, amount, this);
             trackOrderCreation(sellOrder.getId());
             executeIntent(orderBook, OrderIntent.limit(OrderSide.SELL,
-                    amount, finalPrice, "retail limit sell"));
+                    amount, finalPrice, "retail limit sell"), onSuccess(onDone, r -> true));
             return amount;
         }
     }
@@ -1535,14 +1513,13 @@ public class RetailInvestorAI implements Trader {
      */
     private double 智能決定賣出價格(double suggestedPrice, double currentPrice) {
         // 獲取市場分析數據
-        double sma = model.getMarketAnalyzer().calculateSMA();
-        double rsi = model.getMarketAnalyzer().getRSI();
-        double volatility = model.getMarketAnalyzer().getVolatility();
+        double sma = context().getSma();
+        double rsi = context().getRsi();
+        double volatility = context().getVolatility();
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出定價開始：當前價格=%.2f, 建議價格=%.2f, SMA=%.2f, RSI=%.2f, 波動性=%.4f",
-                traderID, currentPrice, suggestedPrice, sma, rsi, volatility
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, currentPrice, suggestedPrice, sma, rsi, volatility);
 
         // 1. 基於市場狀況的決策因子
         double marketConditionFactor = 0.0;
@@ -1562,18 +1539,16 @@ public class RetailInvestorAI implements Trader {
             }
         }
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出RSI因子：RSI=%.2f, RSI因子=%.4f",
-                traderID, rsi, rsiFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, rsi, rsiFactor);
 
         // 1.2 波動率因子 (高波動時要求風險溢價)
         double volatilityFactor = Math.min(0.02 * volatility * 100, 0.05);
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出波動因子：波動性=%.4f, 波動因子=%.4f",
-                traderID, volatility, volatilityFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, volatility, volatilityFactor);
 
         // 1.3 價格與SMA的關係 (高於SMA時更願意賣出)
         double smaDiffFactor = 0.0;
@@ -1591,10 +1566,9 @@ public class RetailInvestorAI implements Trader {
             }
         }
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出SMA因子：SMA=%.2f, 價格差異百分比=%.2f%%, SMA因子=%.4f",
-                traderID, sma, (sma > 0 ? ((currentPrice - sma) / sma) * 100 : 0), smaDiffFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, sma, (sma > 0 ? ((currentPrice - sma) / sma) * 100 : 0), smaDiffFactor);
 
         // 2. 個性化因子 (每個散戶有不同特性)
         double personalityFactor = 0.0;
@@ -1602,18 +1576,16 @@ public class RetailInvestorAI implements Trader {
         // 2.1 隨機性 (模擬散戶常有的不理性)
         double randomFactor = (random.nextDouble() - 0.3) * 0.05; // 偏向略高的隨機值
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出隨機因子：隨機因子=%.4f",
-                traderID, randomFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, randomFactor);
 
         // 2.2 風險偏好 (可以根據traderID固定或其他特徵來決定)
         double riskAppetite = (traderID.hashCode() % 10) / 100.0; // -0.05 ~ 0.04
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出風險偏好：風險偏好=%.4f, traderID=%s",
-                traderID, riskAppetite, traderID
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, riskAppetite, traderID);
 
         // 2.3 急迫感 (想要快速成交還是願意等待更好價格)
         double urgencyFactor = 0.0;
@@ -1625,19 +1597,17 @@ public class RetailInvestorAI implements Trader {
             urgencyFactor = 0.02;
         }
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出急迫因子：忽略門檻=%b, 急迫因子=%.4f",
-                traderID, ignoreThreshold, urgencyFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, ignoreThreshold, urgencyFactor);
 
         // 3. 市場技術分析建議價與當前價的差異
         double suggestedDiff = (suggestedPrice - currentPrice) / currentPrice;
         double technicalFactor = suggestedDiff * 0.6; // 採納60%的技術建議
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出技術因子：建議價格=%.2f, 當前價格=%.2f, 差異百分比=%.2f%%, 技術因子=%.4f",
-                traderID, suggestedPrice, currentPrice, suggestedDiff * 100, technicalFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, suggestedPrice, currentPrice, suggestedDiff * 100, technicalFactor);
 
         // 4. 綜合所有因子
         marketConditionFactor = rsiFactor + volatilityFactor + smaDiffFactor;
@@ -1646,20 +1616,18 @@ public class RetailInvestorAI implements Trader {
         // 計算最終價格調整因子 (各因子權重可調)
         double priceFactor = marketConditionFactor * 0.45 + personalityFactor * 0.3 + technicalFactor * 0.25;
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出綜合因子：市場因子=%.4f(權重=45%%), 個性因子=%.4f(權重=30%%), 技術因子=%.4f(權重=25%%)",
-                traderID, marketConditionFactor, personalityFactor, technicalFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, marketConditionFactor, personalityFactor, technicalFactor);
 
         // 限制調整範圍在 -3% ~ +8% 之間 (賣出價通常不會低太多)
         double originalPriceFactor = priceFactor;
         priceFactor = Math.max(-0.03, Math.min(priceFactor, 0.08));
 
         if (originalPriceFactor != priceFactor) {
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_PRICING",
                     "散戶%s 智能賣出範圍調整：原始調整因子=%.4f, 限制後因子=%.4f",
-                    traderID, originalPriceFactor, priceFactor
-            ), "RETAIL_INVESTOR_PRICING");
+                    traderID, originalPriceFactor, priceFactor);
         }
 
         // 計算最終價格
@@ -1669,16 +1637,14 @@ public class RetailInvestorAI implements Trader {
         double adjustedPrice = orderBook.adjustPriceToUnit(finalPrice);
 
         if (finalPrice != adjustedPrice) {
-            logger.debug(String.format(
+            logger.debugf("RETAIL_INVESTOR_PRICING",
                     "散戶%s 智能賣出市場單位調整：計算價格=%.4f, 調整後價格=%.4f",
-                    traderID, finalPrice, adjustedPrice
-            ), "RETAIL_INVESTOR_PRICING");
+                    traderID, finalPrice, adjustedPrice);
         }
 
-        logger.info(String.format(
+        logger.infof("RETAIL_INVESTOR_PRICING",
                 "散戶%s 智能賣出定價結果：市價=%.2f, 計算價格=%.2f, 價格調整=%.2f%%, 市場因子=%.4f, 個性因子=%.4f, 技術因子=%.4f",
-                traderID, currentPrice, adjustedPrice, priceFactor * 100, marketConditionFactor, personalityFactor, technicalFactor
-        ), "RETAIL_INVESTOR_PRICING");
+                traderID, currentPrice, adjustedPrice, priceFactor * 100, marketConditionFactor, personalityFactor, technicalFactor);
 
         return adjustedPrice;
     }
@@ -1699,13 +1665,13 @@ public class RetailInvestorAI implements Trader {
         // 散戶保守：單筆使用資金比例（riskPerTrade）再乘個人風格，但有硬上限
         double base = riskPerTrade; // 例如 3%
         double eventScale = 1.0;
-        try { if (model != null) eventScale = model.getEventPositionScale(); }
+        try { if (model != null) eventScale = context().getEventPositionScale(); }
         catch (Exception ignore) { logOptionalFailure(ignore); }
         // 指標倉位縮放：MACD 多頭偏 >0 放大、空頭 <0 縮小；K>80 減倉，K<20 放大
         double techScale = 1.0;
         try {
-            double macdHist = model.getLastMacdHist();
-            double k = model.getLastK();
+            double macdHist = context().getMacdHist();
+            double k = context().getK();
             if (!Double.isNaN(macdHist)) {
                 techScale *= (1.0 + Math.max(-0.2, Math.min(0.2, macdHist * 0.5))); // ±20%
             }
@@ -1723,10 +1689,9 @@ public class RetailInvestorAI implements Trader {
 
         int result = (int) Math.max(1, Math.floor(desiredShares));
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_VOLUME",
                 "散戶%s 計算買入量：可用資金=%.2f, 當前價格=%.2f, 波動性=%.4f, 風險係數=%.4f, 計算結果=%d",
-                traderID, availableFunds, currentPrice, volatility, riskPerTrade, result
-        ), "RETAIL_INVESTOR_VOLUME");
+                traderID, availableFunds, currentPrice, volatility, riskPerTrade, result);
 
         return result;
     }
@@ -1736,15 +1701,14 @@ public class RetailInvestorAI implements Trader {
      */
     private int calculateSellVolume(double priceDifferenceRatio, double volatility) {
         double eventScale = 1.0;
-        try { if (model != null) eventScale = model.getEventPositionScale(); }
+        try { if (model != null) eventScale = context().getEventPositionScale(); }
         catch (Exception ignore) { logOptionalFailure(ignore); }
         double positionSize = getAccumulatedStocks() * (0.15 + 0.45 * random.nextDouble()) * (1 / (1 + volatility)) * eventScale;
         int result = (int) Math.max(1, positionSize);
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_VOLUME",
                 "散戶%s 計算賣出量：當前持股=%d, 價格差異比率=%.4f, 波動性=%.4f, 計算結果=%d",
-                traderID, getAccumulatedStocks(), priceDifferenceRatio, volatility, result
-        ), "RETAIL_INVESTOR_VOLUME");
+                traderID, getAccumulatedStocks(), priceDifferenceRatio, volatility, result);
 
         return result;
     }
@@ -1762,10 +1726,9 @@ public class RetailInvestorAI implements Trader {
         stopLossPrice = basePrice * (1.0 - slPct);
         takeProfitPrice = basePrice * (1.0 + tpPct);
 
-        logger.debug(String.format(
+        logger.debugf("RETAIL_INVESTOR_STOP_POINTS",
                 "散戶%s 設置新停損/止盈點：入場價=%.2f, 停損價=%.2f, 止盈價=%.2f, 波動性=%.4f",
-                traderID, basePrice, stopLossPrice, takeProfitPrice, volatility
-        ), "RETAIL_INVESTOR_STOP_POINTS");
+                traderID, basePrice, stopLossPrice, takeProfitPrice, volatility);
     }
 
     // === 損益/冷卻輔助 ===
@@ -1880,18 +1843,16 @@ public class RetailInvestorAI implements Trader {
                         int buyAmount = (int) Math.max(1, calculateTransactionVolume(availableFunds, currentPrice, volatility) * 0.5 * riskAdj);
                         if (buyAmount > 0) {
                             if (random.nextDouble() < marketOrderBias) {
-                                int done = 市價買入操作(buyAmount);
+                                int done = 市價買入操作(buyAmount, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                                 if (done > 0) {
                                     decisionReason.append("[MOMENTUM] 市價追漲 ").append(done).append(" 股\n");
-                                    setStopLossAndTakeProfit(currentPrice, volatility);
                                     return true;
                                 }
                             } else {
                                 double px = computeBuyLimitPrice(currentPrice, sma, rsi, volatility * 0.8);
-                                int done = 限價買入操作(buyAmount, px);
+                                int done = 限價買入操作(buyAmount, px, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                                 if (done > 0) {
                                     decisionReason.append("[MOMENTUM] 限價跟隨 ").append(done).append(" 股 @").append(px).append("\n");
-                                    setStopLossAndTakeProfit(currentPrice, volatility);
                                     return true;
                                 }
                             }
@@ -1907,17 +1868,16 @@ public class RetailInvestorAI implements Trader {
                             // 低於均線 → 逆向買入
                             int buyAmount = (int) Math.max(1, calculateTransactionVolume(availableFunds, currentPrice, volatility) * 0.7 * riskAdj);
                             double px = computeBuyLimitPrice(currentPrice, sma, rsi, volatility);
-                            int done = 限價買入操作(buyAmount, px);
+                            int done = 限價買入操作(buyAmount, px, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                             if (done > 0) {
                                 decisionReason.append("[CONTRARIAN] 逆向抄底 ").append(done).append(" 股 @").append(px).append("\n");
-                                setStopLossAndTakeProfit(currentPrice, volatility);
                                 return true;
                             }
                         } else if (diff > 0.06 && getAccumulatedStocks() > 0 && actionProbability < 0.5) {
                             // 高於均線 → 逆向獲利了結
                             int sellAmount = (int) Math.max(1, calculateSellVolume(diff, volatility) * 0.6 * riskAdj);
                             double px = computeSellLimitPrice(currentPrice, sma, rsi, volatility);
-                            int done = 限價賣出操作(sellAmount, px);
+                            int done = 限價賣出操作(sellAmount, px, null);
                             if (done > 0) {
                                 decisionReason.append("[CONTRARIAN] 逆向了結 ").append(done).append(" 股 @").append(px).append("\n");
                                 return true;
@@ -1934,18 +1894,18 @@ public class RetailInvestorAI implements Trader {
                             int buyAmount = (int) Math.max(1, calculateTransactionVolume(availableFunds, currentPrice, volatility) * 0.4 * riskAdj);
                             double px = computeBuyLimitPrice(currentPrice, sma, rsi, volatility * 1.2);
                             if (random.nextDouble() < fokBias) {
-                                boolean ok = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
-                                        buyAmount, px, "retail value FOK buy")).accepted();
-                                if (ok) {
+                                StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.fok(OrderSide.BUY,
+                                        buyAmount, px, "retail value FOK buy"),
+                                        onSuccess(() -> setStopLossAndTakeProfit(currentPrice, volatility),
+                                                StrategyExecutionResult::accepted));
+                                if (result.pending() || result.accepted()) {
                                     decisionReason.append("[VALUE] FOK 價值買入 ").append(buyAmount).append(" 股 @").append(px).append("\n");
-                                    setStopLossAndTakeProfit(currentPrice, volatility);
                                     return true;
                                 }
                             } else {
-                                int done = 限價買入操作(buyAmount, px);
+                                int done = 限價買入操作(buyAmount, px, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                                 if (done > 0) {
                                     decisionReason.append("[VALUE] 限價價值買入 ").append(done).append(" 股 @").append(px).append("\n");
-                                    setStopLossAndTakeProfit(currentPrice, volatility);
                                     return true;
                                 }
                             }
@@ -1958,15 +1918,14 @@ public class RetailInvestorAI implements Trader {
                     if (volatility > 0.03) {
                         if (actionProbability < 0.3 && availableFunds >= currentPrice) {
                             int buyAmount = Math.max(1, (int) (5 * riskAdj));
-                            int done = 市價買入操作(buyAmount);
+                            int done = 市價買入操作(buyAmount, () -> setStopLossAndTakeProfit(currentPrice, volatility));
                             if (done > 0) {
                                 decisionReason.append("[SCALPER] 市價快進 ").append(done).append(" 股\n");
-                                setStopLossAndTakeProfit(currentPrice, volatility);
                                 return true;
                             }
                         } else if (actionProbability > 0.7 && getAccumulatedStocks() > 0) {
                             int sellAmount = Math.max(1, (int) (5 * riskAdj));
-                            int done = 市價賣出操作(sellAmount);
+                            int done = 市價賣出操作(sellAmount, null);
                             if (done > 0) {
                                 decisionReason.append("[SCALPER] 市價快出 ").append(done).append(" 股\n");
                                 return true;
@@ -2027,12 +1986,11 @@ public class RetailInvestorAI implements Trader {
             
             // 執行取消
             if (shouldCancel) {
-                orderBook.cancelOrder(order.getId());
+                cancelOrder(orderBook, order.getId());
                 orderAges.remove(order.getId());
-                logger.info(String.format(
+                logger.infof("RETAIL_ORDER_CANCEL",
                     "【散戶訂單取消】%s %s訂單，價格=%.2f，原因=%s",
-                    traderID, order.getType(), order.getPrice(), reason
-                ), "RETAIL_ORDER_CANCEL");
+                    traderID, order.getType(), order.getPrice(), reason);
             }
         }
     }
@@ -0,0 +1,539 @@
+package StockMainAction.model;
+
+import StockMainAction.model.core.OrderBook;
+import StockMainAction.model.core.OrderSide;
+import StockMainAction.model.core.OrderSubmissionResult;
+import StockMainAction.model.core.TradeExecuted;
+import StockMainAction.model.core.Trader;
+import StockMainAction.model.strategy.OrderIntent;
+import StockMainAction.model.strategy.StrategyExecutionResult;
+import StockMainAction.model.user.UserAccount;
+import StockMainAction.util.logging.MarketLogger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 大量散戶群體（10^4 ~ 10^5 人）- 以基本型別陣列保存每位散戶的資金、持股、門檻、冷卻與策略型別，
+ * 每個 tick 以緊湊迴圈套用 RetailInvestorAI.actByProfile 的四種策略規則、門檻規則與隨機交易，
+ * 再把同一側、同一掛價的需求合併成少數幾張委託送進訂單簿。
+ *
+ * 帳務：群體對訂單簿是一個交易者（一個彙總帳戶）；下單時先從個別散戶扣除保留金額/股數，
+ * 成交依委託內的加入順序（先到先成交）分配回個別散戶，未成交部分在下一個 tick 撤單並退回。
+ * 市價需求以對手最佳價的可成交限價單表示，FOK 需求併入一般限價單。
+ */
+public class RetailPopulation implements Trader {
+
+    private static final MarketLogger logger = MarketLogger.getInstance();
+
+    // 策略型別（與 RetailInvestorAI.StrategyProfile 前四種一致）
+    public static final byte MOMENTUM = 0;
+    public static final byte CONTRARIAN = 1;
+    public static final byte VALUE = 2;
+    public static final byte SCALPER = 3;
+    private static final int PROFILES = 4;
+
+    // 各策略的風格參數（RetailInvestorAI 建構子）：風險係數、市價偏好、掛價權重、偏移上限、掛價波動倍率
+    private static final double[] RISK_FACTOR = {1.35, 1.05, 0.95, 1.6};
+    private static final double[] MARKET_BIAS = {0.75, 0.35, 0.25, 0.85};
+    private static final double[] SMA_WEIGHT = {0.30, 0.55, 0.60, 0.20};
+    private static final double[] RSI_WEIGHT = {0.30, 0.35, 0.20, 0.20};
+    private static final double[] VOL_WEIGHT = {0.40, 0.10, 0.20, 0.60};
+    private static final double[] MAX_OFFSET = {0.06, 0.10, 0.12, 0.04};
+    private static final double[] PRICE_VOL_SCALE = {0.8, 1.0, 1.2, 1.0};
+
+    // 委託槽：每側 4 個策略限價 + 1 個可成交限價
+    private static final int MARKETABLE = PROFILES;
+    private static final int SLOTS_PER_SIDE = PROFILES + 1;
+    private static final int SLOTS = SLOTS_PER_SIDE * 2;
+
+    private final String traderType;
+    private final UserAccount account;
+    private final double initialCashPerAgent;
+    private final int size;
+    private final SplittableRandom random;
+
+    // === 每位散戶的狀態（結構陣列） ===
+    private final double[] cash;          // 可用資金（已扣除掛單保留）
+    private final int[] shares;           // 可用持股（已扣除掛單保留）
+    private final int[] sharesReserved;   // 賣單保留中的持股
+    private final double[] averageCost;   // 持倉平均成本
+    private final double[] riskFactor;    // 個人下單量倍率
+    private final double[] buyThreshold;  // 低於均線比例達此值才買（門檻規則）
+    private final double[] sellThreshold; // 高於均線比例達此值才賣（門檻規則）
+    private final int[] lastTradeTick;    // 最近成交的 tick
+    private final int[] cooldownUntil;    // 連虧冷卻到期 tick
+    private final int[] consecutiveLosses;
+    private final byte[] profile;
+
+    // === 本 tick 決策暫存 ===
+    private final int[] intentQty;        // >0 買、<0 賣、0 不動作
+    private final byte[] intentSlot;
+
+    // === 合併委託：依槽位排列的貢獻清單 ===
+    private final int[] contribAgent;
+    private final int[] contribQty;
+    private final int[] contribFilled;
+    private final int[] slotStart = new int[SLOTS];
+    private final int[] slotEnd = new int[SLOTS];
+    private final int[] slotCursor = new int[SLOTS];
+    private final double[] slotPrice = new double[SLOTS];
+    private final long[] slotVolume = new long[SLOTS];
+    private final Map<String, Integer> liveOrders = new HashMap<>();
+
+    private int currentTick;
+    private int lossCooldownPerLoss;
+    private long ordersSubmitted;
+    private long filledVolume;
+    private long lastStepNanos;
+
+    /**
+     * @param size 散戶人數
+     * @param cashPerAgent 每位散戶初始資金
+     * @param seed 策略型別、門檻與每 tick 抽樣的種子
+     */
+    public RetailPopulation(int size, double cashPerAgent, long seed) {
+        if (size <= 0) throw new IllegalArgumentException("size must be positive: " + size);
+        if (!(cashPerAgent > 0)) throw new IllegalArgumentException("cashPerAgent must be positive");
+        this.size = size;
+        this.initialCashPerAgent = cashPerAgent;
+        this.traderType = "RetailPopulation";
+        this.account = new UserAccount(cashPerAgent * size, 0);
+        this.random = new SplittableRandom(seed);
+
+        this.cash = new double[size];
+        this.shares = new int[size];
+        this.sharesReserved = new int[size];
+        this.averageCost = new double[size];
+        this.riskFactor = new double[size];
+        this.buyThreshold = new double[size];
+        this.sellThreshold = new double[size];
+        this.lastTradeTick = new int[size];
+        this.cooldownUntil = new int[size];
+        this.consecutiveLosses = new int[size];
+        this.profile = new byte[size];
+        this.intentQty = new int[size];
+        this.intentSlot = new byte[size];
+        this.contribAgent = new int[size];
+        this.contribQty = new int[size];
+        this.contribFilled = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            byte p = (byte) random.nextInt(PROFILES);
+            profile[i] = p;
+            cash[i] = cashPerAgent;
+            // 同策略內仍保留個體差異：風險係數 ±10%
+            riskFactor[i] = RISK_FACTOR[p] * (0.9 + 0.2 * random.nextDouble());
+            buyThreshold[i] = 0.01 + random.nextDouble() * 0.05;  // 1% 到 6%
+            sellThreshold[i] = 0.03 + random.nextDouble() * 0.09; // 3% 到 12%
+            lastTradeTick[i] = -999999;
+        }
+        logger.info(String.format("【散戶群體】建立成功，人數: %d，每人資金: %.2f", size, cashPerAgent),
+                "RETAIL_POPULATION_INIT");
+    }
+
+    /**
+     * 執行一個 tick：撤回上一輪未成交委託 → 逐人套用策略規則 → 合併下單
+     */
+    public synchronized void step(MarketContext ctx, OrderBook orderBook,
+            StockMarketModel.RetailStrategyConfig cfg, int tick) {
+        long started = System.nanoTime();
+        currentTick = tick;
+        releaseLiveOrders(orderBook);
+
+        double price = ctx.getPrice();
+        double sma = ctx.getSma();
+        if (!(price > 0) || Double.isNaN(sma) || sma <= 0) {
+            lastStepNanos = System.nanoTime() - started;
+            return;
+        }
+        if (cfg == null) cfg = StockMarketModel.RetailStrategyConfig.defaults();
+        lossCooldownPerLoss = Math.max(0, cfg.lossCooldownPerLoss);
+        double spreadLimit = Math.max(0.0, Math.min(0.05, cfg.spreadLimitRatio));
+        if (ctx.getSpreadRatio() > spreadLimit) {
+            lastStepNanos = System.nanoTime() - started;
+            return;
+        }
+
+        prepareSlotPrices(ctx, orderBook, price, sma);
+        decide(ctx, cfg, price, sma);
+        submit(orderBook);
+        lastStepNanos = System.nanoTime() - started;
+    }
+
+    // 每個槽位本 tick 的掛價（同策略的散戶共用同一組市場輸入，因此掛價相同）
+    private void prepareSlotPrices(MarketContext ctx, OrderBook orderBook, double price, double sma) {
+        double bestBid = ctx.getBestBid();
+        double bestAsk = ctx.getBestAsk();
+        double rsi = ctx.getRsi();
+        for (int p = 0; p < PROFILES; p++) {
+            double vol = ctx.getVolatility() * PRICE_VOL_SCALE[p];
+            slotPrice[p] = buyLimitPrice(orderBook, p, price, sma, rsi, vol, bestBid, bestAsk);
+            slotPrice[SLOTS_PER_SIDE + p] = sellLimitPrice(orderBook, p, price, sma, rsi, vol, bestBid, bestAsk);
+        }
+        slotPrice[MARKETABLE] = orderBook.adjustPriceToUnit(bestAsk > 0 ? bestAsk : price);
+        slotPrice[SLOTS_PER_SIDE + MARKETABLE] = orderBook.adjustPriceToUnit(bestBid > 0 ? bestBid : price);
+    }
+
+    // 與 RetailInvestorAI.computeBuyLimitPrice 相同的掛價規則
+    private static double buyLimitPrice(OrderBook orderBook, int p, double price, double sma, double rsi,
+            double volatility, double bestBid, double bestAsk) {
+        double volRatio = Math.abs(volatility) / price;
+        double smaWant = (sma - price) / sma;
+        double rsiWant = Double.isNaN(rsi) ? 0.0 : (50.0 - rsi) / 100.0;
+        double want = smaWant * (0.5 * SMA_WEIGHT[p]) + rsiWant * (0.5 * RSI_WEIGHT[p]);
+        double discount = 0.002 + (volRatio * 0.8 * VOL_WEIGHT[p]) - want;
+        discount = Math.max(0.0, Math.min(discount, MAX_OFFSET[p]));
+        double px = price * (1.0 - discount);
+        if (bestBid > 0) {
+            double tick = orderBook.getTickSize(bestBid);
+            px = Math.max(px, bestBid);
+            px = Math.min(px, bestBid + tick);
+        }
+        if (bestAsk > 0) px = Math.min(px, bestAsk);
+        return orderBook.adjustPriceToUnit(px);
+    }
+
+    // 與 RetailInvestorAI.computeSellLimitPrice 相同的掛價規則
+    private static double sellLimitPrice(OrderBook orderBook, int p, double price, double sma, double rsi,
+            double volatility, double bestBid, double bestAsk) {
+        double volRatio = Math.abs(volatility) / price;
+        double smaWant = (price - sma) / sma;
+        double rsiWant = Double.isNaN(rsi) ? 0.0 : (rsi - 50.0) / 100.0;
+        double want = smaWant * (0.5 * SMA_WEIGHT[p]) + rsiWant * (0.5 * RSI_WEIGHT[p]);
+        double premium = 0.002 + (volRatio * 0.8 * VOL_WEIGHT[p]) + want;
+        premium = Math.max(0.0, Math.min(premium, MAX_OFFSET[p]));
+        double px = price * (1.0 + premium);
+        if (bestAsk > 0) {
+            double tick = orderBook.getTickSize(bestAsk);
+            px = Math.min(px, bestAsk);
+            px = Math.max(px, bestAsk - tick);
+        }
+        if (bestBid > 0) px = Math.max(px, bestBid);
+        return orderBook.adjustPriceToUnit(px);
+    }
+
+    /**
+     * 逐人決策：所有市場輸入在迴圈外算好，迴圈內只有陣列讀寫與比較
+     */
+    private void decide(MarketContext ctx, StockMarketModel.RetailStrategyConfig cfg, double price, double sma) {
+        double volatility = ctx.getVolatility();
+        double diff = Math.max(-0.5, Math.min(0.5, (price - sma) / sma));
+        double volRatio = Math.abs(volatility) / price;
+        double eventScale = ctx.getEventPositionScale();
+        double techScale = 1.0;
+        double macdHist = ctx.getMacdHist();
+        double k = ctx.getK();
+        if (!Double.isNaN(macdHist)) techScale *= 1.0 + Math.max(-0.2, Math.min(0.2, macdHist * 0.5));
+        if (!Double.isNaN(k)) {
+            if (k > 80) techScale *= 0.85; else if (k < 20) techScale *= 1.15;
+        }
+        // calculateTransactionVolume：可買股數 × 風險比例 × 個人倍率 × 事件/指標縮放，再依波動縮小，上限 12%
+        double riskPerTrade = Math.max(0.0, Math.min(0.5, cfg.riskPerTrade));
+        double buyScale = riskPerTrade * eventScale * techScale / (1.0 + 5.0 * volRatio) / price;
+        double buyCap = 0.12 / price;
+        double sellScale = eventScale / (1.0 + volatility);
+
+        double trendEntry = Math.max(0.0, Math.min(1.0, cfg.trendEntry));
+        double macdEntry = Math.max(0.0, Math.min(1.0, cfg.macdHistEntry));
+        boolean allowProfile = Math.abs(ctx.getTrend()) > trendEntry
+                || (!Double.isNaN(macdHist) && Math.abs(macdHist) > macdEntry);
+        boolean momentumUp = price > sma && volatility > 0.02;
+        boolean scalpable = volatility > 0.03;
+        double randomTradeProb = Math.max(0.0, Math.min(0.2, cfg.randomTradeProb));
+        int minWait = Math.max(0, cfg.minTradeWaitTicks);
+        int tick = currentTick;
+
+        for (int i = 0; i < size; i++) {
+            double u = random.nextDouble();
+            double u2 = random.nextDouble();
+            double u3 = random.nextDouble();
+            int qty = 0;
+            int slot = 0;
+            if (tick >= cooldownUntil[i] && tick - lastTradeTick[i] >= minWait) {
+                int p = profile[i];
+                double c = cash[i];
+                int held = shares[i];
+                double riskAdj = Math.max(0.5, Math.min(riskFactor[i], 1.5));
+                int txVol = (int) Math.max(1, Math.floor(Math.min(c * buyScale * riskFactor[i], c * buyCap)));
+                int sellVol = (int) Math.max(1, held * (0.15 + 0.45 * u2) * sellScale);
+
+                if (allowProfile) {
+                    switch (p) {
+                        case MOMENTUM:
+                            if (momentumUp && u < 0.35) {
+                                qty = (int) Math.max(1, txVol * 0.5 * riskAdj);
+                                slot = u2 < MARKET_BIAS[p] ? MARKETABLE : p;
+                            }
+                            break;
+                        case CONTRARIAN:
+                            if (diff < -0.04 && c >= price && u < 0.5) {
+                                qty = (int) Math.max(1, txVol * 0.7 * riskAdj);
+                                slot = p;
+                            } else if (diff > 0.06 && held > 0 && u < 0.5) {
+                                qty = -(int) Math.max(1, sellVol * 0.6 * riskAdj);
+                                slot = p;
+                            }
+                            break;
+                        case VALUE:
+                            if (diff < -0.08 && u < 0.4) {
+                                qty = (int) Math.max(1, txVol * 0.4 * riskAdj);
+                                slot = p;
+                            }
+                            break;
+                        default:
+                            if (scalpable) {
+                                if (u < 0.3 && c >= price) {
+                                    qty = Math.max(1, (int) (5 * riskAdj));
+                                    slot = MARKETABLE;
+                                } else if (u > 0.7 && held > 0) {
+                                    qty = -Math.max(1, (int) (5 * riskAdj));
+                                    slot = MARKETABLE;
+                                }
+                            }
+                            break;
+                    }
+                }
+                // 策略規則未出手時套用個人門檻（動態門檻 ±20%）
+                if (qty == 0) {
+                    double jitter = 0.8 + 0.4 * u2;
+                    if (diff < -buyThreshold[i] * jitter && c >= price && u > 0.2) {
+                        qty = txVol;
+                        slot = u2 < 0.5 ? MARKETABLE : p;
+                    } else if (diff > sellThreshold[i] * jitter && held > 0 && u > 0.2) {
+                        qty = -sellVol;
+                        slot = u2 < 0.5 ? MARKETABLE : p;
+                    }
+                }
+                // 隨機交易（executeRandomTransaction）：1~50 股，40% 以可成交價下單
+                if (qty == 0 && u3 < randomTradeProb) {
+                    int amount = 1 + (int) (u * 50);
+                    slot = u2 < 0.4 ? MARKETABLE : p;
+                    if (u3 < randomTradeProb * 0.5) {
+                        if (c >= price) qty = amount;
+                    } else if (held > 0) {
+                        qty = -amount;
+                    }
+                }
+                if (qty < 0) {
+                    qty = -Math.min(-qty, held);
+                    slot += SLOTS_PER_SIDE;
+                }
+            }
+            intentQty[i] = qty;
+            intentSlot[i] = (byte) slot;
+        }
+    }
+
+    /**
+     * 依槽位排序貢獻（計數排序），扣除個別保留後每個槽位送出一張限價單
+     */
+    private void submit(OrderBook orderBook) {
+        int[] counts = new int[SLOTS];
+        for (int i = 0; i < size; i++) {
+            int qty = intentQty[i];
+            if (qty == 0) continue;
+            int slot = intentSlot[i];
+            if (qty > 0) {
+                // 資金不足時縮量到買得起的股數
+                int affordable = (int) Math.floor(cash[i] / slotPrice[slot]);
+                qty = Math.min(qty, affordable);
+                intentQty[i] = qty;
+            }
+            if (qty != 0) counts[slot]++;
+        }
+        int offset = 0;
+        for (int s = 0; s < SLOTS; s++) {
+            slotStart[s] = offset;
+            slotCursor[s] = offset;
+            offset += counts[s];
+            slotEnd[s] = slotStart[s];
+            slotVolume[s] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            int qty = intentQty[i];
+            if (qty == 0) continue;
+            int slot = intentSlot[i];
+            int at = slotEnd[slot]++;
+            int q = Math.abs(qty);
+            contribAgent[at] = i;
+            contribQty[at] = q;
+            contribFilled[at] = 0;
+            slotVolume[slot] += q;
+            if (qty > 0) {
+                cash[i] -= slotPrice[slot] * q;
+            } else {
+                shares[i] -= q;
+                sharesReserved[i] += q;
+            }
+        }
+
+        for (int s = 0; s < SLOTS; s++) {
+            long volume = slotVolume[s];
+            if (volume == 0) continue;
+            OrderSide side = s < SLOTS_PER_SIDE ? OrderSide.BUY : OrderSide.SELL;
+            StrategyExecutionResult result = executeIntent(orderBook, OrderIntent.limit(side,
+                    (int) Math.min(Integer.MAX_VALUE, volume), slotPrice[s], "retail population"));
+            OrderSubmissionResult submission = result.submission();
+            if (result.accepted() && submission != null && submission.orderId() != null) {
+                liveOrders.put(submission.orderId(), s);
+                ordersSubmitted++;
+            } else {
+                releaseSlot(s);
+                logger.debugThrottled("散戶群體委託未被接受：" + result.failureReason(),
+                        "RETAIL_POPULATION", "reject", 60_000);
+            }
+        }
+    }
+
+    /**
+     * 撤回上一輪仍在簿上的委託，未成交部分退回個別散戶
+     */
+    private void releaseLiveOrders(OrderBook orderBook) {
+        if (liveOrders.isEmpty()) return;
+        for (Map.Entry<String, Integer> entry : liveOrders.entrySet()) {
+            cancelOrder(orderBook, entry.getKey());
+            releaseSlot(entry.getValue());
+        }
+        liveOrders.clear();
+    }
+
+    private void releaseSlot(int slot) {
+        boolean buy = slot < SLOTS_PER_SIDE;
+        double px = slotPrice[slot];
+        for (int at = slotStart[slot]; at < slotEnd[slot]; at++) {
+            int remaining = contribQty[at] - contribFilled[at];
+            if (remaining <= 0) continue;
+            int agent = contribAgent[at];
+            if (buy) {
+                cash[agent] += px * remaining;
+            } else {
+                shares[agent] += remaining;
+                sharesReserved[agent] -= remaining;
+            }
+            contribFilled[at] = contribQty[at];
+        }
+        slotCursor[slot] = slotEnd[slot];
+    }
+
+    /**
+     * 訂單簿成交事件：成交量依加入順序分配給該委託的散戶
+     */
+    public synchronized void onTradeExecuted(TradeExecuted event) {
+        Integer buySlot = liveOrders.get(event.buyOrderId());
+        if (buySlot != null) allocate(buySlot, event.volume(), event.price());
+        Integer sellSlot = liveOrders.get(event.sellOrderId());
+        if (sellSlot != null) allocate(sellSlot, event.volume(), event.price());
+    }
+
+    private void allocate(int slot, int volume, double price) {
+        boolean buy = slot < SLOTS_PER_SIDE;
+        double px = slotPrice[slot];
+        int left = volume;
+        int at = slotCursor[slot];
+        while (left > 0 && at < slotEnd[slot]) {
+            int take = Math.min(left, contribQty[at] - contribFilled[at]);
+            int agent = contribAgent[at];
+            if (buy) {
+                int before = shares[agent] + sharesReserved[agent];
+                averageCost[agent] = (averageCost[agent] * before + price * take) / (before + take);
+                shares[agent] += take;
+                cash[agent] += (px - price) * take; // 保留價與成交價差額退回
+            } else {
+                cash[agent] += price * take;
+                sharesReserved[agent] -= take;
+                onRealized(agent, (price - averageCost[agent]) * take);
+            }
+            lastTradeTick[agent] = currentTick;
+            contribFilled[at] += take;
+            left -= take;
+            filledVolume += take;
+            if (contribFilled[at] == contribQty[at]) at++;
+        }
+        slotCursor[slot] = at;
+    }
+
+    // 連續虧損冷卻（StockMarketModel.RetailStrategyConfig.lossCooldownPerLoss）
+    private void onRealized(int agent, double pnl) {
+        if (pnl < 0) {
+            consecutiveLosses[agent]++;
+            cooldownUntil[agent] = currentTick + consecutiveLosses[agent] * lossCooldownPerLoss;
+        } else if (pnl > 0) {
+            consecutiveLosses[agent] = 0;
+        }
+    }
+
+    // ========== Trader 介面實作 ==========
+    @Override
+    public UserAccount getAccount() {
+        return account;
+    }
+
+    @Override
+    public String getTraderType() {
+        return traderType;
+    }
+
+    // 成交分配由 onTradeExecuted 依委託編號處理
+    @Override
+    public void updateAfterTransaction(String type, int volume, double price) {
+    }
+
+    @Override
+    public void updateAverageCostPrice(String type, int volume, double price) {
+    }
+
+    // ========== 查詢 ==========
+    public int size() {
+        return size;
+    }
+
+    public double getInitialCashPerAgent() {
+        return initialCashPerAgent;
+    }
+
+    public synchronized double getAgentCash(int agent) {
+        return cash[agent];
+    }
+
+    public synchronized int getAgentShares(int agent) {
+        return shares[agent];
+    }
+
+    public synchronized byte getAgentProfile(int agent) {
+        return profile[agent];
+    }
+
+    /** 所有散戶可用資金合計（不含掛單保留） */
+    public synchronized double getTotalAgentCash() {
+        double total = 0;
+        for (int i = 0; i < size; i++) total += cash[i];
+        return total;
+    }
+
+    /** 所有散戶持股合計（含賣單保留） */
+    public synchronized long getTotalAgentShares() {
+        long total = 0;
+        for (int i = 0; i < size; i++) total += shares[i] + sharesReserved[i];
+        return total;
+    }
+
+    /** 目前在簿上的合併委託數 */
+    public synchronized int getLiveOrderCount() {
+        return liveOrders.size();
+    }
+
+    public synchronized long getOrdersSubmitted() {
+        return ordersSubmitted;
+    }
+
+    public synchronized long getFilledVolume() {
+        return filledVolume;
+    }
+
+    /** 最近一次 step 的耗時（奈秒） */
+    public synchronized long getLastStepNanos() {
+        return lastStepNanos;
+    }
+}
@@ -0,0 +1,110 @@
+package StockMainAction.model;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模擬虛擬時鐘 - 時間只在模擬推進時前進（每個 tick 前進 {@link #getTickMillis()}，或由事件推進到指定時間），
+ * 與實際經過的牆鐘時間無關。
+ *
+ * 模型、撮合、成交紀錄與圖表都讀取同一個時鐘，因此不論以 1x、100x、極速或無頭模式執行，
+ * 每個 tick 都代表相同的模擬時間：1 分鐘 K 線、TPS/VPS 等以時間為單位的統計都以模擬時間計算。
+ *
+ * 讀取為無鎖（AtomicLong），可由 EDT 或其他執行緒同時讀取；時間只會單調遞增。
+ */
+public final class SimulationClock extends Clock {
+
+    /** 預設每個 tick 代表的模擬時間（毫秒） */
+    public static final long DEFAULT_TICK_MILLIS = 1000L;
+
+    private final AtomicLong millis;
+    private final AtomicLong tickMillis;
+    private final ZoneId zone;
+
+    public SimulationClock(long startMillis) {
+        this(startMillis, ZoneId.systemDefault());
+    }
+
+    public SimulationClock(long startMillis, ZoneId zone) {
+        this(new AtomicLong(startMillis), new AtomicLong(DEFAULT_TICK_MILLIS), zone);
+    }
+
+    // withZone 共用同一組時間狀態
+    private SimulationClock(AtomicLong millis, AtomicLong tickMillis, ZoneId zone) {
+        this.millis = millis;
+        this.tickMillis = tickMillis;
+        this.zone = Objects.requireNonNull(zone, "zone");
+    }
+
+    /**
+     * 以目前牆鐘時間為起點（GUI 模式下 K 線時間軸從啟動時刻開始）
+     */
+    public static SimulationClock startingNow() {
+        return new SimulationClock(System.currentTimeMillis());
+    }
+
+    /**
+     * 前進一個 tick
+     *
+     * @return 前進後的時間
+     */
+    public long advanceTick() {
+        return millis.addAndGet(tickMillis.get());
+    }
+
+    /**
+     * 前進指定的模擬時間
+     */
+    public long advance(long deltaMillis) {
+        if (deltaMillis < 0) throw new IllegalArgumentException("deltaMillis must not be negative");
+        return millis.addAndGet(deltaMillis);
+    }
+
+    /**
+     * 推進到指定時間（事件驅動用）；早於目前時間時不動作，時間不會倒退
+     */
+    public long advanceTo(long targetMillis) {
+        return millis.accumulateAndGet(targetMillis, Math::max);
+    }
+
+    public long getTickMillis() {
+        return tickMillis.get();
+    }
+
+    /**
+     * 設定每個 tick 代表的模擬時間（毫秒）
+     */
+    public void setTickMillis(long tickMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        this.tickMillis.set(tickMillis);
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis.get());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        if (this.zone.equals(zone)) return this;
+        return new SimulationClock(millis, tickMillis, zone);
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationClock[" + instant() + "," + zone + "]";
+    }
+}
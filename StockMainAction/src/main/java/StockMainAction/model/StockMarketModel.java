@@ -1,14 +1,24 @@
 package StockMainAction.model;
 
 import StockMainAction.controller.TechnicalIndicatorsCalculator;
+import StockMainAction.model.account.AccountTotals;
 import StockMainAction.model.core.MatchingMode;
 import StockMainAction.model.core.Order;
 import StockMainAction.model.core.OrderBook;
+import StockMainAction.model.core.OhlcvBarEngine;
+import StockMainAction.model.core.TapeMetricsEngine;
+import StockMainAction.model.core.VolumeProfileEngine;
+import StockMainAction.model.indicator.IndicatorPipeline;
+import StockMainAction.model.indicator.TimeframeIndicators;
 import StockMainAction.model.core.Stock;
 import StockMainAction.model.core.Transaction;
+import StockMainAction.model.core.Trade;
 import StockMainAction.model.core.TransactionJournal;
+import StockMainAction.model.history.TransactionHistoryStore;
 import StockMainAction.model.core.ExecutionResult;
 import StockMainAction.model.core.OrderSubmissionResult;
+import StockMainAction.model.core.Trader;
+import StockMainAction.model.strategy.IntentSequencer;
 import StockMainAction.service.PersonalTradeService;
 import StockMainAction.util.logging.MarketLogger;
 import StockMainAction.util.logging.LogicAudit;
@@ -16,12 +26,13 @@ import java.util.AbstractMap.SimpleEntry;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
 import java.time.Clock;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.SwingUtilities;
@@ -36,10 +47,21 @@ public class StockMarketModel implements AutoCloseable {
     private Stock stock;
     private OrderBook orderBook;
     private MarketAnalyzer marketAnalyzer;
+    // 多週期 K 線（由成交聚合，供圖表與無頭指標使用）
+    private final OhlcvBarEngine barEngine = new OhlcvBarEngine();
+    // 各週期的指標管線（每根收盤 K 線單次走訪；K 線圖的均線疊加亦讀取此處）
+    private final TimeframeIndicators timeframeIndicators =
+            new TimeframeIndicators(barEngine.getTimeframes(), IndicatorPipeline::standard);
+    // 逐筆成交時間桶統計（TPS/VPS/內外盤/失衡）
+    private final TapeMetricsEngine tapeMetrics;
+    // 價量分佈與 VWAP（時段／錨定）
+    private final VolumeProfileEngine volumeProfile = new VolumeProfileEngine();
     // 多個做市商（提供雙邊流動性）
     private List<MarketBehavior> marketMakers;
     private MainForceStrategyWithOrderBook mainForce;
     private List<RetailInvestorAI> retailInvestors;
+    private volatile RetailPopulation retailPopulation; // 大量散戶群體（選用）
+    private final TickProfiler tickProfiler; // 每 tick 分段計時
     private PersonalAI userInvestor;
     private PersonalTradeService personalTradeService;
     // 小額噪音交易者（主動吃單/侵略性掛單，增加成交與波動）
@@ -281,8 +303,10 @@ public class StockMarketModel implements AutoCloseable {
 
     // 模擬控制
     private int timeStep;
-    private ScheduledExecutorService executorService;
-    private ScheduledFuture<?> simulationFuture;
+    private TickScheduler tickScheduler;
+    private volatile TickScheduler.OverrunPolicy overrunPolicy = TickScheduler.OverrunPolicy.SKIP;
+    private final UiFrameGate priceFrameGate = new UiFrameGate();
+    private final UiFrameGate orderBookFrameGate = new UiFrameGate();
     private final Object simulationLifecycleLock = new Object();
     private volatile boolean isRunning = false;
     private volatile int simulationPeriodMillis = 1000;
@@ -309,10 +333,26 @@ public class StockMarketModel implements AutoCloseable {
     // 用於報酬率計算：記錄初始化時的股價（讓初始持股能換算成初始淨值）
     private double initialStockPrice = 10.0;
 
-    // 🆕 成交記錄列表
-    private static final int MAX_TRANSACTION_HISTORY = 1000;
-    private final TransactionJournal transactionJournal =
-            new TransactionJournal(MAX_TRANSACTION_HISTORY);
+    // 🆕 成交記錄（環形緩衝，容量可調整）
+    public static final int DEFAULT_TRANSACTION_HISTORY = 10_000;
+    private volatile TransactionJournal transactionJournal;
+    // 寫入與調整容量互斥（寫入端唯一，不影響讀取）
+    private final Object transactionJournalLock = new Object();
+    // 完整交易時段的成交歷史（近期在記憶體，較舊的分段壓縮寫入磁碟）；
+    // 首次查詢時才建立並以成交記錄補入，隔離執行（無介面批次、參數掃描）不建立
+    private volatile TransactionHistoryStore transactionHistory;
+    private final boolean transactionHistoryEnabled = !MarketLogger.isIsolated();
+
+    // 全市場資金/持股守恆計數器（帳本異動時同步累加，庫存檢查 O(1)）
+    private AccountTotals accountTotals = new AccountTotals();
+    private AccountTotals.Snapshot accountTotalsBaseline;
+    // 每 N 個 tick 執行一次完整逐帳戶稽核（<=0 表示僅在計數器不守恆或手動呼叫時執行）
+    private volatile int fullInventoryAuditInterval = 100;
+
+    // 平行決策模式（預設關閉，維持原本的序列決策）
+    private volatile boolean parallelDecisionPhase = false;
+    private int decisionParallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool decisionPool;
 
     // 線程安全鎖
     private final ReentrantLock orderBookLock = new ReentrantLock();
@@ -335,6 +375,13 @@ public class StockMarketModel implements AutoCloseable {
     private volatile double lastD = Double.NaN;
     private volatile double lastJ = Double.NaN;
 
+    // 本 tick 的共用市場快照（tick 開始時建立一次，所有代理人共用）
+    private volatile MarketContext marketContext;
+    private final Object marketContextLock = new Object();
+
+    // 是否將監聽器通知排入 EDT（無頭模式關閉）
+    private volatile boolean uiNotificationsEnabled = true;
+
     // 事件模式參數（全域）
     private String eventMode = "一般"; // 一般/新聞/財報
     private int eventWindow = 60;
@@ -503,6 +550,26 @@ public class StockMarketModel implements AutoCloseable {
             }
         }
 
+        // 散戶群體（合併為一列）
+        RetailPopulation population = retailPopulation;
+        if (population != null) {
+            UserAccount acc = population.getAccount();
+            double assets = acc.getTotalFunds() + acc.getTotalStocks() * px;
+            double initAssets = population.getInitialCashPerAgent() * population.size();
+            double pct = (initAssets > 0) ? ((assets - initAssets) / initAssets * 100.0) : 0.0;
+            out.add(new TraderSnapshot(
+                    population.getTraderType(),
+                    "散戶",
+                    acc.getAvailableFunds(),
+                    acc.getFrozenFunds(),
+                    acc.getStockInventory(),
+                    acc.getFrozenStocks(),
+                    assets,
+                    pct,
+                    population.size() + " 人"
+            ));
+        }
+
         // 個人
         if (userInvestor != null && userInvestor.getAccount() != null) {
             UserAccount acc = userInvestor.getAccount();
@@ -539,7 +606,7 @@ public class StockMarketModel implements AutoCloseable {
      * 構造函數
      */
     public StockMarketModel() {
-        this(new Random(), Clock.systemUTC());
+        this(new Random(), SimulationClock.startingNow());
     }
 
     public StockMarketModel(long randomSeed, Clock clock) {
@@ -549,9 +616,13 @@ public class StockMarketModel implements AutoCloseable {
     public StockMarketModel(Random random, Clock clock) {
         this.random = java.util.Objects.requireNonNull(random, "random");
         this.clock = java.util.Objects.requireNonNull(clock, "clock");
+        this.tickProfiler = new TickProfiler(TickProfiler.DEFAULT_WINDOW, clock);
         this.noiseSignalQuality = new NoiseSignalQuality(0.5, 0.5, 0, clock.millis(), false);
+        this.tapeMetrics = new TapeMetricsEngine(clock);
+        this.transactionJournal = new TransactionJournal(DEFAULT_TRANSACTION_HISTORY, clock);
         initializeSimulation();
         this.technicalCalculator = new TechnicalIndicatorsCalculator();
+        barEngine.addBarClosedListener(timeframeIndicators);
     }
 
     // 設定事件模式參數（由 UI 下發）
@@ -600,6 +671,13 @@ public class StockMarketModel implements AutoCloseable {
         try {
             // 初始化訂單簿
             orderBook = new OrderBook(this, clock);
+            barEngine.clear();
+            timeframeIndicators.clear();
+            tapeMetrics.clear();
+            orderBook.addTradeExecutedListener(tapeMetrics);
+            volumeProfile.clear();
+            orderBook.addTradeExecutedListener(volumeProfile);
+            orderBook.addTradeExecutedListener(barEngine);
             logger.info("OrderBook 初始化完成", "MODEL_INIT");
             // 設置默認撮合模式（台股固定）
             orderBook.setMatchingMode(MatchingMode.TWSE_STRICT);
@@ -633,6 +711,8 @@ public class StockMarketModel implements AutoCloseable {
             // 初始化噪音交易者（多個）
             initializeNoiseTraders(noiseTraderCount);
 
+            attachAccountTotals();
+
             logger.info("市場模型初始化完成", "MODEL_INIT");
         } catch (Exception e) {
             logger.error("市場模型初始化失敗: " + e.getMessage(), "MODEL_INIT");
@@ -650,7 +730,8 @@ public class StockMarketModel implements AutoCloseable {
                     marketMakerInitialStocks,
                     this,
                     orderBook,
-                    childRandom()
+                    childRandom(),
+                    clock
             );
             marketMakers.add(mm);
         }
@@ -712,6 +793,16 @@ public class StockMarketModel implements AutoCloseable {
         }
     }
 
+    private void attachAccountTotals() {
+        accountTotals = new AccountTotals();
+        mainForce.getAccount().attachTotals(accountTotals);
+        userInvestor.getAccount().attachTotals(accountTotals);
+        for (MarketBehavior mm : marketMakers) mm.getAccount().attachTotals(accountTotals);
+        for (NoiseTraderAI nt : noiseTraders) nt.getAccount().attachTotals(accountTotals);
+        for (RetailInvestorAI ri : retailInvestors) ri.getAccount().attachTotals(accountTotals);
+        accountTotalsBaseline = accountTotals.snapshot();
+    }
+
     private Random childRandom() {
         return new Random(random.nextLong());
     }
@@ -726,98 +817,257 @@ public class StockMarketModel implements AutoCloseable {
             }
             if (isRunning) return;
 
-        logger.info("啟動市場價格波動模擬", "MARKET_SIMULATION");
-
-        int initialDelay = 0;
-        int period = simulationPeriodMillis; // 執行間隔（單位：毫秒）
+            logger.info("啟動市場價格波動模擬", "MARKET_SIMULATION");
 
             isRunning = true;
-            executorService = Executors.newScheduledThreadPool(1);
-            simulationFuture = executorService.scheduleAtFixedRate(() -> {
-            try {
-                if (!isRunning || Thread.currentThread().isInterrupted()) {
+            // 週期為 0 時不節流（極速）；落後排程時依 overrunPolicy 處理，不會像 scheduleAtFixedRate 默默堆積
+            tickScheduler = new TickScheduler(() -> {
+                if (!isRunning) {
                     return;
                 }
-                timeStep++;
-
-                // 1. 市場行為：模擬市場的訂單提交
-                try {
-                    double vol = marketAnalyzer.calculateVolatility();
-                    int recentVol = (int) marketAnalyzer.getRecentAverageVolume();
-
-                    // 1a. 多個做市商：提供雙邊掛單
-                    if (marketMakers != null) {
-                        for (MarketBehavior mm : marketMakers) {
-                            try {
-                                mm.marketFluctuation(stock, orderBook, vol, recentVol);
-                            } catch (Exception ex) {
-                                logger.warn("Market maker tick failed: " + ex.getMessage(), "MARKET_BEHAVIOR");
-                            }
-                        }
-                    }
+                runTick();
+            }, simulationPeriodMillis, "market-simulation");
+            tickScheduler.setOverrunPolicy(overrunPolicy);
+            tickScheduler.start();
+        }
+    }
+
+    /**
+     * 執行單一模擬 tick：代理人決策 → 撮合 → 通知 → 庫存檢查（排程執行緒呼叫）
+     */
+    public void runTick() {
+        TickProfiler profiler = tickProfiler;
+        long tickStart = profiler.start();
+        profiler.beginTick();
+        try {
+            timeStep++;
+            // 虛擬時鐘每個 tick 前進固定的模擬時間（與實際執行速度無關）；外部注入的一般 Clock 不受影響
+            if (clock instanceof SimulationClock simulationClock) {
+                simulationClock.advanceTick();
+            }
+            marketContext = MarketContext.capture(this, clock.millis());
+
+            // 1~3. 代理人決策（做市商、噪音交易者、散戶、主力）
+            if (parallelDecisionPhase) {
+                runParallelDecisionPhase();
+            } else {
+                runSerialDecisionPhase();
+            }
+
+            // 散戶群體：在決策階段之後以單執行緒批次決策（順序固定、可重現）
+            RetailPopulation population = retailPopulation;
+            if (population != null) {
+                long t = profiler.start();
+                population.step(getMarketContext(), orderBook, getRetailStrategyConfig(), timeStep);
+                profiler.recordPhase(TickProfiler.Phase.RETAIL_POPULATION, t);
+            }
 
-                    // 1b. 噪音交易者：小額主動吃單/侵略性掛單，增加成交機會
-                    if (noiseTraders != null) {
-                        NoiseSignalQuality q = noiseSignalQuality;
-                        NoiseAdaptiveConfig cfg = noiseAdaptiveConfig;
-                        for (NoiseTraderAI nt : noiseTraders) {
-                            try {
-                                nt.setNoiseSignalQuality(q);
-                                nt.setNoiseAdaptiveConfig(cfg);
-                                nt.makeDecision();
-                            } catch (Exception ex) {
-                                logger.warn("Noise trader tick failed: " + ex.getMessage(), "MARKET_BEHAVIOR");
-                            }
-                        }
+            // 4. 處理訂單簿，撮合訂單（需加鎖保護）
+            long matchStart = profiler.start();
+            try {
+                orderBookLock.lock(); // 加鎖
+                orderBook.processOrders(stock);
+            } catch (Exception e) {
+                logger.error("訂單簿處理發生錯誤：" + e.getMessage(), "ORDER_PROCESSING");
+            } finally {
+                orderBookLock.unlock(); // 解鎖
+                profiler.recordPhase(TickProfiler.Phase.MATCHING, matchStart);
+            }
+
+            // 5. 更新市場分析數據
+            long notifyStart = profiler.start();
+            try {
+                marketAnalyzerLock.lock(); // 加鎖
+
+                // 通知監聽器市場狀態更新
+                notifyListenersOfUpdates();
+            } catch (Exception e) {
+                logger.error("市場分析數據更新發生錯誤：" + e.getMessage(), "MARKET_ANALYSIS");
+            } finally {
+                marketAnalyzerLock.unlock(); // 解鎖
+                profiler.recordPhase(TickProfiler.Phase.NOTIFY, notifyStart);
+                long inventoryStart = profiler.start();
+                validateMarketInventory();
+                profiler.recordPhase(TickProfiler.Phase.INVENTORY, inventoryStart);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("主模擬流程發生未處理的錯誤：" + e.getMessage(), "MARKET_SIMULATION");
+        } finally {
+            profiler.endTick(tickStart, simulationPeriodMillis);
+        }
+    }
+
+    private void runSerialDecisionPhase() {
+        // 1. 市場行為：模擬市場的訂單提交
+        try {
+            MarketContext context = getMarketContext();
+            double vol = context.getVolatility();
+            int recentVol = (int) context.getRecentAverageVolume();
+
+            // 1a. 多個做市商：提供雙邊掛單
+            if (marketMakers != null) {
+                long phaseStart = tickProfiler.start();
+                for (MarketBehavior mm : marketMakers) {
+                    long t = tickProfiler.start();
+                    try {
+                        mm.marketFluctuation(stock, orderBook, vol, recentVol);
+                    } catch (Exception ex) {
+                        logger.warn("Market maker tick failed: " + ex.getMessage(), "MARKET_BEHAVIOR");
                     }
-                    logger.info(String.format("市場行為模擬：時間步長 %d", timeStep), "MARKET_BEHAVIOR");
-                } catch (Exception e) {
-                    logger.error("市場行為模擬發生錯誤：" + e.getMessage(), "MARKET_BEHAVIOR");
+                    tickProfiler.recordAgent(mm, t);
                 }
+                tickProfiler.recordPhase(TickProfiler.Phase.MARKET_MAKERS, phaseStart);
+            }
 
-                // 2. 散戶行為：執行散戶決策
-                try {
-                    executeRetailInvestorDecisions();
-                } catch (Exception e) {
-                    logger.error("散戶決策發生錯誤：" + e.getMessage(), "RETAIL_BEHAVIOR");
+            // 1b. 噪音交易者：小額主動吃單/侵略性掛單，增加成交機會
+            if (noiseTraders != null) {
+                NoiseSignalQuality q = noiseSignalQuality;
+                NoiseAdaptiveConfig cfg = noiseAdaptiveConfig;
+                long phaseStart = tickProfiler.start();
+                for (NoiseTraderAI nt : noiseTraders) {
+                    long t = tickProfiler.start();
+                    try {
+                        nt.setNoiseSignalQuality(q);
+                        nt.setNoiseAdaptiveConfig(cfg);
+                        nt.setMarketContext(context);
+                        nt.makeDecision();
+                    } catch (Exception ex) {
+                        logger.warn("Noise trader tick failed: " + ex.getMessage(), "MARKET_BEHAVIOR");
+                    }
+                    tickProfiler.recordAgent(nt, t);
                 }
+                tickProfiler.recordPhase(TickProfiler.Phase.NOISE_TRADERS, phaseStart);
+            }
+            logger.infof("MARKET_BEHAVIOR", "市場行為模擬：時間步長 %d", timeStep);
+        } catch (Exception e) {
+            logger.error("市場行為模擬發生錯誤：" + e.getMessage(), "MARKET_BEHAVIOR");
+        }
 
-                // 3. 主力行為：執行主力決策
-                try {
-                    mainForce.makeDecision();
-                } catch (Exception e) {
-                    logger.error("主力決策發生錯誤：" + e.getMessage(), "MAINFORCE_BEHAVIOR");
-                }
+        // 2. 散戶行為：執行散戶決策
+        long retailStart = tickProfiler.start();
+        try {
+            executeRetailInvestorDecisions();
+        } catch (Exception e) {
+            logger.error("散戶決策發生錯誤：" + e.getMessage(), "RETAIL_BEHAVIOR");
+        }
+        tickProfiler.recordPhase(TickProfiler.Phase.RETAIL, retailStart);
 
-                // 4. 處理訂單簿，撮合訂單（需加鎖保護）
-                try {
-                    orderBookLock.lock(); // 加鎖
-                    orderBook.processOrders(stock);
-                } catch (Exception e) {
-                    logger.error("訂單簿處理發生錯誤：" + e.getMessage(), "ORDER_PROCESSING");
-                } finally {
-                    orderBookLock.unlock(); // 解鎖
-                }
+        // 3. 主力行為：執行主力決策
+        long mainForceStart = tickProfiler.start();
+        try {
+            mainForce.makeDecision();
+        } catch (Exception e) {
+            logger.error("主力決策發生錯誤：" + e.getMessage(), "MAINFORCE_BEHAVIOR");
+        }
+        tickProfiler.recordAgent(mainForce, mainForceStart);
+        tickProfiler.recordPhase(TickProfiler.Phase.MAIN_FORCE, mainForceStart);
+    }
 
-                // 5. 更新市場分析數據
-                try {
-                    marketAnalyzerLock.lock(); // 加鎖
-
-                    // 通知監聽器市場狀態更新
-                    notifyListenersOfUpdates();
-                } catch (Exception e) {
-                    logger.error("市場分析數據更新發生錯誤：" + e.getMessage(), "MARKET_ANALYSIS");
-                } finally {
-                    marketAnalyzerLock.unlock(); // 解鎖
-                    validateMarketInventory();
-                }
-            } catch (Exception e) {
-                logger.error("主模擬流程發生未處理的錯誤：" + e.getMessage(), "MARKET_SIMULATION");
+    /**
+     * 平行決策：所有代理人在 fork-join 池中對同一個凍結的盤面做決策，
+     * 產生的掛單/撤單先暫存，再依每 tick 的種子順序逐一提交，結果與核心數無關。
+     */
+    private void runParallelDecisionPhase() throws InterruptedException {
+        MarketContext context = getMarketContext();
+        double vol = context.getVolatility();
+        int recentVol = (int) context.getRecentAverageVolume();
+        NoiseSignalQuality q = noiseSignalQuality;
+        NoiseAdaptiveConfig cfg = noiseAdaptiveConfig;
+        long sequencingSeed = random.nextLong();
+
+        List<Callable<IntentSequencer.AgentBatch>> decisions = new ArrayList<>();
+        if (marketMakers != null) {
+            for (MarketBehavior mm : marketMakers) {
+                decisions.add(() -> captureDecision(mm, "MARKET_BEHAVIOR",
+                        () -> mm.marketFluctuation(stock, orderBook, vol, recentVol)));
             }
-            }, initialDelay, period, TimeUnit.MILLISECONDS);
+        }
+        if (noiseTraders != null) {
+            for (NoiseTraderAI nt : noiseTraders) {
+                decisions.add(() -> captureDecision(nt, "MARKET_BEHAVIOR", () -> {
+                    nt.setNoiseSignalQuality(q);
+                    nt.setNoiseAdaptiveConfig(cfg);
+                    nt.setMarketContext(context);
+                    nt.makeDecision();
+                }));
+            }
+        }
+        for (RetailInvestorAI investor : retailInvestors) {
+            decisions.add(() -> captureDecision(investor, "RETAIL_BEHAVIOR",
+                    () -> investor.makeDecision(stock, orderBook, this)));
+        }
+        decisions.add(() -> captureDecision(mainForce, "MAINFORCE_BEHAVIOR", mainForce::makeDecision));
+
+        List<IntentSequencer.AgentBatch> batches = new ArrayList<>(decisions.size());
+        long decisionStart = tickProfiler.start();
+        for (Future<IntentSequencer.AgentBatch> future : decisionPool().invokeAll(decisions)) {
+            try {
+                batches.add(future.get());
+            } catch (ExecutionException e) {
+                logger.error("平行決策發生錯誤：" + e.getCause(), "MARKET_BEHAVIOR");
+            }
+        }
+        tickProfiler.recordPhase(TickProfiler.Phase.PARALLEL_DECISION, decisionStart);
+        long sequencingStart = tickProfiler.start();
+        for (IntentSequencer.AgentBatch batch : IntentSequencer.order(batches, sequencingSeed)) {
+            try {
+                batch.replay();
+            } catch (Exception ex) {
+                logger.warn(batch.trader().getTraderType() + " 排序提交失敗: " + ex.getMessage(),
+                        "MARKET_BEHAVIOR");
+            }
+        }
+        tickProfiler.recordPhase(TickProfiler.Phase.SEQUENCING, sequencingStart);
+        logger.infof("MARKET_BEHAVIOR", "市場行為模擬（平行）：時間步長 %d，代理人 %d", timeStep, batches.size());
+    }
+
+    private IntentSequencer.AgentBatch captureDecision(Trader trader, String category, Runnable decision) {
+        return IntentSequencer.capture(trader, orderBook, () -> {
+            long t = tickProfiler.start();
+            try {
+                decision.run();
+            } catch (Exception ex) {
+                logger.warn(trader.getTraderType() + " 決策失敗: " + ex.getMessage(), category);
+            }
+            tickProfiler.recordAgent(trader, t);
+        });
+    }
+
+    private ForkJoinPool decisionPool() {
+        synchronized (simulationLifecycleLock) {
+            if (decisionPool == null) {
+                decisionPool = new ForkJoinPool(decisionParallelism);
+            }
+            return decisionPool;
         }
     }
 
+    /**
+     * 啟用/停用平行決策模式（同一種子下結果不受核心數影響）
+     */
+    public void setParallelDecisionPhase(boolean enabled) {
+        this.parallelDecisionPhase = enabled;
+    }
+
+    public boolean isParallelDecisionPhase() {
+        return parallelDecisionPhase;
+    }
+
+    /**
+     * 設定平行決策使用的執行緒數（下次建立決策池時生效）
+     */
+    public void setDecisionParallelism(int parallelism) {
+        ForkJoinPool old;
+        synchronized (simulationLifecycleLock) {
+            decisionParallelism = Math.max(1, parallelism);
+            old = decisionPool;
+            decisionPool = null;
+        }
+        if (old != null) old.shutdown();
+    }
+
     /**
      * 通知所有監聽器更新
      */
@@ -869,10 +1119,12 @@ public class StockMarketModel implements AutoCloseable {
             lastJ = kdjResult[2];
         }
 
-        final double[] macd = macdResult;
-        final double[] bollinger = bollingerResult;
-        final double[] kdj = kdjResult;
-        runOnEdt(() -> listeners.forEach(listener -> {
+        publishMarketUpdate(price, sma, volatility, rsi, wap, macdResult, bollingerResult, kdjResult);
+    }
+
+    private void publishMarketUpdate(double price, double sma, double volatility, double rsi, double wap,
+            double[] macd, double[] bollinger, double[] kdj) {
+        runOnEdtLatest(priceFrameGate, () -> listeners.forEach(listener -> {
             // 原有的通知
             listener.onPriceChanged(price, sma);
             listener.onTechnicalIndicatorsUpdated(volatility, rsi, wap);
@@ -953,113 +1205,123 @@ public class StockMarketModel implements AutoCloseable {
         return lastJ;
     }
 
-    // ===== 近期 Tape 統計（供策略與風控使用） =====
-    public double getRecentTPS(int n) {
-        try {
-            java.util.List<Transaction> recent = getRecentTransactions(Math.max(1, n));
-            if (recent.isEmpty()) {
-                return 0.0;
-            }
-            long now = clock.millis();
-            long earliest = recent.get(0).getTimestamp();
-            double secs = Math.max(1.0, (now - earliest) / 1000.0);
-            return recent.size() / secs;
-        } catch (Exception e) {
-            return 0.0;
-        }
+    // ===== 近期 Tape 統計（供策略與風控使用；由時間桶引擎回答，不複製成交紀錄） =====
+
+    /**
+     * 最近 seconds 秒（模擬時間）的每秒成交筆數
+     */
+    public double getRecentTPS(int seconds) {
+        return tapeMetrics.window(Math.max(1, seconds) * 1000L).tradesPerSecond();
     }
 
-    public double getRecentVPS(int n) {
-        try {
-            java.util.List<Transaction> recent = getRecentTransactions(Math.max(1, n));
-            if (recent.isEmpty()) {
-                return 0.0;
-            }
-            long now = clock.millis();
-            long earliest = recent.get(0).getTimestamp();
-            double secs = Math.max(1.0, (now - earliest) / 1000.0);
-            long vol = 0;
-            for (Transaction t : recent) {
-                vol += t.getVolume();
-            }
-            return vol / secs;
-        } catch (Exception e) {
-            return 0.0;
-        }
+    /**
+     * 最近 seconds 秒（模擬時間）的每秒成交量
+     */
+    public double getRecentVPS(int seconds) {
+        return tapeMetrics.window(Math.max(1, seconds) * 1000L).volumePerSecond();
     }
 
-    public double getRecentTickImbalance(int n) {
-        try {
-            java.util.List<Transaction> recent = getRecentTransactions(Math.max(1, n));
-            if (recent.isEmpty()) {
-                return 0.0;
-            }
-            int buy = 0, sell = 0;
-            for (Transaction t : recent) {
-                if (t.isBuyerInitiated()) {
-                    buy++;
-                } else {
-                    sell++;
-                }
-            }
-            int tot = Math.max(1, buy + sell);
-            return (buy - sell) / (double) tot; // [-1,1]
-        } catch (Exception e) {
-            return 0.0;
-        }
+    /**
+     * 最近 seconds 秒（模擬時間）的買賣筆數失衡，範圍 [-1, 1]
+     */
+    public double getRecentTickImbalance(int seconds) {
+        return tapeMetrics.window(Math.max(1, seconds) * 1000L).tickImbalance();
     }
 
+    /**
+     * 逐筆成交統計引擎（每秒一桶，保留 10 分鐘）
+     */
+    public TapeMetricsEngine getTapeMetrics() {
+        return tapeMetrics;
+    }
+
+    /**
+     * 價量分佈／VWAP 引擎（以真實成交量加權）
+     */
+    public VolumeProfileEngine getVolumeProfile() {
+        return volumeProfile;
+    }
+
+    /**
+     * 設定模擬週期（毫秒，0 表示不節流）；執行中直接調整排程器，不重啟模擬執行緒
+     */
     public void setSimulationPeriodMillis(int periodMillis) {
-        int bounded = Math.max(50, Math.min(10_000, periodMillis));
-        boolean restart;
+        int bounded = Math.max(0, Math.min(10_000, periodMillis));
         synchronized (simulationLifecycleLock) {
             if (simulationPeriodMillis == bounded) {
                 return;
             }
             simulationPeriodMillis = bounded;
-            restart = isRunning;
-        }
-        if (restart) {
-            stopAutoPriceFluctuation();
-            startAutoPriceFluctuation();
+            if (tickScheduler != null) {
+                tickScheduler.setPeriodMillis(bounded);
+            }
         }
     }
 
+    /**
+     * 模型使用的時鐘（模擬時間）；圖表與統計應以此取時間，而非 System.currentTimeMillis()
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
     public int getSimulationPeriodMillis() {
         return simulationPeriodMillis;
     }
 
+    /**
+     * 設定 tick 落後排程時的處理方式（執行中立即生效）
+     */
+    public void setOverrunPolicy(TickScheduler.OverrunPolicy policy) {
+        synchronized (simulationLifecycleLock) {
+            overrunPolicy = Objects.requireNonNull(policy, "policy");
+            if (tickScheduler != null) {
+                tickScheduler.setOverrunPolicy(policy);
+            }
+        }
+    }
+
+    public TickScheduler.OverrunPolicy getOverrunPolicy() {
+        return overrunPolicy;
+    }
+
+    /**
+     * 排程統計（實際/目標 tick 速率、落後次數）；尚未啟動時回傳 null
+     */
+    public TickScheduler.Stats getTickSchedulerStats() {
+        TickScheduler scheduler;
+        synchronized (simulationLifecycleLock) {
+            scheduler = tickScheduler;
+        }
+        return scheduler != null ? scheduler.stats() : null;
+    }
+
+    /**
+     * 因畫面節流而略過的 UI 更新數（價格與委託簿）
+     */
+    public long getSkippedUiFrames() {
+        return priceFrameGate.getSkippedFrames() + orderBookFrameGate.getSkippedFrames();
+    }
+
     /**
      * 停止自動價格波動
      */
     public void stopAutoPriceFluctuation() {
-        ScheduledExecutorService executorToStop;
-        ScheduledFuture<?> futureToCancel;
+        TickScheduler schedulerToStop;
         synchronized (simulationLifecycleLock) {
-            if (!isRunning && executorService == null) return;
+            if (!isRunning && tickScheduler == null) return;
             logger.info("停止市場價格波動模擬", "MARKET_SIMULATION");
             isRunning = false;
-            futureToCancel = simulationFuture;
-            executorToStop = executorService;
-            simulationFuture = null;
-            executorService = null;
+            schedulerToStop = tickScheduler;
+            tickScheduler = null;
         }
 
-        // 先取消週期任務（shutdown 並不一定會停止已提交的 scheduleAtFixedRate 任務）
-        try {
-            if (futureToCancel != null) futureToCancel.cancel(true);
-        } catch (Exception ex) {
-            logger.warn("Simulation task cancellation failed: " + ex.getMessage(), "MARKET_SIMULATION");
-        }
-        if (executorToStop != null && !executorToStop.isShutdown()) {
-            executorToStop.shutdownNow();
+        if (schedulerToStop != null) {
             try {
-                if (!executorToStop.awaitTermination(800, TimeUnit.MILLISECONDS)) {
-                    executorToStop.shutdownNow();
-                    logger.warn("強制關閉模擬執行緒池", "MARKET_SIMULATION");
+                if (!schedulerToStop.stop(800)) {
+                    logger.warn("模擬執行緒未在時限內結束", "MARKET_SIMULATION");
                 }
             } catch (InterruptedException e) {
-                executorToStop.shutdownNow();
                 logger.error(e, "MARKET_SIMULATION");
                 Thread.currentThread().interrupt();
             }
@@ -1075,9 +1337,25 @@ public class StockMarketModel implements AutoCloseable {
             closed = true;
         }
         stopAutoPriceFluctuation();
+        ForkJoinPool pool;
+        synchronized (simulationLifecycleLock) {
+            pool = decisionPool;
+            decisionPool = null;
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+        }
         if (orderBook != null) {
             orderBook.close();
         }
+        TransactionHistoryStore history;
+        synchronized (transactionJournalLock) {
+            history = transactionHistory;
+            transactionHistory = null;
+        }
+        if (history != null) {
+            history.close();
+        }
     }
 
     /**
@@ -1085,7 +1363,9 @@ public class StockMarketModel implements AutoCloseable {
      */
     private void executeRetailInvestorDecisions() {
         for (RetailInvestorAI investor : retailInvestors) {
+            long t = tickProfiler.start();
             investor.makeDecision(stock, orderBook, this);
+            tickProfiler.recordAgent(investor, t);
         }
     }
 
@@ -1111,22 +1391,59 @@ public class StockMarketModel implements AutoCloseable {
     }
 
     /**
-     * 檢查市場庫存
+     * 檢查市場庫存：以守恆計數器做 O(1) 比對，計數器不守恆或每 N 個 tick 才做完整稽核
      */
     public void validateMarketInventory() {
+        AccountTotals.Snapshot totals = accountTotals.snapshot();
+        AccountTotals.Snapshot baseline = accountTotalsBaseline;
+        boolean conserved = baseline != null
+                && totals.totalStocks() == baseline.totalStocks()
+                && totals.totalCashCents() == baseline.totalCashCents();
+        int interval = fullInventoryAuditInterval;
+        if (!conserved || (interval > 0 && timeStep % interval == 0)) {
+            auditMarketInventory();
+        } else {
+            LogicAudit.info("INVENTORY_CHECK", "ok total=" + totals.totalStocks());
+        }
+    }
+
+    /**
+     * 完整逐帳戶稽核：重新加總所有帳戶並與守恆計數器、初始設定值比對
+     */
+    public void auditMarketInventory() {
         int calculatedInventory = calculateMarketInventory();
         int initialInventory = calculateExpectedInitialInventory();
-        if (calculatedInventory != initialInventory) {
+        AccountTotals.Snapshot totals = accountTotals.snapshot();
+        AccountTotals.Snapshot baseline = accountTotalsBaseline;
+        boolean cashConserved = baseline == null
+                || totals.totalCashCents() == baseline.totalCashCents();
+        if (calculatedInventory != initialInventory || totals.totalStocks() != calculatedInventory
+                || !cashConserved) {
             String msg = "市場庫存檢查: 設定值(全市場初始總股數)=" + initialInventory
                     + "，做市商合計持股=" + getMarketMakersTotalStocks()
-                    + "，總計算庫存=" + calculatedInventory;
+                    + "，總計算庫存=" + calculatedInventory
+                    + "，計數器庫存=" + totals.totalStocks()
+                    + "，計數器資金(分)=" + totals.totalCashCents()
+                    + (baseline != null ? "，初始資金(分)=" + baseline.totalCashCents() : "");
             logger.error(msg, "MODEL_INIT");
             LogicAudit.warn("INVENTORY_CHECK", msg);
         } else {
-            LogicAudit.info("INVENTORY_CHECK", "ok total=" + calculatedInventory);
+            LogicAudit.info("INVENTORY_CHECK", "ok total=" + calculatedInventory + " (full audit)");
         }
     }
 
+    public AccountTotals.Snapshot getAccountTotals() {
+        return accountTotals.snapshot();
+    }
+
+    public void setFullInventoryAuditInterval(int ticks) {
+        this.fullInventoryAuditInterval = ticks;
+    }
+
+    public int getFullInventoryAuditInterval() {
+        return fullInventoryAuditInterval;
+    }
+
     private int calculateExpectedInitialInventory() {
         int marketMakerStocks = Math.multiplyExact(
                 Math.max(0, marketMakerCount), Math.max(0, marketMakerInitialStocks));
@@ -1152,6 +1469,11 @@ public class StockMarketModel implements AutoCloseable {
             sumRetailAvail += investor.getAccount().getStockInventory();
             sumRetailFrozen += investor.getAccount().getFrozenStocks();
         }
+        RetailPopulation population = retailPopulation;
+        if (population != null) {
+            sumRetailAvail += population.getAccount().getStockInventory();
+            sumRetailFrozen += population.getAccount().getFrozenStocks();
+        }
         totalInventory += sumRetailAvail + sumRetailFrozen;
 
         if (userInvestor != null) {
@@ -1172,14 +1494,27 @@ public class StockMarketModel implements AutoCloseable {
         }
         totalInventory += marketAvail + marketFrozen;
 
+        // 噪音交易者帳戶（合計）
+        int noiseAvail = 0;
+        int noiseFrozen = 0;
+        if (noiseTraders != null) {
+            for (NoiseTraderAI nt : noiseTraders) {
+                if (nt != null && nt.getAccount() != null) {
+                    noiseAvail += nt.getAccount().getStockInventory();
+                    noiseFrozen += nt.getAccount().getFrozenStocks();
+                }
+            }
+        }
+        totalInventory += noiseAvail + noiseFrozen;
+
         // 稽核分解
         LogicAudit.info("INVENTORY_BREAKDOWN", String.format(
-                "main(avail=%d,frozen=%d) retail(avail=%d,frozen=%d) user(a=%d,f=%d) market(a=%d,f=%d)",
+                "main(avail=%d,frozen=%d) retail(avail=%d,frozen=%d) user(a=%d,f=%d) market(a=%d,f=%d) noise(a=%d,f=%d)",
                 mainForceAvail, mainForceFrozen,
                 sumRetailAvail, sumRetailFrozen,
                 userInvestor != null ? userInvestor.getAccount().getStockInventory() : 0,
                 userInvestor != null ? userInvestor.getAccount().getFrozenStocks() : 0,
-                marketAvail, marketFrozen));
+                marketAvail, marketFrozen, noiseAvail, noiseFrozen));
 
         return totalInventory;
     }
@@ -1317,8 +1652,17 @@ public class StockMarketModel implements AutoCloseable {
      * 更新界面標籤 替代 simulation.updateLabels() 方法
      */
     public void updateLabels() {
-        // 通知所有監聽器更新界面
-        notifyListenersOfUpdates();
+        // 只以最近一次的指標值刷新界面；指標狀態僅由 tick 與成交回報推進，
+        // 避免 EDT 上的委託簿刷新次數影響模擬結果
+        double macdLine = lastMacdLine;
+        double bollUpper = lastBollUpper;
+        double kValue = lastK;
+        publishMarketUpdate(stock.getPrice(), marketAnalyzer.calculateSMA(),
+                marketAnalyzer.calculateVolatility(), marketAnalyzer.getRSI(),
+                marketAnalyzer.getWeightedAveragePrice(),
+                Double.isNaN(macdLine) ? null : new double[]{macdLine, lastMacdSignal, lastMacdHist},
+                Double.isNaN(bollUpper) ? null : new double[]{bollUpper, lastBollMiddle, lastBollLower},
+                Double.isNaN(kValue) ? null : new double[]{kValue, lastD, lastJ});
     }
 
     /**
@@ -1334,7 +1678,7 @@ public class StockMarketModel implements AutoCloseable {
      * 更新訂單簿顯示
      */
     public void updateOrderBookDisplay() {
-        runOnEdt(() -> listeners.forEach(ModelListener::onOrderBookChanged));
+        runOnEdtLatest(orderBookFrameGate, () -> listeners.forEach(ModelListener::onOrderBookChanged));
     }
 
     /**
@@ -1370,17 +1714,42 @@ public class StockMarketModel implements AutoCloseable {
 
     // 添加成交記錄的方法
     public void addTransaction(Transaction transaction) {
-        transactionJournal.add(transaction);
-        notifyTransactionAdded(transaction);
+        TransactionHistoryStore history;
+        synchronized (transactionJournalLock) {
+            transactionJournal.add(transaction);
+            history = transactionHistory;
+        }
+        if (history != null) {
+            history.append(transaction);
+        }
+        notifyTransactionAdded(transaction.isBuyerInitiated(), transaction.getVolume(), transaction.getPrice(),
+                () -> transaction);
     }
 
-    private void notifyTransactionAdded(Transaction transaction) {
+    /**
+     * 記錄撮合引擎產生的精簡成交（熱路徑）；完整 Transaction 只在有成交監聽器時於 EDT 上建立
+     */
+    public void recordTrade(Trade trade) {
+        TransactionHistoryStore history;
+        synchronized (transactionJournalLock) {
+            transactionJournal.add(trade);
+            history = transactionHistory;
+        }
+        if (history != null) {
+            history.append(trade);
+        }
+        notifyTransactionAdded(trade.buyerInitiated(), trade.volume(), trade.price(), () -> trade.toTransaction(clock));
+    }
+
+    private void notifyTransactionAdded(boolean buyerInitiated, int volume, double price,
+            java.util.function.Supplier<Transaction> transaction) {
         runOnEdt(() -> {
-            transactionListeners.forEach(listener -> listener.onTransactionAdded(transaction));
+            if (!transactionListeners.isEmpty()) {
+                Transaction view = transaction.get();
+                transactionListeners.forEach(listener -> listener.onTransactionAdded(view));
+            }
             listeners.forEach(listener -> listener.onInfoMessage(String.format(
-                    "新成交：%s %d股 @ %.2f",
-                    transaction.isBuyerInitiated() ? "買入" : "賣出",
-                    transaction.getVolume(), transaction.getPrice())));
+                    "新成交：%s %d股 @ %.2f", buyerInitiated ? "買入" : "賣出", volume, price)));
         });
     }
 
@@ -1404,11 +1773,75 @@ public class StockMarketModel implements AutoCloseable {
         return transactionJournal.recent(n);
     }
 
-    private static void runOnEdt(Runnable action) {
+    /**
+     * 成交記錄環形緩衝；讀取端以 {@link TransactionJournal#cursor()} 取得游標，無鎖讀取新增的成交
+     */
+    public TransactionJournal getTransactionJournal() {
+        return transactionJournal;
+    }
+
+    /**
+     * 完整成交歷史（可依時間、交易者類型、方向、訂單類型查詢並分頁）。
+     * 首次呼叫時建立，並補入成交記錄中仍保留的成交；隔離執行或模型已關閉時回傳 null
+     */
+    public TransactionHistoryStore getTransactionHistoryStore() {
+        TransactionHistoryStore history = transactionHistory;
+        if (history != null || !transactionHistoryEnabled) {
+            return history;
+        }
+        synchronized (transactionJournalLock) {
+            if (transactionHistory == null && !closed) {
+                history = new TransactionHistoryStore();
+                TransactionJournal journal = transactionJournal;
+                for (long seq = journal.firstSequence(); seq < journal.sequence(); seq++) {
+                    Trade trade = journal.trade(seq);
+                    if (trade != null) {
+                        history.append(trade);
+                    }
+                }
+                transactionHistory = history;
+            }
+            return transactionHistory;
+        }
+    }
+
+    /**
+     * 調整成交記錄保留筆數（可達數百萬筆）；保留目前最新的成交，既有游標需向新的紀錄重新取得
+     */
+    public void setTransactionHistoryCapacity(int capacity) {
+        TransactionJournal resized = new TransactionJournal(capacity, clock);
+        synchronized (transactionJournalLock) {
+            for (Transaction transaction : transactionJournal.recent(capacity)) {
+                resized.add(transaction);
+            }
+            transactionJournal = resized;
+        }
+    }
+
+    private void runOnEdt(Runnable action) {
+        if (!uiNotificationsEnabled) return;
         if (SwingUtilities.isEventDispatchThread()) action.run();
         else SwingUtilities.invokeLater(action);
     }
 
+    // 狀態型更新：經畫面節流閘門，EDT 來不及畫時只保留最新一幀（tick 速率高於畫面更新率時略過中間幀）
+    private void runOnEdtLatest(UiFrameGate gate, Runnable action) {
+        if (!uiNotificationsEnabled) return;
+        if (SwingUtilities.isEventDispatchThread()) action.run();
+        else gate.submit(action);
+    }
+
+    /**
+     * 啟用/停用 EDT 上的 UI 通知（無頭模式下關閉，避免每筆成交與委託簿變動都排入 EDT）
+     */
+    public void setUiNotificationsEnabled(boolean enabled) {
+        this.uiNotificationsEnabled = enabled;
+    }
+
+    public boolean isUiNotificationsEnabled() {
+        return uiNotificationsEnabled;
+    }
+
     // ======== Getter 方法 ========
     public Stock getStock() {
         return stock;
@@ -1418,6 +1851,20 @@ public class StockMarketModel implements AutoCloseable {
         return orderBook;
     }
 
+    /**
+     * 多週期 K 線聚合引擎（1 秒 / 30 秒 / 1 分 / 10 分 / 30 分）
+     */
+    public OhlcvBarEngine getBarEngine() {
+        return barEngine;
+    }
+
+    /**
+     * 各 K 線週期的指標管線（SMA/EMA/MACD/BOLL/KDJ/RSI/ATR/OBV/STOCHRSI，以已收盤 K 線計算）
+     */
+    public TimeframeIndicators getTimeframeIndicators() {
+        return timeframeIndicators;
+    }
+
     public MarketAnalyzer getMarketAnalyzer() {
         return marketAnalyzer;
     }
@@ -1445,6 +1892,38 @@ public class StockMarketModel implements AutoCloseable {
         return new ArrayList<>(retailInvestors);
     }
 
+    /**
+     * 啟用大量散戶群體（需在第一個 tick 之前呼叫，且只能啟用一次）
+     *
+     * @param size 散戶人數
+     * @param cashPerAgent 每位散戶初始資金
+     */
+    public synchronized RetailPopulation enableRetailPopulation(int size, double cashPerAgent) {
+        if (retailPopulation != null) {
+            throw new IllegalStateException("retail population already enabled");
+        }
+        if (timeStep > 0) {
+            throw new IllegalStateException("retail population must be enabled before the first tick");
+        }
+        RetailPopulation population = new RetailPopulation(size, cashPerAgent, random.nextLong());
+        population.getAccount().attachTotals(accountTotals);
+        accountTotalsBaseline = accountTotals.snapshot();
+        orderBook.addTradeExecutedListener(population::onTradeExecuted);
+        retailPopulation = population;
+        return population;
+    }
+
+    /**
+     * 每 tick 分段計時（階段 p50/p99/max、代理人類別耗時、超時次數）
+     */
+    public TickProfiler getTickProfiler() {
+        return tickProfiler;
+    }
+
+    public RetailPopulation getRetailPopulation() {
+        return retailPopulation;
+    }
+
     // 新增：取得初始資金設定
     public double getInitialRetailCash() {
         return initialRetailCash;
@@ -1465,4 +1944,21 @@ public class StockMarketModel implements AutoCloseable {
     public int getTimeStep() {
         return timeStep;
     }
+
+    /**
+     * 取得本 tick 的共用市場快照；若尚未在本 tick 建立（例如直接呼叫代理人決策）則即時建立
+     */
+    public MarketContext getMarketContext() {
+        MarketContext context = marketContext;
+        if (context == null || context.getTimeStep() != timeStep) {
+            synchronized (marketContextLock) {
+                context = marketContext;
+                if (context == null || context.getTimeStep() != timeStep) {
+                    context = MarketContext.capture(this, clock.millis());
+                    marketContext = context;
+                }
+            }
+        }
+        return context;
+    }
 }
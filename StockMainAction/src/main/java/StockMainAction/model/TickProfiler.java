@@ -0,0 +1,275 @@
+package StockMainAction.model;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tick 分段計時器 - 記錄每個模擬 tick 各階段的奈秒耗時，
+ * 以滾動視窗（最近 {@link #DEFAULT_WINDOW} 筆）提供 p50/p99/max，
+ * 並依代理人類別統計單次決策耗時、統計超過排程週期的 tick 數與造成超時的主要階段。
+ *
+ * 記錄為 O(1)（寫入環狀緩衝）；百分位數只在 {@link #snapshot()} 時排序計算，供 UI 或無頭模擬讀取。
+ */
+public final class TickProfiler {
+
+    /** 滾動視窗大小（每個統計項保留的最近樣本數） */
+    public static final int DEFAULT_WINDOW = 1024;
+
+    /**
+     * runTick 的階段
+     */
+    public enum Phase {
+        MARKET_MAKERS("做市商"),
+        NOISE_TRADERS("噪音交易者"),
+        RETAIL("散戶"),
+        MAIN_FORCE("主力"),
+        PARALLEL_DECISION("平行決策"),
+        SEQUENCING("排序提交"),
+        RETAIL_POPULATION("散戶群體"),
+        MATCHING("撮合 processOrders"),
+        NOTIFY("通知 notifyListenersOfUpdates"),
+        INVENTORY("庫存檢查 validateMarketInventory"),
+        TOTAL("整個 tick");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * 單一統計項的滾動視窗
+     */
+    private static final class Window {
+        private final long[] samples;
+        private int next;
+        private int filled;
+        private long count;
+        private long max;
+
+        Window(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (filled < samples.length) filled++;
+            count++;
+            if (nanos > max) max = nanos;
+        }
+
+        synchronized Stat stat(String name) {
+            if (filled == 0) return new Stat(name, count, 0, 0, 0, 0, max);
+            long[] sorted = Arrays.copyOf(samples, filled);
+            Arrays.sort(sorted);
+            long sum = 0;
+            for (long v : sorted) sum += v;
+            return new Stat(name, count, sum / filled, percentile(sorted, 0.50), percentile(sorted, 0.99),
+                    sorted[filled - 1], max);
+        }
+
+        synchronized void clear() {
+            next = 0;
+            filled = 0;
+            count = 0;
+            max = 0;
+        }
+
+        private static long percentile(long[] sorted, double q) {
+            int index = (int) Math.ceil(q * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+
+    /**
+     * 統計結果（奈秒）；p50/p99/windowMax 為滾動視窗內的值，allTimeMax 為啟動（或 reset）以來最大值
+     */
+    public record Stat(String name, long count, long meanNanos, long p50Nanos, long p99Nanos,
+            long windowMaxNanos, long allTimeMaxNanos) {
+    }
+
+    /**
+     * 計時快照
+     *
+     * @param overrunsByPhase 超時 tick 中耗時最多的階段 → 次數
+     */
+    public record Snapshot(long ticks, long overruns, long budgetNanos, List<Stat> phases,
+            List<Stat> agentClasses, Map<String, Long> overrunsByPhase) {
+
+        public Snapshot {
+            phases = List.copyOf(phases);
+            agentClasses = List.copyOf(agentClasses);
+            overrunsByPhase = Map.copyOf(overrunsByPhase);
+        }
+
+        /** 依名稱取得階段統計（找不到回傳 null） */
+        public Stat phase(Phase phase) {
+            for (Stat stat : phases) {
+                if (stat.name().equals(phase.name())) return stat;
+            }
+            return null;
+        }
+
+        /** 超時比例（0..1） */
+        public double overrunRatio() {
+            return ticks > 0 ? overruns / (double) ticks : 0.0;
+        }
+    }
+
+    private final int windowSize;
+    private final Clock clock;
+    private final Map<Phase, Window> phases = new EnumMap<>(Phase.class);
+    private final Map<String, Window> agentClasses = new ConcurrentHashMap<>();
+    private final long[] currentTick = new long[Phase.values().length];
+    private final long[] overrunsByPhase = new long[Phase.values().length];
+    private volatile boolean enabled = true;
+    private long ticks;
+    private long overruns;
+    private long budgetNanos;
+
+    public TickProfiler() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public TickProfiler(int windowSize) {
+        this(windowSize, Clock.systemUTC());
+    }
+
+    /**
+     * @param clock 事件日誌時間戳所用的時鐘（與模型時鐘一致；耗時量測仍用 System.nanoTime）
+     */
+    public TickProfiler(int windowSize, Clock clock) {
+        if (windowSize <= 0) throw new IllegalArgumentException("windowSize must be positive");
+        this.windowSize = windowSize;
+        this.clock = java.util.Objects.requireNonNull(clock, "clock");
+        for (Phase phase : Phase.values()) phases.put(phase, new Window(windowSize));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** 目前時間（停用時回傳 0，讓呼叫端略過 System.nanoTime） */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 新 tick 開始（由模擬執行緒呼叫）
+     */
+    public synchronized void beginTick() {
+        Arrays.fill(currentTick, 0L);
+    }
+
+    /**
+     * 記錄階段耗時（同一 tick 同一階段可多次累加）
+     *
+     * @param startNanos {@link #start()} 的回傳值
+     */
+    public void recordPhase(Phase phase, long startNanos) {
+        if (!enabled || startNanos == 0L) return;
+        long nanos = System.nanoTime() - startNanos;
+        synchronized (this) {
+            currentTick[phase.ordinal()] += nanos;
+        }
+    }
+
+    /**
+     * 記錄單一代理人一次決策的耗時（可由平行決策執行緒呼叫）
+     */
+    public void recordAgent(Object agent, long startNanos) {
+        if (!enabled || startNanos == 0L || agent == null) return;
+        long nanos = System.nanoTime() - startNanos;
+        agentClasses.computeIfAbsent(agent.getClass().getSimpleName(), ignored -> new Window(windowSize))
+                .record(nanos);
+    }
+
+    /**
+     * tick 結束：寫入各階段樣本並判斷是否超過排程週期
+     *
+     * @param tickStartNanos tick 開始時 {@link #start()} 的回傳值
+     * @param periodMillis 排程週期（毫秒）
+     */
+    public void endTick(long tickStartNanos, long periodMillis) {
+        if (!enabled || tickStartNanos == 0L) return;
+        long total = System.nanoTime() - tickStartNanos;
+        synchronized (this) {
+            currentTick[Phase.TOTAL.ordinal()] = total;
+            ticks++;
+            budgetNanos = periodMillis * 1_000_000L;
+            Phase dominant = null;
+            for (Phase phase : Phase.values()) {
+                long nanos = currentTick[phase.ordinal()];
+                if (phase == Phase.TOTAL || nanos == 0L) continue;
+                phases.get(phase).record(nanos);
+                if (dominant == null || nanos > currentTick[dominant.ordinal()]) dominant = phase;
+            }
+            phases.get(Phase.TOTAL).record(total);
+            if (budgetNanos > 0 && total > budgetNanos) {
+                overruns++;
+                overrunsByPhase[(dominant != null ? dominant : Phase.TOTAL).ordinal()]++;
+            }
+            MarketEvents.tickPhases(clock.millis(), ticks, currentTick);
+        }
+    }
+
+    /**
+     * 取得目前統計（排序計算百分位數，適合 UI 定時刷新或模擬結束時讀取）
+     */
+    public Snapshot snapshot() {
+        List<Stat> phaseStats = new ArrayList<>();
+        Map<String, Long> overrunMap = new LinkedHashMap<>();
+        long tickCount;
+        long overrunCount;
+        long budget;
+        synchronized (this) {
+            tickCount = ticks;
+            overrunCount = overruns;
+            budget = budgetNanos;
+            for (Phase phase : Phase.values()) {
+                long n = overrunsByPhase[phase.ordinal()];
+                if (n > 0) overrunMap.put(phase.name(), n);
+            }
+        }
+        for (Phase phase : Phase.values()) {
+            Stat stat = phases.get(phase).stat(phase.name());
+            if (stat.count() > 0) phaseStats.add(stat);
+        }
+        List<Stat> agentStats = new ArrayList<>();
+        for (Map.Entry<String, Window> entry : agentClasses.entrySet()) {
+            agentStats.add(entry.getValue().stat(entry.getKey()));
+        }
+        agentStats.sort((a, b) -> a.name().compareTo(b.name()));
+        return new Snapshot(tickCount, overrunCount, budget, phaseStats, agentStats, overrunMap);
+    }
+
+    /**
+     * 清除所有統計
+     */
+    public void reset() {
+        synchronized (this) {
+            ticks = 0;
+            overruns = 0;
+            Arrays.fill(overrunsByPhase, 0L);
+            Arrays.fill(currentTick, 0L);
+        }
+        for (Window window : phases.values()) window.clear();
+        agentClasses.clear();
+    }
+}
@@ -0,0 +1,250 @@
+package StockMainAction.model;
+
+import StockMainAction.util.logging.MarketLogger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模擬 tick 排程器 - 取代 scheduleAtFixedRate，在專用執行緒上依目標週期執行 tick，
+ * 偵測 tick 超過週期（落後排程）並依 {@link OverrunPolicy} 處理：
+ * 略過落後的 tick、以連續執行追趕，或暫時拉長週期。
+ * 週期為 0 時不做節流，tick 一個接一個執行（極速模式）。
+ *
+ * 週期可在執行中調整，不需重啟執行緒；實際/目標 tick 速率與落後統計可隨時讀取。
+ */
+public final class TickScheduler {
+
+    private static final MarketLogger logger = MarketLogger.getInstance();
+
+    /** 連續追趕時最多補跑的 tick 數（超過的部分直接略過） */
+    public static final int DEFAULT_MAX_BURST = 5;
+    // 實際速率以指數移動平均計算的時間常數（秒）
+    private static final double RATE_TIME_CONSTANT_SECONDS = 1.0;
+
+    /**
+     * tick 落後排程時的處理方式
+     */
+    public enum OverrunPolicy {
+        /** 略過：放棄錯過的 tick，從下一個整數週期繼續（模擬時間變慢，不會堆積） */
+        SKIP("略過"),
+        /** 追趕：連續補跑錯過的 tick（最多 maxBurst 個），之後再回到正常節奏 */
+        CATCH_UP("追趕"),
+        /** 拉長：暫時把週期拉長到實際 tick 耗時，tick 變快後逐步回到目標週期 */
+        STRETCH("拉長週期");
+
+        private final String displayName;
+
+        OverrunPolicy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 排程統計
+     *
+     * @param actualTicksPerSecond 實際 tick 速率（移動平均）
+     * @param targetTicksPerSecond 目標 tick 速率（極速模式為 Double.POSITIVE_INFINITY）
+     * @param effectivePeriodNanos 目前使用的週期（拉長策略下可能大於目標）
+     */
+    public record Stats(long ticks, long overruns, long skippedTicks, long burstTicks,
+            double actualTicksPerSecond, double targetTicksPerSecond, long effectivePeriodNanos) {
+    }
+
+    private final Runnable tick;
+    private final String threadName;
+    private final Object lock = new Object();
+
+    private volatile long periodNanos;
+    private volatile OverrunPolicy policy = OverrunPolicy.SKIP;
+    private volatile int maxBurst = DEFAULT_MAX_BURST;
+    private volatile boolean running;
+    private Thread worker;
+
+    // 統計（僅排程執行緒寫入）
+    private volatile long ticks;
+    private volatile long overruns;
+    private volatile long skippedTicks;
+    private volatile long burstTicks;
+    private volatile double actualRate;
+    private volatile long effectivePeriodNanos;
+
+    /**
+     * @param tick 每個 tick 執行的動作
+     * @param periodMillis 目標週期（毫秒），0 表示不節流
+     */
+    public TickScheduler(Runnable tick, long periodMillis, String threadName) {
+        this.tick = java.util.Objects.requireNonNull(tick, "tick");
+        this.threadName = threadName;
+        setPeriodMillis(periodMillis);
+    }
+
+    /**
+     * 調整目標週期（可在執行中呼叫，下一個 tick 生效）
+     */
+    public void setPeriodMillis(long periodMillis) {
+        if (periodMillis < 0) throw new IllegalArgumentException("periodMillis must not be negative");
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+        LockSupport.unpark(worker);
+    }
+
+    public long getPeriodMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(periodNanos);
+    }
+
+    public void setOverrunPolicy(OverrunPolicy policy) {
+        this.policy = java.util.Objects.requireNonNull(policy, "policy");
+    }
+
+    public OverrunPolicy getOverrunPolicy() {
+        return policy;
+    }
+
+    public void setMaxBurst(int maxBurst) {
+        this.maxBurst = Math.max(1, maxBurst);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (running) return;
+            running = true;
+            worker = new Thread(this::loop, threadName);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * 停止排程並等待目前的 tick 結束（最多 timeoutMillis）
+     *
+     * @return 執行緒是否已結束
+     */
+    public boolean stop(long timeoutMillis) throws InterruptedException {
+        Thread toJoin;
+        synchronized (lock) {
+            running = false;
+            toJoin = worker;
+            worker = null;
+        }
+        if (toJoin == null) return true;
+        if (toJoin == Thread.currentThread()) return false;
+        toJoin.interrupt();
+        toJoin.join(timeoutMillis);
+        return !toJoin.isAlive();
+    }
+
+    public Stats stats() {
+        long period = periodNanos;
+        double target = period > 0 ? 1e9 / period : Double.POSITIVE_INFINITY;
+        return new Stats(ticks, overruns, skippedTicks, burstTicks, actualRate, target,
+                effectivePeriodNanos);
+    }
+
+    private void loop() {
+        long deadline = System.nanoTime();
+        long lastTickEnd = deadline;
+        long stretched = 0L;
+        int burst = 0;
+        while (running && !Thread.currentThread().isInterrupted()) {
+            long period = periodNanos;
+            long now = System.nanoTime();
+            if (period > 0 && now < deadline) {
+                LockSupport.parkNanos(this, deadline - now);
+                continue;
+            }
+
+            long started = System.nanoTime();
+            try {
+                tick.run();
+            } catch (RuntimeException ex) {
+                logger.error("模擬 tick 發生未處理的錯誤：" + ex.getMessage(), "MARKET_SIMULATION");
+            }
+            long ended = System.nanoTime();
+            ticks++;
+            updateRate(ended - lastTickEnd);
+            lastTickEnd = ended;
+
+            period = periodNanos;
+            if (period == 0) {
+                // 極速：不節流，直接下一個 tick
+                deadline = ended;
+                effectivePeriodNanos = ended - started;
+                stretched = 0L;
+                burst = 0;
+                continue;
+            }
+
+            long duration = ended - started;
+            switch (policy) {
+                case STRETCH: {
+                    // 週期 = max(目標, 耗時)，耗時縮短後以 1/4 的速度收斂回目標週期
+                    long base = Math.max(period, stretched);
+                    if (duration > base) {
+                        overruns++;
+                        stretched = duration;
+                    } else {
+                        stretched = stretched > period ? stretched - (stretched - period) / 4 : 0L;
+                    }
+                    long effective = Math.max(period, stretched);
+                    effectivePeriodNanos = effective;
+                    deadline = started + effective;
+                    break;
+                }
+                case CATCH_UP: {
+                    deadline += period;
+                    effectivePeriodNanos = period;
+                    if (ended > deadline) {
+                        if (burst == 0) overruns++;
+                        long behind = (ended - deadline) / period + 1;
+                        if (burst < maxBurst) {
+                            // 立即補跑下一個 tick（deadline 已過期，不會等待）
+                            burst++;
+                            burstTicks++;
+                        } else {
+                            // 已追趕到上限：剩餘落後的 tick 略過
+                            skippedTicks += behind;
+                            deadline += behind * period;
+                            burst = 0;
+                        }
+                    } else {
+                        burst = 0;
+                    }
+                    break;
+                }
+                case SKIP:
+                default: {
+                    deadline += period;
+                    effectivePeriodNanos = period;
+                    if (ended > deadline) {
+                        overruns++;
+                        long behind = (ended - deadline) / period + 1;
+                        skippedTicks += behind;
+                        deadline += behind * period;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    // 實際 tick 速率：以間隔為權重的指數移動平均
+    private void updateRate(long intervalNanos) {
+        if (intervalNanos <= 0) return;
+        double instant = 1e9 / intervalNanos;
+        double alpha = 1.0 - Math.exp(-(intervalNanos / 1e9) / RATE_TIME_CONSTANT_SECONDS);
+        actualRate = actualRate == 0.0 ? instant : actualRate + alpha * (instant - actualRate);
+    }
+}
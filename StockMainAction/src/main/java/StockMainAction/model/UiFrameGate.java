@@ -0,0 +1,73 @@
+package StockMainAction.model;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * UI 畫面節流（frame skipping）- 讓 tick 速率與畫面更新脫鉤。
+ * 狀態型的更新（最新價格、指標、委託簿）只保留最新一筆：EDT 尚未處理前一幀時新的幀直接取代它，
+ * 且兩幀之間至少間隔 {@link #getMinFrameIntervalMillis()}，被取代的幀計入略過次數。
+ * 事件型的通知（成交量、訊息）不經過此閘門。
+ */
+final class UiFrameGate {
+
+    /** 預設最短畫面間隔（約 30 fps） */
+    static final int DEFAULT_MIN_FRAME_INTERVAL_MILLIS = 33;
+
+    private final AtomicReference<Runnable> pending = new AtomicReference<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+    private volatile int minFrameIntervalMillis = DEFAULT_MIN_FRAME_INTERVAL_MILLIS;
+    // 以下只在 EDT 存取
+    private long lastFrameNanos;
+    private Timer delayTimer;
+
+    /**
+     * 提交一幀；若前一幀尚未畫出則取代它
+     */
+    void submit(Runnable frame) {
+        submitted.incrementAndGet();
+        if (pending.getAndSet(frame) == null) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    // EDT：距離上一幀太近時延後到間隔滿足再畫
+    private void drain() {
+        long waitMillis = minFrameIntervalMillis
+                - (System.nanoTime() - lastFrameNanos) / 1_000_000L;
+        if (lastFrameNanos != 0L && waitMillis > 0) {
+            if (delayTimer == null) {
+                delayTimer = new Timer((int) waitMillis, e -> drain());
+                delayTimer.setRepeats(false);
+            }
+            delayTimer.setInitialDelay((int) waitMillis);
+            delayTimer.restart();
+            return;
+        }
+        Runnable frame = pending.getAndSet(null);
+        if (frame == null) return;
+        lastFrameNanos = System.nanoTime();
+        rendered.incrementAndGet();
+        frame.run();
+    }
+
+    int getMinFrameIntervalMillis() {
+        return minFrameIntervalMillis;
+    }
+
+    void setMinFrameIntervalMillis(int millis) {
+        this.minFrameIntervalMillis = Math.max(0, millis);
+    }
+
+    /** 被較新幀取代而未畫出的幀數 */
+    long getSkippedFrames() {
+        return Math.max(0L, submitted.get() - rendered.get() - (pending.get() != null ? 1 : 0));
+    }
+
+    long getRenderedFrames() {
+        return rendered.get();
+    }
+}
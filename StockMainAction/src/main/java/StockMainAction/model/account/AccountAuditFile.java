@@ -0,0 +1,185 @@
+package StockMainAction.model.account;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Binary file journal for ledger audit entries.
+ *
+ * <p>Each entry is written as fixed-width primitives (ledger sequence, audit sequence, operation
+ * ordinal, balances before and after) followed by the failure reason when the mutation failed.
+ * Writes go through a 64 KB buffer; the file is flushed on {@link #flush()} and {@link #close()}.
+ * A trailing partial entry left by a crash is ignored by {@link #replay}.</p>
+ *
+ * <p>{@link #configured()} resolves the process-wide journal from
+ * {@code -Daccount.audit.journal}: unset or {@code false} keeps audit entries in memory,
+ * {@code true} writes {@code account_audit_*.aaj} to the log directory
+ * ({@code -Dmarket.log.dir}, default {@code ~/.stock-main-action/logs}), and any other value is
+ * used as the journal file path.</p>
+ */
+public final class AccountAuditFile implements AccountAuditJournal, Closeable {
+    static final int MAGIC = 0x41414A31; // "AAJ1"
+    private static final AccountOperation[] OPERATIONS = AccountOperation.values();
+    private static final DateTimeFormatter FILE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final Object LOCK = new Object();
+    private static volatile AccountAuditFile configured;
+    private static volatile boolean initialized;
+
+    private final Path file;
+    private final DataOutputStream out;
+    private IOException failure;
+
+    private AccountAuditFile(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+    }
+
+    /** Creates (or truncates) {@code file} and starts a new journal in it. */
+    public static AccountAuditFile open(Path file) throws IOException {
+        return new AccountAuditFile(file);
+    }
+
+    /**
+     * Journal selected by {@code -Daccount.audit.journal}, or {@code null} when ledgers should
+     * keep their audit trail in memory. Opened once and closed by a shutdown hook.
+     */
+    public static AccountAuditFile configured() {
+        if (!initialized) {
+            synchronized (LOCK) {
+                if (!initialized) {
+                    configured = openConfigured();
+                    initialized = true;
+                }
+            }
+        }
+        return configured;
+    }
+
+    private static AccountAuditFile openConfigured() {
+        String value = System.getProperty("account.audit.journal", "").trim();
+        if (value.isEmpty() || "false".equalsIgnoreCase(value)) return null;
+        Path target;
+        if ("true".equalsIgnoreCase(value)) {
+            String dir = System.getProperty("market.log.dir", "").trim();
+            Path logDir = dir.isEmpty()
+                    ? Paths.get(System.getProperty("user.home"), ".stock-main-action" + File.separator + "logs")
+                    : Paths.get(dir);
+            target = logDir.resolve("account_audit_" + LocalDateTime.now().format(FILE_FORMATTER) + ".aaj");
+        } else {
+            target = Paths.get(value);
+        }
+        try {
+            AccountAuditFile opened = open(target);
+            try {
+                Runtime.getRuntime().addShutdownHook(new Thread(opened::closeQuietly, "account-audit-shutdown"));
+            } catch (RuntimeException ignored) {
+                // Buffered entries may be lost when shutdown hooks are restricted.
+            }
+            return opened;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Account audit journal disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void append(long ledgerSequence, long sequence, AccountOperation operation,
+            String failureReason, long availableCashBefore, long frozenCashBefore, int availableStocksBefore,
+            int frozenStocksBefore, long availableCashAfter, long frozenCashAfter, int availableStocksAfter,
+            int frozenStocksAfter) {
+        if (failure != null) return;
+        try {
+            out.writeLong(ledgerSequence);
+            out.writeLong(sequence);
+            out.writeByte(operation.ordinal());
+            out.writeLong(availableCashBefore);
+            out.writeLong(frozenCashBefore);
+            out.writeInt(availableStocksBefore);
+            out.writeInt(frozenStocksBefore);
+            out.writeLong(availableCashAfter);
+            out.writeLong(frozenCashAfter);
+            out.writeInt(availableStocksAfter);
+            out.writeInt(frozenStocksAfter);
+            out.writeBoolean(failureReason != null);
+            if (failureReason != null) out.writeUTF(failureReason);
+        } catch (IOException e) {
+            // A ledger mutation must not fail because its audit copy could not be written.
+            failure = e;
+            System.err.println("Account audit journal write failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            System.err.println("Account audit journal close failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads every complete entry of a journal file in write order.
+     *
+     * @return the number of entries replayed
+     */
+    public static long replay(Path file, AccountAuditJournal visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an account audit journal: " + file);
+            long count = 0;
+            while (true) {
+                long ledgerSequence;
+                try {
+                    ledgerSequence = in.readLong();
+                } catch (EOFException end) {
+                    return count;
+                }
+                try {
+                    long sequence = in.readLong();
+                    AccountOperation operation = OPERATIONS[in.readByte()];
+                    long availableCashBefore = in.readLong();
+                    long frozenCashBefore = in.readLong();
+                    int availableStocksBefore = in.readInt();
+                    int frozenStocksBefore = in.readInt();
+                    long availableCashAfter = in.readLong();
+                    long frozenCashAfter = in.readLong();
+                    int availableStocksAfter = in.readInt();
+                    int frozenStocksAfter = in.readInt();
+                    String failureReason = in.readBoolean() ? in.readUTF() : null;
+                    visitor.append(ledgerSequence, sequence, operation, failureReason,
+                            availableCashBefore, frozenCashBefore, availableStocksBefore, frozenStocksBefore,
+                            availableCashAfter, frozenCashAfter, availableStocksAfter, frozenStocksAfter);
+                    count++;
+                } catch (EOFException truncated) {
+                    return count;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package StockMainAction.model.account;
+
+/**
+ * External destination for ledger audit entries. A ledger constructed with a journal spills
+ * every mutation here instead of retaining it in its in-memory ring.
+ *
+ * <p>Entries arrive as the primitive columns of the ledger's audit ring, so spilling does not
+ * allocate an {@link AccountMutationResult} per mutation. Balances are in cents. A
+ * {@code null} failure reason marks a successful mutation. Calls are made with the owning
+ * ledger's monitor held.</p>
+ */
+@FunctionalInterface
+public interface AccountAuditJournal {
+    void append(long ledgerSequence, long sequence, AccountOperation operation, String failureReason,
+            long availableCashBefore, long frozenCashBefore, int availableStocksBefore, int frozenStocksBefore,
+            long availableCashAfter, long frozenCashAfter, int availableStocksAfter, int frozenStocksAfter);
+}
@@ -0,0 +1,95 @@
+package StockMainAction.model.account;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size audit ring stored as parallel primitive columns. Appending never allocates;
+ * {@link AccountMutationResult} views are built only when the trail is read.
+ * Callers must hold the owning ledger's monitor.
+ */
+final class AccountAuditRing {
+    private static final AccountOperation[] OPERATIONS = AccountOperation.values();
+
+    private final int capacity;
+    private final long[] sequences;
+    private final byte[] operations;
+    private final String[] failureReasons;
+    private final long[] availableCashBefore;
+    private final long[] frozenCashBefore;
+    private final int[] availableStocksBefore;
+    private final int[] frozenStocksBefore;
+    private final long[] availableCashAfter;
+    private final long[] frozenCashAfter;
+    private final int[] availableStocksAfter;
+    private final int[] frozenStocksAfter;
+    private int next;
+    private int size;
+
+    AccountAuditRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        sequences = new long[capacity];
+        operations = new byte[capacity];
+        failureReasons = new String[capacity];
+        availableCashBefore = new long[capacity];
+        frozenCashBefore = new long[capacity];
+        availableStocksBefore = new int[capacity];
+        frozenStocksBefore = new int[capacity];
+        availableCashAfter = new long[capacity];
+        frozenCashAfter = new long[capacity];
+        availableStocksAfter = new int[capacity];
+        frozenStocksAfter = new int[capacity];
+    }
+
+    /** A {@code null} failure reason marks a successful mutation. */
+    void append(long sequence, AccountOperation operation, String failureReason,
+            AccountSnapshot before, AccountSnapshot after) {
+        int slot = next;
+        sequences[slot] = sequence;
+        operations[slot] = (byte) operation.ordinal();
+        failureReasons[slot] = failureReason;
+        availableCashBefore[slot] = before.availableCashCents();
+        frozenCashBefore[slot] = before.frozenCashCents();
+        availableStocksBefore[slot] = before.availableStocks();
+        frozenStocksBefore[slot] = before.frozenStocks();
+        availableCashAfter[slot] = after.availableCashCents();
+        frozenCashAfter[slot] = after.frozenCashCents();
+        availableStocksAfter[slot] = after.availableStocks();
+        frozenStocksAfter[slot] = after.frozenStocks();
+        next = (slot + 1) % capacity;
+        if (size < capacity) size++;
+    }
+
+    /** Hands the most recent entry to {@code journal} column by column. */
+    void spillLatest(long ledgerSequence, AccountAuditJournal journal) {
+        if (size == 0) throw new IllegalStateException("audit trail is empty");
+        int slot = (next - 1 + capacity) % capacity;
+        journal.append(ledgerSequence, sequences[slot], OPERATIONS[operations[slot]], failureReasons[slot],
+                availableCashBefore[slot], frozenCashBefore[slot],
+                availableStocksBefore[slot], frozenStocksBefore[slot],
+                availableCashAfter[slot], frozenCashAfter[slot],
+                availableStocksAfter[slot], frozenStocksAfter[slot]);
+    }
+
+    AccountMutationResult latest() {
+        if (size == 0) throw new IllegalStateException("audit trail is empty");
+        return view((next - 1 + capacity) % capacity);
+    }
+
+    List<AccountMutationResult> views() {
+        List<AccountMutationResult> result = new ArrayList<>(size);
+        int first = (next - size + capacity) % capacity;
+        for (int i = 0; i < size; i++) result.add(view((first + i) % capacity));
+        return List.copyOf(result);
+    }
+
+    private AccountMutationResult view(int slot) {
+        return new AccountMutationResult(sequences[slot], OPERATIONS[operations[slot]],
+                failureReasons[slot] == null, failureReasons[slot],
+                new AccountSnapshot(availableCashBefore[slot], frozenCashBefore[slot],
+                        availableStocksBefore[slot], frozenStocksBefore[slot]),
+                new AccountSnapshot(availableCashAfter[slot], frozenCashAfter[slot],
+                        availableStocksAfter[slot], frozenStocksAfter[slot]));
+    }
+}
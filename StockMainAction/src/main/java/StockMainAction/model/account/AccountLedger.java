@@ -2,10 +2,8 @@ package StockMainAction.model.account;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -14,7 +12,14 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
-/** Owns all cash and stock transitions and retains a bounded audit trail. */
+/**
+ * Owns all cash and stock transitions and retains a bounded audit trail.
+ *
+ * <p>Mutations stay serialized on the ledger monitor. Every mutation publishes an immutable
+ * {@link AccountSnapshot} through a volatile field, so balance getters and {@link #snapshot()}
+ * never wait for settlement and always observe one consistent state. An attached
+ * {@link AccountTotals} receives the same deltas under the ledger monitor.</p>
+ */
 public final class AccountLedger {
     private static final int MAX_AUDIT_ENTRIES = 1_000;
     private static final AtomicLong LEDGER_SEQUENCE = new AtomicLong();
@@ -25,15 +30,35 @@ public final class AccountLedger {
     private int availableStocks;
     private int frozenStocks;
     private long auditSequence;
-    private final Deque<AccountMutationResult> auditTrail = new ArrayDeque<>();
+    private final AccountAuditRing audit;
+    private final AccountAuditJournal journal;
+    private volatile AccountSnapshot published;
+    private AccountTotals totals;
 
     public AccountLedger(double initialFunds, int initialStocks) {
+        this(initialFunds, initialStocks, null);
+    }
+
+    /**
+     * @param journal when non-null, audit entries are spilled to it instead of being retained
+     *                in memory, and {@link #auditTrail()} returns an empty list
+     */
+    public AccountLedger(double initialFunds, int initialStocks, AccountAuditJournal journal) {
         availableCashCents = toCentsAllowZero(initialFunds, "initialFunds");
         if (initialStocks < 0) throw new IllegalArgumentException("initialStocks must not be negative");
         availableStocks = initialStocks;
+        this.journal = journal;
+        // In spill mode the ring only keeps the latest entry to answer *Result calls.
+        this.audit = new AccountAuditRing(journal == null ? MAX_AUDIT_ENTRIES : 1);
+        publish();
     }
 
     public synchronized AccountMutationResult reserveFundsResult(double amount) {
+        tryReserveFunds(amount);
+        return audit.latest();
+    }
+
+    private boolean tryReserveFunds(double amount) {
         long cents = toPositiveCents(amount, "amount");
         AccountSnapshot before = snapshot();
         if (availableCashCents < cents) {
@@ -45,6 +70,11 @@ public final class AccountLedger {
     }
 
     public synchronized AccountMutationResult reserveStocksResult(int quantity) {
+        tryReserveStocks(quantity);
+        return audit.latest();
+    }
+
+    private boolean tryReserveStocks(int quantity) {
         requirePositiveQuantity(quantity);
         AccountSnapshot before = snapshot();
         if (availableStocks < quantity) {
@@ -56,6 +86,11 @@ public final class AccountLedger {
     }
 
     public synchronized AccountMutationResult releaseFundsResult(double amount) {
+        tryReleaseFunds(amount);
+        return audit.latest();
+    }
+
+    private boolean tryReleaseFunds(double amount) {
         long cents = toPositiveCents(amount, "amount");
         AccountSnapshot before = snapshot();
         if (frozenCashCents < cents) {
@@ -67,6 +102,11 @@ public final class AccountLedger {
     }
 
     public synchronized AccountMutationResult releaseStocksResult(int quantity) {
+        tryReleaseStocks(quantity);
+        return audit.latest();
+    }
+
+    private boolean tryReleaseStocks(int quantity) {
         requirePositiveQuantity(quantity);
         AccountSnapshot before = snapshot();
         if (frozenStocks < quantity) {
@@ -79,6 +119,12 @@ public final class AccountLedger {
 
     public synchronized AccountMutationResult settleLimitBuyResult(
             double reservedAmount, double executionAmount, int quantity) {
+        trySettleLimitBuy(reservedAmount, executionAmount, quantity);
+        return audit.latest();
+    }
+
+    private boolean trySettleLimitBuy(
+            double reservedAmount, double executionAmount, int quantity) {
         long reserved = toPositiveCents(reservedAmount, "reservedAmount");
         long executed = toPositiveCents(executionAmount, "executionAmount");
         requirePositiveQuantity(quantity);
@@ -98,6 +144,11 @@ public final class AccountLedger {
     }
 
     public synchronized AccountMutationResult settleLimitSellResult(int quantity, double proceeds) {
+        trySettleLimitSell(quantity, proceeds);
+        return audit.latest();
+    }
+
+    private boolean trySettleLimitSell(int quantity, double proceeds) {
         requirePositiveQuantity(quantity);
         long proceedsCents = toPositiveCents(proceeds, "proceeds");
         AccountSnapshot before = snapshot();
@@ -111,6 +162,11 @@ public final class AccountLedger {
     }
 
     public synchronized AccountMutationResult settleMarketBuyResult(double cost, int quantity) {
+        trySettleMarketBuy(cost, quantity);
+        return audit.latest();
+    }
+
+    private boolean trySettleMarketBuy(double cost, int quantity) {
         long costCents = toPositiveCents(cost, "cost");
         requirePositiveQuantity(quantity);
         AccountSnapshot before = snapshot();
@@ -124,6 +180,11 @@ public final class AccountLedger {
     }
 
     public synchronized AccountMutationResult settleMarketSellResult(int quantity, double proceeds) {
+        trySettleMarketSell(quantity, proceeds);
+        return audit.latest();
+    }
+
+    private boolean trySettleMarketSell(int quantity, double proceeds) {
         requirePositiveQuantity(quantity);
         long proceedsCents = toPositiveCents(proceeds, "proceeds");
         AccountSnapshot before = snapshot();
@@ -136,25 +197,25 @@ public final class AccountLedger {
         return record(AccountOperation.SETTLE_MARKET_SELL, true, null, before);
     }
 
-    public synchronized boolean reserveFunds(double amount) { return reserveFundsResult(amount).success(); }
-    public synchronized boolean reserveStocks(int quantity) { return reserveStocksResult(quantity).success(); }
-    public synchronized boolean releaseFunds(double amount) { return releaseFundsResult(amount).success(); }
-    public synchronized boolean releaseStocks(int quantity) { return releaseStocksResult(quantity).success(); }
+    public synchronized boolean reserveFunds(double amount) { return tryReserveFunds(amount); }
+    public synchronized boolean reserveStocks(int quantity) { return tryReserveStocks(quantity); }
+    public synchronized boolean releaseFunds(double amount) { return tryReleaseFunds(amount); }
+    public synchronized boolean releaseStocks(int quantity) { return tryReleaseStocks(quantity); }
 
     public synchronized void settleLimitBuy(double reservedAmount, double executionAmount, int quantity) {
-        requireSuccess(settleLimitBuyResult(reservedAmount, executionAmount, quantity));
+        requireSuccess(trySettleLimitBuy(reservedAmount, executionAmount, quantity));
     }
 
     public synchronized void settleLimitSell(int quantity, double proceeds) {
-        requireSuccess(settleLimitSellResult(quantity, proceeds));
+        requireSuccess(trySettleLimitSell(quantity, proceeds));
     }
 
     public synchronized void settleMarketBuy(double cost, int quantity) {
-        requireSuccess(settleMarketBuyResult(cost, quantity));
+        requireSuccess(trySettleMarketBuy(cost, quantity));
     }
 
     public synchronized void settleMarketSell(int quantity, double proceeds) {
-        requireSuccess(settleMarketSellResult(quantity, proceeds));
+        requireSuccess(trySettleMarketSell(quantity, proceeds));
     }
 
     public static void settleTrade(AccountLedger buyer, AccountLedger seller,
@@ -174,7 +235,25 @@ public final class AccountLedger {
         }
         List<AccountLedger> ledgers = new ArrayList<>(unique);
         ledgers.sort(Comparator.comparingLong(ledger -> ledger.ledgerSequence));
-        withLedgerLocks(ledgers, 0, () -> settleTradesLocked(batch, ledgers));
+        withLedgerLocks(ledgers, 0, () -> {
+            AccountTotals shared = sharedTotals(ledgers);
+            if (shared == null) {
+                settleTradesLocked(batch, ledgers);
+                return;
+            }
+            // Both legs of the batch reach the counters together, keeping the sums conserved.
+            synchronized (shared) {
+                settleTradesLocked(batch, ledgers);
+            }
+        });
+    }
+
+    private static AccountTotals sharedTotals(List<AccountLedger> ledgers) {
+        AccountTotals shared = ledgers.get(0).totals;
+        for (AccountLedger ledger : ledgers) {
+            if (ledger.totals != shared) return null;
+        }
+        return shared;
     }
 
     private static void withLedgerLocks(List<AccountLedger> ledgers, int index, Runnable action) {
@@ -203,6 +282,7 @@ public final class AccountLedger {
             ledger.frozenCashCents = state.frozenCashCents;
             ledger.availableStocks = state.availableStocks;
             ledger.frozenStocks = state.frozenStocks;
+            ledger.publish();
         }
         for (TradeRequest request : requests) {
             request.buyer().record(request.buyerUsesReservation()
@@ -312,9 +392,8 @@ public final class AccountLedger {
         requirePositiveQuantity(quantity);
         AccountSnapshot before = snapshot();
         if (frozenStocks < quantity) {
-            AccountMutationResult result = record(AccountOperation.CONSUME_FROZEN_STOCKS,
-                    false, "insufficient frozen stocks", before);
-            requireSuccess(result);
+            requireSuccess(record(AccountOperation.CONSUME_FROZEN_STOCKS,
+                    false, "insufficient frozen stocks", before));
         }
         frozenStocks -= quantity;
         record(AccountOperation.CONSUME_FROZEN_STOCKS, true, null, before);
@@ -355,30 +434,56 @@ public final class AccountLedger {
         record(AccountOperation.SUBTRACT_STOCKS, true, null, before);
     }
 
-    public synchronized AccountSnapshot snapshot() {
-        return new AccountSnapshot(availableCashCents, frozenCashCents, availableStocks, frozenStocks);
+    public AccountSnapshot snapshot() {
+        return published;
+    }
+
+    /**
+     * Adds this ledger's current balances to {@code totals} and keeps it updated on every
+     * later mutation. A ledger can be attached to at most one set of totals.
+     */
+    public synchronized void attachTotals(AccountTotals totals) {
+        Objects.requireNonNull(totals, "totals");
+        if (this.totals == totals) return;
+        if (this.totals != null) throw new IllegalStateException("ledger already attached to totals");
+        this.totals = totals;
+        totals.apply(new AccountSnapshot(0, 0, 0, 0), published);
     }
 
     public synchronized List<AccountMutationResult> auditTrail() {
-        return List.copyOf(new ArrayList<>(auditTrail));
+        return journal == null ? audit.views() : List.of();
     }
 
-    public synchronized double getAvailableFunds() { return fromCents(availableCashCents); }
-    public synchronized double getFrozenFunds() { return fromCents(frozenCashCents); }
-    public synchronized int getAvailableStocks() { return availableStocks; }
-    public synchronized int getFrozenStocks() { return frozenStocks; }
+    public double getAvailableFunds() { return fromCents(published.availableCashCents()); }
+    public double getFrozenFunds() { return fromCents(published.frozenCashCents()); }
+    public int getAvailableStocks() { return published.availableStocks(); }
+    public int getFrozenStocks() { return published.frozenStocks(); }
+
+    /** Called with the ledger monitor held after the primitive fields change. */
+    private void publish() {
+        AccountSnapshot previous = published;
+        if (previous != null && previous.availableCashCents() == availableCashCents
+                && previous.frozenCashCents() == frozenCashCents
+                && previous.availableStocks() == availableStocks
+                && previous.frozenStocks() == frozenStocks) {
+            return;
+        }
+        AccountSnapshot next = new AccountSnapshot(
+                availableCashCents, frozenCashCents, availableStocks, frozenStocks);
+        published = next;
+        if (totals != null) totals.apply(previous, next);
+    }
 
-    private AccountMutationResult record(AccountOperation operation, boolean success,
+    private boolean record(AccountOperation operation, boolean success,
             String failureReason, AccountSnapshot before) {
-        AccountMutationResult result = new AccountMutationResult(++auditSequence, operation,
-                success, failureReason, before, snapshot());
-        if (auditTrail.size() == MAX_AUDIT_ENTRIES) auditTrail.removeFirst();
-        auditTrail.addLast(result);
-        return result;
+        if (success) publish();
+        audit.append(++auditSequence, operation, success ? null : failureReason, before, published);
+        if (journal != null) audit.spillLatest(ledgerSequence, journal);
+        return success;
     }
 
-    private static void requireSuccess(AccountMutationResult result) {
-        if (!result.success()) throw new IllegalStateException(result.failureReason());
+    private void requireSuccess(boolean success) {
+        if (!success) throw new IllegalStateException(audit.latest().failureReason());
     }
 
     private static long toPositiveCents(double amount, String name) {
@@ -0,0 +1,38 @@
+package StockMainAction.model.account;
+
+/**
+ * Market-wide conservation counters. Attached ledgers push their balance deltas here as part of
+ * each mutation, so the sum over all accounts is available in O(1) without walking traders.
+ */
+public final class AccountTotals {
+    private long availableCashCents;
+    private long frozenCashCents;
+    private long availableStocks;
+    private long frozenStocks;
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(availableCashCents, frozenCashCents, availableStocks, frozenStocks);
+    }
+
+    synchronized void apply(AccountSnapshot before, AccountSnapshot after) {
+        availableCashCents += after.availableCashCents() - before.availableCashCents();
+        frozenCashCents += after.frozenCashCents() - before.frozenCashCents();
+        availableStocks += after.availableStocks() - before.availableStocks();
+        frozenStocks += after.frozenStocks() - before.frozenStocks();
+    }
+
+    public record Snapshot(
+            long availableCashCents,
+            long frozenCashCents,
+            long availableStocks,
+            long frozenStocks) {
+
+        public long totalCashCents() {
+            return Math.addExact(availableCashCents, frozenCashCents);
+        }
+
+        public long totalStocks() {
+            return Math.addExact(availableStocks, frozenStocks);
+        }
+    }
+}
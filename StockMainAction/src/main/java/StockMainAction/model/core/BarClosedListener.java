@@ -0,0 +1,9 @@
+package StockMainAction.model.core;
+
+@FunctionalInterface
+public interface BarClosedListener {
+    /**
+     * 一根 K 線收盤（下一個週期出現第一筆成交時觸發，於成交發布執行緒上呼叫）
+     */
+    void onBarClosed(OhlcvBar bar);
+}
@@ -0,0 +1,12 @@
+package StockMainAction.model.core;
+
+/**
+ * 單根 OHLCV K 線（由成交聚合而成）
+ *
+ * @param timeframeMillis K 線週期（毫秒）
+ * @param startMillis 週期起點（已對齊）
+ * @param volume 週期內成交量
+ * @param trades 週期內成交筆數
+ */
+public record OhlcvBar(long timeframeMillis, long startMillis, double open, double high, double low,
+        double close, long volume, int trades) { }
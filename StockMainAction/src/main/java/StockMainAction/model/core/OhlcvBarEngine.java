@@ -0,0 +1,233 @@
+package StockMainAction.model.core;
+
+import StockMainAction.util.logging.MarketLogger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 多週期 K 線聚合引擎 - 直接由 {@link TradeExecuted} 建立各週期的 OHLCV K 線（含真實成交量），
+ * 每筆成交只處理一次，資料存放在原生型別的環狀陣列中。
+ *
+ * K 線在下一個週期的第一筆成交抵達時收盤，並通知 {@link BarClosedListener}；
+ * 視圖只需繪製收到的 K 線與目前 K 線，指標也可在無頭模式下直接讀取。
+ * 沒有成交的週期不會產生 K 線。
+ */
+public final class OhlcvBarEngine implements TradeExecutedListener {
+
+    public static final long SECOND = 1_000L;
+    public static final long MINUTE = 60_000L;
+    /** 預設週期：1 秒、30 秒、1 分、10 分、30 分 */
+    public static final long[] DEFAULT_TIMEFRAMES = {SECOND, 30 * SECOND, MINUTE, 10 * MINUTE, 30 * MINUTE};
+    /** 每個週期保留的已收盤 K 線數 */
+    public static final int DEFAULT_CAPACITY = 2_000;
+
+    private static final MarketLogger logger = MarketLogger.getInstance();
+
+    private final long[] timeframes;
+    private final Series[] series;
+    private final List<BarClosedListener> listeners = new CopyOnWriteArrayList<>();
+
+    public OhlcvBarEngine() {
+        this(DEFAULT_TIMEFRAMES, DEFAULT_CAPACITY);
+    }
+
+    public OhlcvBarEngine(long[] timeframes, int capacity) {
+        if (timeframes == null || timeframes.length == 0) {
+            throw new IllegalArgumentException("timeframes are required");
+        }
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.timeframes = timeframes.clone();
+        this.series = new Series[timeframes.length];
+        for (int i = 0; i < timeframes.length; i++) {
+            if (timeframes[i] <= 0) throw new IllegalArgumentException("timeframe must be positive");
+            series[i] = new Series(timeframes[i], capacity);
+        }
+    }
+
+    public void addBarClosedListener(BarClosedListener listener) {
+        if (listener != null && !listeners.contains(listener)) listeners.add(listener);
+    }
+
+    public void removeBarClosedListener(BarClosedListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onTradeExecuted(TradeExecuted event) {
+        if (event != null) onTrade(event.price(), event.volume(), event.timestamp());
+    }
+
+    /**
+     * 聚合一筆成交到所有週期
+     */
+    public void onTrade(double price, long volume, long timestampMillis) {
+        if (!Double.isFinite(price) || price <= 0 || volume < 0) return;
+        for (Series s : series) {
+            OhlcvBar closed = s.apply(price, volume, timestampMillis);
+            if (closed != null) {
+                for (BarClosedListener listener : listeners) {
+                    try {
+                        listener.onBarClosed(closed);
+                    } catch (RuntimeException ex) {
+                        logger.warn("Bar listener failed: " + ex.getMessage(), "BAR_ENGINE");
+                    }
+                }
+            }
+        }
+    }
+
+    public long[] getTimeframes() {
+        return timeframes.clone();
+    }
+
+    public boolean supports(long timeframeMillis) {
+        return indexOf(timeframeMillis) >= 0;
+    }
+
+    /**
+     * 目前尚未收盤的 K 線（尚無成交或不支援此週期時回傳 null）
+     */
+    public OhlcvBar currentBar(long timeframeMillis) {
+        Series s = seriesFor(timeframeMillis);
+        return s == null ? null : s.current();
+    }
+
+    /**
+     * 已收盤 K 線加上目前 K 線（由舊到新），供切換週期或無頭指標回補
+     */
+    public List<OhlcvBar> bars(long timeframeMillis) {
+        Series s = seriesFor(timeframeMillis);
+        return s == null ? List.of() : s.all();
+    }
+
+    public int closedBarCount(long timeframeMillis) {
+        Series s = seriesFor(timeframeMillis);
+        return s == null ? 0 : s.closedCount();
+    }
+
+    public void clear() {
+        for (Series s : series) s.clear();
+    }
+
+    private int indexOf(long timeframeMillis) {
+        for (int i = 0; i < timeframes.length; i++) {
+            if (timeframes[i] == timeframeMillis) return i;
+        }
+        return -1;
+    }
+
+    private Series seriesFor(long timeframeMillis) {
+        int i = indexOf(timeframeMillis);
+        return i < 0 ? null : series[i];
+    }
+
+    /**
+     * 單一週期：目前 K 線欄位 + 已收盤 K 線環狀陣列（寫入端為成交發布執行緒，讀取端為 EDT 或指標）
+     */
+    private static final class Series {
+        private final long timeframe;
+        private final int capacity;
+        private final long[] start;
+        private final double[] open;
+        private final double[] high;
+        private final double[] low;
+        private final double[] close;
+        private final long[] volume;
+        private final int[] trades;
+        private int head;
+        private int size;
+
+        private boolean hasCurrent;
+        private long curStart;
+        private double curOpen;
+        private double curHigh;
+        private double curLow;
+        private double curClose;
+        private long curVolume;
+        private int curTrades;
+
+        Series(long timeframe, int capacity) {
+            this.timeframe = timeframe;
+            this.capacity = capacity;
+            this.start = new long[capacity];
+            this.open = new double[capacity];
+            this.high = new double[capacity];
+            this.low = new double[capacity];
+            this.close = new double[capacity];
+            this.volume = new long[capacity];
+            this.trades = new int[capacity];
+        }
+
+        // 回傳因本筆成交而收盤的 K 線（沒有則為 null）
+        synchronized OhlcvBar apply(double price, long qty, long timestampMillis) {
+            long bucket = timestampMillis - Math.floorMod(timestampMillis, timeframe);
+            // 時間倒退（不應發生）時同樣併入目前 K 線
+            if (hasCurrent && bucket <= curStart) {
+                if (price > curHigh) curHigh = price;
+                if (price < curLow) curLow = price;
+                curClose = price;
+                curVolume += qty;
+                curTrades++;
+                return null;
+            }
+            OhlcvBar closed = null;
+            if (hasCurrent) {
+                closed = current();
+                int slot;
+                if (size == capacity) {
+                    slot = head;
+                    head = (head + 1) % capacity;
+                } else {
+                    slot = (head + size) % capacity;
+                    size++;
+                }
+                start[slot] = curStart;
+                open[slot] = curOpen;
+                high[slot] = curHigh;
+                low[slot] = curLow;
+                close[slot] = curClose;
+                volume[slot] = curVolume;
+                trades[slot] = curTrades;
+            }
+            hasCurrent = true;
+            curStart = bucket;
+            curOpen = price;
+            curHigh = price;
+            curLow = price;
+            curClose = price;
+            curVolume = qty;
+            curTrades = 1;
+            return closed;
+        }
+
+        synchronized OhlcvBar current() {
+            return hasCurrent
+                    ? new OhlcvBar(timeframe, curStart, curOpen, curHigh, curLow, curClose, curVolume, curTrades)
+                    : null;
+        }
+
+        synchronized List<OhlcvBar> all() {
+            List<OhlcvBar> list = new ArrayList<>(size + 1);
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % capacity;
+                list.add(new OhlcvBar(timeframe, start[slot], open[slot], high[slot], low[slot],
+                        close[slot], volume[slot], trades[slot]));
+            }
+            if (hasCurrent) list.add(current());
+            return list;
+        }
+
+        synchronized int closedCount() {
+            return size;
+        }
+
+        synchronized void clear() {
+            head = 0;
+            size = 0;
+            hasCurrent = false;
+            Arrays.fill(volume, 0L);
+        }
+    }
+}
@@ -5,12 +5,9 @@ import java.time.Clock;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
 
 /** Mutable remaining quantity with immutable order identity and intent. */
 public class Order {
-    private static final AtomicLong NEXT_SEQUENCE = new AtomicLong();
-
     private final String id;
     private final OrderSide side;
     private final OrderType orderType;
@@ -19,8 +16,8 @@ public class Order {
     private int volume;
     private final Trader trader;
     private final UserAccount traderAccount;
-    private final long timestamp;
-    private final long sequence;
+    private long timestamp; // 建立時間；掛入訂單簿時改以訂單簿的（模擬）時鐘重新標記
+    private long sequence; // 由訂單簿在掛入時指派（每個訂單簿各自遞增，不共用全域計數器）
     private final boolean simulation;
     private OrderStatus status;
 
@@ -57,7 +54,6 @@ public class Order {
         this.trader = trader;
         this.traderAccount = trader.getAccount();
         this.timestamp = Objects.requireNonNull(clock, "clock").millis();
-        this.sequence = NEXT_SEQUENCE.incrementAndGet();
         this.simulation = simulation;
         this.status = OrderStatus.NEW;
     }
@@ -112,6 +108,14 @@ public class Order {
     public UserAccount getTraderAccount() { return traderAccount; }
     public long getTimestamp() { return timestamp; }
     public long getSequence() { return sequence; }
+
+    void assignSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    void assignTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
     public boolean isSimulation() { return simulation; }
     public boolean isMarketOrder() { return orderType == OrderType.MARKET; }
     public boolean isFillOrKill() { return orderType == OrderType.FOK; }
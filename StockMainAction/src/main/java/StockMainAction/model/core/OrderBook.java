@@ -1,6 +1,7 @@
 package StockMainAction.model.core;
 
 import StockMainAction.controller.listeners.OrderBookListener;
+import StockMainAction.model.MarketEvents;
 import StockMainAction.model.PersonalAI;
 import StockMainAction.model.StockMarketModel;
 import StockMainAction.model.account.AccountSnapshot;
@@ -18,7 +19,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.TreeMap;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
@@ -26,6 +26,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -44,8 +45,11 @@ public class OrderBook implements AutoCloseable {
             new TreeMap<>(Comparator.reverseOrder());
     private final NavigableMap<Double, Deque<Order>> sellLevels = new TreeMap<>();
     private final Map<String, Order> ordersById = new HashMap<>();
+    private long nextSequence; // 掛單時間優先序號（engineLock 保護）
     private final CopyOnWriteArrayList<OrderBookListener> listeners = new CopyOnWriteArrayList<>();
     private final CopyOnWriteArrayList<TradeExecutedListener> tradeListeners = new CopyOnWriteArrayList<>();
+    // 成交序號（取代逐筆 UUID）
+    private final AtomicLong tradeSequence = new AtomicLong();
     private final StockMarketModel model;
     private final Clock clock;
     private final ExecutorService publicationExecutor;
@@ -153,6 +157,10 @@ public class OrderBook implements AutoCloseable {
         if (accepted) {
             notifyBookChanged();
         }
+        if (order != null) {
+            recordSubmission(order.getTrader(), OrderType.LIMIT, expectedSide == OrderSide.BUY,
+                    order.getPrice(), order.getVolume(), 0, accepted, failureReason);
+        }
         return new OrderSubmissionResult(order == null ? null : order.getId(), accepted, failureReason);
     }
 
@@ -248,6 +256,8 @@ public class OrderBook implements AutoCloseable {
             awaitPublication(publication);
             notifyBookChanged();
         }
+        recordSubmission(trader, OrderType.FOK, side == OrderSide.BUY, limitPrice, volume,
+                committed ? volume : 0, committed, failureReason);
         return executionResult(volume, committed ? volume : 0,
                 committed ? totalCents : 0, failureReason);
     }
@@ -336,6 +346,7 @@ public class OrderBook implements AutoCloseable {
         if (!trades.isEmpty()) {
             notifyBookChanged();
         }
+        recordSubmission(trader, OrderType.MARKET, true, Double.NaN, quantity, filled, filled > 0, reason);
         return executionResult(quantity, filled, totalCents, reason);
     }
 
@@ -343,6 +354,7 @@ public class OrderBook implements AutoCloseable {
         ensureOpen();
         validateMarketRequest(trader, quantity);
         if (trader.getAccount().snapshot().availableStocks() < quantity) {
+            recordSubmission(trader, OrderType.MARKET, false, Double.NaN, quantity, 0, false, "insufficient stocks");
             return new ExecutionResult(quantity, 0, 0, 0, "insufficient stocks");
         }
         List<CommittedTrade> trades = new ArrayList<>();
@@ -385,6 +397,7 @@ public class OrderBook implements AutoCloseable {
         if (!trades.isEmpty()) {
             notifyBookChanged();
         }
+        recordSubmission(trader, OrderType.MARKET, false, Double.NaN, quantity, filled, filled > 0, reason);
         return executionResult(quantity, filled, totalCents, reason);
     }
 
@@ -494,6 +507,9 @@ public class OrderBook implements AutoCloseable {
 
     public MatchingMode getMatchingMode() { return matchingMode; }
 
+    /** 訂單簿使用的（模擬）時鐘，掛單與成交時間皆以此為準 */
+    public Clock getClock() { return clock; }
+
     /** Compatibility adapter; matching mode randomization remains disabled. */
     public void setRandomModeSwitching(boolean useRandom, double probability) { }
 
@@ -616,6 +632,10 @@ public class OrderBook implements AutoCloseable {
     }
 
     private void addOrderLocked(Order order) {
+        if (order.getSequence() == 0) {
+            order.assignSequence(++nextSequence);
+            order.assignTimestamp(clock.millis());
+        }
         NavigableMap<Double, Deque<Order>> levels =
                 order.getSide() == OrderSide.BUY ? buyLevels : sellLevels;
         Deque<Order> queue = levels.computeIfAbsent(order.getPrice(), ignored -> new ArrayDeque<>());
@@ -730,12 +750,16 @@ public class OrderBook implements AutoCloseable {
         for (CommittedTrade trade : trades) {
             notifyTrader(trade.buy().getTrader(), "buy", trade.volume(), trade.price(), trade.type());
             notifyTrader(trade.sell().getTrader(), "sell", trade.volume(), trade.price(), trade.type());
-            TradeExecuted event = new TradeExecuted(UUID.randomUUID().toString(),
-                    trade.buy().getId(), trade.sell().getId(),
-                    trade.buy().getTrader().getTraderType(), trade.sell().getTrader().getTraderType(),
+            String buyerType = trade.buy().getTrader().getTraderType();
+            String sellerType = trade.sell().getTrader().getTraderType();
+            long timestamp = clock.millis();
+            Trade record = toTrade(trade, tradeSequence.incrementAndGet(), buyerType, sellerType, timestamp);
+            TradeExecuted event = new TradeExecuted(record.id(),
+                    trade.buy().getId(), trade.sell().getId(), buyerType, sellerType,
                     trade.price(), trade.volume(), trade.buyerInitiated(),
-                    trade.type(), clock.millis());
-            recordTransaction(trade, event.id());
+                    trade.type(), timestamp);
+            recordTransaction(record);
+            MarketEvents.fill(record);
             for (TradeExecutedListener listener : tradeListeners) {
                 try { listener.onTradeExecuted(event); }
                 catch (RuntimeException ex) { safeLog("Trade listener failed: " + ex.getMessage(), "ORDER_CALLBACK"); }
@@ -743,6 +767,17 @@ public class OrderBook implements AutoCloseable {
         }
     }
 
+    // 下單結果寫入二進位事件日誌（未啟用時不做任何事）
+    private void recordSubmission(Trader trader, OrderType type, boolean buy, double price, int volume,
+                                  int filled, boolean accepted, String reason) {
+        try {
+            MarketEvents.orderSubmitted(clock.millis(), trader == null ? null : trader.getTraderType(),
+                    type, buy, price, volume, filled, accepted, reason);
+        } catch (RuntimeException ex) {
+            safeLog("Order event logging failed: " + ex.getMessage(), "ORDER_SUBMIT");
+        }
+    }
+
     private void releaseReservation(Order order, OrderSide side) {
         UserAccount account = order.getTraderAccount();
         if (side == OrderSide.BUY) {
@@ -763,32 +798,22 @@ public class OrderBook implements AutoCloseable {
         }
     }
 
-    private void recordTransaction(CommittedTrade trade, String id) {
+    // 熱路徑只產生精簡成交紀錄；完整 Transaction 由 UI 需要時再建立
+    private Trade toTrade(CommittedTrade trade, long id, String buyerType, String sellerType, long timestamp) {
+        long priceTicks = Trade.toTicks(trade.price());
+        long referenceTicks = trade.type() == OrderType.MARKET
+                && Double.isFinite(trade.referencePrice()) && trade.referencePrice() > 0
+                ? Trade.toTicks(trade.referencePrice())
+                : priceTicks;
+        return new Trade(id, priceTicks, trade.volume(), trade.buyerInitiated(), trade.type(),
+                TraderTypes.ordinal(buyerType), TraderTypes.ordinal(sellerType), timestamp,
+                referenceTicks, matchingMode);
+    }
+
+    private void recordTransaction(Trade trade) {
         if (model == null) return;
         try {
-            Transaction transaction;
-            if (trade.type() == OrderType.MARKET) {
-                String orderType = trade.buyerInitiated() ? "MARKET_BUY" : "MARKET_SELL";
-                String initiator = trade.buyerInitiated()
-                        ? trade.buy().getTrader().getTraderType()
-                        : trade.sell().getTrader().getTraderType();
-                String counterparty = trade.buyerInitiated()
-                        ? trade.sell().getTrader().getTraderType()
-                        : trade.buy().getTrader().getTraderType();
-                double estimatedPrice = Double.isFinite(trade.referencePrice()) && trade.referencePrice() > 0
-                        ? trade.referencePrice()
-                        : trade.price();
-                transaction = new Transaction(id, initiator, orderType,
-                        trade.volume(), estimatedPrice, estimatedPrice, clock);
-                transaction.addFillRecord(trade.price(), trade.volume(), counterparty, 1);
-                transaction.completeMarketOrderTransaction(trade.price(), 1, null);
-            } else {
-                transaction = new Transaction(id, trade.buy(), trade.sell(),
-                        trade.price(), trade.volume(), clock.millis(), clock);
-            }
-            transaction.setMatchingMode(matchingMode.toString());
-            transaction.setBuyerInitiated(trade.buyerInitiated());
-            model.addTransaction(transaction);
+            model.recordTrade(trade);
             if (model.getMarketAnalyzer() != null) {
                 model.getMarketAnalyzer().addTransaction(trade.price(), trade.volume());
                 model.getMarketAnalyzer().addPrice(trade.price());
@@ -800,7 +825,8 @@ public class OrderBook implements AutoCloseable {
     }
 
     private void notifyBookChanged() {
-        if (listeners.isEmpty() && model == null) {
+        boolean notifyModel = model != null && model.isUiNotificationsEnabled();
+        if (listeners.isEmpty() && !notifyModel) {
             return;
         }
         Runnable notification = () -> {
@@ -808,7 +834,7 @@ public class OrderBook implements AutoCloseable {
                 try { listener.onOrderBookUpdated(); }
                 catch (RuntimeException ex) { safeLog("Book listener failed: " + ex.getMessage(), "ORDER_CALLBACK"); }
             }
-            if (model != null) {
+            if (notifyModel) {
                 try {
                     model.updateLabels();
                     model.updateOrderBookDisplay();
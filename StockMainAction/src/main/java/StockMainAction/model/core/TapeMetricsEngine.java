@@ -0,0 +1,306 @@
+package StockMainAction.model.core;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 逐筆成交（Tape）統計引擎 - 訂閱 {@link TradeExecuted}，以固定時間桶（預設每秒一桶）的
+ * primitive 環狀陣列累積筆數、成交量、買方/賣方主動量與筆數、滑價總和，以及連續同向成交的長度資訊。
+ *
+ * 任何時間窗的查詢（每秒筆數/量、內外盤比例、買賣筆數失衡、最大連續同向筆數）只走訪窗內的時間桶，
+ * 為 O(窗內桶數)，不複製成交紀錄。超過環狀容量的舊桶自動被覆寫。
+ */
+public final class TapeMetricsEngine implements TradeExecutedListener {
+
+    public static final long DEFAULT_BUCKET_MILLIS = 1_000L;
+    /** 預設保留 10 分鐘的時間桶 */
+    public static final int DEFAULT_BUCKETS = 600;
+
+    private static final byte NONE = 0;
+    private static final byte BUY = 1;
+    private static final byte SELL = 2;
+
+    /**
+     * 時間窗統計結果
+     *
+     * @param windowMillis 查詢的時間窗長度
+     * @param elapsedMillis 窗內最早一筆成交到查詢時間的間隔
+     */
+    public record Window(long windowMillis, long elapsedMillis, int tradeCount, long totalVolume,
+            long buyVolume, long sellVolume, int buyTicks, int sellTicks, double slippageSum,
+            int maximumBuyStreak, int maximumSellStreak) {
+
+        public static final Window EMPTY = new Window(0L, 0L, 0, 0L, 0L, 0L, 0, 0, 0.0, 0, 0);
+
+        public boolean isEmpty() {
+            return tradeCount == 0;
+        }
+
+        /** 以實際經過時間（至少 1 秒）估計的每秒筆數 */
+        public double tradesPerSecond() {
+            return tradeCount / elapsedSeconds();
+        }
+
+        /** 以實際經過時間（至少 1 秒）估計的每秒成交量 */
+        public double volumePerSecond() {
+            return totalVolume / elapsedSeconds();
+        }
+
+        /** 以完整時間窗長度平均的每秒筆數 */
+        public double tradesPerWindowSecond() {
+            return windowMillis <= 0 ? 0.0 : tradeCount / (windowMillis / 1000.0);
+        }
+
+        /** 以完整時間窗長度平均的每秒成交量 */
+        public double volumePerWindowSecond() {
+            return windowMillis <= 0 ? 0.0 : totalVolume / (windowMillis / 1000.0);
+        }
+
+        /** 內盤（賣方主動）量百分比，四捨五入；無成交時為 0 */
+        public int inPct() {
+            if (tradeCount == 0) return 0;
+            return (int) Math.round(sellVolume * 100.0 / Math.max(1L, buyVolume + sellVolume));
+        }
+
+        /** 外盤（買方主動）量百分比；無成交時為 0 */
+        public int outPct() {
+            return tradeCount == 0 ? 0 : 100 - inPct();
+        }
+
+        /** 買方主動量百分比（未四捨五入） */
+        public double buyPercentage() {
+            long directional = buyVolume + sellVolume;
+            return directional == 0 ? 0.0 : buyVolume * 100.0 / directional;
+        }
+
+        /** 買賣筆數失衡 (買-賣)/總筆數，範圍 [-1, 1] */
+        public double tickImbalance() {
+            return (buyTicks - sellTicks) / (double) Math.max(1, buyTicks + sellTicks);
+        }
+
+        public double averageSlippage() {
+            return tradeCount == 0 ? 0.0 : slippageSum / tradeCount;
+        }
+
+        public double averageVolume() {
+            return tradeCount == 0 ? 0.0 : totalVolume / (double) tradeCount;
+        }
+
+        private double elapsedSeconds() {
+            return Math.max(1.0, elapsedMillis / 1000.0);
+        }
+    }
+
+    private final Clock clock;
+    private final long bucketMillis;
+    private final int capacity;
+
+    // 環狀時間桶（索引 = 桶編號 % capacity）
+    private final long[] bucketIds;
+    private final long[] firstTimestamps;
+    private final int[] counts;
+    private final long[] buyVolumes;
+    private final long[] sellVolumes;
+    private final int[] buyTicks;
+    private final int[] sellTicks;
+    private final double[] slippageSums;
+    // 連續同向成交：桶開頭與結尾的連續段，以及桶內最大連續長度
+    private final byte[] firstSides;
+    private final int[] prefixRuns;
+    private final byte[] lastSides;
+    private final int[] suffixRuns;
+    private final int[] maxBuyRuns;
+    private final int[] maxSellRuns;
+    private long latestBucket = Long.MIN_VALUE;
+
+    public TapeMetricsEngine(Clock clock) {
+        this(clock, DEFAULT_BUCKET_MILLIS, DEFAULT_BUCKETS);
+    }
+
+    public TapeMetricsEngine(Clock clock, long bucketMillis, int buckets) {
+        if (bucketMillis <= 0) throw new IllegalArgumentException("bucketMillis must be positive");
+        if (buckets <= 0) throw new IllegalArgumentException("buckets must be positive");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.bucketMillis = bucketMillis;
+        this.capacity = buckets;
+        this.bucketIds = new long[buckets];
+        this.firstTimestamps = new long[buckets];
+        this.counts = new int[buckets];
+        this.buyVolumes = new long[buckets];
+        this.sellVolumes = new long[buckets];
+        this.buyTicks = new int[buckets];
+        this.sellTicks = new int[buckets];
+        this.slippageSums = new double[buckets];
+        this.firstSides = new byte[buckets];
+        this.prefixRuns = new int[buckets];
+        this.lastSides = new byte[buckets];
+        this.suffixRuns = new int[buckets];
+        this.maxBuyRuns = new int[buckets];
+        this.maxSellRuns = new int[buckets];
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+    }
+
+    @Override
+    public void onTradeExecuted(TradeExecuted event) {
+        record(event.timestamp(), event.buyerInitiated(), event.volume(), 0.0);
+    }
+
+    /**
+     * 記錄一筆成交；早於環狀容量的過舊成交直接忽略
+     *
+     * @param absoluteSlippage 成交價相對最佳報價的絕對滑價（未知時為 0）
+     */
+    public synchronized void record(long timestampMillis, boolean buyerInitiated, long volume,
+            double absoluteSlippage) {
+        if (volume < 0 || !Double.isFinite(absoluteSlippage) || absoluteSlippage < 0) {
+            throw new IllegalArgumentException("Invalid trade metrics");
+        }
+        long bucket = Math.floorDiv(timestampMillis, bucketMillis);
+        if (latestBucket != Long.MIN_VALUE && bucket <= latestBucket - capacity) {
+            return;
+        }
+        latestBucket = Math.max(latestBucket, bucket);
+        int slot = (int) Math.floorMod(bucket, (long) capacity);
+        if (bucketIds[slot] != bucket) {
+            resetSlot(slot, bucket, timestampMillis);
+        }
+        byte side = buyerInitiated ? BUY : SELL;
+        int before = counts[slot]++;
+        firstTimestamps[slot] = Math.min(firstTimestamps[slot], timestampMillis);
+        if (buyerInitiated) {
+            buyVolumes[slot] += volume;
+            buyTicks[slot]++;
+        } else {
+            sellVolumes[slot] += volume;
+            sellTicks[slot]++;
+        }
+        slippageSums[slot] += absoluteSlippage;
+
+        if (before == 0) {
+            firstSides[slot] = side;
+            prefixRuns[slot] = 1;
+            lastSides[slot] = side;
+            suffixRuns[slot] = 1;
+        } else {
+            if (prefixRuns[slot] == before && firstSides[slot] == side) {
+                prefixRuns[slot]++;
+            }
+            if (lastSides[slot] == side) {
+                suffixRuns[slot]++;
+            } else {
+                lastSides[slot] = side;
+                suffixRuns[slot] = 1;
+            }
+        }
+        if (buyerInitiated) {
+            maxBuyRuns[slot] = Math.max(maxBuyRuns[slot], suffixRuns[slot]);
+        } else {
+            maxSellRuns[slot] = Math.max(maxSellRuns[slot], suffixRuns[slot]);
+        }
+    }
+
+    /**
+     * 以目前時鐘時間查詢最近 windowMillis 的統計
+     */
+    public Window window(long windowMillis) {
+        return window(windowMillis, clock.millis());
+    }
+
+    /**
+     * 查詢 (now - windowMillis, now] 內的統計（以時間桶為粒度，最多涵蓋環狀容量）
+     */
+    public synchronized Window window(long windowMillis, long nowMillis) {
+        if (windowMillis <= 0 || latestBucket == Long.MIN_VALUE) {
+            return Window.EMPTY;
+        }
+        long nowBucket = Math.floorDiv(nowMillis, bucketMillis);
+        long span = Math.min(capacity, (windowMillis + bucketMillis - 1) / bucketMillis);
+        long from = nowBucket - span + 1;
+        // 成交時間可能略晚於查詢時鐘，仍納入
+        long to = Math.max(nowBucket, latestBucket);
+        from = Math.max(from, to - capacity + 1);
+
+        int count = 0;
+        long buyVol = 0;
+        long sellVol = 0;
+        int buys = 0;
+        int sells = 0;
+        double slippage = 0.0;
+        long oldest = Long.MAX_VALUE;
+        int maxBuy = 0;
+        int maxSell = 0;
+        byte runSide = NONE;
+        int run = 0;
+        for (long b = from; b <= to; b++) {
+            int slot = (int) Math.floorMod(b, (long) capacity);
+            if (bucketIds[slot] != b || counts[slot] == 0) {
+                continue;
+            }
+            count += counts[slot];
+            buyVol += buyVolumes[slot];
+            sellVol += sellVolumes[slot];
+            buys += buyTicks[slot];
+            sells += sellTicks[slot];
+            slippage += slippageSums[slot];
+            oldest = Math.min(oldest, firstTimestamps[slot]);
+            maxBuy = Math.max(maxBuy, maxBuyRuns[slot]);
+            maxSell = Math.max(maxSell, maxSellRuns[slot]);
+
+            // 跨桶串接連續同向段（桶內順序即成交順序）
+            boolean uniform = prefixRuns[slot] == counts[slot];
+            if (firstSides[slot] == runSide) {
+                int joined = run + prefixRuns[slot];
+                if (runSide == BUY) maxBuy = Math.max(maxBuy, joined);
+                else maxSell = Math.max(maxSell, joined);
+                if (uniform) {
+                    run = joined;
+                    continue;
+                }
+            }
+            runSide = lastSides[slot];
+            run = suffixRuns[slot];
+        }
+        if (count == 0) {
+            return Window.EMPTY;
+        }
+        return new Window(windowMillis, Math.max(0L, nowMillis - oldest), count, buyVol + sellVol,
+                buyVol, sellVol, buys, sells, slippage, maxBuy, maxSell);
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+        Arrays.fill(counts, 0);
+        latestBucket = Long.MIN_VALUE;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    /** 可查詢的最長時間窗（毫秒） */
+    public long getCapacityMillis() {
+        return bucketMillis * capacity;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    private void resetSlot(int slot, long bucket, long timestampMillis) {
+        bucketIds[slot] = bucket;
+        firstTimestamps[slot] = timestampMillis;
+        counts[slot] = 0;
+        buyVolumes[slot] = 0L;
+        sellVolumes[slot] = 0L;
+        buyTicks[slot] = 0;
+        sellTicks[slot] = 0;
+        slippageSums[slot] = 0.0;
+        firstSides[slot] = NONE;
+        prefixRuns[slot] = 0;
+        lastSides[slot] = NONE;
+        suffixRuns[slot] = 0;
+        maxBuyRuns[slot] = 0;
+        maxSellRuns[slot] = 0;
+    }
+}
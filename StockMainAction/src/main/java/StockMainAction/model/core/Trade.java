@@ -0,0 +1,84 @@
+package StockMainAction.model.core;
+
+import java.time.Clock;
+
+/**
+ * 撮合引擎在熱路徑上產生的精簡成交紀錄 - 不可變，只含基本型別與列舉，
+ * 不持有 {@link Order} 參照、填單清單或字串 ID。
+ * 完整的 {@link Transaction}（含滑價、填單明細、{@link Transaction#getDetailedDescription()}）
+ * 只在 UI 需要時以 {@link #toTransaction(Clock)} 建立。
+ *
+ * @param id 成交序號（同一訂單簿內遞增）
+ * @param priceTicks 成交價（以 0.01 為單位）
+ * @param buyerInitiated 是否為買方主動（外盤）
+ * @param orderType 主動方委託類型
+ * @param buyerType 買方交易者類型序號（{@link TraderTypes}）
+ * @param sellerType 賣方交易者類型序號（{@link TraderTypes}）
+ * @param referenceTicks 市價單下單時的參考價（以 0.01 為單位，供滑價計算）
+ */
+public record Trade(long id, long priceTicks, int volume, boolean buyerInitiated, OrderType orderType,
+        short buyerType, short sellerType, long timestamp, long referenceTicks, MatchingMode matchingMode) {
+
+    /** 價格單位 */
+    public static final double TICK = 0.01;
+
+    public static long toTicks(double price) {
+        return Math.round(price / TICK);
+    }
+
+    public static double fromTicks(long ticks) {
+        return ticks / 100.0;
+    }
+
+    public double price() {
+        return fromTicks(priceTicks);
+    }
+
+    public double referencePrice() {
+        return fromTicks(referenceTicks);
+    }
+
+    public String buyerTypeName() {
+        return TraderTypes.name(buyerType);
+    }
+
+    public String sellerTypeName() {
+        return TraderTypes.name(sellerType);
+    }
+
+    /** 與 {@link Transaction#getId()} 相同的字串 ID */
+    public String idString() {
+        return Long.toString(id);
+    }
+
+    /**
+     * 建立完整的交易紀錄檢視（每次呼叫都會配置新物件，只在顯示明細時使用）
+     *
+     * @param clock 模型時鐘（檢視後續補記填單、結束執行時使用）
+     */
+    public Transaction toTransaction(Clock clock) {
+        return new Transaction(this, clock);
+    }
+
+    /**
+     * 由既有的 {@link Transaction} 轉成精簡紀錄（相容舊的寫入路徑）
+     *
+     * @param id 指定的成交序號（Transaction 的字串 ID 不一定是數字）
+     */
+    public static Trade of(long id, Transaction transaction) {
+        OrderType type = switch (transaction.getTransactionType()) {
+            case MARKET_ORDER -> OrderType.MARKET;
+            case FOK_ORDER -> OrderType.FOK;
+            default -> OrderType.LIMIT;
+        };
+        String orderType = transaction.getOrderType();
+        boolean buyerInitiated = transaction.isBuyerInitiated()
+                || "MARKET_BUY".equals(orderType)
+                || "FOK_BUY".equals(orderType);
+        long priceTicks = toTicks(transaction.getPrice());
+        long referenceTicks = transaction.isMarketOrder() ? toTicks(transaction.getEstimatedPrice()) : priceTicks;
+        return new Trade(id, priceTicks, transaction.getVolume(), buyerInitiated, type,
+                TraderTypes.ordinal(transaction.getBuyerType()), TraderTypes.ordinal(transaction.getSellerType()),
+                transaction.getTimestamp(), referenceTicks, null);
+    }
+}
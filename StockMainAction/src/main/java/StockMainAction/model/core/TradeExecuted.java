@@ -1,7 +1,10 @@
 package StockMainAction.model.core;
 
+/**
+ * @param id 成交序號（與 {@link Trade#id()} 相同；字串形式只在顯示時以 {@link #idString()} 建立）
+ */
 public record TradeExecuted(
-        String id,
+        long id,
         String buyOrderId,
         String sellOrderId,
         String buyerType,
@@ -10,4 +13,10 @@ public record TradeExecuted(
         int volume,
         boolean buyerInitiated,
         OrderType orderType,
-        long timestamp) { }
+        long timestamp) {
+
+    /** 與 {@link Transaction#getId()} 相同的字串 ID */
+    public String idString() {
+        return Long.toString(id);
+    }
+}
@@ -1,11 +1,13 @@
 package StockMainAction.model.core;
 
 import StockMainAction.model.user.UserAccount;
+import StockMainAction.model.strategy.IntentSequencer;
 import StockMainAction.model.strategy.OrderIntent;
 import StockMainAction.model.strategy.SignalAction;
 import StockMainAction.model.strategy.StrategyExecutionResult;
 import StockMainAction.model.strategy.StrategyPipeline;
 import StockMainAction.model.strategy.TradingSignal;
+import java.util.function.Consumer;
 
 /**
  * Trader 接口，定義所有交易者的共同行為
@@ -40,8 +42,39 @@ public interface Trader {
     void updateAverageCostPrice(String buy, int transactionVolume, double transactionPrice);
 
     default StrategyExecutionResult executeIntent(OrderBook orderBook, OrderIntent intent) {
+        return executeIntent(orderBook, intent, null);
+    }
+
+    /**
+     * 下單入口：onResult 收到實際執行結果。一般模式立即回呼；平行決策階段回傳
+     * {@link StrategyExecutionResult#deferred()}，待排序提交執行後才回呼，
+     * 因此依成交結果更新的狀態（停損點、撤單計數等）應放在回呼內，兩種模式才會一致。
+     */
+    default StrategyExecutionResult executeIntent(OrderBook orderBook, OrderIntent intent,
+                                                  Consumer<StrategyExecutionResult> onResult) {
+        if (IntentSequencer.isCapturing()) return IntentSequencer.deferIntent(intent, onResult);
         SignalAction action = intent.side() == OrderSide.BUY ? SignalAction.BUY : SignalAction.SELL;
-        return StrategyPipeline.standard().execute(
+        StrategyExecutionResult result = StrategyPipeline.standard().execute(
                 new TradingSignal(action, 1.0, intent.reason()), intent, this, orderBook);
+        if (onResult != null) onResult.accept(result);
+        return result;
+    }
+
+    /**
+     * 撤單入口：平行決策階段會延後到排序提交時才真正撤單
+     */
+    default boolean cancelOrder(OrderBook orderBook, String orderId) {
+        return cancelOrder(orderBook, orderId, null);
+    }
+
+    /**
+     * 撤單入口：onCancelled 僅在實際撤單成功時執行（平行決策階段於排序提交時執行）。
+     * 平行決策階段的回傳值是樂觀的 true，只適合用於控制流程。
+     */
+    default boolean cancelOrder(OrderBook orderBook, String orderId, Runnable onCancelled) {
+        if (IntentSequencer.isCapturing()) return IntentSequencer.deferCancel(orderId, onCancelled);
+        boolean cancelled = orderBook.cancelOrder(orderId);
+        if (cancelled && onCancelled != null) onCancelled.run();
+        return cancelled;
     }
 }
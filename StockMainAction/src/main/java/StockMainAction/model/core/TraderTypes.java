@@ -0,0 +1,57 @@
+package StockMainAction.model.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 交易者類型字串與序號的對照表 - 成交紀錄只保存 short 序號，需要顯示時再查回名稱。
+ * 全域共用、執行緒安全；序號 0 保留給未知類型。
+ */
+public final class TraderTypes {
+
+    /** 未知類型 */
+    public static final short UNKNOWN = 0;
+
+    private static final ConcurrentHashMap<String, Short> ORDINALS = new ConcurrentHashMap<>();
+    private static volatile String[] names = {null};
+
+    private TraderTypes() {
+    }
+
+    /**
+     * 取得類型序號（第一次出現時配發）
+     */
+    public static short ordinal(String traderType) {
+        if (traderType == null) {
+            return UNKNOWN;
+        }
+        Short ordinal = ORDINALS.get(traderType);
+        return ordinal != null ? ordinal : register(traderType);
+    }
+
+    /**
+     * 由序號查回類型名稱；未知或超出範圍時回傳 null
+     */
+    public static String name(int ordinal) {
+        String[] snapshot = names;
+        return ordinal > 0 && ordinal < snapshot.length ? snapshot[ordinal] : null;
+    }
+
+    private static synchronized short register(String traderType) {
+        Short existing = ORDINALS.get(traderType);
+        if (existing != null) {
+            return existing;
+        }
+        String[] current = names;
+        if (current.length > Short.MAX_VALUE) {
+            return UNKNOWN;
+        }
+        String[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = traderType;
+        // 先發布名稱陣列，再公開序號，讀取端查得到序號時一定查得到名稱
+        names = grown;
+        short ordinal = (short) current.length;
+        ORDINALS.put(traderType, ordinal);
+        return ordinal;
+    }
+}
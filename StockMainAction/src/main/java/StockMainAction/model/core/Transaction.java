@@ -45,11 +45,15 @@ public class Transaction {
         }
 
         FillRecord(double price, int volume, String counterpartyType, int orderBookDepth, Clock clock) {
+            this(price, volume, counterpartyType, orderBookDepth, Objects.requireNonNull(clock, "clock").millis());
+        }
+
+        FillRecord(double price, int volume, String counterpartyType, int orderBookDepth, long timestamp) {
             this.price = price;
             this.volume = volume;
             this.counterpartyType = counterpartyType;
             this.orderBookDepth = orderBookDepth;
-            this.timestamp = Objects.requireNonNull(clock, "clock").millis();
+            this.timestamp = timestamp;
         }
 
         // Getters
@@ -101,6 +105,8 @@ public class Transaction {
     private boolean isMarketOrder;
     private String initiatingTraderType;        // 發起交易的交易者類型
     private String orderType;                   // MARKET_BUY, MARKET_SELL, LIMIT_BUY, LIMIT_SELL
+    private String buyerType;                   // 由精簡成交紀錄建立時的買方類型（無訂單參照）
+    private String sellerType;                  // 由精簡成交紀錄建立時的賣方類型（無訂單參照）
 
     // 市價單特有屬性
     private double estimatedPrice;              // 預估價格（市價單下單時的參考價）
@@ -212,6 +218,49 @@ public class Transaction {
         this.buyerInitiated = "MARKET_BUY".equals(orderType);
     }
 
+    // === 由精簡成交紀錄建立的完整檢視 ===
+    Transaction(Trade trade, Clock clock) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.id = trade.idString();
+        this.price = trade.price();
+        this.volume = trade.volume();
+        this.timestamp = trade.timestamp();
+        this.buyerInitiated = trade.buyerInitiated();
+        this.buyerType = trade.buyerTypeName();
+        this.sellerType = trade.sellerTypeName();
+        this.matchingMode = trade.matchingMode() != null ? trade.matchingMode().toString() : null;
+        this.fillRecords = new ArrayList<>(1);
+        this.requestedVolume = trade.volume();
+        this.actualVolume = trade.volume();
+        this.fullyFilled = true;
+        this.averagePrice = price;
+        this.executionStartTime = timestamp;
+        this.executionEndTime = timestamp;
+        this.depthLevels = 1;
+        if (trade.orderType() == OrderType.MARKET) {
+            this.transactionType = TransactionType.MARKET_ORDER;
+            this.isMarketOrder = true;
+            this.orderType = buyerInitiated ? "MARKET_BUY" : "MARKET_SELL";
+            this.initiatingTraderType = buyerInitiated ? buyerType : sellerType;
+            this.estimatedPrice = trade.referencePrice();
+            this.preTradePrice = estimatedPrice;
+            this.postTradePrice = price;
+            this.availableDepth = 1;
+            this.fillRecords.add(new FillRecord(price, volume,
+                    buyerInitiated ? sellerType : buyerType, 1, timestamp));
+            if (estimatedPrice > 0) {
+                this.slippage = averagePrice - estimatedPrice;
+                this.slippagePercentage = (slippage / estimatedPrice) * 100;
+            }
+        } else {
+            this.transactionType = trade.orderType() == OrderType.FOK
+                    ? TransactionType.FOK_ORDER : TransactionType.LIMIT_ORDER;
+            this.orderType = trade.orderType() == OrderType.FOK
+                    ? (buyerInitiated ? "FOK_BUY" : "FOK_SELL") : "LIMIT_ORDER";
+            this.estimatedPrice = price;
+        }
+    }
+
     // === 市價單專用方法 ===
     /**
      * 添加填單記錄（市價單用）
@@ -334,10 +383,10 @@ public class Transaction {
             desc.append(String.format("%s: %d股 @%.2f",
                     transactionType.getDisplayName(), volume, price));
 
-            if (buyOrder != null && sellOrder != null) {
+            if (getBuyerType() != null && getSellerType() != null) {
                 desc.append(String.format(" (%s→%s)",
-                        getTraderTypeDisplay(buyOrder.getTrader().getTraderType()),
-                        getTraderTypeDisplay(sellOrder.getTrader().getTraderType())));
+                        getTraderTypeDisplay(getBuyerType()),
+                        getTraderTypeDisplay(getSellerType())));
             }
         }
 
@@ -391,6 +440,42 @@ public class Transaction {
         return null;
     }
 
+    /**
+     * 買方交易者類型（有訂單參照時取自訂單，否則取自精簡成交紀錄或市價單發起/對手方）
+     */
+    public String getBuyerType() {
+        if (buyOrder != null && buyOrder.getTrader() != null) {
+            return buyOrder.getTrader().getTraderType();
+        }
+        if (buyerType != null) {
+            return buyerType;
+        }
+        if (!isMarketOrder) {
+            return null;
+        }
+        return buyerInitiated ? initiatingTraderType : firstCounterparty();
+    }
+
+    /**
+     * 賣方交易者類型（規則同 {@link #getBuyerType()}）
+     */
+    public String getSellerType() {
+        if (sellOrder != null && sellOrder.getTrader() != null) {
+            return sellOrder.getTrader().getTraderType();
+        }
+        if (sellerType != null) {
+            return sellerType;
+        }
+        if (!isMarketOrder) {
+            return null;
+        }
+        return buyerInitiated ? firstCounterparty() : initiatingTraderType;
+    }
+
+    private String firstCounterparty() {
+        return fillRecords.isEmpty() ? null : fillRecords.get(0).getCounterpartyType();
+    }
+
     public double getPrice() {
         return price;
     }
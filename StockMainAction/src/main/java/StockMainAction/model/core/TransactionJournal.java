@@ -1,48 +1,274 @@
 package StockMainAction.model.core;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
-/** Bounded, thread-safe journal of committed transactions. */
+/**
+ * Bounded journal of committed transactions, stored as a ring buffer indexed by trade sequence.
+ *
+ * <p>Each slot holds the compact {@link Trade} the matching engine already built, so appending copies
+ * nothing; {@link EntryVisitor} readers get its fields as primitives. The rich {@link Transaction}
+ * view is only built when {@link #get}, {@link #recent} or {@link #all} ask for it. Writes are serialized (in practice a single
+ * matching thread appends); readers never lock. A reader reads up to the published sequence and
+ * re-checks afterwards that the writer has not lapped the slots it read.
+ * {@link Cursor} lets a consumer pick up only the entries appended since its last poll.</p>
+ */
 public final class TransactionJournal {
+
+    /** Trader type code used when a side is unknown. */
+    public static final int UNKNOWN_TRADER_TYPE = TraderTypes.UNKNOWN;
+
     private final int capacity;
-    private final Deque<Transaction> transactions;
+    private final Clock clock;
+    private final Trade[] trades;
+    // Views supplied by add(Transaction); slots written through add(Trade) build theirs on demand.
+    private final Transaction[] views;
+    /** Number of entries ever published; the next sequence to be written. */
+    private final AtomicLong published = new AtomicLong();
+    /** Bumped before a slot is overwritten, so readers can detect a write that raced their read. */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * Receives journal entries as primitives; nothing is allocated per entry.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(long sequence, double price, int volume, boolean buyerInitiated, long timestamp,
+                int buyerType, int sellerType);
+    }
 
     public TransactionJournal(int capacity) {
+        this(capacity, Clock.systemUTC());
+    }
+
+    /**
+     * @param clock model clock handed to the {@link Transaction} views built from journaled trades
+     */
+    public TransactionJournal(int capacity, Clock clock) {
         if (capacity <= 0) {
             throw new IllegalArgumentException("capacity must be positive");
         }
         this.capacity = capacity;
-        this.transactions = new ArrayDeque<>(capacity);
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.trades = new Trade[capacity];
+        this.views = new Transaction[capacity];
+    }
+
+    /**
+     * Appends an engine trade and returns its sequence number; no {@link Transaction} is built.
+     */
+    public synchronized long add(Trade trade) {
+        return append(Objects.requireNonNull(trade, "trade"), null);
     }
 
-    public synchronized void add(Transaction transaction) {
-        transactions.addLast(Objects.requireNonNull(transaction, "transaction"));
-        while (transactions.size() > capacity) {
-            transactions.removeFirst();
+    /**
+     * Appends an already built transaction (kept as the slot's view) and returns its sequence number.
+     */
+    public synchronized long add(Transaction transaction) {
+        Objects.requireNonNull(transaction, "transaction");
+        return append(Trade.of(published.get(), transaction), transaction);
+    }
+
+    // Caller holds the lock.
+    private long append(Trade trade, Transaction view) {
+        long sequence = published.get();
+        int slot = slot(sequence);
+        claimed.lazySet(sequence + 1);
+        VarHandle.storeStoreFence();
+        trades[slot] = trade;
+        views[slot] = view;
+        published.lazySet(sequence + 1);
+        return sequence;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Number of entries ever appended (the next sequence). */
+    public long sequence() {
+        return published.get();
+    }
+
+    /** Oldest sequence still retained. */
+    public long firstSequence() {
+        return Math.max(0L, published.get() - capacity);
+    }
+
+    public int size() {
+        return (int) Math.min(capacity, published.get());
+    }
+
+    /** Name for a trader type code from {@link EntryVisitor}; null for {@link #UNKNOWN_TRADER_TYPE}. */
+    public String traderType(int code) {
+        return TraderTypes.name(code);
+    }
+
+    /**
+     * Compact trade for a retained sequence, or null once it has been overwritten.
+     */
+    public Trade trade(long sequence) {
+        if (sequence < 0 || sequence >= published.get()) {
+            return null;
         }
+        Trade trade = trades[slot(sequence)];
+        return isRetained(sequence) ? trade : null;
     }
 
-    public synchronized List<Transaction> all() {
-        return List.copyOf(transactions);
+    /**
+     * Rich transaction for a retained sequence (built on request), or null once overwritten.
+     */
+    public Transaction get(long sequence) {
+        if (sequence < 0 || sequence >= published.get()) {
+            return null;
+        }
+        return view(sequence);
+    }
+
+    private Transaction view(long sequence) {
+        int slot = slot(sequence);
+        Transaction view = views[slot];
+        Trade trade = trades[slot];
+        if (!isRetained(sequence)) {
+            return null;
+        }
+        return view != null ? view : trade.toTransaction(clock);
     }
 
-    public synchronized List<Transaction> recent(int count) {
+    public List<Transaction> all() {
+        return recent(capacity);
+    }
+
+    public List<Transaction> recent(int count) {
         if (count < 0) {
             throw new IllegalArgumentException("count must not be negative");
         }
-        if (count == 0 || transactions.isEmpty()) {
+        long end = published.get();
+        long start = Math.max(end - Math.min(count, capacity), 0L);
+        if (start >= end) {
             return List.of();
         }
-        int skip = Math.max(0, transactions.size() - count);
-        ArrayList<Transaction> result = new ArrayList<>(Math.min(count, transactions.size()));
-        int index = 0;
-        for (Transaction transaction : transactions) {
-            if (index++ >= skip) result.add(transaction);
+        Transaction[] result = new Transaction[(int) (end - start)];
+        int first = 0;
+        for (long sequence = start; sequence < end; sequence++) {
+            Transaction view = view(sequence);
+            if (view == null) {
+                // Overwritten while copying: keep only what is newer.
+                first = (int) (sequence - start) + 1;
+            }
+            result[(int) (sequence - start)] = view;
         }
-        return List.copyOf(result);
+        if (first >= result.length) {
+            return List.of();
+        }
+        List<Transaction> list = Arrays.asList(result);
+        return Collections.unmodifiableList(first == 0 ? list : list.subList(first, result.length));
+    }
+
+    /**
+     * Visits retained entries in {@code [fromSequence, published)} without copying.
+     *
+     * @return the sequence after the last entry visited
+     */
+    public long read(long fromSequence, int maxEntries, EntryVisitor visitor) {
+        return read(fromSequence, maxEntries, visitor, null);
+    }
+
+    private long read(long fromSequence, int maxEntries, EntryVisitor visitor, Cursor cursor) {
+        Objects.requireNonNull(visitor, "visitor");
+        long end = published.get();
+        long sequence = Math.max(fromSequence, end - capacity);
+        long limit = maxEntries <= 0 ? end : Math.min(end, sequence + maxEntries);
+        for (; sequence < limit; sequence++) {
+            Trade trade = trades[slot(sequence)];
+            if (!isRetained(sequence)) {
+                // Lapped mid-read: skip ahead to the oldest entry that is still intact.
+                long resume = oldestValid();
+                if (cursor != null) cursor.missed += resume - sequence;
+                sequence = resume - 1;
+                continue;
+            }
+            visitor.visit(sequence, trade.price(), trade.volume(), trade.buyerInitiated(), trade.timestamp(),
+                    trade.buyerType(), trade.sellerType());
+        }
+        return sequence;
+    }
+
+    /**
+     * Creates a cursor positioned at the next entry to be appended.
+     */
+    public Cursor cursor() {
+        return new Cursor(published.get());
+    }
+
+    /**
+     * Creates a cursor positioned at the oldest retained entry.
+     */
+    public Cursor cursorFromStart() {
+        return new Cursor(firstSequence());
+    }
+
+    /**
+     * Reader-owned position in the journal. A cursor is not thread-safe; give each reader its own.
+     */
+    public final class Cursor {
+        private long next;
+        private long missed;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Visits entries appended since the last poll (at most {@code maxEntries}, or all if not positive).
+         *
+         * @return number of entries consumed, including any lapped while reading
+         */
+        public int poll(int maxEntries, EntryVisitor visitor) {
+            long oldest = firstSequence();
+            if (next < oldest) {
+                missed += oldest - next;
+                next = oldest;
+            }
+            long from = next;
+            next = read(from, maxEntries, visitor, this);
+            return (int) (next - from);
+        }
+
+        /** Next sequence this cursor will read. */
+        public long position() {
+            return next;
+        }
+
+        /** Entries appended since the last poll. */
+        public long lag() {
+            return Math.max(0L, published.get() - next);
+        }
+
+        /** Entries that were overwritten before this cursor reached them. */
+        public long missed() {
+            return missed;
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    // A slot read for `sequence` is intact while the writer has not claimed sequence + capacity.
+    private boolean isRetained(long sequence) {
+        VarHandle.loadLoadFence();
+        return claimed.get() <= sequence + capacity;
+    }
+
+    // Oldest sequence whose slot has not been claimed for overwriting.
+    private long oldestValid() {
+        VarHandle.loadLoadFence();
+        return Math.max(0L, claimed.get() - capacity);
     }
 }
@@ -0,0 +1,313 @@
+package StockMainAction.model.core;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 價量分佈（Volume-at-Price）與 VWAP 引擎 - 訂閱 {@link TradeExecuted}，以真實成交量增量維護：
+ * <ul>
+ *   <li>以最小跳動單位（0.01）為索引的成交量直方圖，搭配 Fenwick 樹做區間量與分位數查詢（O(log n)）；</li>
+ *   <li>最大量價位（POC），每筆成交 O(1) 更新；</li>
+ *   <li>整個交易時段的 VWAP 與成交量加權標準差帶；</li>
+ *   <li>任意數量的錨定 VWAP：錨點在保留期間內時，以每秒時間桶回補錨點之後的成交，之後逐筆累加。</li>
+ * </ul>
+ *
+ * 價值區（value area）以成交量分位數定義：涵蓋中間 fraction 比例成交量的價格區間，並保證包含 POC。
+ */
+public final class VolumeProfileEngine implements TradeExecutedListener {
+
+    /** 直方圖價格粒度（台股最小跳動單位） */
+    public static final double PRICE_STEP = 0.01;
+    /** 預設價值區涵蓋的成交量比例 */
+    public static final double DEFAULT_VALUE_AREA = 0.70;
+    /** 錨定 VWAP 可回補的時間桶數（每秒一桶，預設 1 小時模擬時間） */
+    public static final int DEFAULT_ANCHOR_BUCKETS = 3_600;
+
+    private static final long ANCHOR_BUCKET_MILLIS = 1_000L;
+    private static final int INITIAL_BINS = 1_024;
+
+    /**
+     * VWAP 與成交量加權標準差
+     */
+    public record VwapStats(double vwap, double stdDev, long volume, long fromMillis) {
+        public static final VwapStats EMPTY = new VwapStats(Double.NaN, Double.NaN, 0L, Long.MIN_VALUE);
+
+        public boolean isEmpty() {
+            return volume == 0L;
+        }
+
+        public double upper(double multiplier) {
+            return vwap + multiplier * stdDev;
+        }
+
+        public double lower(double multiplier) {
+            return vwap - multiplier * stdDev;
+        }
+
+        static VwapStats of(double pv, double p2v, long volume, long fromMillis) {
+            if (volume <= 0) return new VwapStats(Double.NaN, Double.NaN, 0L, fromMillis);
+            double vwap = pv / volume;
+            double variance = Math.max(0.0, p2v / volume - vwap * vwap);
+            return new VwapStats(vwap, Math.sqrt(variance), volume, fromMillis);
+        }
+    }
+
+    /**
+     * 價值區
+     *
+     * @param low 價值區下緣
+     * @param high 價值區上緣
+     * @param pointOfControl 最大量價位
+     * @param volume 價值區內成交量
+     */
+    public record ValueArea(double low, double high, double pointOfControl, long volume) {
+    }
+
+    // 直方圖：bins[i] 對應價格索引 baseIndex + i
+    private long[] bins = new long[0];
+    private long[] fenwick = new long[1];
+    private long baseIndex;
+    private long totalVolume;
+    private int pocSlot = -1;
+
+    // 交易時段 VWAP
+    private double sessionPv;
+    private double sessionP2v;
+
+    // 錨定 VWAP 回補用的每秒時間桶
+    private final int anchorCapacity;
+    private final long[] bucketIds;
+    private final double[] bucketPv;
+    private final double[] bucketP2v;
+    private final long[] bucketVolume;
+    private final Map<String, Anchor> anchors = new LinkedHashMap<>();
+
+    public VolumeProfileEngine() {
+        this(DEFAULT_ANCHOR_BUCKETS);
+    }
+
+    public VolumeProfileEngine(int anchorBuckets) {
+        if (anchorBuckets <= 0) throw new IllegalArgumentException("anchorBuckets must be positive");
+        this.anchorCapacity = anchorBuckets;
+        this.bucketIds = new long[anchorBuckets];
+        this.bucketPv = new double[anchorBuckets];
+        this.bucketP2v = new double[anchorBuckets];
+        this.bucketVolume = new long[anchorBuckets];
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+    }
+
+    @Override
+    public void onTradeExecuted(TradeExecuted event) {
+        record(event.price(), event.volume(), event.timestamp());
+    }
+
+    /**
+     * 記錄一筆成交（非正數價格或成交量忽略）
+     */
+    public synchronized void record(double price, long volume, long timestampMillis) {
+        if (!Double.isFinite(price) || price <= 0 || volume <= 0) {
+            return;
+        }
+        long index = Math.round(price / PRICE_STEP);
+        int slot = ensureSlot(index);
+        bins[slot] += volume;
+        fenwickAdd(slot, volume);
+        totalVolume += volume;
+        if (pocSlot < 0 || bins[slot] > bins[pocSlot]) {
+            pocSlot = slot;
+        }
+
+        double pv = price * volume;
+        double p2v = price * pv;
+        sessionPv += pv;
+        sessionP2v += p2v;
+
+        long bucket = Math.floorDiv(timestampMillis, ANCHOR_BUCKET_MILLIS);
+        int b = (int) Math.floorMod(bucket, (long) anchorCapacity);
+        if (bucketIds[b] != bucket) {
+            bucketIds[b] = bucket;
+            bucketPv[b] = 0.0;
+            bucketP2v[b] = 0.0;
+            bucketVolume[b] = 0L;
+        }
+        bucketPv[b] += pv;
+        bucketP2v[b] += p2v;
+        bucketVolume[b] += volume;
+
+        for (Anchor anchor : anchors.values()) {
+            if (timestampMillis >= anchor.fromMillis) {
+                anchor.pv += pv;
+                anchor.p2v += p2v;
+                anchor.volume += volume;
+            }
+        }
+    }
+
+    /** 交易時段 VWAP 與標準差 */
+    public synchronized VwapStats sessionVwap() {
+        return totalVolume == 0 ? VwapStats.EMPTY : VwapStats.of(sessionPv, sessionP2v, totalVolume, Long.MIN_VALUE);
+    }
+
+    /**
+     * 設定（或重設）錨定 VWAP；錨點之後仍在保留期間內的成交會以每秒時間桶回補
+     */
+    public synchronized void setAnchor(String name, long fromMillis) {
+        Anchor anchor = new Anchor(fromMillis);
+        long firstBucket = Math.floorDiv(fromMillis, ANCHOR_BUCKET_MILLIS);
+        for (int i = 0; i < anchorCapacity; i++) {
+            if (bucketIds[i] != Long.MIN_VALUE && bucketIds[i] >= firstBucket) {
+                anchor.pv += bucketPv[i];
+                anchor.p2v += bucketP2v[i];
+                anchor.volume += bucketVolume[i];
+            }
+        }
+        anchors.put(name, anchor);
+    }
+
+    public synchronized void removeAnchor(String name) {
+        anchors.remove(name);
+    }
+
+    /** 錨定 VWAP；錨點不存在時回傳 null */
+    public synchronized VwapStats anchoredVwap(String name) {
+        Anchor anchor = anchors.get(name);
+        return anchor == null ? null : VwapStats.of(anchor.pv, anchor.p2v, anchor.volume, anchor.fromMillis);
+    }
+
+    /** 最大量價位（POC）；無成交時為 NaN */
+    public synchronized double pointOfControl() {
+        return pocSlot < 0 ? Double.NaN : priceOf(pocSlot);
+    }
+
+    /** 指定價位的累積成交量 */
+    public synchronized long volumeAt(double price) {
+        long index = Math.round(price / PRICE_STEP);
+        long slot = index - baseIndex;
+        return slot < 0 || slot >= bins.length ? 0L : bins[(int) slot];
+    }
+
+    /** [low, high] 價格區間內的累積成交量（O(log n)） */
+    public synchronized long volumeBetween(double low, double high) {
+        if (bins.length == 0 || high < low) return 0L;
+        long from = Math.max(0L, Math.round(low / PRICE_STEP) - baseIndex);
+        long to = Math.min(bins.length - 1L, Math.round(high / PRICE_STEP) - baseIndex);
+        if (from > to) return 0L;
+        return prefix((int) to) - (from == 0 ? 0L : prefix((int) from - 1));
+    }
+
+    public ValueArea valueArea() {
+        return valueArea(DEFAULT_VALUE_AREA);
+    }
+
+    /**
+     * 涵蓋中間 fraction 比例成交量的價值區（O(log n)）；無成交時回傳 null
+     */
+    public synchronized ValueArea valueArea(double fraction) {
+        if (totalVolume == 0) return null;
+        double f = Math.max(0.0, Math.min(1.0, fraction));
+        long lowTarget = (long) Math.floor(totalVolume * (1.0 - f) / 2.0) + 1;
+        long highTarget = Math.max(1L, (long) Math.ceil(totalVolume * (1.0 + f) / 2.0));
+        int low = Math.min(search(lowTarget), pocSlot);
+        int high = Math.max(search(Math.min(highTarget, totalVolume)), pocSlot);
+        long volume = prefix(high) - (low == 0 ? 0L : prefix(low - 1));
+        return new ValueArea(priceOf(low), priceOf(high), priceOf(pocSlot), volume);
+    }
+
+    public synchronized long getTotalVolume() {
+        return totalVolume;
+    }
+
+    /** 清空直方圖、時段 VWAP 與所有錨點（重新開始模擬時使用） */
+    public synchronized void clear() {
+        bins = new long[0];
+        fenwick = new long[1];
+        baseIndex = 0L;
+        totalVolume = 0L;
+        pocSlot = -1;
+        sessionPv = 0.0;
+        sessionP2v = 0.0;
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+        anchors.clear();
+    }
+
+    private double priceOf(int slot) {
+        return Math.round((baseIndex + slot) * PRICE_STEP * 100.0) / 100.0;
+    }
+
+    // 需要時擴充直方圖範圍（倍增，攤銷 O(1)），並重建 Fenwick 樹
+    private int ensureSlot(long index) {
+        if (bins.length == 0) {
+            bins = new long[INITIAL_BINS];
+            baseIndex = index - INITIAL_BINS / 2;
+            fenwick = new long[INITIAL_BINS + 1];
+        }
+        long slot = index - baseIndex;
+        if (slot >= 0 && slot < bins.length) {
+            return (int) slot;
+        }
+        long newBase = Math.min(baseIndex, index);
+        long newEnd = Math.max(baseIndex + bins.length, index + 1);
+        long size = Math.max(newEnd - newBase, bins.length * 2L);
+        // 向成長方向多保留空間
+        if (index < baseIndex) newBase = newEnd - size;
+        long[] grown = new long[Math.toIntExact(size)];
+        System.arraycopy(bins, 0, grown, (int) (baseIndex - newBase), bins.length);
+        if (pocSlot >= 0) pocSlot += (int) (baseIndex - newBase);
+        bins = grown;
+        baseIndex = newBase;
+        rebuildFenwick();
+        return (int) (index - baseIndex);
+    }
+
+    private void rebuildFenwick() {
+        int n = bins.length;
+        fenwick = new long[n + 1];
+        for (int i = 1; i <= n; i++) {
+            fenwick[i] += bins[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= n) fenwick[parent] += fenwick[i];
+        }
+    }
+
+    private void fenwickAdd(int slot, long delta) {
+        for (int i = slot + 1; i < fenwick.length; i += i & -i) {
+            fenwick[i] += delta;
+        }
+    }
+
+    // bins[0..slot] 的總和
+    private long prefix(int slot) {
+        long sum = 0L;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += fenwick[i];
+        }
+        return sum;
+    }
+
+    // 最小的 slot 使 prefix(slot) >= target（target 介於 1..totalVolume）
+    private int search(long target) {
+        int pos = 0;
+        long remaining = target;
+        int step = Integer.highestOneBit(fenwick.length - 1);
+        for (; step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < fenwick.length && fenwick[next] < remaining) {
+                pos = next;
+                remaining -= fenwick[next];
+            }
+        }
+        return pos; // Fenwick 以 1 起算，pos 即 0 起算的 slot
+    }
+
+    private static final class Anchor {
+        final long fromMillis;
+        double pv;
+        double p2v;
+        long volume;
+
+        Anchor(long fromMillis) {
+            this.fromMillis = fromMillis;
+        }
+    }
+}
@@ -5,14 +5,24 @@ public enum SimulationSpeed {
     SLOW("0.5x", 2000),
     NORMAL("1x", 1000),
     FAST("2x", 500),
-    TURBO("5x", 200);
+    TURBO("5x", 200),
+    X20("20x", 50),
+    X100("100x", 10),
+    // 週期 0 + 不節流：tick 一個接一個執行，畫面以節流更新
+    MAX("極速", 0, true);
 
     private final String displayName;
     private final int periodMillis;
+    private final boolean unthrottled;
 
     SimulationSpeed(String displayName, int periodMillis) {
+        this(displayName, periodMillis, false);
+    }
+
+    SimulationSpeed(String displayName, int periodMillis, boolean unthrottled) {
         this.displayName = displayName;
         this.periodMillis = periodMillis;
+        this.unthrottled = unthrottled;
     }
 
     public String getDisplayName() {
@@ -24,7 +34,11 @@ public enum SimulationSpeed {
     }
 
     public boolean isPaused() {
-        return periodMillis <= 0;
+        return periodMillis <= 0 && !unthrottled;
+    }
+
+    public boolean isUnthrottled() {
+        return unthrottled;
     }
 
     @Override
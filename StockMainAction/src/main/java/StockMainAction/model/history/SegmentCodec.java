@@ -0,0 +1,147 @@
+package StockMainAction.model.history;
+
+import StockMainAction.model.core.TraderTypes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed, column-ordered file format for one immutable history segment.
+ *
+ * <p>Layout: magic, version, count, first sequence, trader-type dictionary, then one column at a
+ * time (delta-coded timestamps, prices, volumes, flags, buyer/seller type codes, ids). Sequences
+ * inside a segment are consecutive and are not stored per record; engine trade ids are stored as
+ * numbers and only appended transactions carry a string id.</p>
+ */
+final class SegmentCodec {
+    private static final int MAGIC = 0x54524453; // "TRDS"
+    private static final int VERSION = 2;
+
+    private SegmentCodec() {
+    }
+
+    static void write(Path file, TradeColumns columns) throws IOException {
+        int count = columns.count;
+        Map<Short, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            register(columns.buyerTypes[i], codes, dictionary);
+            register(columns.sellerTypes[i], codes, dictionary);
+        }
+
+        // Write next to the target and move into place so readers never see a partial segment.
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeLong(columns.firstSequence);
+            out.writeInt(dictionary.size());
+            for (String name : dictionary) {
+                out.writeUTF(name);
+            }
+            long previous = 0L;
+            for (int i = 0; i < count; i++) {
+                long timestamp = columns.timestamps[i];
+                out.writeLong(timestamp - previous);
+                previous = timestamp;
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeDouble(columns.prices[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeInt(columns.volumes[i]);
+            }
+            out.write(columns.flags, 0, count);
+            for (int i = 0; i < count; i++) {
+                out.writeShort(code(columns.buyerTypes[i], codes));
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeShort(code(columns.sellerTypes[i], codes));
+            }
+            for (int i = 0; i < count; i++) {
+                if (columns.hasStringId(i)) {
+                    String id = columns.ids[i];
+                    out.writeUTF(id == null ? "" : id);
+                } else {
+                    out.writeLong(columns.tradeIds[i]);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static TradeColumns read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 1 << 16)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a trade history segment: " + file);
+            }
+            int count = in.readInt();
+            TradeColumns columns = new TradeColumns(in.readLong(), count);
+            short[] dictionary = new short[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = TraderTypes.ordinal(in.readUTF());
+            }
+            long previous = 0L;
+            for (int i = 0; i < count; i++) {
+                previous += in.readLong();
+                columns.timestamps[i] = previous;
+            }
+            for (int i = 0; i < count; i++) {
+                columns.prices[i] = in.readDouble();
+            }
+            for (int i = 0; i < count; i++) {
+                columns.volumes[i] = in.readInt();
+            }
+            in.readFully(columns.flags, 0, count);
+            for (int i = 0; i < count; i++) {
+                columns.buyerTypes[i] = type(in.readShort(), dictionary);
+            }
+            for (int i = 0; i < count; i++) {
+                columns.sellerTypes[i] = type(in.readShort(), dictionary);
+            }
+            for (int i = 0; i < count; i++) {
+                if (columns.hasStringId(i)) {
+                    if (columns.ids == null) {
+                        columns.ids = new String[count];
+                    }
+                    String id = in.readUTF();
+                    columns.ids[i] = id.isEmpty() ? null : id;
+                } else {
+                    columns.tradeIds[i] = in.readLong();
+                }
+            }
+            columns.count = count;
+            return columns;
+        }
+    }
+
+    private static void register(short type, Map<Short, Integer> codes, List<String> dictionary) {
+        if (type != TraderTypes.UNKNOWN && !codes.containsKey(type)) {
+            codes.put(type, dictionary.size());
+            dictionary.add(TraderTypes.name(type));
+        }
+    }
+
+    private static int code(short type, Map<Short, Integer> codes) {
+        return type == TraderTypes.UNKNOWN ? -1 : codes.get(type);
+    }
+
+    private static short type(short code, short[] dictionary) {
+        return code < 0 ? TraderTypes.UNKNOWN : dictionary[code];
+    }
+}
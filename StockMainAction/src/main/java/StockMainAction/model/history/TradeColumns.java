@@ -0,0 +1,113 @@
+package StockMainAction.model.history;
+
+import StockMainAction.model.core.Trade;
+import StockMainAction.model.core.TraderTypes;
+import StockMainAction.model.core.Transaction;
+
+/**
+ * Rows of one history segment kept as primitive columns, so appending a trade allocates nothing.
+ *
+ * <p>Trader types are {@link TraderTypes} codes and engine trades keep their numeric id; the
+ * {@link TradeRecord} for a row, including its string id, is only built when a page returns it.</p>
+ */
+final class TradeColumns {
+    static final int BUYER_INITIATED = 0x80;
+    // The row's id is the caller's string in ids[] rather than the numeric trade id.
+    static final int STRING_ID = 0x40;
+    static final int KIND_MASK = 0x3F;
+    private static final TradeRecord.OrderKind[] KINDS = TradeRecord.OrderKind.values();
+
+    final long firstSequence;
+    final long[] timestamps;
+    final double[] prices;
+    final int[] volumes;
+    final byte[] flags;
+    final short[] buyerTypes;
+    final short[] sellerTypes;
+    final long[] tradeIds;
+    // Allocated on the first row appended from a Transaction.
+    String[] ids;
+    int count;
+
+    TradeColumns(long firstSequence, int capacity) {
+        this.firstSequence = firstSequence;
+        this.timestamps = new long[capacity];
+        this.prices = new double[capacity];
+        this.volumes = new int[capacity];
+        this.flags = new byte[capacity];
+        this.buyerTypes = new short[capacity];
+        this.sellerTypes = new short[capacity];
+        this.tradeIds = new long[capacity];
+    }
+
+    void add(Trade trade) {
+        add(trade.timestamp(), trade.price(), trade.volume(), trade.buyerInitiated(), kind(trade),
+                trade.buyerType(), trade.sellerType(), trade.id(), 0);
+    }
+
+    void add(Transaction transaction) {
+        String orderType = transaction.getOrderType();
+        boolean buyerInitiated = transaction.isBuyerInitiated()
+                || "MARKET_BUY".equals(orderType)
+                || "FOK_BUY".equals(orderType);
+        TradeRecord.OrderKind kind = switch (transaction.getTransactionType()) {
+            case MARKET_ORDER -> TradeRecord.OrderKind.MARKET;
+            case FOK_ORDER -> TradeRecord.OrderKind.FOK;
+            default -> TradeRecord.OrderKind.LIMIT;
+        };
+        if (ids == null) {
+            ids = new String[timestamps.length];
+        }
+        ids[count] = transaction.getId();
+        add(transaction.getTimestamp(), transaction.getPrice(), transaction.getVolume(), buyerInitiated, kind,
+                TraderTypes.ordinal(transaction.getBuyerType()), TraderTypes.ordinal(transaction.getSellerType()),
+                0L, STRING_ID);
+    }
+
+    void add(long timestamp, double price, int volume, boolean buyerInitiated, TradeRecord.OrderKind kind,
+            short buyerType, short sellerType, long tradeId, int extraFlags) {
+        int row = count++;
+        timestamps[row] = timestamp;
+        prices[row] = price;
+        volumes[row] = volume;
+        flags[row] = (byte) ((buyerInitiated ? BUYER_INITIATED : 0) | extraFlags | kind.ordinal());
+        buyerTypes[row] = buyerType;
+        sellerTypes[row] = sellerType;
+        tradeIds[row] = tradeId;
+    }
+
+    boolean buyerInitiated(int row) {
+        return (flags[row] & BUYER_INITIATED) != 0;
+    }
+
+    TradeRecord.OrderKind orderKind(int row) {
+        return KINDS[flags[row] & KIND_MASK];
+    }
+
+    boolean hasStringId(int row) {
+        return (flags[row] & STRING_ID) != 0;
+    }
+
+    String id(int row) {
+        return hasStringId(row) ? ids[row] : Long.toString(tradeIds[row]);
+    }
+
+    boolean matches(TradeQuery query, int row) {
+        return query.matches(timestamps[row], buyerInitiated(row), orderKind(row),
+                TraderTypes.name(buyerTypes[row]), TraderTypes.name(sellerTypes[row]));
+    }
+
+    TradeRecord record(int row) {
+        return new TradeRecord(firstSequence + row, id(row), timestamps[row], prices[row], volumes[row],
+                buyerInitiated(row), orderKind(row), TraderTypes.name(buyerTypes[row]),
+                TraderTypes.name(sellerTypes[row]));
+    }
+
+    private static TradeRecord.OrderKind kind(Trade trade) {
+        return switch (trade.orderType()) {
+            case MARKET -> TradeRecord.OrderKind.MARKET;
+            case FOK -> TradeRecord.OrderKind.FOK;
+            default -> TradeRecord.OrderKind.LIMIT;
+        };
+    }
+}
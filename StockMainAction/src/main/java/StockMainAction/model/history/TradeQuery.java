@@ -0,0 +1,57 @@
+package StockMainAction.model.history;
+
+import java.util.Objects;
+
+/**
+ * Filter over stored trades. Null fields match everything; the time range is inclusive.
+ *
+ * @param traderType matches trades where either side has this trader type
+ * @param buyerInitiated {@code TRUE} for buyer-initiated trades, {@code FALSE} for seller-initiated
+ */
+public record TradeQuery(long fromMillis, long toMillis, String traderType, Boolean buyerInitiated,
+        TradeRecord.OrderKind orderKind) {
+
+    private static final TradeQuery ALL = new TradeQuery(Long.MIN_VALUE, Long.MAX_VALUE, null, null, null);
+
+    public static TradeQuery all() {
+        return ALL;
+    }
+
+    public TradeQuery between(long from, long to) {
+        return new TradeQuery(from, to, traderType, buyerInitiated, orderKind);
+    }
+
+    public TradeQuery withTraderType(String type) {
+        return new TradeQuery(fromMillis, toMillis, type, buyerInitiated, orderKind);
+    }
+
+    public TradeQuery withBuyerInitiated(Boolean side) {
+        return new TradeQuery(fromMillis, toMillis, traderType, side, orderKind);
+    }
+
+    public TradeQuery withOrderKind(TradeRecord.OrderKind kind) {
+        return new TradeQuery(fromMillis, toMillis, traderType, buyerInitiated, kind);
+    }
+
+    /** True when only the time range restricts the result. */
+    public boolean isTimeOnly() {
+        return traderType == null && buyerInitiated == null && orderKind == null;
+    }
+
+    public boolean matches(TradeRecord record) {
+        return matches(record.timestamp(), record.buyerInitiated(), record.orderKind(),
+                record.buyerType(), record.sellerType());
+    }
+
+    /** Same test on a trade's fields, for stores that do not keep {@link TradeRecord}s. */
+    public boolean matches(long timestamp, boolean buyer, TradeRecord.OrderKind kind, String buyerType,
+            String sellerType) {
+        return timestamp >= fromMillis
+                && timestamp <= toMillis
+                && (buyerInitiated == null || buyer == buyerInitiated)
+                && (orderKind == null || kind == orderKind)
+                && (traderType == null
+                        || Objects.equals(traderType, buyerType)
+                        || Objects.equals(traderType, sellerType));
+    }
+}
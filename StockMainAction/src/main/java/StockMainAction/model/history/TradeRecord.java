@@ -0,0 +1,37 @@
+package StockMainAction.model.history;
+
+import StockMainAction.model.core.Transaction;
+
+/**
+ * Immutable view of one trade in {@link TransactionHistoryStore}, built when a query page returns it
+ * (the store itself keeps trades in columns).
+ *
+ * @param sequence store-assigned sequence, increasing in append order
+ * @param id engine trade id, or the {@link Transaction#getId()} of an appended transaction
+ * @param buyerType trader type of the buying side, or null when unknown
+ * @param sellerType trader type of the selling side, or null when unknown
+ */
+public record TradeRecord(long sequence, String id, long timestamp, double price, int volume,
+        boolean buyerInitiated, OrderKind orderKind, String buyerType, String sellerType) {
+
+    /** Order type of the aggressing order. */
+    public enum OrderKind {
+        LIMIT("限價單"),
+        MARKET("市價單"),
+        FOK("FOK單");
+
+        private final String displayName;
+
+        OrderKind(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    public double amount() {
+        return price * volume;
+    }
+}
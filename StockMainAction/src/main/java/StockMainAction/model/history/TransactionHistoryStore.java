@@ -0,0 +1,500 @@
+package StockMainAction.model.history;
+
+import StockMainAction.model.core.Trade;
+import StockMainAction.model.core.TraderTypes;
+import StockMainAction.model.core.Transaction;
+import StockMainAction.util.logging.MarketLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-session trade history in two tiers.
+ *
+ * <p>Recent trades are appended to an in-memory segment of primitive columns; a {@link TradeRecord}
+ * is only built for the rows a query page returns. When the segment fills up it is sealed, indexed
+ * (time range, price range, sides, order kinds and trader types present) and spilled to an
+ * immutable gzip file on a background thread; the in-memory copy is released once the file is
+ * written. Queries use the per-segment indexes to skip or fully count segments without reading
+ * them, decode only the segments a page actually touches, and keep a few decoded segments cached.
+ * Memory therefore stays bounded by the open segment plus the decode cache, however long the run.</p>
+ */
+public final class TransactionHistoryStore implements AutoCloseable {
+
+    private static final MarketLogger logger = MarketLogger.getInstance();
+
+    public static final int DEFAULT_SEGMENT_SIZE = 65_536;
+    public static final int DEFAULT_CACHED_SEGMENTS = 4;
+    // TraderTypes codes 1..63 get their own index bit; bit 63 also stands for every code beyond that.
+    private static final int OVERFLOW_BIT = 63;
+
+    private final int segmentSize;
+    private final int cachedSegments;
+    private final Path configuredDirectory;
+    private final ExecutorService spillExecutor;
+    private final Map<Segment, TradeColumns> decoded;
+
+    // Guarded by this.
+    private final List<Segment> sealed = new ArrayList<>();
+    private TradeColumns open;
+    private final Index openIndex = new Index();
+    private long nextSequence;
+    private long latestTimestamp = Long.MIN_VALUE;
+    private Path directory;
+    private boolean closed;
+
+    public TransactionHistoryStore() {
+        this(null, DEFAULT_SEGMENT_SIZE, DEFAULT_CACHED_SEGMENTS);
+    }
+
+    /**
+     * @param directory where segments are spilled; null creates a temporary directory on first spill
+     *                  that is deleted again on {@link #close()}
+     */
+    public TransactionHistoryStore(Path directory, int segmentSize, int cachedSegments) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive");
+        }
+        if (cachedSegments < 0) {
+            throw new IllegalArgumentException("cachedSegments must not be negative");
+        }
+        this.configuredDirectory = directory;
+        this.segmentSize = segmentSize;
+        this.cachedSegments = cachedSegments;
+        this.open = new TradeColumns(0L, segmentSize);
+        this.decoded = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Segment, TradeColumns> eldest) {
+                return size() > TransactionHistoryStore.this.cachedSegments;
+            }
+        };
+        this.spillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trade-history-spill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Appends a committed transaction and returns its sequence; sealing a full segment hands the
+     * file write to the spill thread.
+     */
+    public synchronized long append(Transaction transaction) {
+        Objects.requireNonNull(transaction, "transaction");
+        if (closed) {
+            return skip(transaction.getTimestamp());
+        }
+        open.add(transaction);
+        return appended();
+    }
+
+    /**
+     * Appends a compact engine trade (no {@link Transaction} or {@link TradeRecord} is built).
+     */
+    public synchronized long append(Trade trade) {
+        Objects.requireNonNull(trade, "trade");
+        if (closed) {
+            return skip(trade.timestamp());
+        }
+        open.add(trade);
+        return appended();
+    }
+
+    // Caller holds the lock; a closed store still counts the trade but keeps nothing.
+    private long skip(long timestamp) {
+        latestTimestamp = Math.max(latestTimestamp, timestamp);
+        return nextSequence++;
+    }
+
+    // Caller holds the lock; indexes the row just added to the open segment.
+    private long appended() {
+        int row = open.count - 1;
+        long timestamp = open.timestamps[row];
+        latestTimestamp = Math.max(latestTimestamp, timestamp);
+        openIndex.add(timestamp, open.prices[row], open.buyerInitiated(row), open.orderKind(row),
+                bit(open.buyerTypes[row]) | bit(open.sellerTypes[row]));
+        if (open.count == segmentSize) {
+            seal();
+        }
+        return nextSequence++;
+    }
+
+    /** Total trades appended this session. */
+    public synchronized long size() {
+        return nextSequence;
+    }
+
+    /** Newest trade timestamp, or {@code Long.MIN_VALUE} when empty. */
+    public synchronized long getLatestTimestamp() {
+        return latestTimestamp;
+    }
+
+    public synchronized int getSegmentCount() {
+        return sealed.size();
+    }
+
+    /** Sealed segments whose records are now only on disk. */
+    public synchronized int getSpilledSegmentCount() {
+        int spilled = 0;
+        for (Segment segment : sealed) {
+            if (segment.columns == null) spilled++;
+        }
+        return spilled;
+    }
+
+    /** Index of every sealed segment, oldest first. */
+    public synchronized List<Index> getSegmentIndexes() {
+        List<Index> indexes = new ArrayList<>(sealed.size());
+        for (Segment segment : sealed) {
+            indexes.add(segment.index);
+        }
+        return indexes;
+    }
+
+    /** Directory segments are spilled into, or null before the first spill. */
+    public synchronized Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Waits until every sealed segment has been handed to disk (mainly for tests and shutdown).
+     */
+    public void awaitSpilled(long timeout, TimeUnit unit) throws InterruptedException {
+        Future<?> marker;
+        synchronized (this) {
+            if (closed) return;
+            marker = spillExecutor.submit(() -> { });
+        }
+        try {
+            marker.get(timeout, unit);
+        } catch (java.util.concurrent.ExecutionException | java.util.concurrent.TimeoutException ignored) {
+            // The marker task itself cannot fail; a timeout just returns early.
+        }
+    }
+
+    /**
+     * Snapshot query over everything appended so far. Counting and paging happen lazily on the
+     * returned result, so call it off the EDT when the history is large.
+     */
+    public synchronized Result query(TradeQuery query) {
+        Objects.requireNonNull(query, "query");
+        List<Part> parts = new ArrayList<>(sealed.size() + 1);
+        long typeBit = bit(TraderTypes.ordinal(query.traderType()));
+        for (Segment segment : sealed) {
+            parts.add(new Part(segment, null, segment.index.count, segment.index));
+        }
+        if (open.count > 0) {
+            Index snapshot = openIndex.copy();
+            parts.add(new Part(null, open, open.count, snapshot));
+        }
+        return new Result(query, typeBit, parts);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        spillExecutor.shutdown();
+        try {
+            spillExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Path toDelete;
+        synchronized (this) {
+            toDelete = configuredDirectory == null ? directory : null;
+        }
+        synchronized (decoded) {
+            decoded.clear();
+        }
+        if (toDelete != null) {
+            try (var files = Files.list(toDelete)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+                Files.deleteIfExists(toDelete);
+            } catch (IOException e) {
+                logger.warn("無法刪除成交歷史暫存目錄：" + toDelete, "TRADE_HISTORY");
+            }
+        }
+    }
+
+    // Caller holds the lock.
+    private void seal() {
+        Segment segment = new Segment(sealed.size(), open, openIndex.copy());
+        sealed.add(segment);
+        open = new TradeColumns(open.firstSequence + open.count, segmentSize);
+        openIndex.reset();
+        spillExecutor.execute(() -> spill(segment));
+    }
+
+    private void spill(Segment segment) {
+        try {
+            Path dir = spillDirectory();
+            Path file = dir.resolve(String.format("segment-%06d.trd.gz", segment.number));
+            SegmentCodec.write(file, segment.columns);
+            synchronized (this) {
+                segment.file = file;
+                segment.columns = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep the segment in memory; history stays complete, only the memory bound is lost.
+            logger.error("成交歷史分段寫入失敗（保留於記憶體）：" + e.getMessage(), "TRADE_HISTORY");
+        }
+    }
+
+    private Path spillDirectory() throws IOException {
+        synchronized (this) {
+            if (directory == null) {
+                directory = configuredDirectory != null
+                        ? Files.createDirectories(configuredDirectory)
+                        : Files.createTempDirectory("trade-history-");
+            }
+            return directory;
+        }
+    }
+
+    private static long bit(short traderType) {
+        return traderType == TraderTypes.UNKNOWN ? 0L : 1L << Math.min(traderType - 1, OVERFLOW_BIT);
+    }
+
+    private TradeColumns load(Segment segment) {
+        TradeColumns columns;
+        Path file;
+        synchronized (this) {
+            columns = segment.columns;
+            file = segment.file;
+        }
+        if (columns != null) {
+            return columns;
+        }
+        synchronized (decoded) {
+            columns = decoded.get(segment);
+        }
+        if (columns != null) {
+            return columns;
+        }
+        try {
+            columns = SegmentCodec.read(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法讀取成交歷史分段：" + file, e);
+        }
+        synchronized (decoded) {
+            decoded.put(segment, columns);
+        }
+        return columns;
+    }
+
+    /**
+     * Lazily evaluated query snapshot. Not thread-safe; use it from one thread at a time.
+     */
+    public final class Result {
+        private final TradeQuery query;
+        private final long typeBit;
+        private final List<Part> parts;
+        private long[] counts;
+        private long total = -1L;
+
+        private Result(TradeQuery query, long typeBit, List<Part> parts) {
+            this.query = query;
+            this.typeBit = typeBit;
+            this.parts = parts;
+        }
+
+        public TradeQuery getQuery() {
+            return query;
+        }
+
+        /** Number of matching trades; reads only segments the index cannot decide on its own. */
+        public long total() {
+            if (total < 0) {
+                counts = new long[parts.size()];
+                long sum = 0L;
+                for (int i = 0; i < parts.size(); i++) {
+                    counts[i] = count(parts.get(i));
+                    sum += counts[i];
+                }
+                total = sum;
+            }
+            return total;
+        }
+
+        /**
+         * Matching trades in chronological order, starting at {@code offset}.
+         */
+        public List<TradeRecord> page(long offset, int limit) {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("offset and limit must not be negative");
+            }
+            total();
+            List<TradeRecord> page = new ArrayList<>(Math.min(limit, 1024));
+            long skip = offset;
+            for (int i = 0; i < parts.size() && page.size() < limit; i++) {
+                if (skip >= counts[i]) {
+                    skip -= counts[i];
+                    continue;
+                }
+                Part part = parts.get(i);
+                TradeColumns columns = part.columns != null ? part.columns : load(part.segment);
+                boolean all = fullyMatches(part.index);
+                for (int r = 0; r < part.count && page.size() < limit; r++) {
+                    if (all || columns.matches(query, r)) {
+                        if (skip > 0) {
+                            skip--;
+                        } else {
+                            page.add(columns.record(r));
+                        }
+                    }
+                }
+            }
+            return Collections.unmodifiableList(page);
+        }
+
+        /**
+         * Page {@code pageIndex} counted from the newest trade, newest first.
+         */
+        public List<TradeRecord> newestPage(int pageIndex, int pageSize) {
+            if (pageIndex < 0 || pageSize <= 0) {
+                throw new IllegalArgumentException("pageIndex must not be negative and pageSize must be positive");
+            }
+            long end = total() - (long) pageIndex * pageSize;
+            if (end <= 0) {
+                return List.of();
+            }
+            long start = Math.max(0L, end - pageSize);
+            List<TradeRecord> page = new ArrayList<>(page(start, (int) (end - start)));
+            Collections.reverse(page);
+            return Collections.unmodifiableList(page);
+        }
+
+        private long count(Part part) {
+            if (!mayMatch(part.index)) {
+                return 0L;
+            }
+            if (fullyMatches(part.index)) {
+                return part.count;
+            }
+            TradeColumns columns = part.columns != null ? part.columns : load(part.segment);
+            long matched = 0L;
+            for (int r = 0; r < part.count; r++) {
+                if (columns.matches(query, r)) matched++;
+            }
+            return matched;
+        }
+
+        private boolean mayMatch(Index index) {
+            return index.count > 0
+                    && index.maxTime >= query.fromMillis()
+                    && index.minTime <= query.toMillis()
+                    && (query.buyerInitiated() == null
+                            || (index.sideMask & (query.buyerInitiated() ? 2 : 1)) != 0)
+                    && (query.orderKind() == null
+                            || (index.kindMask & (1 << query.orderKind().ordinal())) != 0)
+                    && (query.traderType() == null || (index.traderTypeMask & typeBit) != 0);
+        }
+
+        private boolean fullyMatches(Index index) {
+            return query.isTimeOnly()
+                    && index.minTime >= query.fromMillis()
+                    && index.maxTime <= query.toMillis();
+        }
+    }
+
+    /** Per-segment summary used to skip or count segments without reading them. */
+    public static final class Index {
+        int count;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        double minPrice = Double.POSITIVE_INFINITY;
+        double maxPrice = Double.NEGATIVE_INFINITY;
+        int sideMask;
+        int kindMask;
+        long traderTypeMask;
+
+        void add(long timestamp, double price, boolean buyerInitiated, TradeRecord.OrderKind kind, long typeBits) {
+            count++;
+            minTime = Math.min(minTime, timestamp);
+            maxTime = Math.max(maxTime, timestamp);
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+            sideMask |= buyerInitiated ? 2 : 1;
+            kindMask |= 1 << kind.ordinal();
+            traderTypeMask |= typeBits;
+        }
+
+        Index copy() {
+            Index copy = new Index();
+            copy.count = count;
+            copy.minTime = minTime;
+            copy.maxTime = maxTime;
+            copy.minPrice = minPrice;
+            copy.maxPrice = maxPrice;
+            copy.sideMask = sideMask;
+            copy.kindMask = kindMask;
+            copy.traderTypeMask = traderTypeMask;
+            return copy;
+        }
+
+        void reset() {
+            count = 0;
+            minTime = Long.MAX_VALUE;
+            maxTime = Long.MIN_VALUE;
+            minPrice = Double.POSITIVE_INFINITY;
+            maxPrice = Double.NEGATIVE_INFINITY;
+            sideMask = 0;
+            kindMask = 0;
+            traderTypeMask = 0L;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getMinTime() {
+            return minTime;
+        }
+
+        public long getMaxTime() {
+            return maxTime;
+        }
+
+        public double getMinPrice() {
+            return minPrice;
+        }
+
+        public double getMaxPrice() {
+            return maxPrice;
+        }
+    }
+
+    private static final class Segment {
+        final int number;
+        final Index index;
+        // Guarded by the store: columns are dropped once the file is written.
+        TradeColumns columns;
+        Path file;
+
+        Segment(int number, TradeColumns columns, Index index) {
+            this.number = number;
+            this.columns = columns;
+            this.index = index;
+        }
+    }
+
+    private record Part(Segment segment, TradeColumns columns, int count, Index index) {
+    }
+}
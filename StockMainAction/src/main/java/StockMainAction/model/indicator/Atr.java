@@ -0,0 +1,57 @@
+package StockMainAction.model.indicator;
+
+/**
+ * 平均真實區間（ATR，Wilder 平滑）：真實區間 = max(高-低, |高-前收|, |低-前收|)，
+ * 前 period 根取平均為種子，之後以 (p-1)/p 遞迴平滑
+ */
+public final class Atr implements Indicator {
+
+    private final int period;
+    private boolean hasPrev;
+    private double prevClose;
+    private int seen;
+    private double atr;
+
+    public Atr(int period) {
+        if (period <= 0) throw new IllegalArgumentException("period must be positive");
+        this.period = period;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        double tr = high - low;
+        if (hasPrev) {
+            tr = Math.max(tr, Math.max(Math.abs(high - prevClose), Math.abs(low - prevClose)));
+        }
+        hasPrev = true;
+        prevClose = close;
+        if (seen < period) {
+            atr += tr;
+            if (++seen == period) {
+                atr /= period;
+            }
+            return;
+        }
+        atr = (atr * (period - 1) + tr) / period;
+    }
+
+    @Override
+    public String name() {
+        return "ATR" + period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return seen >= period;
+    }
+
+    @Override
+    public int componentCount() {
+        return 1;
+    }
+
+    @Override
+    public double value(int component) {
+        return isReady() ? atr : Double.NaN;
+    }
+}
@@ -0,0 +1,44 @@
+package StockMainAction.model.indicator;
+
+/**
+ * 布林帶：中軌與標準差取自管線共用的 {@link Sma}（與同週期的均線共用滾動和）。
+ * 輸出 [upperBand, middleBand, lowerBand]。
+ */
+public final class Bollinger implements Indicator {
+
+    private final Sma sma;
+    private final double stdDevMultiplier;
+
+    public Bollinger(IndicatorPipeline pipeline, int period, double stdDevMultiplier) {
+        this.sma = pipeline.sma(period);
+        this.stdDevMultiplier = stdDevMultiplier;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        // 狀態全在共用 SMA 內，無需額外更新
+    }
+
+    @Override
+    public String name() {
+        return "BOLL(" + sma.getPeriod() + "," + stdDevMultiplier + ")";
+    }
+
+    @Override
+    public boolean isReady() {
+        return sma.isReady();
+    }
+
+    @Override
+    public int componentCount() {
+        return 3;
+    }
+
+    @Override
+    public double value(int component) {
+        double middle = sma.mean();
+        if (component == 1) return middle;
+        double width = stdDevMultiplier * sma.populationStdDev();
+        return component == 0 ? middle + width : middle - width;
+    }
+}
@@ -0,0 +1,93 @@
+package StockMainAction.model.indicator;
+
+import java.util.Objects;
+
+/**
+ * 指數移動平均（EMA）：預設前 period 筆累加為 SMA 種子，之後逐筆平滑；
+ * {@link Seed#FIRST} 以第一筆為種子（K 線疊加均線的規則），第一筆起即有值
+ */
+public final class Ema implements Indicator {
+
+    /** 種子規則 */
+    public enum Seed {
+        /** 前 period 筆的 SMA */
+        SMA,
+        /** 第一筆數值 */
+        FIRST
+    }
+
+    private final int period;
+    private final Seed seed;
+    private final double multiplier;
+    private int seen;
+    private double seedSum;
+    private double value = Double.NaN;
+
+    public Ema(int period) {
+        this(period, Seed.SMA);
+    }
+
+    public Ema(int period, Seed seed) {
+        if (period <= 0) throw new IllegalArgumentException("period must be positive");
+        this.period = period;
+        this.seed = Objects.requireNonNull(seed, "seed");
+        this.multiplier = 2.0 / (period + 1);
+    }
+
+    /**
+     * 直接餵入一個數值（供以 EMA 平滑其他序列的指標使用，例如 MACD 訊號線）
+     */
+    public void push(double x) {
+        if (seed == Seed.FIRST) {
+            value = seen == 0 ? x : (x - value) * multiplier + value;
+            seen = 1;
+            return;
+        }
+        if (seen < period) {
+            seedSum += x;
+            if (++seen == period) {
+                value = seedSum / period;
+            }
+            return;
+        }
+        value = (x - value) * multiplier + value;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        push(close);
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public Seed getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String name() {
+        return name(period, seed);
+    }
+
+    /** 管線內的名稱：EMA12（SMA 種子）、EMA12F（首筆種子） */
+    public static String name(int period, Seed seed) {
+        return seed == Seed.FIRST ? "EMA" + period + "F" : "EMA" + period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return seed == Seed.FIRST ? seen > 0 : seen >= period;
+    }
+
+    @Override
+    public int componentCount() {
+        return 1;
+    }
+
+    @Override
+    public double value(int component) {
+        return value;
+    }
+}
@@ -0,0 +1,42 @@
+package StockMainAction.model.indicator;
+
+/**
+ * 串流技術指標 - 每根 K 線（或每個 tick）呼叫一次 {@link #update}，以 O(1) 更新內部狀態。
+ *
+ * 指標通常註冊在 {@link IndicatorPipeline} 中，由管線依註冊順序在同一輪內逐一更新；
+ * 共用的中間量（EMA、滾動和、區間極值、RSI）由管線建立並共用，同一管線內只計算一次。
+ * 實作本身不需同步，執行緒安全由管線負責。
+ */
+public interface Indicator {
+
+    /** 指標名稱（同一管線內唯一，例如 EMA12、MACD(12,26,9)） */
+    String name();
+
+    /** 餵入一根 K 線（tick 資料可將 open/high/low/close 皆設為成交價） */
+    void update(double open, double high, double low, double close, long volume);
+
+    /** 資料是否已足夠產生有效值 */
+    boolean isReady();
+
+    /** 輸出值的個數（例如 MACD 為 3：線、訊號線、柱狀圖） */
+    int componentCount();
+
+    /** 第 component 個輸出值；尚未就緒時為 NaN */
+    double value(int component);
+
+    default double value() {
+        return value(0);
+    }
+
+    /**
+     * 所有輸出值的複本；尚未就緒時回傳 null
+     */
+    default double[] values() {
+        if (!isReady()) return null;
+        double[] out = new double[componentCount()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = value(i);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,142 @@
+package StockMainAction.model.indicator;
+
+import StockMainAction.model.core.OhlcvBar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 單次走訪的技術指標管線 - 每根 K 線（或每個 tick）只走訪一次，依註冊順序更新所有指標。
+ *
+ * 共用中間量（{@link #ema}、{@link #sma}、{@link #highest}、{@link #lowest}、{@link #rsi}）
+ * 以名稱去重：MACD 與 EMA12 均線共用同一個 EMA12、布林帶與 SMA20 共用同一份滾動和。
+ * 指標在建構時向管線取得共用中間量，這些中間量會先於指標註冊，因此同一輪內一定先更新。
+ * 新增指標（例如 ATR、OBV、Stochastic RSI）只需實作 {@link Indicator} 並 {@link #add} 到管線。
+ *
+ * 更新與讀取皆以管線本身同步，可由模擬執行緒寫入、EDT 讀取。
+ */
+public final class IndicatorPipeline {
+
+    private final List<Indicator> stages = new ArrayList<>();
+    private final Map<String, Indicator> byName = new LinkedHashMap<>();
+    private long updateCount;
+
+    /**
+     * 預設指標組合：SMA5/10/20、EMA12/26、MACD(12,26,9)、BOLL(20,2)、KDJ(9,3,3)、
+     * RSI14、ATR14、OBV、STOCHRSI(14,14,3,3)
+     */
+    public static IndicatorPipeline standard() {
+        IndicatorPipeline pipeline = new IndicatorPipeline();
+        pipeline.sma(5);
+        pipeline.sma(10);
+        pipeline.sma(20);
+        pipeline.ema(12);
+        pipeline.ema(26);
+        pipeline.add(new Macd(pipeline, 12, 26, 9));
+        pipeline.add(new Bollinger(pipeline, 20, 2.0));
+        pipeline.add(new Kdj(pipeline, 9, 3, 3, Kdj.Mode.SMOOTHED));
+        pipeline.rsi(14);
+        pipeline.add(new Atr(14));
+        pipeline.add(new Obv());
+        pipeline.add(new StochRsi(pipeline, 14, 14, 3, 3));
+        return pipeline;
+    }
+
+    /**
+     * 註冊指標；名稱重複時丟出 IllegalArgumentException
+     */
+    public synchronized <T extends Indicator> T add(T indicator) {
+        String name = indicator.name();
+        if (byName.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate indicator: " + name);
+        }
+        byName.put(name, indicator);
+        stages.add(indicator);
+        return indicator;
+    }
+
+    /** 共用的 EMA（依收盤價，SMA 種子） */
+    public Ema ema(int period) {
+        return ema(period, Ema.Seed.SMA);
+    }
+
+    /** 共用的 EMA（依收盤價，指定種子規則） */
+    public Ema ema(int period, Ema.Seed seed) {
+        return shared(Ema.name(period, seed), Ema.class, () -> new Ema(period, seed));
+    }
+
+    /** 共用的 SMA／滾動標準差（依收盤價） */
+    public Sma sma(int period) {
+        return shared("SMA" + period, Sma.class, () -> new Sma(period));
+    }
+
+    /** 共用的區間最高價 */
+    public RollingExtreme highest(int period) {
+        return shared("HIGH" + period, RollingExtreme.class, () -> new RollingExtreme(period, true));
+    }
+
+    /** 共用的區間最低價 */
+    public RollingExtreme lowest(int period) {
+        return shared("LOW" + period, RollingExtreme.class, () -> new RollingExtreme(period, false));
+    }
+
+    /** 共用的 RSI（Wilder） */
+    public Rsi rsi(int period) {
+        return shared("RSI" + period, Rsi.class, () -> new Rsi(period));
+    }
+
+    private synchronized <T extends Indicator> T shared(String name, Class<T> type, Supplier<T> factory) {
+        Indicator existing = byName.get(name);
+        if (existing != null) {
+            if (!type.isInstance(existing)) {
+                throw new IllegalStateException("Indicator " + name + " is not a " + type.getSimpleName());
+            }
+            return type.cast(existing);
+        }
+        return add(factory.get());
+    }
+
+    /**
+     * 餵入一根 K 線，單次走訪更新所有指標
+     */
+    public synchronized void update(double open, double high, double low, double close, long volume) {
+        updateCount++;
+        for (int i = 0, n = stages.size(); i < n; i++) {
+            stages.get(i).update(open, high, low, close, volume);
+        }
+    }
+
+    public void update(OhlcvBar bar) {
+        update(bar.open(), bar.high(), bar.low(), bar.close(), bar.volume());
+    }
+
+    /** 以單一價格更新（tick 資料，無成交量） */
+    public void updatePrice(double price) {
+        update(price, price, price, price, 0L);
+    }
+
+    public synchronized long getUpdateCount() {
+        return updateCount;
+    }
+
+    public synchronized Indicator get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * 指定指標目前的輸出值；不存在或尚未就緒時回傳 null
+     */
+    public synchronized double[] values(String name) {
+        Indicator indicator = byName.get(name);
+        return indicator != null ? indicator.values() : null;
+    }
+
+    /** 依註冊（更新）順序的指標名稱 */
+    public synchronized List<String> names() {
+        return Collections.unmodifiableList(new ArrayList<>(byName.keySet()));
+    }
+}
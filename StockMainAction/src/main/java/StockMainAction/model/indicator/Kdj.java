@@ -0,0 +1,114 @@
+package StockMainAction.model.indicator;
+
+/**
+ * KDJ 隨機指標：區間最高價/最低價取自管線共用的 {@link RollingExtreme}。
+ * 輸出 [K, D, J]。
+ *
+ * 支援專案中既有的兩種算法：
+ * <ul>
+ *   <li>{@link Mode#SIMPLE}：K = 當前 RSV（區間無振幅時為 50），D = 最近 dPeriod 筆 RSV 的平均
+ *       （歷史 RSV 在無振幅時記為 0；樣本不足時 D = K）</li>
+ *   <li>{@link Mode#SMOOTHED}：K、D 由 50 起算，K = (前K × (k-1) + RSV) / k，
+ *       累積 dPeriod 個 K 後 D = (前D × (d-1) + K) / d，J 限制在 0~100</li>
+ * </ul>
+ */
+public final class Kdj implements Indicator {
+
+    public enum Mode {
+        SIMPLE, SMOOTHED
+    }
+
+    private final RollingExtreme highest;
+    private final RollingExtreme lowest;
+    private final int nPeriod;
+    private final int kPeriod;
+    private final int dPeriod;
+    private final Mode mode;
+
+    private double lastClose = Double.NaN;
+    // SIMPLE：最近 dPeriod 筆 RSV 的環狀緩衝
+    private final double[] rsvWindow;
+    private int rsvCount;
+    private double rsvSum;
+    // SMOOTHED：遞迴平滑的 K、D
+    private double k = 50.0;
+    private double d = 50.0;
+    private int kCount;
+    private int dCount;
+
+    public Kdj(IndicatorPipeline pipeline, int nPeriod, int kPeriod, int dPeriod, Mode mode) {
+        if (kPeriod <= 0 || dPeriod <= 0) throw new IllegalArgumentException("periods must be positive");
+        this.highest = pipeline.highest(nPeriod);
+        this.lowest = pipeline.lowest(nPeriod);
+        this.nPeriod = nPeriod;
+        this.kPeriod = kPeriod;
+        this.dPeriod = dPeriod;
+        this.mode = java.util.Objects.requireNonNull(mode, "mode");
+        this.rsvWindow = new double[dPeriod];
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        lastClose = close;
+        if (!highest.isReady()) return;
+        double hh = highest.extreme();
+        double ll = lowest.extreme();
+        double rsv = hh != ll ? ((close - ll) / (hh - ll)) * 100 : 0.0;
+        if (mode == Mode.SIMPLE) {
+            int slot = rsvCount % dPeriod;
+            if (rsvCount >= dPeriod) {
+                rsvSum -= rsvWindow[slot];
+            }
+            rsvWindow[slot] = rsv;
+            rsvSum += rsv;
+            rsvCount++;
+            return;
+        }
+        k = (k * (kPeriod - 1) + rsv) / kPeriod;
+        if (++kCount >= dPeriod) {
+            d = (d * (dPeriod - 1) + k) / dPeriod;
+            dCount++;
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public String name() {
+        return "KDJ(" + nPeriod + "," + kPeriod + "," + dPeriod + (mode == Mode.SIMPLE ? ",simple)" : ")");
+    }
+
+    @Override
+    public boolean isReady() {
+        return mode == Mode.SIMPLE ? highest.isReady() : dCount > 0;
+    }
+
+    @Override
+    public int componentCount() {
+        return 3;
+    }
+
+    @Override
+    public double value(int component) {
+        if (!isReady()) return Double.NaN;
+        double kValue;
+        double dValue;
+        if (mode == Mode.SIMPLE) {
+            double hh = highest.extreme();
+            double ll = lowest.extreme();
+            // 預設中性，避免極端值造成後續J失真
+            kValue = hh != ll ? ((lastClose - ll) / (hh - ll)) * 100 : 50.0;
+            // 若樣本不足，先用 K 當作 D，避免 0 造成 J 爆衝
+            dValue = rsvCount >= dPeriod ? rsvSum / dPeriod : kValue;
+        } else {
+            kValue = k;
+            dValue = d;
+        }
+        if (component == 0) return kValue;
+        if (component == 1) return dValue;
+        double j = 3 * kValue - 2 * dValue;
+        return mode == Mode.SMOOTHED ? Math.max(0, Math.min(100, j)) : j;
+    }
+}
@@ -0,0 +1,58 @@
+package StockMainAction.model.indicator;
+
+/**
+ * MACD：短/長 EMA 取自管線共用實例，MACD 線就緒後逐筆餵給訊號線 EMA。
+ * 輸出 [macdLine, signalLine, histogram]。
+ */
+public final class Macd implements Indicator {
+
+    private final Ema shortEma;
+    private final Ema longEma;
+    private final Ema signalEma;
+    private double macdLine = Double.NaN;
+
+    public Macd(IndicatorPipeline pipeline, int shortPeriod, int longPeriod, int signalPeriod) {
+        if (shortPeriod >= longPeriod) {
+            throw new IllegalArgumentException("shortPeriod must be less than longPeriod");
+        }
+        this.shortEma = pipeline.ema(shortPeriod);
+        this.longEma = pipeline.ema(longPeriod);
+        this.signalEma = new Ema(signalPeriod);
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        // 共用 EMA 已由管線先行更新
+        if (longEma.isReady()) {
+            macdLine = shortEma.value() - longEma.value();
+            signalEma.push(macdLine);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "MACD(" + shortEma.getPeriod() + "," + longEma.getPeriod() + "," + signalEma.getPeriod() + ")";
+    }
+
+    @Override
+    public boolean isReady() {
+        return signalEma.isReady();
+    }
+
+    @Override
+    public int componentCount() {
+        return 3;
+    }
+
+    @Override
+    public double value(int component) {
+        switch (component) {
+            case 0:
+                return macdLine;
+            case 1:
+                return signalEma.value();
+            default:
+                return macdLine - signalEma.value();
+        }
+    }
+}
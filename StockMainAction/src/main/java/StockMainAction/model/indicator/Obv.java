@@ -0,0 +1,44 @@
+package StockMainAction.model.indicator;
+
+/**
+ * 能量潮（OBV）：收盤上漲加上成交量、下跌減去成交量，平盤不變；第一根 K 線為 0
+ */
+public final class Obv implements Indicator {
+
+    private boolean hasPrev;
+    private double prevClose;
+    private long obv;
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        if (hasPrev) {
+            if (close > prevClose) {
+                obv += volume;
+            } else if (close < prevClose) {
+                obv -= volume;
+            }
+        }
+        hasPrev = true;
+        prevClose = close;
+    }
+
+    @Override
+    public String name() {
+        return "OBV";
+    }
+
+    @Override
+    public boolean isReady() {
+        return hasPrev;
+    }
+
+    @Override
+    public int componentCount() {
+        return 1;
+    }
+
+    @Override
+    public double value(int component) {
+        return hasPrev ? obv : Double.NaN;
+    }
+}
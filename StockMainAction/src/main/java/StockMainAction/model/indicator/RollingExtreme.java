@@ -0,0 +1,88 @@
+package StockMainAction.model.indicator;
+
+/**
+ * 滑動視窗極值：單調佇列（以環狀陣列實作），佇列頭即視窗內最大（或最小）值。
+ * 作為管線指標時，最大值追蹤 K 線最高價、最小值追蹤最低價。
+ */
+public final class RollingExtreme implements Indicator {
+
+    private final int period;
+    private final boolean max;
+    private final long[] indices;
+    private final double[] values;
+    private long count;
+    private int head;
+    private int size;
+
+    public RollingExtreme(int period, boolean max) {
+        if (period <= 0) throw new IllegalArgumentException("period must be positive");
+        this.period = period;
+        this.max = max;
+        this.indices = new long[period];
+        this.values = new double[period];
+    }
+
+    /**
+     * 直接餵入一個數值（供對其他序列取區間極值的指標使用，例如 Stochastic RSI）
+     */
+    public void push(double value) {
+        long index = count++;
+        // 移出視窗外的舊值
+        while (size > 0 && indices[head] <= index - period) {
+            head = (head + 1) % period;
+            size--;
+        }
+        // 從尾端移除被新值支配的元素
+        while (size > 0) {
+            int tail = (head + size - 1) % period;
+            double v = values[tail];
+            if (max ? v <= value : v >= value) {
+                size--;
+            } else {
+                break;
+            }
+        }
+        int slot = (head + size) % period;
+        indices[slot] = index;
+        values[slot] = value;
+        size++;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        push(max ? high : low);
+    }
+
+    /** 目前視窗內的極值（視窗未滿時為已見資料的極值）；尚無資料時為 NaN */
+    public double extreme() {
+        return size > 0 ? values[head] : Double.NaN;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public boolean isMax() {
+        return max;
+    }
+
+    @Override
+    public String name() {
+        return (max ? "HIGH" : "LOW") + period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public int componentCount() {
+        return 1;
+    }
+
+    @Override
+    public double value(int component) {
+        return extreme();
+    }
+}
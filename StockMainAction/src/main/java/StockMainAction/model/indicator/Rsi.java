@@ -0,0 +1,72 @@
+package StockMainAction.model.indicator;
+
+/**
+ * 相對強弱指標（RSI，Wilder 平滑）：前 period 個漲跌幅取平均為種子，之後以 (p-1)/p 遞迴平滑
+ */
+public final class Rsi implements Indicator {
+
+    private final int period;
+    private boolean hasPrev;
+    private double prevClose;
+    private int changes;
+    private double avgGain;
+    private double avgLoss;
+
+    public Rsi(int period) {
+        if (period <= 0) throw new IllegalArgumentException("period must be positive");
+        this.period = period;
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        if (!hasPrev) {
+            hasPrev = true;
+            prevClose = close;
+            return;
+        }
+        double change = close - prevClose;
+        prevClose = close;
+        double gain = Math.max(change, 0.0);
+        double loss = Math.max(-change, 0.0);
+        if (changes < period) {
+            // 種子期間先累加，滿 period 筆後取平均
+            avgGain += gain;
+            avgLoss += loss;
+            if (++changes == period) {
+                avgGain /= period;
+                avgLoss /= period;
+            }
+            return;
+        }
+        avgGain = (avgGain * (period - 1) + gain) / period;
+        avgLoss = (avgLoss * (period - 1) + loss) / period;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    @Override
+    public String name() {
+        return "RSI" + period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return changes >= period;
+    }
+
+    @Override
+    public int componentCount() {
+        return 1;
+    }
+
+    @Override
+    public double value(int component) {
+        if (!isReady()) return Double.NaN;
+        if (avgLoss == 0.0) {
+            return avgGain == 0.0 ? 50.0 : 100.0;
+        }
+        return 100.0 - 100.0 / (1.0 + avgGain / avgLoss);
+    }
+}
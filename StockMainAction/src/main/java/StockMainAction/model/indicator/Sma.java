@@ -0,0 +1,128 @@
+package StockMainAction.model.indicator;
+
+/**
+ * 簡單移動平均（SMA）：環狀緩衝維護最近 period 筆的滾動和與平方和，
+ * 同時提供母體標準差（布林帶共用同一份滾動和）
+ */
+public final class Sma implements Indicator {
+
+    // 滾動和每累積這麼多筆就以緩衝區重新加總一次，避免浮點誤差累積（攤銷後仍為 O(1)）
+    private static final int RESYNC_INTERVAL = 1024;
+
+    private final int period;
+    private final double[] window;
+    private long count;
+    private double sum;
+    private double sumSq;
+    private int sinceResync;
+
+    public Sma(int period) {
+        if (period <= 0) throw new IllegalArgumentException("period must be positive");
+        this.period = period;
+        this.window = new double[period];
+    }
+
+    /**
+     * 直接餵入一個數值（供平滑其他序列的指標使用，例如 Stochastic RSI 的 %K/%D）
+     */
+    public void push(double x) {
+        int slot = (int) (count % period);
+        if (count >= period) {
+            double old = window[slot];
+            sum -= old;
+            sumSq -= old * old;
+        }
+        window[slot] = x;
+        sum += x;
+        sumSq += x * x;
+        count++;
+        if (++sinceResync >= RESYNC_INTERVAL) {
+            resync();
+        }
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        push(close);
+    }
+
+    /** 視窗平均；未滿 period 筆時為 NaN */
+    public double mean() {
+        return isReady() ? sum / period : Double.NaN;
+    }
+
+    /** 暖機期間以已有筆數平均（K 線疊加均線的規則）；尚無資料時為 NaN */
+    public double partialMean() {
+        return count == 0 ? Double.NaN : sum / Math.min(count, period);
+    }
+
+    /** 暖機期間以已有筆數計算的母體標準差；尚無資料時為 NaN */
+    public double partialPopulationStdDev() {
+        if (count == 0) return Double.NaN;
+        int n = (int) Math.min(count, period);
+        double mean = sum / n;
+        return Math.sqrt(Math.max(0.0, sumSq / n - mean * mean));
+    }
+
+    /**
+     * 下一筆數值進來後仍留在視窗內的部分（最近 min(count, period-1) 筆的和與筆數）；
+     * 供尚未收盤的 K 線以目前收盤價推算 {@link #partialMean}，不改變指標狀態
+     */
+    public Tail tail() {
+        if (count < period) return new Tail(sum, (int) count);
+        return new Tail(sum - window[(int) (count % period)], period - 1);
+    }
+
+    /** {@link #tail()} 的結果 */
+    public record Tail(double sum, int count) {
+
+        /** 加入 x 之後的 partialMean */
+        public double meanWith(double x) {
+            return (sum + x) / (count + 1);
+        }
+    }
+
+    /** 視窗母體標準差；未滿 period 筆時為 NaN */
+    public double populationStdDev() {
+        if (!isReady()) return Double.NaN;
+        double mean = sum / period;
+        return Math.sqrt(Math.max(0.0, sumSq / period - mean * mean));
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    @Override
+    public String name() {
+        return "SMA" + period;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public int componentCount() {
+        return 1;
+    }
+
+    @Override
+    public double value(int component) {
+        return mean();
+    }
+
+    private void resync() {
+        sinceResync = 0;
+        int n = (int) Math.min(count, period);
+        double s = 0;
+        double sq = 0;
+        for (int i = 0; i < n; i++) {
+            s += window[i];
+            sq += window[i] * window[i];
+        }
+        sum = s;
+        sumSq = sq;
+    }
+}
@@ -0,0 +1,62 @@
+package StockMainAction.model.indicator;
+
+/**
+ * Stochastic RSI：以管線共用的 {@link Rsi} 為輸入，取 stochPeriod 區間內的相對位置
+ * (RSI - 最低) / (最高 - 最低) × 100（無振幅時為 50），再以 SMA 平滑出 %K 與 %D。
+ * 輸出 [%K, %D]。
+ */
+public final class StochRsi implements Indicator {
+
+    private final Rsi rsi;
+    private final int stochPeriod;
+    private final RollingExtreme rsiHigh;
+    private final RollingExtreme rsiLow;
+    private final Sma kSmoothing;
+    private final Sma dSmoothing;
+
+    public StochRsi(IndicatorPipeline pipeline, int rsiPeriod, int stochPeriod, int kPeriod, int dPeriod) {
+        this.rsi = pipeline.rsi(rsiPeriod);
+        this.stochPeriod = stochPeriod;
+        this.rsiHigh = new RollingExtreme(stochPeriod, true);
+        this.rsiLow = new RollingExtreme(stochPeriod, false);
+        this.kSmoothing = new Sma(kPeriod);
+        this.dSmoothing = new Sma(dPeriod);
+    }
+
+    @Override
+    public void update(double open, double high, double low, double close, long volume) {
+        if (!rsi.isReady()) return;
+        double value = rsi.value();
+        rsiHigh.push(value);
+        rsiLow.push(value);
+        if (!rsiHigh.isReady()) return;
+        double hh = rsiHigh.extreme();
+        double ll = rsiLow.extreme();
+        double stoch = hh != ll ? (value - ll) / (hh - ll) * 100 : 50.0;
+        kSmoothing.push(stoch);
+        if (kSmoothing.isReady()) {
+            dSmoothing.push(kSmoothing.mean());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "STOCHRSI(" + rsi.getPeriod() + "," + stochPeriod + "," + kSmoothing.getPeriod()
+                + "," + dSmoothing.getPeriod() + ")";
+    }
+
+    @Override
+    public boolean isReady() {
+        return dSmoothing.isReady();
+    }
+
+    @Override
+    public int componentCount() {
+        return 2;
+    }
+
+    @Override
+    public double value(int component) {
+        return component == 0 ? kSmoothing.mean() : dSmoothing.mean();
+    }
+}
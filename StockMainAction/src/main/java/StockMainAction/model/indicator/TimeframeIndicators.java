@@ -0,0 +1,128 @@
+package StockMainAction.model.indicator;
+
+import StockMainAction.model.core.BarClosedListener;
+import StockMainAction.model.core.OhlcvBar;
+import StockMainAction.model.core.OhlcvBarEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 多週期指標 - 每個 K 線週期各有一條 {@link IndicatorPipeline}，訂閱
+ * {@link StockMainAction.model.core.OhlcvBarEngine} 的收盤事件，每根收盤 K 線只走訪一次對應週期的管線。
+ *
+ * 讀取端（例如 K 線圖的均線疊加）可用 {@link #extend} 追加自己需要的指標，新指標以 K 線引擎保留的
+ * 已收盤 K 線暖機；{@link #read} 在不與收盤更新交錯的情況下一次讀出同一根 K 線的多個指標值。
+ */
+public final class TimeframeIndicators implements BarClosedListener {
+
+    /** 尚無收盤 K 線時 {@link #lastClosedStart} 的回傳值 */
+    public static final long NO_BAR = Long.MIN_VALUE;
+
+    private final long[] timeframes;
+    private final Supplier<IndicatorPipeline> factory;
+    private final List<Consumer<IndicatorPipeline>> extensions = new ArrayList<>();
+    private final Map<Long, IndicatorPipeline> pipelines = new HashMap<>();
+    private final Map<Long, Long> lastClosedStart = new HashMap<>();
+
+    public TimeframeIndicators(long[] timeframes, Supplier<IndicatorPipeline> factory) {
+        this.timeframes = timeframes.clone();
+        this.factory = Objects.requireNonNull(factory, "factory");
+        clear();
+    }
+
+    @Override
+    public synchronized void onBarClosed(OhlcvBar bar) {
+        IndicatorPipeline pipeline = pipelines.get(bar.timeframeMillis());
+        if (pipeline != null) {
+            pipeline.update(bar);
+            lastClosedStart.put(bar.timeframeMillis(), bar.startMillis());
+        }
+    }
+
+    /** 指定週期的管線；不支援的週期回傳 null */
+    public synchronized IndicatorPipeline pipeline(long timeframeMillis) {
+        return pipelines.get(timeframeMillis);
+    }
+
+    /**
+     * 指定週期、指標的最新值（以已收盤 K 線計算）；不存在或尚未就緒時回傳 null
+     */
+    public synchronized double[] values(long timeframeMillis, String indicatorName) {
+        IndicatorPipeline pipeline = pipelines.get(timeframeMillis);
+        return pipeline != null ? pipeline.values(indicatorName) : null;
+    }
+
+    /** 指定週期最近一根已餵入管線的收盤 K 線開始時間；尚無時為 {@link #NO_BAR} */
+    public synchronized long lastClosedStart(long timeframeMillis) {
+        return lastClosedStart.getOrDefault(timeframeMillis, NO_BAR);
+    }
+
+    /**
+     * 以 reader 讀取指定週期的管線，期間不會有新的收盤 K 線寫入；不支援的週期回傳 null
+     */
+    public synchronized <T> T read(long timeframeMillis, Function<IndicatorPipeline, T> reader) {
+        IndicatorPipeline pipeline = pipelines.get(timeframeMillis);
+        return pipeline != null ? reader.apply(pipeline) : null;
+    }
+
+    /**
+     * 在所有週期的管線追加指標（同名指標由管線去重，不會重複計算）。
+     * 本次新建的指標以 history 中已餵入管線的收盤 K 線暖機，之後隨收盤事件更新；
+     * {@link #clear} 重建管線時會再次套用。
+     */
+    public synchronized void extend(OhlcvBarEngine history, Consumer<IndicatorPipeline> extension) {
+        Objects.requireNonNull(extension, "extension");
+        extensions.add(extension);
+        for (long tf : timeframes) {
+            IndicatorPipeline pipeline = pipelines.get(tf);
+            Set<String> before = new HashSet<>(pipeline.names());
+            extension.accept(pipeline);
+            List<Indicator> added = new ArrayList<>();
+            for (String name : pipeline.names()) {
+                if (!before.contains(name)) added.add(pipeline.get(name));
+            }
+            if (added.isEmpty() || history == null) continue;
+            long last = lastClosedStart(tf);
+            synchronized (pipeline) {
+                for (OhlcvBar bar : history.bars(tf)) {
+                    // 引擎已收盤但尚未送達本物件的 K 線稍後由 onBarClosed 更新，這裡略過
+                    if (bar.startMillis() > last) break;
+                    for (Indicator indicator : added) {
+                        indicator.update(bar.open(), bar.high(), bar.low(), bar.close(), bar.volume());
+                    }
+                }
+            }
+        }
+    }
+
+    public long[] getTimeframes() {
+        return timeframes.clone();
+    }
+
+    /** 重建所有週期的管線（重新開始模擬時使用） */
+    public synchronized void clear() {
+        lastClosedStart.clear();
+        for (long tf : timeframes) {
+            IndicatorPipeline pipeline = factory.get();
+            for (Consumer<IndicatorPipeline> extension : extensions) {
+                extension.accept(pipeline);
+            }
+            pipelines.put(tf, pipeline);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TimeframeIndicators" + Arrays.toString(timeframes);
+    }
+}
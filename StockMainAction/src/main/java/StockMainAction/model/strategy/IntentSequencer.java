@@ -0,0 +1,107 @@
+package StockMainAction.model.strategy;
+
+import StockMainAction.model.core.OrderBook;
+import StockMainAction.model.core.Trader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Deferred command capture for the parallel decision phase. While an agent decides inside
+ * {@link #capture}, its intents and cancellations are recorded instead of reaching the book,
+ * so every agent sees the same frozen market. {@link #order} then fixes a seed-derived
+ * submission order that does not depend on how many threads ran the decisions.
+ *
+ * <p>A deferred intent returns {@link StrategyExecutionResult#deferred()}. Result callbacks
+ * registered with the intent or cancellation run during {@link AgentBatch#replay()}, right after
+ * the command executes, so agents record the same outcomes they would see when submitting
+ * directly.</p>
+ */
+public final class IntentSequencer {
+    private static final ThreadLocal<AgentBatch> CAPTURE = new ThreadLocal<>();
+
+    private IntentSequencer() { }
+
+    public static AgentBatch capture(Trader trader, OrderBook book, Runnable decision) {
+        if (CAPTURE.get() != null) throw new IllegalStateException("capture already active");
+        AgentBatch batch = new AgentBatch(trader, book);
+        CAPTURE.set(batch);
+        try {
+            decision.run();
+        } finally {
+            CAPTURE.remove();
+        }
+        return batch;
+    }
+
+    public static boolean isCapturing() {
+        return CAPTURE.get() != null;
+    }
+
+    /**
+     * Records an intent and returns a pending result; {@code onResult} (may be null) receives
+     * the real result when the batch is replayed.
+     */
+    public static StrategyExecutionResult deferIntent(OrderIntent intent,
+            Consumer<StrategyExecutionResult> onResult) {
+        current().commands.add(new DeferredIntent(Objects.requireNonNull(intent, "intent"), onResult));
+        return StrategyExecutionResult.deferred();
+    }
+
+    /**
+     * Records a cancellation; the caller optimistically sees it as successful. {@code onCancelled}
+     * (may be null) runs on replay only if the order was actually cancelled.
+     */
+    public static boolean deferCancel(String orderId, Runnable onCancelled) {
+        if (orderId == null || orderId.isBlank()) return false;
+        current().commands.add(new DeferredCancel(orderId, onCancelled));
+        return true;
+    }
+
+    /** Returns the items shuffled by {@code seed}; the input order must itself be stable. */
+    public static <T> List<T> order(List<T> items, long seed) {
+        List<T> ordered = new ArrayList<>(items);
+        Collections.shuffle(ordered, new Random(seed));
+        return ordered;
+    }
+
+    private static AgentBatch current() {
+        AgentBatch batch = CAPTURE.get();
+        if (batch == null) throw new IllegalStateException("no capture active");
+        return batch;
+    }
+
+    /** Commands emitted by one agent, replayed in emission order. */
+    public static final class AgentBatch {
+        private final Trader trader;
+        private final OrderBook book;
+        private final List<Object> commands = new ArrayList<>();
+
+        private AgentBatch(Trader trader, OrderBook book) {
+            this.trader = Objects.requireNonNull(trader, "trader");
+            this.book = Objects.requireNonNull(book, "book");
+        }
+
+        public Trader trader() { return trader; }
+        public int size() { return commands.size(); }
+
+        /** Executes the commands and delivers their results; must run outside a capture. */
+        public void replay() {
+            for (Object command : commands) {
+                if (command instanceof DeferredIntent deferred) {
+                    trader.executeIntent(book, deferred.intent(), deferred.onResult());
+                } else {
+                    DeferredCancel cancel = (DeferredCancel) command;
+                    trader.cancelOrder(book, cancel.orderId(), cancel.onCancelled());
+                }
+            }
+        }
+    }
+
+    private record DeferredIntent(OrderIntent intent, Consumer<StrategyExecutionResult> onResult) { }
+
+    private record DeferredCancel(String orderId, Runnable onCancelled) { }
+}
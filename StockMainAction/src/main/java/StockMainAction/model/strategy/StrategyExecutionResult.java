@@ -3,8 +3,32 @@ package StockMainAction.model.strategy;
 import StockMainAction.model.core.ExecutionResult;
 import StockMainAction.model.core.OrderSubmissionResult;
 
+/**
+ * Outcome of one executed intent. A {@linkplain #deferred() pending} result is returned while the
+ * parallel decision phase defers the intent: it carries no outcome, and callers that need one
+ * must pass a result callback to {@link StockMainAction.model.core.Trader#executeIntent}.
+ */
 public record StrategyExecutionResult(
         boolean accepted,
         OrderSubmissionResult submission,
         ExecutionResult execution,
-        String failureReason) { }
+        String failureReason,
+        boolean pending) {
+
+    private static final StrategyExecutionResult PENDING =
+            new StrategyExecutionResult(false, null, null, null, true);
+
+    public StrategyExecutionResult(boolean accepted, OrderSubmissionResult submission,
+            ExecutionResult execution, String failureReason) {
+        this(accepted, submission, execution, failureReason, false);
+    }
+
+    public static StrategyExecutionResult deferred() {
+        return PENDING;
+    }
+
+    /** Shares filled immediately; 0 for resting limit orders, rejections and pending results. */
+    public int filledVolume() {
+        return execution == null ? 0 : execution.filledVolume();
+    }
+}
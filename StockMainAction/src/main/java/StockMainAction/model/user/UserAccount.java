@@ -1,16 +1,26 @@
 package StockMainAction.model.user;
 
+import StockMainAction.model.account.AccountAuditFile;
 import StockMainAction.model.account.AccountLedger;
 import StockMainAction.model.account.AccountSnapshot;
+import StockMainAction.model.account.AccountTotals;
 import StockMainAction.model.account.AccountMutationResult;
+import StockMainAction.util.logging.MarketLogger;
 import java.util.List;
 
-/** Backward-compatible account facade backed by the invariant-safe ledger. */
+/**
+ * Backward-compatible account facade backed by the invariant-safe ledger.
+ *
+ * <p>When {@code -Daccount.audit.journal} is set, ledgers spill their audit entries to the
+ * shared {@link AccountAuditFile} and {@link #auditTrail()} is empty. Isolated logging scopes
+ * (parameter sweeps) keep their audit trail in memory.</p>
+ */
 public class UserAccount {
     private final AccountLedger ledger;
 
     public UserAccount(double initialFunds, int initialStocks) {
-        this.ledger = new AccountLedger(initialFunds, initialStocks);
+        this.ledger = new AccountLedger(initialFunds, initialStocks,
+                MarketLogger.isIsolated() ? null : AccountAuditFile.configured());
     }
 
     public boolean freezeFunds(double amount) { return ledger.reserveFunds(amount); }
@@ -32,6 +42,7 @@ public class UserAccount {
     public int getTotalStocks() { return ledger.snapshot().totalStocks(); }
     public AccountSnapshot snapshot() { return ledger.snapshot(); }
     public List<AccountMutationResult> auditTrail() { return ledger.auditTrail(); }
+    public void attachTotals(AccountTotals totals) { ledger.attachTotals(totals); }
 
     public static void settleTrade(UserAccount buyer, UserAccount seller,
             double buyerReservedAmount, double executionAmount, int quantity,
@@ -20,7 +20,9 @@ public final class AsyncMarketLogger {
     }
 
     public void warn(String message, String category) {
-        if (!queue.offer(new Entry(message, category))) droppedCount.incrementAndGet();
+        // 記下呼叫端的隔離記錄器，背景執行緒寫出時仍落在同一個模擬的日誌
+        MarketLogger target = MarketLogger.isIsolated() ? MarketLogger.current() : delegate;
+        if (!queue.offer(new Entry(message, category, target))) droppedCount.incrementAndGet();
     }
 
     public long droppedCount() {
@@ -32,7 +34,7 @@ public final class AsyncMarketLogger {
             try {
                 Entry entry = queue.take();
                 try {
-                    delegate.warn(entry.message(), entry.category());
+                    entry.target().warn(entry.message(), entry.category());
                 } catch (RuntimeException ex) {
                     droppedCount.incrementAndGet();
                 }
@@ -42,5 +44,5 @@ public final class AsyncMarketLogger {
         }
     }
 
-    private record Entry(String message, String category) { }
+    private record Entry(String message, String category, MarketLogger target) { }
 }
@@ -0,0 +1,180 @@
+package StockMainAction.util.logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * 決策因子二進位欄式檔（.dfb）匯出工具：轉成與 CSV 模式相同欄位的 CSV
+ *
+ * <pre>
+ * java -cp ... StockMainAction.util.logging.DecisionFactorExporter decision_factors_2026-01-01.dfb [輸出.csv]
+ * </pre>
+ * 未指定輸出檔時寫到標準輸出；檔尾寫到一半的區塊會被略過。
+ */
+public final class DecisionFactorExporter {
+
+    private DecisionFactorExporter() {
+    }
+
+    /**
+     * 依序讀出檔案中的所有列
+     */
+    static void read(Path file, Consumer<DecisionFactorWriter.Row> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            List<String> dictionary = new ArrayList<>();
+            int version = 0;
+            while (true) {
+                int marker;
+                try {
+                    marker = in.readInt();
+                } catch (EOFException end) {
+                    return;
+                }
+                try {
+                    if (marker == DecisionFactorWriter.MAGIC) {
+                        // 新的寫入階段：字典重新編號
+                        version = in.readInt();
+                        if (version < 1 || version > DecisionFactorWriter.VERSION) {
+                            throw new IOException("Unsupported decision factor file version: " + file);
+                        }
+                        dictionary.clear();
+                        continue;
+                    }
+                    if (version == 0) {
+                        throw new IOException("Not a decision factor file: " + file);
+                    }
+                    readBlock(in, marker, version, dictionary, consumer);
+                } catch (EOFException truncated) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void readBlock(DataInputStream in, int n, int version, List<String> dictionary,
+                                  Consumer<DecisionFactorWriter.Row> consumer) throws IOException {
+        int symbols = in.readInt();
+        for (int i = 0; i < symbols; i++) {
+            dictionary.add(in.readUTF());
+        }
+        long[] timestamps = new long[n];
+        long previous = 0L;
+        for (int i = 0; i < n; i++) {
+            previous += in.readLong();
+            timestamps[i] = previous;
+        }
+        String[] actors = readSymbols(in, n, version, dictionary);
+        String[] phases = readSymbols(in, n, version, dictionary);
+        String[] actions = readSymbols(in, n, version, dictionary);
+        String[] orderTypes = readSymbols(in, n, version, dictionary);
+        int[] volumes = readInts(in, n);
+        double[] prices = readDoubles(in, n);
+        int[] inPcts = readInts(in, n);
+        int[] outPcts = readInts(in, n);
+        long[] deltas = new long[n];
+        for (int i = 0; i < n; i++) deltas[i] = in.readLong();
+        double[] tps = readDoubles(in, n);
+        double[] vps = readDoubles(in, n);
+        double[] imbalances = readDoubles(in, n);
+        int[] thresholds = readInts(in, n);
+        double[] positionScales = readDoubles(in, n);
+        double[] macdHists = readDoubles(in, n);
+        double[] kVals = readDoubles(in, n);
+        byte[] walls = new byte[n];
+        in.readFully(walls);
+        for (int i = 0; i < n; i++) {
+            consumer.accept(new DecisionFactorWriter.Row(timestamps[i], actors[i], phases[i], actions[i],
+                    orderTypes[i], volumes[i], prices[i], inPcts[i], outPcts[i], deltas[i], tps[i], vps[i],
+                    imbalances[i], thresholds[i], positionScales[i], macdHists[i], kVals[i],
+                    (walls[i] & 1) != 0, (walls[i] & 2) != 0));
+        }
+    }
+
+    // 版本 1 以 short 儲存字典編號，之後為 int
+    private static String[] readSymbols(DataInputStream in, int n, int version, List<String> dictionary)
+            throws IOException {
+        String[] values = new String[n];
+        for (int i = 0; i < n; i++) {
+            int code = version == 1 ? in.readShort() : in.readInt();
+            if (code == DecisionFactorWriter.NULL_SYMBOL) {
+                values[i] = null;
+            } else if (code < 0 || code >= dictionary.size()) {
+                throw new IOException("Corrupt decision factor symbol code: " + code);
+            } else {
+                values[i] = dictionary.get(code);
+            }
+        }
+        return values;
+    }
+
+    private static int[] readInts(DataInputStream in, int n) throws IOException {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) values[i] = in.readInt();
+        return values;
+    }
+
+    private static double[] readDoubles(DataInputStream in, int n) throws IOException {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) values[i] = in.readDouble();
+        return values;
+    }
+
+    /**
+     * 匯出為 CSV（含標題列）
+     *
+     * @return 匯出的列數
+     */
+    public static long exportCsv(Path file, Writer out, ZoneId zone) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        Formatter formatter = new Formatter(line, Locale.ROOT);
+        long[] count = new long[1];
+        IOException[] failure = new IOException[1];
+        out.write(DecisionFactorWriter.CSV_HEADER);
+        out.write('\n');
+        read(file, row -> {
+            if (failure[0] != null) return;
+            DecisionFactorWriter.formatCsv(row, line, formatter, zone);
+            try {
+                out.append(line);
+                count[0]++;
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        return count[0];
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("用法：DecisionFactorExporter <decision_factors_*.dfb> [輸出.csv]");
+            System.exit(2);
+            return;
+        }
+        try (Writer out = args.length > 1
+                ? Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            long count = exportCsv(Paths.get(args[0]), out, ZoneId.systemDefault());
+            out.flush();
+            System.err.println("已匯出 " + count + " 列");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("匯出失敗：" + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
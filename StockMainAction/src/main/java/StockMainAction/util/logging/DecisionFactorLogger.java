@@ -1,42 +1,52 @@
 package StockMainAction.util.logging;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * 決策因子日誌：將每次下單的關鍵因子輸出到使用者桌面 (CSV)
+ *
+ * 呼叫端只把原始欄位交給背景的 {@link DecisionFactorWriter}（無鎖佇列），檔案保持開啟、整批寫出並每日換檔，
+ * 因此可長期開啟決策追蹤。-Ddecision.factor.format=csv|binary|both 選擇輸出格式（預設 csv），
+ * 二進位欄式檔（.dfb）可用 {@link DecisionFactorExporter} 轉成 CSV；-Ddecision.factor.dir 可改輸出目錄。
  */
 public final class DecisionFactorLogger {
 
     private static final Object LOCK = new Object();
-    private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static volatile boolean headerWritten = false;
-    private static volatile Path logPath;
+    private static volatile DecisionFactorWriter writer;
 
     private DecisionFactorLogger() {}
 
-    private static Path resolveLogPath() throws IOException {
-        if (logPath != null) return logPath;
-        String desktop = System.getProperty("user.home") + File.separator + "Desktop";
-        String fileName = String.format("decision_factors_%s.csv", LocalDate.now());
-        Path p = Paths.get(desktop, fileName);
-        if (!Files.exists(p)) headerWritten = false; // 讓 FileWriter 來建檔；避免多線程競爭
-        logPath = p;
-        return p;
+    private static DecisionFactorWriter writer() {
+        DecisionFactorWriter w = writer;
+        if (w != null) return w;
+        synchronized (LOCK) {
+            if (writer == null) {
+                String configured = System.getProperty("decision.factor.dir", "").trim();
+                Path dir = configured.isEmpty()
+                        ? Paths.get(System.getProperty("user.home") + File.separator + "Desktop")
+                        : Paths.get(configured);
+                DecisionFactorWriter created = new DecisionFactorWriter(dir, configuredFormat());
+                try {
+                    Runtime.getRuntime().addShutdownHook(new Thread(created::close, "decision-factor-shutdown"));
+                } catch (RuntimeException ignored) {
+                    // Rows still queued at exit may be lost when shutdown hooks are restricted.
+                }
+                writer = created;
+            }
+            return writer;
+        }
     }
 
-    private static void ensureHeader(BufferedWriter bw) throws IOException {
-        if (headerWritten) return;
-        bw.write("time,actor,phase,action,orderType,volume,price,inPct,outPct,delta,tps,vps,imbalance,effThreshold,positionScale,macdHist,kVal,hasBuyWall,hasSellWall\n");
-        headerWritten = true;
+    private static DecisionFactorWriter.Format configuredFormat() {
+        String value = System.getProperty("decision.factor.format", "csv").trim().toUpperCase();
+        try {
+            return DecisionFactorWriter.Format.valueOf(value);
+        } catch (IllegalArgumentException ex) {
+            System.err.println("未知的 decision.factor.format：" + value + "，改用 CSV");
+            return DecisionFactorWriter.Format.CSV;
+        }
     }
 
     public static void log(String actor,
@@ -57,25 +67,16 @@ public final class DecisionFactorLogger {
                            double kVal,
                            boolean hasBuyWall,
                            boolean hasSellWall) {
-        synchronized (LOCK) {
-            try {
-                Path p = resolveLogPath();
-                try (BufferedWriter bw = new BufferedWriter(new FileWriter(p.toFile(), true))) {
-                    ensureHeader(bw);
-                    String ts = LocalDateTime.now().format(TS);
-                    String line = String.format("%s,%s,%s,%s,%s,%d,%.6f,%d,%d,%d,%.3f,%.0f,%.3f,%d,%.2f,%.4f,%.2f,%b,%b\n",
-                            ts, safe(actor), safe(phase), safe(action), safe(orderType), volume, price,
-                            inPct, outPct, delta, tps, vps, imbalance, effThreshold, positionScale, macdHist, kVal, hasBuyWall, hasSellWall);
-                    bw.write(line);
-                }
-            } catch (IOException ex) {
-                MarketLogger.getInstance().warn("決策因子 CSV 寫入失敗：" + ex.getMessage(),
-                        "DECISION_FACTOR_LOG");
-            }
-        }
+        // 隔離模式（例如平行參數掃描）不寫共用的桌面 CSV
+        if (MarketLogger.isIsolated()) return;
+        writer().offer(new DecisionFactorWriter.Row(System.currentTimeMillis(), actor, phase, action, orderType,
+                volume, price, inPct, outPct, delta, tps, vps, imbalance, effThreshold, positionScale,
+                macdHist, kVal, hasBuyWall, hasSellWall));
     }
 
-    private static String safe(String s) { return s == null ? "" : s.replace(',', ';'); }
+    /** 因佇列已滿或寫檔失敗而捨棄的列數 */
+    public static long getDroppedCount() {
+        DecisionFactorWriter w = writer;
+        return w == null ? 0L : w.getDroppedCount();
+    }
 }
-
-
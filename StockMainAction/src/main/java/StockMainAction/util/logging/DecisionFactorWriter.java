@@ -0,0 +1,378 @@
+package StockMainAction.util.logging;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 決策因子背景寫入器：呼叫端把一列原始欄位放進無鎖佇列即返回，
+ * 由單一背景執行緒保持檔案開啟、整批格式化寫出，並依日期換檔
+ *
+ * 輸出格式：
+ * <ul>
+ * <li>CSV：decision_factors_yyyy-MM-dd.csv，與原本的欄位相同</li>
+ * <li>二進位欄式：decision_factors_yyyy-MM-dd.dfb，每批一個區塊、同一欄位連續存放，
+ * 字串欄位以字典編號（int，null 為 {@link #NULL_SYMBOL}）儲存；可用 {@link DecisionFactorExporter} 轉回 CSV</li>
+ * </ul>
+ * 佇列超過容量或已關閉時捨棄新資料並計數，不讓交易決策等待磁碟。
+ */
+final class DecisionFactorWriter implements AutoCloseable {
+
+    enum Format {
+        CSV, BINARY, BOTH;
+
+        boolean csv() {
+            return this != BINARY;
+        }
+
+        boolean binary() {
+            return this != CSV;
+        }
+    }
+
+    static final String CSV_HEADER = "time,actor,phase,action,orderType,volume,price,inPct,outPct,delta,tps,vps,"
+            + "imbalance,effThreshold,positionScale,macdHist,kVal,hasBuyWall,hasSellWall";
+    static final int MAGIC = 0x44464342; // "DFCB"
+    /** 版本 1 的字典編號為 short（超過 32767 個字串會溢位），版本 2 改為 int */
+    static final int VERSION = 2;
+    static final int NULL_SYMBOL = -1;
+    static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    static final int DEFAULT_CAPACITY = 65_536;
+    private static final int BATCH_SIZE = 1024;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * 一列決策因子（只含基本型別與常數字串）
+     */
+    record Row(long timestamp, String actor, String phase, String action, String orderType, int volume,
+               double price, int inPct, int outPct, long delta, double tps, double vps, double imbalance,
+               int effThreshold, double positionScale, double macdHist, double kVal,
+               boolean hasBuyWall, boolean hasSellWall) {
+    }
+
+    private static final Row STOP = new Row(0L, null, null, null, null, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            false, false);
+
+    private final Path directory;
+    private final Format format;
+    private final ZoneId zone;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Row> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    // 正在 offer 中的呼叫數：close 等它歸零才排入 STOP，確保 STOP 之後不會再有資料進佇列
+    private final AtomicInteger offering = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // 以下只由寫入執行緒存取
+    private LocalDate currentDate;
+    private Writer csvOut;
+    private DataOutputStream binaryOut;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> newSymbols = new ArrayList<>();
+    private final StringBuilder line = new StringBuilder(256);
+    private final Formatter formatter = new Formatter(line, Locale.ROOT);
+    private boolean dirty;
+
+    DecisionFactorWriter(Path directory, Format format) {
+        this(directory, format, ZoneId.systemDefault(), DEFAULT_CAPACITY);
+    }
+
+    DecisionFactorWriter(Path directory, Format format, ZoneId zone, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.directory = directory;
+        this.format = format;
+        this.zone = zone;
+        this.capacity = capacity;
+        thread = new Thread(this::run, "decision-factor-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 排入一列；佇列已滿或已關閉時捨棄、計數並回傳 false
+     */
+    boolean offer(Row row) {
+        offering.incrementAndGet();
+        try {
+            if (closed || queued.get() >= capacity) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            queue.offer(row);
+            // 佇列由空轉為非空時喚醒寫入執行緒
+            if (queued.getAndIncrement() == 0) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        } finally {
+            offering.decrementAndGet();
+        }
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    int getQueueDepth() {
+        return queued.get();
+    }
+
+    Path csvFile(LocalDate date) {
+        return directory.resolve("decision_factors_" + date + ".csv");
+    }
+
+    Path binaryFile(LocalDate date) {
+        return directory.resolve("decision_factors_" + date + ".dfb");
+    }
+
+    private void run() {
+        List<Row> batch = new ArrayList<>(BATCH_SIZE);
+        long lastFlush = System.nanoTime();
+        boolean stopping = false;
+        while (!stopping) {
+            Row row;
+            while (batch.size() < BATCH_SIZE && (row = queue.poll()) != null) {
+                queued.decrementAndGet();
+                if (row == STOP) {
+                    stopping = true;
+                    break;
+                }
+                batch.add(row);
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+                continue;
+            }
+            if (dirty && (stopping || System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS)) {
+                flush();
+                lastFlush = System.nanoTime();
+            }
+            if (!stopping) {
+                LockSupport.parkNanos(this, dirty ? FLUSH_INTERVAL_NANOS : TimeUnit.SECONDS.toNanos(5));
+            }
+        }
+        closeFiles();
+    }
+
+    private void writeBatch(List<Row> batch) {
+        int start = 0;
+        // 同一批內跨日時拆成兩段，分別寫入各自日期的檔案
+        while (start < batch.size()) {
+            LocalDate date = date(batch.get(start).timestamp());
+            int end = start + 1;
+            while (end < batch.size() && date(batch.get(end).timestamp()).equals(date)) {
+                end++;
+            }
+            try {
+                if (!date.equals(currentDate)) {
+                    rotate(date);
+                }
+                List<Row> rows = batch.subList(start, end);
+                if (csvOut != null) writeCsv(rows);
+                if (binaryOut != null) writeBlock(rows);
+                writtenCount.addAndGet(rows.size());
+                dirty = true;
+            } catch (IOException | IllegalStateException e) {
+                // 關檔後下一批重新開檔（寫入新檔頭、字典重新編號）
+                droppedCount.addAndGet(end - start);
+                MarketLogger.getInstance().warn("決策因子寫入失敗：" + e.getMessage(), "DECISION_FACTOR_LOG");
+                closeFiles();
+            }
+            start = end;
+        }
+    }
+
+    private LocalDate date(long timestamp) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), zone);
+    }
+
+    private void rotate(LocalDate date) throws IOException {
+        closeFiles();
+        Files.createDirectories(directory);
+        currentDate = date;
+        if (format.csv()) {
+            Path file = csvFile(date);
+            boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+            csvOut = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+            if (fresh) {
+                csvOut.write(CSV_HEADER);
+                csvOut.write('\n');
+            }
+        }
+        if (format.binary()) {
+            binaryOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(binaryFile(date),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024));
+            // 每次開檔重寫檔頭：讀取端遇到檔頭即重設字典，因此同日重啟後附加也能解讀
+            binaryOut.writeInt(MAGIC);
+            binaryOut.writeInt(VERSION);
+            dictionary.clear();
+        }
+    }
+
+    private void writeCsv(List<Row> rows) throws IOException {
+        for (Row r : rows) {
+            formatCsv(r, line, formatter, zone);
+            csvOut.append(line);
+        }
+    }
+
+    /**
+     * 把一列格式化成 CSV 行（含換行）放入 line；formatter 需寫入同一個 line
+     */
+    static void formatCsv(Row r, StringBuilder line, Formatter formatter, ZoneId zone) {
+        line.setLength(0);
+        line.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(r.timestamp()), zone).format(TIME_FORMATTER))
+                .append(',').append(safe(r.actor()))
+                .append(',').append(safe(r.phase()))
+                .append(',').append(safe(r.action()))
+                .append(',').append(safe(r.orderType()))
+                .append(',').append(r.volume());
+        formatter.format(",%.6f,%d,%d,%d,%.3f,%.0f,%.3f,%d,%.2f,%.4f,%.2f,%b,%b",
+                r.price(), r.inPct(), r.outPct(), r.delta(), r.tps(), r.vps(), r.imbalance(),
+                r.effThreshold(), r.positionScale(), r.macdHist(), r.kVal(), r.hasBuyWall(), r.hasSellWall());
+        line.append('\n');
+    }
+
+    // 區塊：列數、新字典項目、接著逐欄寫出
+    private void writeBlock(List<Row> rows) throws IOException {
+        int n = rows.size();
+        int[] actors = new int[n];
+        int[] phases = new int[n];
+        int[] actions = new int[n];
+        int[] orderTypes = new int[n];
+        newSymbols.clear();
+        for (int i = 0; i < n; i++) {
+            Row r = rows.get(i);
+            actors[i] = symbol(r.actor());
+            phases[i] = symbol(r.phase());
+            actions[i] = symbol(r.action());
+            orderTypes[i] = symbol(r.orderType());
+        }
+        DataOutputStream out = binaryOut;
+        out.writeInt(n);
+        out.writeInt(newSymbols.size());
+        for (String s : newSymbols) {
+            out.writeUTF(s);
+        }
+        long previous = 0L;
+        for (Row r : rows) {
+            out.writeLong(r.timestamp() - previous);
+            previous = r.timestamp();
+        }
+        for (int code : actors) out.writeInt(code);
+        for (int code : phases) out.writeInt(code);
+        for (int code : actions) out.writeInt(code);
+        for (int code : orderTypes) out.writeInt(code);
+        for (Row r : rows) out.writeInt(r.volume());
+        for (Row r : rows) out.writeDouble(r.price());
+        for (Row r : rows) out.writeInt(r.inPct());
+        for (Row r : rows) out.writeInt(r.outPct());
+        for (Row r : rows) out.writeLong(r.delta());
+        for (Row r : rows) out.writeDouble(r.tps());
+        for (Row r : rows) out.writeDouble(r.vps());
+        for (Row r : rows) out.writeDouble(r.imbalance());
+        for (Row r : rows) out.writeInt(r.effThreshold());
+        for (Row r : rows) out.writeDouble(r.positionScale());
+        for (Row r : rows) out.writeDouble(r.macdHist());
+        for (Row r : rows) out.writeDouble(r.kVal());
+        for (Row r : rows) out.writeByte((r.hasBuyWall() ? 1 : 0) | (r.hasSellWall() ? 2 : 0));
+    }
+
+    private int symbol(String value) {
+        if (value == null) return NULL_SYMBOL;
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            if (dictionary.size() == Integer.MAX_VALUE) {
+                throw new IllegalStateException("decision factor symbol dictionary is full");
+            }
+            code = dictionary.size();
+            dictionary.put(value, code);
+            newSymbols.add(value);
+        }
+        return code;
+    }
+
+    static String safe(String s) {
+        return s == null ? "" : s.replace(',', ';');
+    }
+
+    private void flush() {
+        try {
+            if (csvOut != null) csvOut.flush();
+            if (binaryOut != null) binaryOut.flush();
+        } catch (IOException e) {
+            MarketLogger.getInstance().warn("決策因子寫入失敗：" + e.getMessage(), "DECISION_FACTOR_LOG");
+            closeFiles();
+        }
+        dirty = false;
+    }
+
+    private void closeFiles() {
+        try {
+            if (csvOut != null) csvOut.close();
+        } catch (IOException ignored) {
+            // Already reported by the failing write.
+        }
+        try {
+            if (binaryOut != null) binaryOut.close();
+        } catch (IOException ignored) {
+            // Already reported by the failing write.
+        }
+        csvOut = null;
+        binaryOut = null;
+        currentDate = null;
+        dirty = false;
+    }
+
+    /**
+     * 寫完已排入的資料並關檔（最多等待 5 秒）
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        while (offering.get() != 0) {
+            Thread.onSpinWait();
+        }
+        queue.offer(STOP);
+        queued.incrementAndGet();
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
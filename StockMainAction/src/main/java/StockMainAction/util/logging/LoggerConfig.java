@@ -2,16 +2,23 @@ package StockMainAction.util.logging;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.logging.Level;
 
 /**
  * 日誌配置管理器
+ *
+ * 讀取順序：-Dmarket.log.config 指定的檔案 → 工作目錄的 logger.properties.ini → classpath 的
+ * logger.properties → 內建預設值。
  */
 public class LoggerConfig {
 
     private static Properties properties;
     private static final String CONFIG_FILE = "logger.properties";
+    private static final String INI_FILE = "logger.properties.ini";
 
     // 日誌級別枚舉
     public enum LogLevel {
@@ -37,7 +44,11 @@ public class LoggerConfig {
     // 靜態初始化區塊
     static {
         properties = new Properties();
-        try ( InputStream input = LoggerConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+        String configured = System.getProperty("market.log.config", "").trim();
+        Path file = Paths.get(configured.isEmpty() ? INI_FILE : configured);
+        try ( InputStream input = Files.isRegularFile(file)
+                ? Files.newInputStream(file)
+                : LoggerConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
             if (input != null) {
                 properties.load(input);
             } else {
@@ -61,6 +72,9 @@ public class LoggerConfig {
         properties.setProperty("MARKET_SIMULATION.level", "DEBUG");
         properties.setProperty("MARKET_BEHAVIOR.level", "INFO");
         properties.setProperty("ORDER_PROCESSING.level", "WARN");
+
+        properties.setProperty("max.log.file.size", "10");
+        properties.setProperty("max.log.file.backups", "5");
     }
 
     /**
@@ -113,9 +127,7 @@ public class LoggerConfig {
      * @return int
      */
     public static int getMaxLogFileSize() {
-        return Integer.parseInt(
-                properties.getProperty("max.log.file.size", "10")
-        );
+        return intProperty("max.log.file.size", 10);
     }
 
     /**
@@ -124,8 +136,16 @@ public class LoggerConfig {
      * @return int
      */
     public static int getMaxLogFileBackups() {
-        return Integer.parseInt(
-                properties.getProperty("max.log.file.backups", "5")
-        );
+        return intProperty("max.log.file.backups", 5);
+    }
+
+    // 設定值格式錯誤時使用預設值，不讓日誌初始化失敗
+    private static int intProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(properties.getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException ex) {
+            System.err.println("日誌設定 " + key + " 格式錯誤，改用預設值 " + defaultValue);
+            return defaultValue;
+        }
     }
 }
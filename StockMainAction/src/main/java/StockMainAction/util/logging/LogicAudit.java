@@ -14,7 +14,8 @@ import java.util.logging.Logger;
 
 /**
  * LogicAudit - 輕量級邏輯稽核日誌，用於在關鍵路徑輸出可讀的檢查訊息。
- * 獨立於 MarketLogger，寫入 audit.log 方便分流分析。
+ * 獨立於 MarketLogger，寫入 audit.log 方便分流分析；
+ * 在 MarketLogger 隔離範圍內（參數掃描）改寫入該範圍的記錄器，不共用 audit.log。
  */
 public final class LogicAudit {
 
@@ -51,16 +52,28 @@ public final class LogicAudit {
     }
 
     public static void info(String tag, String message) {
+        if (MarketLogger.isIsolated()) {
+            MarketLogger.current().info(tag + " | " + message, "LOGIC_AUDIT");
+            return;
+        }
         init();
         AUDIT.log(Level.INFO, String.format("%s | %s", tag, message));
     }
 
     public static void warn(String tag, String message) {
+        if (MarketLogger.isIsolated()) {
+            MarketLogger.current().warn(tag + " | " + message, "LOGIC_AUDIT");
+            return;
+        }
         init();
         AUDIT.log(Level.WARNING, String.format("%s | %s", tag, message));
     }
 
     public static void error(String tag, String message) {
+        if (MarketLogger.isIsolated()) {
+            MarketLogger.current().error(tag + " | " + message, "LOGIC_AUDIT");
+            return;
+        }
         init();
         AUDIT.log(Level.SEVERE, String.format("%s | %s", tag, message));
     }
@@ -1,12 +1,17 @@
 package StockMainAction.util.logging;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IllegalFormatException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,20 +21,42 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * 市場日誌記錄器，提供高效、線程安全的日誌記錄功能
+ *
+ * 呼叫端只做級別判斷與排隊：時間戳以 long 擷取，訊息格式化（{@code *f} 參數化版本的 String.format、
+ * 例外堆疊、時間字串）都在寫入執行緒完成，因此停用的級別幾乎沒有成本。
+ * 熱路徑可先以 {@link #isEnabled(int, String)} / {@link #isDebugEnabled(String)} 判斷，
+ * 或改用 {@link Supplier} / 參數化多載，避免為不會輸出的訊息組字串。
+ *
+ * 寫入執行緒阻塞等待佇列（不輪詢），每次整批取出寫入大緩衝區，累積到 {@link #FLUSH_THRESHOLD_CHARS}
+ * 或距上次 flush 超過 {@link #FLUSH_INTERVAL_MS} 才寫到磁碟；檔案依 logger.properties.ini 的
+ * max.log.file.size（MB）輪替，舊檔在背景壓縮為 .gz 並保留 max.log.file.backups 份。
  */
 public class MarketLogger {
 
     private static final int LOG_QUEUE_CAPACITY = 10_000;
+    private static final int BATCH_SIZE = 512;
+    /** 緩衝中未寫出的字元數達此值即 flush */
+    public static final int FLUSH_THRESHOLD_CHARS = 32 * 1024;
+    /** 有未寫出的資料時最長等待時間 */
+    public static final long FLUSH_INTERVAL_MS = 250L;
     private static final DateTimeFormatter FILE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
     private static final DateTimeFormatter LOG_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final ZoneId ZONE = ZoneId.systemDefault();
 
-    private PrintWriter writer;
-    private final BlockingQueue<String> logQueue = new ArrayBlockingQueue<>(LOG_QUEUE_CAPACITY);
+    // 只由寫入執行緒存取（建構時除外）
+    private RollingLogFile logFile;
+    private final BlockingQueue<LogEntry> logQueue = new ArrayBlockingQueue<>(LOG_QUEUE_CAPACITY);
     private final AtomicLong droppedLogCount = new AtomicLong();
+    private final AtomicLong writtenLogCount = new AtomicLong();
+    private volatile int rotationCount;
+    // 寫入執行緒啟動後，日誌改為排隊交給它處理
+    private volatile boolean queued;
     private final ExecutorService logExecutor = Executors.newSingleThreadExecutor(runnable -> {
         Thread thread = new Thread(runnable, "market-log-writer");
         thread.setDaemon(true);
@@ -64,20 +91,85 @@ public class MarketLogger {
 
     private final List<LogListener> logListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * 尚未格式化的日誌項：訊息為 format 字串（args 非 null 時）或完整訊息，thrown 的堆疊於寫入時展開
+     */
+    private record LogEntry(long timestamp, String level, String category, String message,
+                            Object[] args, Throwable thrown) {
+    }
+
+    // 關閉訊號：寫入執行緒收到後寫完佇列剩餘項目並關檔
+    private static final LogEntry STOP = new LogEntry(0L, null, null, null, null, null);
+
     private static class SingletonHolder {
 
         private static final MarketLogger INSTANCE = new MarketLogger();
     }
 
+    // 隔離範圍：參數掃描等多模型並行時，每個模擬執行緒（含其建立的子執行緒）各自寫入自己的記錄器
+    private static final InheritableThreadLocal<MarketLogger> SCOPED = new InheritableThreadLocal<>();
+
+    // 全域單例會把呼叫轉交給目前執行緒的隔離記錄器；隔離記錄器本身不再轉交
+    private final boolean global;
+
     public static MarketLogger getInstance() {
         return SingletonHolder.INSTANCE;
     }
 
+    /**
+     * 目前執行緒實際使用的記錄器（有隔離範圍時為隔離記錄器，否則為全域單例）
+     */
+    public static MarketLogger current() {
+        MarketLogger scoped = SCOPED.get();
+        return scoped != null ? scoped : getInstance();
+    }
+
+    public static boolean isIsolated() {
+        return SCOPED.get() != null;
+    }
+
+    /**
+     * 建立獨立記錄器：自己的級別、節流表與（可選）日誌檔，不通知 UI 監聽器
+     *
+     * @param level 最低輸出級別
+     * @param logFile 日誌檔，null 表示不寫檔
+     */
+    public static MarketLogger isolated(int level, Path logFile) {
+        return new MarketLogger(level, logFile);
+    }
+
+    /**
+     * 在目前執行緒（及之後建立的子執行緒）啟用隔離記錄器，關閉時還原並停止該記錄器
+     */
+    public static Scope isolate(MarketLogger logger) {
+        if (logger == null || logger.global) {
+            throw new IllegalArgumentException("isolated logger required");
+        }
+        MarketLogger previous = SCOPED.get();
+        SCOPED.set(logger);
+        return () -> {
+            if (previous == null) SCOPED.remove();
+            else SCOPED.set(previous);
+            logger.shutdown();
+        };
+    }
+
+    /**
+     * 隔離範圍，關閉時不拋出受檢例外
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
     private MarketLogger() {
+        global = true;
         applySystemProperties();
         isRunning = true;
         try {
-            writer = createWriter();
+            logFile = createLogFile();
         } catch (IOException | RuntimeException e) {
             System.err.println("無法初始化檔案日誌，已切換為無檔案模式：" + e.getMessage());
         }
@@ -89,7 +181,27 @@ public class MarketLogger {
         }
     }
 
-    private static PrintWriter createWriter() throws IOException {
+    private MarketLogger(int level, Path logFile) {
+        global = false;
+        currentLogLevel = level;
+        isRunning = true;
+        if (logFile != null) {
+            try {
+                this.logFile = new RollingLogFile(logFile, maxLogFileBytes(), LoggerConfig.getMaxLogFileBackups());
+                startLogWriter();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("無法建立隔離日誌檔：" + e.getMessage());
+            }
+        }
+    }
+
+    private MarketLogger target() {
+        if (!global) return this;
+        MarketLogger scoped = SCOPED.get();
+        return scoped != null ? scoped : this;
+    }
+
+    private static RollingLogFile createLogFile() throws IOException {
         String configured = System.getProperty("market.log.dir", "").trim();
         File logDir = configured.isEmpty()
                 ? new File(System.getProperty("user.home"), ".stock-main-action" + File.separator + "logs")
@@ -99,7 +211,11 @@ public class MarketLogger {
         }
         File logFile = new File(logDir,
                 "market_simulation_" + LocalDateTime.now().format(FILE_FORMATTER) + ".log");
-        return new PrintWriter(new FileWriter(logFile, true));
+        return new RollingLogFile(logFile.toPath(), maxLogFileBytes(), LoggerConfig.getMaxLogFileBackups());
+    }
+
+    private static long maxLogFileBytes() {
+        return LoggerConfig.getMaxLogFileSize() * 1024L * 1024L;
     }
 
     /**
@@ -122,6 +238,20 @@ public class MarketLogger {
         logListeners.remove(listener);
     }
 
+    /**
+     * 指定級別與分類是否會輸出（已套用隔離範圍、全域級別、分類停用與分類最低級別）
+     *
+     * @param level LEVEL_DEBUG ~ LEVEL_ERROR
+     * @param category 日誌類別，null 表示只看全域級別
+     */
+    public boolean isEnabled(int level, String category) {
+        return target().enabled(level, category);
+    }
+
+    public boolean isDebugEnabled(String category) {
+        return isEnabled(LEVEL_DEBUG, category);
+    }
+
     /**
      * 新增 debug 方法
      *
@@ -129,36 +259,90 @@ public class MarketLogger {
      * @param category 日誌類別
      */
     public void debug(String message, String category) {
-        if (isEnabled(LEVEL_DEBUG, category)) {
-            log("DEBUG", category, message);
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_DEBUG, category)) {
+            t.log("DEBUG", category, message, null, null);
         }
     }
 
     // 原有的 info、warn、error 方法保持不变
     public void info(String message, String category) {
-        if (isEnabled(LEVEL_INFO, category)) {
-            log("INFO", category, message);
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_INFO, category)) {
+            t.log("INFO", category, message, null, null);
         }
     }
 
     public void warn(String message, String category) {
-        if (isEnabled(LEVEL_WARN, category)) {
-            log("WARN", category, message);
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_WARN, category)) {
+            t.log("WARN", category, message, null, null);
         }
     }
 
     public void error(String message, String category) {
-        if (isEnabled(LEVEL_ERROR, category)) {
-            log("ERROR", category, message);
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_ERROR, category)) {
+            t.log("ERROR", category, message, null, null);
         }
     }
 
     public void error(Throwable e, String category) {
-        if (isEnabled(LEVEL_ERROR, category)) {
-            StringWriter sw = new StringWriter();
-            PrintWriter pw = new PrintWriter(sw);
-            e.printStackTrace(pw);
-            log("ERROR", category, sw.toString());
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_ERROR, category)) {
+            t.log("ERROR", category, null, null, e);
+        }
+    }
+
+    /**
+     * 延遲版：只有在級別啟用時才呼叫 supplier 產生訊息
+     */
+    public void debug(Supplier<String> message, String category) {
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_DEBUG, category)) {
+            t.log("DEBUG", category, message.get(), null, null);
+        }
+    }
+
+    public void info(Supplier<String> message, String category) {
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_INFO, category)) {
+            t.log("INFO", category, message.get(), null, null);
+        }
+    }
+
+    /**
+     * 參數化版：以 String.format 語法在寫入執行緒格式化；args 入列後才格式化，請只傳不可變的值
+     *
+     * @param category 日誌類別
+     * @param format String.format 格式字串
+     * @param args 格式參數
+     */
+    public void debugf(String category, String format, Object... args) {
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_DEBUG, category)) {
+            t.log("DEBUG", category, format, args, null);
+        }
+    }
+
+    public void infof(String category, String format, Object... args) {
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_INFO, category)) {
+            t.log("INFO", category, format, args, null);
+        }
+    }
+
+    public void warnf(String category, String format, Object... args) {
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_WARN, category)) {
+            t.log("WARN", category, format, args, null);
+        }
+    }
+
+    public void errorf(String category, String format, Object... args) {
+        MarketLogger t = target();
+        if (t.enabled(LEVEL_ERROR, category)) {
+            t.log("ERROR", category, format, args, null);
         }
     }
 
@@ -166,63 +350,160 @@ public class MarketLogger {
      * 節流版：同一個 (category,key) 在 intervalMs 內最多輸出一次
      */
     public void infoThrottled(String message, String category, String key, long intervalMs) {
-        if (!isEnabled(LEVEL_INFO, category)) return;
-        if (!hitThrottle(category, key, intervalMs)) return;
-        log("INFO", category, message);
+        MarketLogger t = target();
+        if (!t.enabled(LEVEL_INFO, category)) return;
+        if (!t.hitThrottle(category, key, intervalMs)) return;
+        t.log("INFO", category, message, null, null);
     }
 
     public void debugThrottled(String message, String category, String key, long intervalMs) {
-        if (!isEnabled(LEVEL_DEBUG, category)) return;
-        if (!hitThrottle(category, key, intervalMs)) return;
-        log("DEBUG", category, message);
+        MarketLogger t = target();
+        if (!t.enabled(LEVEL_DEBUG, category)) return;
+        if (!t.hitThrottle(category, key, intervalMs)) return;
+        t.log("DEBUG", category, message, null, null);
     }
 
     private void startLogWriter() {
-        logExecutor.submit(() -> {
-            while (isRunning) {
-                String logMessage;
-                while ((logMessage = logQueue.poll()) != null) {
-                    if (writer != null) {
-                        writer.println(logMessage);
-                        writer.flush();
-                        if (writer.checkError()) {
-                            writer.close();
-                            writer = null;
-                        }
-                    }
+        queued = true;
+        logExecutor.submit(this::runLogWriter);
+    }
+
+    private void runLogWriter() {
+        List<LogEntry> batch = new ArrayList<>(BATCH_SIZE);
+        long lastFlush = System.nanoTime();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+        boolean stopping = false;
+        try {
+            while (!stopping) {
+                // 緩衝是空的就一直等；有未寫出的資料則最多等到 flush 期限
+                LogEntry first;
+                if (logFile == null || logFile.unflushedChars() == 0) {
+                    first = logQueue.take();
+                } else {
+                    long wait = flushIntervalNanos - (System.nanoTime() - lastFlush);
+                    first = wait > 0 ? logQueue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                }
+                if (first != null) {
+                    batch.add(first);
+                    logQueue.drainTo(batch, BATCH_SIZE - 1);
+                    stopping = writeBatch(batch);
+                    batch.clear();
                 }
+                if (logFile != null && logFile.unflushedChars() > 0
+                        && (stopping || logFile.unflushedChars() >= FLUSH_THRESHOLD_CHARS
+                        || System.nanoTime() - lastFlush >= flushIntervalNanos)) {
+                    flushLogFile();
+                    lastFlush = System.nanoTime();
+                }
+            }
+            // 關閉前寫完佇列剩餘項目
+            while (logQueue.drainTo(batch, BATCH_SIZE) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeLogFile();
+        }
+    }
+
+    // 回傳是否收到關閉訊號
+    private boolean writeBatch(List<LogEntry> batch) {
+        boolean stop = false;
+        for (LogEntry entry : batch) {
+            if (entry == STOP) {
+                stop = true;
+                continue;
+            }
+            String line = deliver(entry);
+            if (logFile != null) {
                 try {
-                    Thread.sleep(100); // 避免不必要的CPU佔用
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                    logFile.writeLine(line);
+                    rotationCount = logFile.getRotationCount();
+                } catch (IOException e) {
+                    System.err.println("日誌寫入失敗，停止寫檔：" + e.getMessage());
+                    closeLogFile();
                 }
             }
-        });
+            writtenLogCount.incrementAndGet();
+        }
+        return stop;
     }
 
-    private void log(String level, String category, String message) {
-        String timestamp = LocalDateTime.now().format(LOG_FORMATTER);
-        String logEntry = String.format("[%s] [%s] [%s] %s",
-                timestamp, level, category, message);
+    private void flushLogFile() {
+        try {
+            logFile.flush();
+        } catch (IOException e) {
+            System.err.println("日誌寫入失敗，停止寫檔：" + e.getMessage());
+            closeLogFile();
+        }
+    }
 
-        // 控制台輸出
-        if (consoleEnabled) {
-            System.out.println(logEntry);
+    private void closeLogFile() {
+        RollingLogFile file = logFile;
+        logFile = null;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+                // Nothing left to report to: the log file itself failed.
+            }
         }
+    }
 
-        // 加入隊列
-        if (!logQueue.offer(logEntry)) {
-            droppedLogCount.incrementAndGet();
+    // 呼叫端只擷取時間並排隊；沒有寫入執行緒的隔離記錄器才在呼叫端直接輸出
+    private void log(String level, String category, String message, Object[] args, Throwable thrown) {
+        LogEntry entry = new LogEntry(System.currentTimeMillis(), level, category, message, args, thrown);
+        if (queued) {
+            if (!logQueue.offer(entry)) {
+                droppedLogCount.incrementAndGet();
+            }
+        } else if (consoleEnabled || !logListeners.isEmpty()) {
+            deliver(entry);
+        }
+    }
+
+    /**
+     * 格式化日誌項、輸出到控制台並通知監聽器，回傳要寫入檔案的整行文字
+     */
+    private String deliver(LogEntry entry) {
+        String timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.timestamp()), ZONE)
+                .format(LOG_FORMATTER);
+        String message = render(entry);
+        String line = "[" + timestamp + "] [" + entry.level() + "] [" + entry.category() + "] " + message;
+
+        // 控制台輸出
+        if (consoleEnabled) {
+            System.out.println(line);
         }
 
         // 通知所有監聽器
         for (LogListener listener : logListeners) {
             try {
-                listener.onNewLog(timestamp, level, category, message);
+                listener.onNewLog(timestamp, entry.level(), entry.category(), message);
             } catch (RuntimeException ignored) {
-                // A UI listener must never break the caller's business operation.
+                // A UI listener must never break logging.
             }
         }
+        return line;
+    }
+
+    private static String render(LogEntry entry) {
+        if (entry.thrown() != null) {
+            StringWriter sw = new StringWriter();
+            entry.thrown().printStackTrace(new PrintWriter(sw));
+            return sw.toString();
+        }
+        if (entry.args() == null) {
+            return entry.message();
+        }
+        try {
+            return String.format(entry.message(), entry.args());
+        } catch (IllegalFormatException ex) {
+            // 格式錯誤不可讓寫入執行緒中斷：保留原始格式與參數
+            return entry.message() + " " + Arrays.toString(entry.args());
+        }
     }
 
     // 允許動態設置日誌級別
@@ -238,6 +519,25 @@ public class MarketLogger {
         return droppedLogCount.get();
     }
 
+    /** 等待寫入執行緒處理的日誌數 */
+    public int getQueueDepth() {
+        return logQueue.size();
+    }
+
+    public int getQueueCapacity() {
+        return LOG_QUEUE_CAPACITY;
+    }
+
+    /** 寫入執行緒已處理（寫檔並通知監聽器）的日誌數 */
+    public long getWrittenLogCount() {
+        return writtenLogCount.get();
+    }
+
+    /** 日誌檔已依大小輪替的次數 */
+    public int getRotationCount() {
+        return rotationCount;
+    }
+
     public void setConsoleEnabled(boolean enabled) {
         this.consoleEnabled = enabled;
     }
@@ -260,7 +560,7 @@ public class MarketLogger {
         else disabledCategories.add(category);
     }
 
-    private boolean isEnabled(int levelInt, String category) {
+    private boolean enabled(int levelInt, String category) {
         if (currentLogLevel > levelInt) return false;
         if (category == null) return true;
         if (disabledCategories.contains(category)) return false;
@@ -337,10 +637,21 @@ public class MarketLogger {
      * 關閉日誌系統
      */
     public void shutdown() {
+        if (!isRunning) return;
         isRunning = false;
-        logExecutor.shutdownNow();
-        if (writer != null) {
-            writer.close();
+        if (!queued) return;
+        try {
+            // 佇列滿時稍等寫入執行緒消化，仍放不進去才強制中斷
+            if (!logQueue.offer(STOP, 1, TimeUnit.SECONDS)) {
+                logExecutor.shutdownNow();
+            }
+            logExecutor.shutdown();
+            if (!logExecutor.awaitTermination(2, TimeUnit.SECONDS)) {
+                logExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
         }
     }
 }
@@ -0,0 +1,190 @@
+package StockMainAction.util.logging;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 依大小輪替的日誌檔（僅供單一寫入執行緒使用）
+ *
+ * 寫入先進入大緩衝區，由呼叫端決定何時 flush；檔案大小以寫入的 UTF-8 位元組計算（含尚未 flush 的緩衝），
+ * 下一行會使檔案超過上限時先輪替（單行超過上限時獨佔一個檔案）。輪替的檔案改名後交給背景執行緒壓縮成
+ * {@code name.1.log.gz}，較舊的備份依序往後推（name.2.log.gz ...），超過保留份數即刪除。
+ * 壓縮與備份推移都在同一個執行緒依序進行，因此連續輪替也不會互相覆蓋。
+ */
+final class RollingLogFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SEPARATOR_BYTES = utf8Length(System.lineSeparator());
+    private static final AtomicLong ROLL_SEQUENCE = new AtomicLong();
+    private static final ExecutorService COMPRESSOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "market-log-compress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path file;
+    private final long maxBytes;
+    private final int backups;
+    private Writer out;
+    // 已寫入（含緩衝中）的位元組數
+    private long fileBytes;
+    private long unflushedChars;
+    private int rotations;
+    private Future<?> lastCompression;
+
+    /**
+     * @param file 目前寫入的日誌檔（附加模式）
+     * @param maxBytes 單檔上限，0 或負值表示不輪替
+     * @param backups 保留的壓縮備份數
+     */
+    RollingLogFile(Path file, long maxBytes, int backups) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.maxBytes = maxBytes;
+        this.backups = Math.max(0, backups);
+        Path parent = this.file.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        open();
+    }
+
+    private void open() throws IOException {
+        fileBytes = Files.exists(file) ? Files.size(file) : 0L;
+        OutputStream stream = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * 寫入一行；寫入後會超過上限時先輪替
+     */
+    void writeLine(String line) throws IOException {
+        long lineBytes = utf8Length(line) + SEPARATOR_BYTES;
+        if (maxBytes > 0 && fileBytes > 0 && fileBytes + lineBytes > maxBytes) {
+            rotate();
+        }
+        out.write(line);
+        out.write(System.lineSeparator());
+        fileBytes += lineBytes;
+        unflushedChars += line.length() + 1;
+    }
+
+    // UTF-8 編碼後的位元組數（代理對合計 4 位元組；孤立代理字元與編碼器一樣以 '?' 計 1 位元組）
+    static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /** 上次 flush 後寫入的字元數 */
+    long unflushedChars() {
+        return unflushedChars;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+        unflushedChars = 0;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    int getRotationCount() {
+        return rotations;
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        Path rolled = file.resolveSibling(file.getFileName() + "." + ROLL_SEQUENCE.incrementAndGet() + ".rolling");
+        Files.move(file, rolled, StandardCopyOption.REPLACE_EXISTING);
+        rotations++;
+        lastCompression = COMPRESSOR.submit(() -> archive(rolled));
+        open();
+        unflushedChars = 0;
+    }
+
+    private void archive(Path rolled) {
+        try {
+            if (backups == 0) {
+                Files.deleteIfExists(rolled);
+                return;
+            }
+            Files.deleteIfExists(backup(backups));
+            for (int i = backups - 1; i >= 1; i--) {
+                Path from = backup(i);
+                if (Files.exists(from)) {
+                    Files.move(from, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Path target = backup(1);
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (InputStream in = Files.newInputStream(rolled);
+                 OutputStream gz = new GZIPOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)) {
+                in.transferTo(gz);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(rolled);
+        } catch (IOException | RuntimeException e) {
+            // 壓縮失敗時保留未壓縮的輪替檔，不影響日誌寫入
+            System.err.println("日誌輪替壓縮失敗：" + e.getMessage());
+        }
+    }
+
+    // name.log -> name.{index}.log.gz
+    Path backup(int index) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        return file.resolveSibling(base + "." + index + ext + ".gz");
+    }
+
+    /**
+     * 寫出緩衝並關檔，最多等待最後一次壓縮完成 5 秒
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            Future<?> pending = lastCompression;
+            if (pending != null) {
+                try {
+                    pending.get(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception ignored) {
+                    // The uncompressed rolled file stays on disk.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package StockMainAction.util.logging.event;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 二進位結構化事件日誌：每筆事件為「事件編號 + long 時間戳 + 定寬欄位」，不做任何字串格式化
+ *
+ * 檔案自帶描述：事件定義（{@link EventSchema}）與字串符號在第一次使用時寫入，
+ * 因此 {@link EventLogDecoder} 不需要程式碼中的定義也能還原成文字或 CSV。
+ *
+ * 寫入方式（begin 與 end 之間持有鎖，欄位需依定義順序放入）：
+ * <pre>
+ * if (log.begin(schema, timestamp)) {
+ *     try {
+ *         log.putInt(volume).putDouble(price).putSymbol(traderType);
+ *     } finally {
+ *         log.end();
+ *     }
+ * }
+ * </pre>
+ * 事件先寫入記憶體緩衝區，滿了或每秒一次交給背景執行緒寫檔；緩衝區全部在寫檔時呼叫端會等待，
+ * 不會丟棄事件。
+ */
+public final class EventLog implements AutoCloseable {
+
+    static final int MAGIC = 0x45564C47; // "EVLG"
+    static final short VERSION = 1;
+    static final short SCHEMA_TAG = 0x7FFF;
+    static final short SYMBOL_TAG = 0x7FFE;
+    /** 事件標頭：事件編號（short）+ 時間戳（long） */
+    static final int EVENT_HEADER = 2 + 8;
+    static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int BUFFER_COUNT = 4;
+    private static final long FLUSH_INTERVAL_MS = 1000L;
+    private static final ByteBuffer STOP = ByteBuffer.allocate(0);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final BlockingQueue<ByteBuffer> filled = new LinkedBlockingQueue<>();
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+    private final Thread writerThread;
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    // 以下只在持有 lock 時存取
+    private ByteBuffer active;
+    private final boolean[] schemaWritten = new boolean[EventSchema.MAX_ID];
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final List<String> pendingSymbols = new ArrayList<>();
+    private EventSchema current;
+    private int recordStart;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private EventLog(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        for (int i = 0; i < BUFFER_COUNT - 1; i++) {
+            free.add(ByteBuffer.allocate(BUFFER_SIZE));
+        }
+        active = ByteBuffer.allocate(BUFFER_SIZE);
+        active.putInt(MAGIC).putShort(VERSION).putLong(System.currentTimeMillis());
+        writerThread = new Thread(this::runWriter, "market-event-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * 建立新的事件日誌檔（已存在時覆寫）
+     */
+    public static EventLog open(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new EventLog(file, channel);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** 已寫入（含尚在緩衝區）的事件數 */
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    /** 已寫到檔案的位元組數 */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     * 開始一筆事件；回傳 false 表示日誌已關閉，呼叫端不可再 put 或 end
+     */
+    public boolean begin(EventSchema schema, long timestamp) {
+        lock.lock();
+        if (closed) {
+            lock.unlock();
+            return false;
+        }
+        try {
+            if (!schemaWritten[schema.getId()]) {
+                writeSchema(schema);
+                schemaWritten[schema.getId()] = true;
+            }
+            ensureCapacity(EVENT_HEADER + schema.payloadSize());
+            current = schema;
+            recordStart = active.position();
+            active.putShort((short) schema.getId()).putLong(timestamp);
+            return true;
+        } catch (RuntimeException | Error e) {
+            lock.unlock();
+            throw e;
+        }
+    }
+
+    public EventLog putInt(int value) {
+        active.putInt(value);
+        return this;
+    }
+
+    public EventLog putLong(long value) {
+        active.putLong(value);
+        return this;
+    }
+
+    public EventLog putDouble(double value) {
+        active.putDouble(value);
+        return this;
+    }
+
+    public EventLog putBoolean(boolean value) {
+        active.put(value ? (byte) 1 : (byte) 0);
+        return this;
+    }
+
+    /**
+     * 放入字串欄位（以符號編號儲存；null 存為 -1）
+     */
+    public EventLog putSymbol(String value) {
+        if (value == null) {
+            active.putInt(-1);
+            return this;
+        }
+        Integer code = symbols.get(value);
+        if (code == null) {
+            code = symbols.size();
+            symbols.put(value, code);
+            pendingSymbols.add(value);
+        }
+        active.putInt(code);
+        return this;
+    }
+
+    /**
+     * 結束事件；欄位寬度與定義不符時捨棄此筆並拋出 IllegalStateException
+     */
+    public void end() {
+        try {
+            EventSchema schema = current;
+            current = null;
+            int length = active.position() - recordStart;
+            if (schema == null || length != EVENT_HEADER + schema.payloadSize()) {
+                active.position(recordStart);
+                // 捨棄的事件帶進來的新符號尚未寫出定義，編號一併收回
+                for (String symbol : pendingSymbols) {
+                    symbols.remove(symbol);
+                }
+                pendingSymbols.clear();
+                throw new IllegalStateException("event fields do not match schema " + schema);
+            }
+            if (!pendingSymbols.isEmpty()) {
+                moveSymbolsBeforeRecord(length);
+            }
+            eventCount.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 新符號的定義必須在使用它的事件之前：把剛寫的事件暫存，先寫定義再放回
+    private void moveSymbolsBeforeRecord(int length) {
+        byte[] record = new byte[length];
+        active.position(recordStart);
+        active.get(record);
+        active.position(recordStart);
+        int needed = length;
+        for (String symbol : pendingSymbols) {
+            needed += 2 + 4 + 2 + utf8(symbol).length;
+        }
+        ensureCapacity(needed);
+        for (String symbol : pendingSymbols) {
+            active.putShort(SYMBOL_TAG).putInt(symbols.get(symbol));
+            putString(utf8(symbol));
+        }
+        pendingSymbols.clear();
+        active.put(record);
+    }
+
+    private void writeSchema(EventSchema schema) {
+        byte[] name = utf8(schema.getName());
+        int needed = 2 + 2 + 2 + name.length + 2;
+        byte[][] fieldNames = new byte[schema.fieldCount()][];
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldNames[i] = utf8(schema.field(i).name());
+            needed += 2 + fieldNames[i].length + 1;
+        }
+        ensureCapacity(needed);
+        active.putShort(SCHEMA_TAG).putShort((short) schema.getId());
+        putString(name);
+        active.putShort((short) schema.fieldCount());
+        for (int i = 0; i < fieldNames.length; i++) {
+            putString(fieldNames[i]);
+            active.put((byte) schema.field(i).type().ordinal());
+        }
+    }
+
+    private void putString(byte[] bytes) {
+        active.putShort((short) bytes.length);
+        active.put(bytes);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_STRING_BYTES) return bytes;
+        // 每個 char 最多 3 個位元組，依字元截斷以免切到多位元組字元
+        return value.substring(0, MAX_STRING_BYTES / 3).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 持有 lock；空間不足時把目前緩衝區交給寫入執行緒，必要時等待空的緩衝區
+    private void ensureCapacity(int bytes) {
+        if (active.remaining() >= bytes) return;
+        if (bytes > BUFFER_SIZE) {
+            throw new IllegalArgumentException("event too large: " + bytes + " bytes");
+        }
+        handOff();
+        try {
+            active = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            active = freeOrAllocate();
+        }
+    }
+
+    // 優先取用池中的空緩衝區，池空時才另外配置
+    private ByteBuffer freeOrAllocate() {
+        ByteBuffer buffer = free.poll();
+        return buffer != null ? buffer : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private void handOff() {
+        active.flip();
+        filled.add(active);
+    }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                ByteBuffer buffer = filled.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (buffer == null) {
+                    // 定時寫出：不打斷正在寫入中的事件
+                    if (lock.tryLock()) {
+                        try {
+                            if (!closed && current == null && active.position() > 0) {
+                                handOff();
+                                active = freeOrAllocate();
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                    continue;
+                }
+                if (buffer == STOP) {
+                    return;
+                }
+                write(buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(ByteBuffer buffer) {
+        try {
+            if (failure == null) {
+                while (buffer.hasRemaining()) {
+                    bytesWritten.addAndGet(channel.write(buffer));
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+            System.err.println("事件日誌寫入失敗：" + e.getMessage());
+        }
+        buffer.clear();
+        // 池空時額外配置的緩衝區在池滿時直接丟棄
+        free.offer(buffer);
+    }
+
+    /**
+     * 寫出剩餘事件並關檔
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            handOff();
+            filled.add(STOP);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
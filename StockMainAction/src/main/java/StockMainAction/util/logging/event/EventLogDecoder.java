@@ -0,0 +1,235 @@
+package StockMainAction.util.logging.event;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 事件日誌離線解碼工具：把 {@link EventLog} 的二進位檔還原成文字或 CSV
+ *
+ * <pre>
+ * java -cp ... StockMainAction.util.logging.event.EventLogDecoder [--event=NAME] [--csv] events.evl [輸出檔]
+ * </pre>
+ * 文字模式每行一筆事件（時間、事件名稱、欄位=值）；CSV 模式需以 --event 指定單一事件型別，
+ * 第一列為欄位名稱。未指定輸出檔時寫到標準輸出。檔案結尾若是寫到一半的事件會被略過。
+ */
+public final class EventLogDecoder {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final EventSchema.FieldType[] TYPES = EventSchema.FieldType.values();
+
+    private EventLogDecoder() {
+    }
+
+    /**
+     * 解碼後的一筆事件；values 依 schema 欄位順序，型別為 Integer/Long/Double/Boolean/String
+     */
+    public record Event(EventSchema schema, long timestamp, Object[] values) {
+
+        public String name() {
+            return schema.getName();
+        }
+
+        public Object value(String field) {
+            for (int i = 0; i < schema.fieldCount(); i++) {
+                if (schema.field(i).name().equals(field)) return values[i];
+            }
+            throw new IllegalArgumentException("unknown field " + field + " in " + schema.getName());
+        }
+    }
+
+    /**
+     * 依序讀出檔案中的所有事件
+     */
+    public static void read(Path file, Consumer<Event> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != EventLog.MAGIC || in.readShort() != EventLog.VERSION) {
+                throw new IOException("Not an event log: " + file);
+            }
+            in.readLong(); // 建立時間
+            Map<Integer, EventSchema> schemas = new HashMap<>();
+            List<String> symbols = new ArrayList<>();
+            while (true) {
+                short tag;
+                try {
+                    tag = in.readShort();
+                } catch (EOFException end) {
+                    return;
+                }
+                try {
+                    if (tag == EventLog.SCHEMA_TAG) {
+                        int id = in.readShort();
+                        EventSchema.Builder builder = EventSchema.builder(id, readString(in));
+                        int fields = in.readShort();
+                        for (int i = 0; i < fields; i++) {
+                            String name = readString(in);
+                            builder.field(name, TYPES[in.readByte()]);
+                        }
+                        schemas.put(id, builder.build());
+                    } else if (tag == EventLog.SYMBOL_TAG) {
+                        int code = in.readInt();
+                        String symbol = readString(in);
+                        while (symbols.size() <= code) symbols.add(null);
+                        symbols.set(code, symbol);
+                    } else {
+                        EventSchema schema = schemas.get((int) tag);
+                        if (schema == null) {
+                            throw new IOException("Event " + tag + " used before its definition in " + file);
+                        }
+                        long timestamp = in.readLong();
+                        Object[] values = new Object[schema.fieldCount()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = readValue(in, schema.field(i).type(), symbols);
+                        }
+                        consumer.accept(new Event(schema, timestamp, values));
+                    }
+                } catch (EOFException truncated) {
+                    // 寫到一半的尾端紀錄
+                    return;
+                }
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in, EventSchema.FieldType type, List<String> symbols)
+            throws IOException {
+        return switch (type) {
+            case INT -> in.readInt();
+            case LONG -> in.readLong();
+            case DOUBLE -> in.readDouble();
+            case BOOLEAN -> in.readByte() != 0;
+            case SYMBOL -> {
+                int code = in.readInt();
+                yield code < 0 || code >= symbols.size() ? null : symbols.get(code);
+            }
+        };
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 輸出為文字，每行一筆事件
+     *
+     * @param eventName 只輸出此事件型別，null 表示全部
+     * @return 輸出的事件數
+     */
+    public static long writeText(Path file, Writer out, String eventName) throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        long[] count = new long[1];
+        readChecked(file, event -> {
+            if (eventName != null && !eventName.equals(event.name())) return;
+            StringBuilder line = new StringBuilder(128);
+            line.append(LocalDateTime.ofInstant(Instant.ofEpochMilli(event.timestamp()), zone).format(TIME_FORMATTER))
+                    .append(' ').append(event.name());
+            for (int i = 0; i < event.values().length; i++) {
+                line.append(' ').append(event.schema().field(i).name()).append('=').append(event.values()[i]);
+            }
+            writeLine(out, line);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * 輸出單一事件型別為 CSV（timestamp 為 epoch 毫秒）
+     *
+     * @return 輸出的事件數
+     */
+    public static long writeCsv(Path file, Writer out, String eventName) throws IOException {
+        if (eventName == null) {
+            throw new IllegalArgumentException("CSV output needs a single event type");
+        }
+        long[] count = new long[1];
+        readChecked(file, event -> {
+            if (!eventName.equals(event.name())) return;
+            StringBuilder line = new StringBuilder(128);
+            if (count[0] == 0) {
+                line.append("timestamp");
+                for (EventSchema.Field field : event.schema().getFields()) {
+                    line.append(',').append(field.name());
+                }
+                writeLine(out, line);
+                line.setLength(0);
+            }
+            line.append(event.timestamp());
+            for (Object value : event.values()) {
+                line.append(',').append(csv(value));
+            }
+            writeLine(out, line);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    private static void readChecked(Path file, Consumer<Event> consumer) throws IOException {
+        try {
+            read(file, consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeLine(Writer out, CharSequence line) {
+        try {
+            out.append(line).append(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) return text;
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    public static void main(String[] args) {
+        boolean csv = false;
+        String eventName = null;
+        List<String> paths = new ArrayList<>();
+        for (String arg : args) {
+            if ("--csv".equals(arg)) csv = true;
+            else if (arg.startsWith("--event=")) eventName = arg.substring("--event=".length());
+            else paths.add(arg);
+        }
+        if (paths.isEmpty() || paths.size() > 2 || (csv && eventName == null)) {
+            System.err.println("用法：EventLogDecoder [--event=NAME] [--csv] <events.evl> [輸出檔]（--csv 需搭配 --event）");
+            System.exit(2);
+            return;
+        }
+        Path input = Paths.get(paths.get(0));
+        try (Writer out = paths.size() > 1
+                ? Files.newBufferedWriter(Paths.get(paths.get(1)), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            long count = csv ? writeCsv(input, out, eventName) : writeText(input, out, eventName);
+            out.flush();
+            System.err.println("已解碼 " + count + " 筆事件");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("解碼失敗：" + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package StockMainAction.util.logging.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 結構化事件的欄位定義：每個事件型別有固定的編號、名稱與定寬欄位，
+ * 寫入時依序放入欄位值，解碼器依同一份定義（寫在檔案內）還原
+ */
+public final class EventSchema {
+
+    /**
+     * 欄位型別與其固定寬度（位元組）
+     */
+    public enum FieldType {
+        INT(4),
+        LONG(8),
+        DOUBLE(8),
+        BOOLEAN(1),
+        /** 字串以符號表編號（int）儲存，同一字串只寫一次 */
+        SYMBOL(4);
+
+        private final int width;
+
+        FieldType(int width) {
+            this.width = width;
+        }
+
+        public int width() {
+            return width;
+        }
+    }
+
+    public record Field(String name, FieldType type) {
+
+        public Field {
+            Objects.requireNonNull(name, "name");
+            Objects.requireNonNull(type, "type");
+        }
+    }
+
+    /** 保留給檔案內定義紀錄的編號上限（事件編號需小於此值） */
+    public static final int MAX_ID = 0x7FF0;
+
+    private final int id;
+    private final String name;
+    private final Field[] fields;
+    private final int payloadSize;
+
+    EventSchema(int id, String name, Field[] fields) {
+        if (id <= 0 || id >= MAX_ID) {
+            throw new IllegalArgumentException("schema id must be in (0, " + MAX_ID + ")");
+        }
+        this.id = id;
+        this.name = Objects.requireNonNull(name, "name");
+        this.fields = fields.clone();
+        int size = 0;
+        for (Field field : fields) {
+            size += field.type().width();
+        }
+        this.payloadSize = size;
+    }
+
+    public static Builder builder(int id, String name) {
+        return new Builder(id, name);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Field> getFields() {
+        return List.of(fields);
+    }
+
+    public int fieldCount() {
+        return fields.length;
+    }
+
+    public Field field(int index) {
+        return fields[index];
+    }
+
+    /** 欄位值的總寬度（不含事件標頭） */
+    public int payloadSize() {
+        return payloadSize;
+    }
+
+    @Override
+    public String toString() {
+        return name + "#" + id + Arrays.toString(fields);
+    }
+
+    public static final class Builder {
+        private final int id;
+        private final String name;
+        private final List<Field> fields = new ArrayList<>();
+
+        private Builder(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Builder field(String fieldName, FieldType type) {
+            fields.add(new Field(fieldName, type));
+            return this;
+        }
+
+        public Builder intField(String fieldName) {
+            return field(fieldName, FieldType.INT);
+        }
+
+        public Builder longField(String fieldName) {
+            return field(fieldName, FieldType.LONG);
+        }
+
+        public Builder doubleField(String fieldName) {
+            return field(fieldName, FieldType.DOUBLE);
+        }
+
+        public Builder booleanField(String fieldName) {
+            return field(fieldName, FieldType.BOOLEAN);
+        }
+
+        public Builder symbolField(String fieldName) {
+            return field(fieldName, FieldType.SYMBOL);
+        }
+
+        public EventSchema build() {
+            return new EventSchema(id, name, fields.toArray(new Field[0]));
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package StockMainAction.view;
 
 import StockMainAction.MatchingEnginePanel;
+import StockMainAction.TickProfilerPanel;
 import StockMainAction.view.components.GameDashboardPanel;
 import StockMainAction.view.components.PriceAlertPanel;
 import StockMainAction.view.components.PersonalStatsPanel;
@@ -31,12 +32,14 @@ public class ControlView extends JFrame {
     private JButton transactionHistoryButton;
     private JLabel userStockLabel, userCashLabel, userAvgPriceLabel, userTargetPrice;
     private MatchingEnginePanel matchingEnginePanel;
+    private TickProfilerPanel tickProfilerPanel;
     private PriceAlertPanel priceAlertPanel;
     private PersonalStatsPanel personalStatsPanel;
     private QuickTradePanel quickTradePanel;
     private RiskControlPanel riskControlPanel;
     private GameDashboardPanel gameDashboardPanel;
     private JScrollPane matchingEngineScrollPane;
+    private JScrollPane tickProfilerScrollPane;
     private JPanel mainForceStatusPanel;
     private JSpinner mainForceReplaceSpinner;
 
@@ -85,6 +88,7 @@ public class ControlView extends JFrame {
         addPriceAlertTab();     // 價格提醒分頁
         addPersonalStatsTab();  // 個人統計分頁
         addMatchingEngineTab(); // 撮合引擎分頁
+        addTickProfilerTab();   // 效能分析分頁
         addMainForceStatusTab(); // 主力狀態分頁
 
         // 設置分頁圖標（可選）
@@ -106,6 +110,7 @@ public class ControlView extends JFrame {
     public void dispose() {
         if (quickTradePanel != null) quickTradePanel.close();
         if (personalStatsPanel != null) personalStatsPanel.close();
+        if (tickProfilerPanel != null) tickProfilerPanel.close();
         super.dispose();
     }
 
@@ -327,6 +332,20 @@ public class ControlView extends JFrame {
         tabbedPane.addTab("撮合引擎", scrollPane);
     }
 
+    /**
+     * 添加效能分析分頁（每 tick 分段耗時）
+     */
+    private void addTickProfilerTab() {
+        tickProfilerPanel = new TickProfilerPanel();
+
+        JScrollPane scrollPane = new JScrollPane(tickProfilerPanel);
+        tickProfilerScrollPane = scrollPane;
+        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+
+        tabbedPane.addTab("效能分析", scrollPane);
+    }
+
     /**
      * 添加主力狀態分頁（只讀顯示 + 手動干預）
      */
@@ -402,6 +421,7 @@ public class ControlView extends JFrame {
         setTabToolTip("價格提醒", "設置價格提醒");
         setTabToolTip("個人統計", "查看個人交易統計");
         setTabToolTip("撮合引擎", "調整撮合引擎參數");
+        setTabToolTip("效能分析", "查看每個 tick 各階段耗時與超時統計");
         setTabToolTip("主力狀態", "查看並手動干預主力策略");
     }
 
@@ -438,6 +458,7 @@ public class ControlView extends JFrame {
             quickTradePanel.setSandboxInterventionVisible(visible);
         }
         setOptionalTabVisible("撮合引擎", matchingEngineScrollPane, visible);
+        setOptionalTabVisible("效能分析", tickProfilerScrollPane, visible);
         setOptionalTabVisible("主力狀態", mainForceStatusPanel, visible);
     }
 
@@ -497,6 +518,10 @@ public class ControlView extends JFrame {
         return matchingEnginePanel;
     }
 
+    public TickProfilerPanel getTickProfilerPanel() {
+        return tickProfilerPanel;
+    }
+
     public PriceAlertPanel getPriceAlertPanel() {
         return priceAlertPanel;
     }
@@ -18,6 +18,7 @@ import StockMainAction.view.main.IndicatorSettingsPanel;
 import StockMainAction.view.main.KlineOhlcAggregator;
 import StockMainAction.view.main.KlineDisplayModeController;
 import StockMainAction.view.main.KlineDatasetSwitcher;
+import StockMainAction.view.main.KlineOverlayBackfill;
 import StockMainAction.view.main.KlineQuickControlBar;
 import StockMainAction.view.main.MainDashboardStrip;
 import StockMainAction.view.main.MainViewFormatters;
@@ -112,6 +113,8 @@ public class MainView extends JFrame {
     // [PERF] 圖表合併重繪排程參數
     private final ChartUpdateCoordinator chartUpdates = new ChartUpdateCoordinator(120);
     private final UiUpdateCoordinator uiUpdates = new UiUpdateCoordinator(25);
+    // [PERF] 切換週期時在背景回填 K 線疊加指標
+    private final KlineOverlayBackfill overlayBackfill = new KlineOverlayBackfill();
     private final UiThemeManager themeManager = new UiThemeManager();
     private final AtomicReference<MainViewState> latestViewState =
             new AtomicReference<>(new MainViewState(0, Double.NaN, Double.NaN, 0));
@@ -128,6 +131,15 @@ public class MainView extends JFrame {
 
     // 參照模型（供工具列與事件模式參數下發）
     private StockMarketModel model;
+    // 圖表資料時間（K 線分桶、成交速率）使用模型的模擬時鐘；畫面節流仍以牆鐘計時
+    private volatile java.time.Clock dataClock = java.time.Clock.systemDefaultZone();
+    // 模型端多週期 K 線：成交發布執行緒只排入收盤 K 線，EDT 只負責繪製
+    private volatile StockMainAction.model.core.OhlcvBarEngine barEngine;
+    private final StockMainAction.model.core.BarClosedListener barClosedListener = this::onModelBarClosed;
+    // 模型端各週期的指標管線：K 線疊加的 SMA/EMA 直接讀取（收盤 K 線只計算一次）
+    private volatile StockMainAction.model.indicator.TimeframeIndicators timeframeIndicators;
+    private final java.util.concurrent.ConcurrentLinkedQueue<StockMainAction.model.core.OhlcvBar> pendingClosedBars =
+            new java.util.concurrent.ConcurrentLinkedQueue<>();
     private javax.swing.Timer marketStatsTimer;
     private JLabel marketStatsLabel;
     // [NOISE] 噪音統計小面板（A：做多/做空；B：10根後有效/無效）
@@ -177,12 +189,8 @@ public class MainView extends JFrame {
     private XYSeries vwapLowerSeries;
     private XYSeriesCollection dsVWAP;
     private XYLineAndShapeRenderer rVWAP;
-    // VWAP 累計
-    private long vwapCumulativeVolume = 0L;
-    private double vwapCumulativePV = 0.0; // price*volume
-    private long vwapSamples = 0L; // 用於方差估計
-    private double vwapMean = 0.0;
-    private double vwapM2 = 0.0;
+    // VWAP 錨點名稱（模型端 VolumeProfileEngine）
+    private static final String AVWAP_ANCHOR = "chart";
     // [CHART] 觸發點（多空）
     private XYSeries bullSignals = new XYSeries("BullSignal");
     private XYSeries bearSignals = new XYSeries("BearSignal");
@@ -285,7 +293,6 @@ public class MainView extends JFrame {
     private XYSeriesCollection dsAVWAP;
     private XYLineAndShapeRenderer rAVWAP;
     private long avwapAnchorMs = -1L;
-    private double avwapCumPV = 0.0; private long avwapCount = 0L;
     // [UI] 指標開關
     private boolean showSMA5 = true, showSMA10 = true, showEMA12 = true, showVWAP = true, showAVWAP = false;
     // [UI] TradingView 風格：OHLC 信息面板
@@ -341,6 +348,7 @@ public class MainView extends JFrame {
     private volatile int kOverlayMinIntervalMs = 120; // 50~300ms 動態調整
     // [PERF] K線/指標/UI 節流狀態
     private volatile long overlayLastXMs = Long.MIN_VALUE;          // 最近一次處理的K線時間（ms）
+    private volatile long overlayClosedXMs = Long.MIN_VALUE;        // 最近一次由週期管線寫入的收盤K線時間（ms）
     private volatile long domainLastUpdateMs = 0L;                  // 最近一次更新域軸時間
     private volatile long domainLastXMs = Long.MIN_VALUE;           // 最近一次域軸所對應的K線時間
     private volatile long rangeLastUpdateMs = 0L;                   // 最近一次更新Y軸時間
@@ -472,6 +480,10 @@ public class MainView extends JFrame {
         synchronized (pendingInfoEvents) { pendingInfoEvents.clear(); }
         pendingPriceUpdates.clear();
         pendingVolumeUpdates.clear();
+        StockMainAction.model.core.OhlcvBarEngine engine = barEngine;
+        if (engine != null) engine.removeBarClosedListener(barClosedListener);
+        pendingClosedBars.clear();
+        overlayBackfill.shutdown();
         uiUpdates.close();
         chartUpdates.close();
         super.dispose();
@@ -927,6 +939,7 @@ public class MainView extends JFrame {
             sma5Period = config.sma5Period;
             sma10Period = config.sma10Period;
             ema12Period = config.ema12Period;
+            registerOverlayStages();
             smaLineWidth = config.smaLineWidth;
             emaLineWidth = config.emaLineWidth;
             showSignalMarkers = config.showSignalMarkers;
@@ -957,8 +970,7 @@ public class MainView extends JFrame {
                 Range range = plot.getDomainAxis().getRange();
                 avwapAnchorMs = (long) range.getLowerBound();
                 avwapSeries.clear();
-                avwapCumPV = 0.0;
-                avwapCount = 0L;
+                if (model != null) model.getVolumeProfile().setAnchor(AVWAP_ANCHOR, avwapAnchorMs);
                 scheduleChartFlush();
             }
         } catch (Exception ignore) {
@@ -1091,6 +1103,17 @@ public class MainView extends JFrame {
     // 供控制器/外部注入模型引用
     public void setModel(StockMarketModel model) {
         this.model = model;
+        StockMainAction.model.core.OhlcvBarEngine previousEngine = barEngine;
+        if (previousEngine != null) previousEngine.removeBarClosedListener(barClosedListener);
+        barEngine = model != null ? model.getBarEngine() : null;
+        if (barEngine != null) barEngine.addBarClosedListener(barClosedListener);
+        timeframeIndicators = model != null ? model.getTimeframeIndicators() : null;
+        overlayClosedXMs = Long.MIN_VALUE;
+        registerOverlayStages();
+        if (model != null && model.getClock() != null) {
+            this.dataClock = model.getClock();
+            if (tapePanel != null) tapePanel.setClock(dataClock);
+        }
         // 注入後同步散戶策略 UI（若分頁已建立）
         try { SwingUtilities.invokeLater(this::syncRetailConfigFromModel); } catch (Exception ignore) { reportUiFailure(ignore); }
     }
@@ -1143,16 +1166,36 @@ public class MainView extends JFrame {
         }
     }
     
-    // [修復VWAP] 重置VWAP累積變量
+    // [CHART] 價量分佈：POC 與價值區（70% 成交量）以水平標記顯示，每秒最多更新一次
+    private void updateVolumeProfileMarkers(StockMainAction.model.core.VolumeProfileEngine profile, long nowMs) {
+        if (profile == null || nowMs - lastProfileUpdateMs < 1000L) return;
+        lastProfileUpdateMs = nowMs;
+        XYPlot plot = getCandlePlot();
+        if (plot == null) return;
+        for (org.jfree.chart.plot.IntervalMarker marker : profileMarkers) {
+            plot.removeRangeMarker(marker, org.jfree.chart.ui.Layer.BACKGROUND);
+        }
+        profileMarkers.clear();
+        StockMainAction.model.core.VolumeProfileEngine.ValueArea area = profile.valueArea();
+        if (!showVWAP || area == null) return;
+        org.jfree.chart.plot.IntervalMarker valueArea = new org.jfree.chart.plot.IntervalMarker(
+                area.low(), area.high(), new Color(33, 150, 243, 24));
+        double tick = StockMainAction.model.core.VolumeProfileEngine.PRICE_STEP;
+        org.jfree.chart.plot.IntervalMarker poc = new org.jfree.chart.plot.IntervalMarker(
+                area.pointOfControl() - tick / 2, area.pointOfControl() + tick / 2, new Color(255, 152, 0, 110));
+        poc.setLabel("POC");
+        poc.setLabelFont(new Font("Microsoft JhengHei", Font.PLAIN, 10));
+        profileMarkers.add(valueArea);
+        profileMarkers.add(poc);
+        for (org.jfree.chart.plot.IntervalMarker marker : profileMarkers) {
+            plot.addRangeMarker(marker, org.jfree.chart.ui.Layer.BACKGROUND);
+        }
+    }
+
+    // [修復VWAP] 切換週期時清空 VWAP 曲線（累積量由模型端 VolumeProfileEngine 維護）
     private void resetVWAPAccumulators() {
         try {
-            vwapCumulativeVolume = 0L;
-            vwapCumulativePV = 0.0;
-            vwapSamples = 0L;
-            vwapMean = 0.0;
-            vwapM2 = 0.0;
-            
-            // 清空VWAP系列數據，準備從新週期重新計算
+            // 清空VWAP系列數據，準備以新週期的K線時間軸重新描繪
             if (vwapSeries != null) {
                 vwapSeries.clear();
             }
@@ -1611,6 +1654,7 @@ public class MainView extends JFrame {
 
         // Tape（逐筆成交）：Aggressor/價/量/滑價/速度
         tapePanel = new TapePanel();
+        tapePanel.setClock(dataClock);
         JPanel tapeTab = new JPanel(new BorderLayout());
         tapeTab.setBorder(BorderFactory.createEmptyBorder(4,4,4,4));
         tapeTab.add(tapePanel, BorderLayout.CENTER);
@@ -3404,7 +3448,7 @@ public class MainView extends JFrame {
      */
     public void updatePriceChart(int timeStep, double price, double sma) {
         latestViewState.updateAndGet(state -> state.withPrice(timeStep, price, sma));
-        enqueuePriceUpdate(new PriceUpdate(timeStep, price, sma, System.currentTimeMillis()));
+        enqueuePriceUpdate(new PriceUpdate(timeStep, price, sma, dataClock.millis()));
         uiUpdates.submit("price-chart", this::flushPriceChartUpdates);
     }
 
@@ -3427,15 +3471,27 @@ public class MainView extends JFrame {
 
                 long now = timestampMillis;
                 long currentBarXMs = KlineOhlcAggregator.alignTimestampMillis(now, currentKlineMinutes);
+                StockMainAction.model.core.OhlcvBarEngine engine = barEngine;
                 try {
                     OHLCSeries series = minuteToSeries.get(currentKlineMinutes);
                     if (series == null) return;
-                    KlineOhlcAggregator.Result result = KlineOhlcAggregator.applyTick(
-                            series, price, now, currentKlineMinutes, maxKlineBars,
-                            (candleXMs, candleClose) -> {
-                                try { onCandleClosed(series, candleXMs, candleClose); }
-                                catch (Exception ignore) { reportUiFailure(ignore); }
-                            });
+                    KlineOhlcAggregator.CandleClosedHandler closedHandler = (candleXMs, candleClose) -> {
+                        try { onCandleClosed(series, candleXMs, candleClose); }
+                        catch (Exception ignore) { reportUiFailure(ignore); }
+                    };
+                    KlineOhlcAggregator.Result result;
+                    if (isEngineBacked(engine, currentKlineMinutes)) {
+                        // 由模型端 K 線（真實成交量、每筆成交聚合一次）繪製目前 K 線
+                        StockMainAction.model.core.OhlcvBar bar = engine.currentBar(
+                                KlineOhlcAggregator.bucketMillis(currentKlineMinutes));
+                        result = bar == null
+                                ? KlineOhlcAggregator.Result.unchanged(currentBarXMs)
+                                : KlineOhlcAggregator.applyBar(series, bar.startMillis(), bar.open(), bar.high(),
+                                        bar.low(), bar.close(), currentKlineMinutes, maxKlineBars, closedHandler);
+                    } else {
+                        result = KlineOhlcAggregator.applyTick(
+                                series, price, now, currentKlineMinutes, maxKlineBars, closedHandler);
+                    }
                     currentBarXMs = result.currentBarXMillis();
                     // [PERF] 若K線被裁切，對應的標誌符號（signals/big/tick imbalance）也要同步裁切，避免前面殘留幽靈點
                     if (result.trimmed()) {
@@ -3445,10 +3501,10 @@ public class MainView extends JFrame {
                     reportUiFailure(ignore);
                 }
 
-                // [CHART] 另外更新多週期資料（30秒、60秒、10分、30分）
+                // [CHART] 另外更新多週期資料（30秒、60秒、10分、30分）；模型端已聚合的週期改由收盤事件更新
                 int[] extraKeys = new int[]{-30, -60, 10, 30};
                 for (int key : extraKeys) {
-                    if (key == currentKlineMinutes) continue;
+                    if (key == currentKlineMinutes || isEngineBacked(engine, key)) continue;
                     try { updateOhlcForKey(price, now, key); } catch (Exception ignore) { reportUiFailure(ignore); }
                 }
 
@@ -3460,28 +3516,37 @@ public class MainView extends JFrame {
                     }
                 } catch (Exception ignore) { reportUiFailure(ignore); }
 
-                // [CHART] 即時計算 VWAP 與上下帶（以當前窗累積）
+                // [CHART] VWAP 與上下帶：讀取模型端以真實成交量加權的時段 VWAP（±2σ，成交量加權標準差）
+                StockMainAction.model.core.VolumeProfileEngine profile = model != null ? model.getVolumeProfile() : null;
                 try {
-                    vwapCumulativeVolume += 1; // 以 tick 當作單位量，若有真實量請改為 volume
-                    vwapCumulativePV += price; // 以 tick 價格代替 price*volume
-                    vwapSamples++;
-                    double vwap = vwapCumulativePV / Math.max(1.0, vwapCumulativeVolume);
-                    // Welford 單通道方差，用於動態帶寬
-                    double delta = price - vwapMean; vwapMean += delta / vwapSamples; double delta2 = price - vwapMean; vwapM2 += delta * delta2;
-                    double variance = vwapSamples>1 ? vwapM2 / (vwapSamples - 1) : 0.0;
-                    double stdev = Math.sqrt(Math.max(0.0, variance));
-                    double upper = vwap + 2 * stdev;
-                    double lower = vwap - 2 * stdev;
-                    long xMs = currentBarXMs;
-                    int idx = vwapSeries.indexOf(xMs);
-                    if (idx >= 0) vwapSeries.updateByIndex(idx, vwap); else vwapSeries.add(xMs, vwap);
-                    idx = vwapUpperSeries.indexOf(xMs);
-                    if (idx >= 0) vwapUpperSeries.updateByIndex(idx, upper); else vwapUpperSeries.add(xMs, upper);
-                    idx = vwapLowerSeries.indexOf(xMs);
-                    if (idx >= 0) vwapLowerSeries.updateByIndex(idx, lower); else vwapLowerSeries.add(xMs, lower);
-                    keepSeriesWithinLimit(vwapSeries, indicatorMaxPoints);
-                    keepSeriesWithinLimit(vwapUpperSeries, indicatorMaxPoints);
-                    keepSeriesWithinLimit(vwapLowerSeries, indicatorMaxPoints);
+                    StockMainAction.model.core.VolumeProfileEngine.VwapStats stats =
+                            profile != null ? profile.sessionVwap() : null;
+                    if (stats != null && !stats.isEmpty()) {
+                        double vwap = stats.vwap();
+                        double upper = stats.upper(2.0);
+                        double lower = stats.lower(2.0);
+                        long xMs = currentBarXMs;
+                        int idx = vwapSeries.indexOf(xMs);
+                        if (idx >= 0) vwapSeries.updateByIndex(idx, vwap); else vwapSeries.add(xMs, vwap);
+                        idx = vwapUpperSeries.indexOf(xMs);
+                        if (idx >= 0) vwapUpperSeries.updateByIndex(idx, upper); else vwapUpperSeries.add(xMs, upper);
+                        idx = vwapLowerSeries.indexOf(xMs);
+                        if (idx >= 0) vwapLowerSeries.updateByIndex(idx, lower); else vwapLowerSeries.add(xMs, lower);
+                        keepSeriesWithinLimit(vwapSeries, indicatorMaxPoints);
+                        keepSeriesWithinLimit(vwapUpperSeries, indicatorMaxPoints);
+                        keepSeriesWithinLimit(vwapLowerSeries, indicatorMaxPoints);
+                    }
+                    if (showAVWAP && avwapAnchorMs >= 0 && profile != null) {
+                        StockMainAction.model.core.VolumeProfileEngine.VwapStats anchored =
+                                profile.anchoredVwap(AVWAP_ANCHOR);
+                        if (anchored != null && !anchored.isEmpty()) {
+                            int idx = avwapSeries.indexOf(currentBarXMs);
+                            if (idx >= 0) avwapSeries.updateByIndex(idx, anchored.vwap());
+                            else avwapSeries.add(currentBarXMs, anchored.vwap());
+                            keepSeriesWithinLimit(avwapSeries, indicatorMaxPoints);
+                        }
+                    }
+                    updateVolumeProfileMarkers(profile, now);
                 } catch (Exception ignore) { reportUiFailure(ignore); }
 
                 // [CHART] 連續窗 + 價格創新高/低訊號
@@ -3520,7 +3585,7 @@ public class MainView extends JFrame {
                 // [CHART] 買賣盤失衡檢測（Tick Imbalance）
                 try {
                     if (model != null) {
-                        // 取得最近 60 筆交易的買賣盤失衡度
+                        // 取得最近 60 秒（模擬時間）的買賣盤失衡度
                         double tickImb = model.getRecentTickImbalance(60);
                         
                         long xMs = currentBarXMs;
@@ -3575,6 +3640,38 @@ public class MainView extends JFrame {
                 // 精簡：不再維護 SMA 折線資料
     }
 
+    private static boolean isEngineBacked(StockMainAction.model.core.OhlcvBarEngine engine, int key) {
+        return engine != null && engine.supports(KlineOhlcAggregator.bucketMillis(key));
+    }
+
+    // 成交發布執行緒：只排入佇列，由 EDT 批次繪製
+    private void onModelBarClosed(StockMainAction.model.core.OhlcvBar bar) {
+        pendingClosedBars.add(bar);
+        uiUpdates.submit("closed-bars", this::flushClosedBars);
+    }
+
+    // EDT：把收盤 K 線寫入所有同週期的序列（例如 60 秒與 1 分）
+    private void flushClosedBars() {
+        StockMainAction.model.core.OhlcvBar bar;
+        while ((bar = pendingClosedBars.poll()) != null) {
+            for (java.util.Map.Entry<Integer, OHLCSeries> entry : minuteToSeries.entrySet()) {
+                int key = entry.getKey();
+                if (KlineOhlcAggregator.bucketMillis(key) != bar.timeframeMillis()) continue;
+                OHLCSeries series = entry.getValue();
+                try {
+                    KlineOhlcAggregator.Result result = KlineOhlcAggregator.applyBar(series, bar.startMillis(),
+                            bar.open(), bar.high(), bar.low(), bar.close(), key, maxKlineBars,
+                            key == currentKlineMinutes
+                                    ? (candleXMs, candleClose) -> onCandleClosed(series, candleXMs, candleClose)
+                                    : null);
+                    if (result.trimmed() && key == currentKlineMinutes) trimSignalMarkersToOhlcWindow(series);
+                } catch (Exception ignore) {
+                    reportUiFailure(ignore);
+                }
+            }
+        }
+    }
+
     // [CHART] 將即時價格聚合到指定 period 的 OHLCSeries（key<0=秒，>0=分）
     private void updateOhlcForKey(double price, long nowMs, int key){
         OHLCSeries series = minuteToSeries.get(key);
@@ -3686,7 +3783,7 @@ public class MainView extends JFrame {
 
     // [PERF] 取得 OHLCItem 的 X（毫秒）
     private long ohlcXMs(OHLCItem item) {
-        try { return KlineOhlcAggregator.itemXMillis(item); } catch (Exception e) { return System.currentTimeMillis(); }
+        try { return KlineOhlcAggregator.itemXMillis(item); } catch (Exception e) { return dataClock.millis(); }
     }
 
     // [PERF] 計算某一根 K 線（以 idx 結尾）的 SMA（period<=60 的小窗）
@@ -3704,11 +3801,85 @@ public class MainView extends JFrame {
         catch (Exception ignore) { reportUiFailure(ignore); }
     }
 
+    // 在模型端各週期管線註冊目前設定的疊加均線（同名指標已存在時不重複計算）
+    private void registerOverlayStages() {
+        StockMainAction.model.indicator.TimeframeIndicators indicators = timeframeIndicators;
+        if (indicators == null) return;
+        try {
+            indicators.extend(barEngine, ChartOverlayController.stages(sma5Period, sma10Period, ema12Period));
+            overlayClosedXMs = Long.MIN_VALUE;
+        } catch (Exception ignore) { reportUiFailure(ignore); }
+    }
+
+    // [PERF] 模型端已聚合的週期：SMA/EMA 取自週期管線，目前K線以最近收盤的管線狀態加上目前 close 推算；
+    // 非模型端週期或管線尚未註冊均線時回傳 false，改由序列增量計算
+    private boolean updateKOverlayFromPipeline(OHLCSeries s) {
+        StockMainAction.model.indicator.TimeframeIndicators indicators = timeframeIndicators;
+        if (indicators == null || !isEngineBacked(barEngine, currentKlineMinutes)) return false;
+        long tf = KlineOhlcAggregator.bucketMillis(currentKlineMinutes);
+        int n = s.getItemCount();
+        OHLCItem lastItem = (OHLCItem) s.getDataItem(n - 1);
+        long xMs = ohlcXMs(lastItem);
+        long nowMs = System.currentTimeMillis();
+        boolean changed = xMs != overlayLastXMs || indicators.lastClosedStart(tf) != overlayClosedXMs;
+        if (!ChartOverlayController.shouldUpdateCurrent(changed, nowMs, kOverlayLastRecomputeMs, kOverlayMinIntervalMs)) {
+            return true;
+        }
+        int fastPeriod = sma5Period;
+        int slowPeriod = sma10Period;
+        int emaPeriod = ema12Period;
+        ChartOverlayController.PipelineOverlay overlay = indicators.read(tf, pipeline ->
+                ChartOverlayController.PipelineOverlay.capture(indicators.lastClosedStart(tf), pipeline,
+                        fastPeriod, slowPeriod, emaPeriod));
+        if (overlay == null) return false;
+
+        XYSeries s5 = periodToSMA5.get(currentKlineMinutes);
+        XYSeries s10 = periodToSMA10.get(currentKlineMinutes);
+        XYSeries e12 = periodToEMA12.get(currentKlineMinutes);
+        try { toggleOverlayNotify(false); } catch (Exception ignore) { reportUiFailure(ignore); }
+        try {
+            // 收盤K線：寫入管線的最終值（上一根，或圖表尚未換根時的最後一根）
+            if (overlay.hasClosedBar() && overlay.barStartMillis() != overlayClosedXMs) {
+                long closedX = overlay.barStartMillis();
+                upsertOverlayXY(sma5Series, s5, closedX, overlay.smaFast());
+                upsertOverlayXY(sma10Series, s10, closedX, overlay.smaSlow());
+                upsertOverlayXY(ema12Series, e12, closedX, overlay.ema());
+                overlayClosedXMs = closedX;
+            }
+            // 目前K線：管線恰好收到前一根（或兩者皆無收盤K線）時才推算，否則等收盤事件送達
+            long prevX = n >= 2 ? ohlcXMs((OHLCItem) s.getDataItem(n - 2))
+                    : StockMainAction.model.indicator.TimeframeIndicators.NO_BAR;
+            if (overlay.barStartMillis() == prevX) {
+                double close = lastItem.getCloseValue();
+                upsertOverlayXY(sma5Series, s5, xMs, overlay.smaFastWith(close));
+                upsertOverlayXY(sma10Series, s10, xMs, overlay.smaSlowWith(close));
+                upsertOverlayXY(ema12Series, e12, xMs, overlay.emaWith(close));
+            }
+            overlayLastXMs = xMs;
+            keepSeriesWithinLimit(sma5Series, indicatorMaxPoints);
+            keepSeriesWithinLimit(sma10Series, indicatorMaxPoints);
+            keepSeriesWithinLimit(ema12Series, indicatorMaxPoints);
+            kOverlayLastRecomputeMs = nowMs;
+        } finally {
+            try { toggleOverlayNotify(true); } catch (Exception ignore) { reportUiFailure(ignore); }
+        }
+        return true;
+    }
+
+    // 同一點寫入主疊加 series 與多週期 overlay（若存在）
+    private void upsertOverlayXY(XYSeries series, XYSeries periodSeries, long x, double y) {
+        try {
+            ChartOverlayController.upsert(series, x, y);
+            if (periodSeries != null && periodSeries != series) ChartOverlayController.upsert(periodSeries, x, y);
+        } catch (Exception ignore) { reportUiFailure(ignore); }
+    }
+
     // [PERF] 增量更新 SMA/EMA（僅更新最後一根，且在新K線時回填上一根的最終值）
     private void updateKOverlayIncremental(OHLCSeries s) {
         if (s == null) return;
         int n = s.getItemCount();
         if (n <= 0) return;
+        if (updateKOverlayFromPipeline(s)) return;
 
         long nowMs = System.currentTimeMillis();
         int lastIdx = n - 1;
@@ -4233,8 +4404,50 @@ public class MainView extends JFrame {
     }
 
     // 基於當前 K 線序列（OHLCSeries）的 close 值重算 SMA/EMA/BOLL 並以 K 線 period 時間作為 X 軸
+    // EDT 只擷取收盤價快照，指標在背景分段計算，完成後一次換入（過期結果直接丟棄）
     private void recomputeOverlayFromOHLC() {
-        // 精簡：已移除疊加指標重算
+        OHLCSeries series = minuteToSeries.get(currentKlineMinutes);
+        if (series == null || sma5Series == null) return;
+        KlineOverlayBackfill.Snapshot snapshot = KlineOverlayBackfill.Snapshot.capture(series, currentKlineMinutes);
+        KlineOverlayBackfill.Params params = new KlineOverlayBackfill.Params(
+                sma5Period, sma10Period, 20, ema12Period, 26, 20, 2.0);
+        overlayBackfill.submit(snapshot, params).whenComplete((result, failure) -> {
+            if (failure != null) {
+                reportUiFailure(failure);
+                return;
+            }
+            SwingUtilities.invokeLater(() -> applyOverlayBackfill(result));
+        });
+    }
+
+    // EDT：把背景回填結果整批換入疊加 series
+    private void applyOverlayBackfill(KlineOverlayBackfill.Result result) {
+        if (!overlayBackfill.isCurrent(result) || result.periodKey() != currentKlineMinutes) return;
+        int n = result.size();
+        toggleOverlayNotify(false);
+        try {
+            long[] x = result.xMillis();
+            TechnicalIndicatorSeriesUpdater.replaceAll(sma5Series, x, result.smaFast(), indicatorMaxPoints);
+            TechnicalIndicatorSeriesUpdater.replaceAll(sma10Series, x, result.smaSlow(), indicatorMaxPoints);
+            TechnicalIndicatorSeriesUpdater.replaceAll(sma20Series, x, result.smaLong(), indicatorMaxPoints);
+            TechnicalIndicatorSeriesUpdater.replaceAll(ema12Series, x, result.emaFast(), indicatorMaxPoints);
+            TechnicalIndicatorSeriesUpdater.replaceAll(ema26Series, x, result.emaSlow(), indicatorMaxPoints);
+            TechnicalIndicatorSeriesUpdater.replaceAll(bollUSeries, x, result.bollUpper(), indicatorMaxPoints);
+            TechnicalIndicatorSeriesUpdater.replaceAll(bollMSeries, x, result.bollMiddle(), indicatorMaxPoints);
+            TechnicalIndicatorSeriesUpdater.replaceAll(bollLSeries, x, result.bollLower(), indicatorMaxPoints);
+            // 讓增量更新從回填的最後一根接續（週期管線的收盤值於下一輪重新寫入）
+            overlayClosedXMs = Long.MIN_VALUE;
+            if (n > 0) {
+                overlayLastXMs = x[n - 1];
+                ema12PrevForCurrent = n >= 2 ? result.emaFast()[n - 2] : Double.NaN;
+            }
+            kOverlayLastRecomputeMs = System.currentTimeMillis();
+        } catch (Exception ignore) {
+            reportUiFailure(ignore);
+        } finally {
+            toggleOverlayNotify(true);
+        }
+        scheduleChartFlush();
     }
 
     // 僅重算成本估計，不寫入任何 UI（供啟動自動效能偵測使用）
@@ -4348,7 +4561,7 @@ public class MainView extends JFrame {
      */
     public void updateVolumeChart(int timeStep, int volume) {
         latestViewState.updateAndGet(state -> state.withVolume(timeStep, volume));
-        enqueueVolumeUpdate(new VolumeUpdate(timeStep, volume, System.currentTimeMillis()));
+        enqueueVolumeUpdate(new VolumeUpdate(timeStep, volume, dataClock.millis()));
         uiUpdates.submit("volume-chart", this::flushVolumeChartUpdates);
     }
 
@@ -4461,7 +4674,7 @@ public class MainView extends JFrame {
         private final JLabel slipLabel = new JLabel("均滑價: --");
         private final JLabel avgVolLabel = new JLabel("均量: --");
         private final JLabel streakLabel = new JLabel("最大連續: --");
-        private final TradeTapeMetrics metrics = new TradeTapeMetrics(
+        private volatile TradeTapeMetrics metrics = new TradeTapeMetrics(
                 10_000L, java.time.Clock.systemDefaultZone());
         public TapePanel(){
             setLayout(new BorderLayout(6,6));
@@ -4471,6 +4684,10 @@ public class MainView extends JFrame {
             top.add(ratioLabel); top.add(rateLabel); top.add(slipLabel); top.add(avgVolLabel); top.add(streakLabel);
             add(top, BorderLayout.NORTH);
         }
+        // 改用模型的模擬時鐘計算近 10 秒速率（切換時清空舊統計，避免牆鐘與模擬時間混用）
+        void setClock(java.time.Clock clock){
+            if (clock != null) metrics = new TradeTapeMetrics(10_000L, clock);
+        }
         public void pushTrade(boolean buyerInitiated, double price, int volume, double bestBid, double bestAsk){
             String side = buyerInitiated ? "買" : "賣";
             double slipAbs = Math.abs(buyerInitiated ? (price - bestAsk) : (bestBid - price));
@@ -4555,25 +4772,16 @@ public class MainView extends JFrame {
     private void refreshMarketStats(){
         try {
             if (marketStatsLabel == null || model == null) return;
-            java.util.List<Transaction> recent = model.getRecentTransactions(60);
-            if (recent.isEmpty()) {
+            // 近 60 秒（模擬時間）的 Tape 統計，直接讀取時間桶
+            StockMainAction.model.core.TapeMetricsEngine.Window tape = model.getTapeMetrics().window(60_000L);
+            if (tape.isEmpty()) {
                 marketStatsLabel.setText("指標: In/Out --/--  Δ --  失衡 --  TPS -- VPS --");
                 return;
             }
-            long inVol=0,outVol=0,vol=0;
-            int buyTicks=0,sellTicks=0;
-            for (Transaction t: recent){
-                vol += t.getVolume();
-                if (t.isBuyerInitiated()) { outVol += t.getVolume(); buyTicks++; } else { inVol += t.getVolume(); sellTicks++; }
-            }
-            int tot = (int)Math.max(1, inVol + outVol);
-            int inPct = (int)Math.round(inVol * 100.0 / tot);
-            int outPct = 100 - inPct;
-            long delta = outVol - inVol;
-            double tps = model.getRecentTPS(60);
-            double vps = model.getRecentVPS(60);
-            double imb = model.getRecentTickImbalance(60);
-            marketStatsLabel.setText(String.format("指標: In/Out %d%%/%d%%  Δ %,d  失衡 %.2f  TPS %.2f  VPS %,d", inPct, outPct, delta, imb, tps, Math.round(vps)));
+            long delta = tape.buyVolume() - tape.sellVolume();
+            marketStatsLabel.setText(String.format("指標: In/Out %d%%/%d%%  Δ %,d  失衡 %.2f  TPS %.2f  VPS %,d",
+                    tape.inPct(), tape.outPct(), delta, tape.tickImbalance(), tape.tradesPerSecond(),
+                    Math.round(tape.volumePerSecond())));
         } catch (Exception ignore) { reportUiFailure(ignore); }
         try { refreshNoiseStatsLabel(); } catch (Exception ignore) { reportUiFailure(ignore); }
     }
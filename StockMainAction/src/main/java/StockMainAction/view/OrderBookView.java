@@ -2,7 +2,7 @@ package StockMainAction.view;
 
 import StockMainAction.model.core.Order;
 import StockMainAction.model.core.OrderBook;
-import StockMainAction.model.core.Transaction; // [UI] 內外盤依逐筆成交
+import StockMainAction.model.core.TapeMetricsEngine; // [UI] 內外盤依 Tape 時間窗統計
 import StockMainAction.view.components.OrderBookTable;
 import StockMainAction.util.logging.MarketLogger;
 
@@ -383,40 +383,19 @@ public class OrderBookView {
         return orderBookTable.getModelValueAt(2, col);
     }
 
-    // [UI] 依逐筆成交 + 當下買一/賣一計算內外盤（建議控制器推送最近N筆或T秒資料）
-    public void updateInOutRatioByTrades(java.util.List<Transaction> recentTrades, double bestBid, double bestAsk) {
-        if (recentTrades == null || recentTrades.isEmpty()) return;
-        long inVol = 0;  // 內盤量（sell/at bid 或以下）
-        long outVol = 0; // 外盤量（buy/at ask 或以上）
-        for (Transaction t : recentTrades) {
-            try {
-                double p = t.getPrice();
-                int v = t.getVolume();
-                if (p <= bestBid) {
-                    inVol += v;
-                } else if (p >= bestAsk) {
-                    outVol += v;
-                } else {
-                    // 介於最佳價之間：以 aggressor 判定
-                    if (t.isBuyerInitiated()) outVol += v; else inVol += v;
-                }
-                // 對外回報逐筆，讓 MainView 的 Tape 顯示與分析能同步
-                if (tapeListener != null) tapeListener.onTrade(t.isBuyerInitiated(), p, v, bestBid, bestAsk);
-            } catch (Exception ignore) { reportUiFailure(ignore); }
-        }
-        long total = Math.max(1, inVol + outVol);
-        int outPct = (int) Math.round(outVol * 100.0 / total);
-        int inPct = 100 - outPct;
+    // [UI] 依 Tape 時間窗統計更新內外盤（買方主動=外盤、賣方主動=內盤；統計由模型的時間桶引擎提供）
+    public void updateInOutRatio(TapeMetricsEngine.Window window) {
+        if (window == null || window.isEmpty()) return;
+        long inVol = window.sellVolume();
+        long outVol = window.buyVolume();
+        int inPct = window.inPct();
         inOutLabel.setText(String.format("<html>內外盤比例: <span style='color:#2E7D32'>(%,d)</span> | <span style='color:#C62828'>(%,d)</span></html>", inVol, outVol));
         ratioBar.setData(inVol, outVol);
         ratioSpark.pushRatio(inPct);
-        deltaPanel.pushDelta((int)(outVol - inVol));
+        deltaPanel.pushDelta((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, outVol - inVol)));
         if (inOutListener != null) inOutListener.onUpdate(inVol, outVol, inPct);
-
     }
 
-    
-
     // === 大條內外盤比（左綠右紅） ===
     private static class InOutRatioBar extends JPanel {
         private long inVol, outVol;
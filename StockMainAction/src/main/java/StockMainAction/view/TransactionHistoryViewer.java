@@ -60,6 +60,7 @@ public class TransactionHistoryViewer extends JFrame implements StockMarketModel
             // Register first. An event racing with the snapshot is harmless because the panel de-duplicates IDs.
             model.addTransactionListener(this);
             historyPanel.addTransactions(model.getTransactionHistory());
+            historyPanel.setHistoryStore(model.getTransactionHistoryStore());
         }
         updateRefreshState();
     }
@@ -1,15 +1,21 @@
 package StockMainAction.view.chart;
 
+import StockMainAction.model.core.TapeMetricsEngine;
+
 import java.time.Clock;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.Objects;
 
-/** Thread-safe rolling metrics for the recent-trade tape. */
+/**
+ * Thread-safe rolling metrics for the recent-trade tape.
+ * Backed by {@link TapeMetricsEngine} buckets, so snapshots never walk individual trades.
+ */
 public final class TradeTapeMetrics {
+    // bucket resolution for the view's short window
+    private static final long BUCKET_MILLIS = 100L;
+
     private final long windowMillis;
     private final Clock clock;
-    private final Deque<Trade> trades = new ArrayDeque<>();
+    private final TapeMetricsEngine engine;
 
     public TradeTapeMetrics(long windowMillis, Clock clock) {
         if (windowMillis <= 0) {
@@ -17,66 +23,27 @@ public final class TradeTapeMetrics {
         }
         this.windowMillis = windowMillis;
         this.clock = Objects.requireNonNull(clock, "clock");
+        int buckets = (int) Math.min(Integer.MAX_VALUE, windowMillis / BUCKET_MILLIS + 2);
+        this.engine = new TapeMetricsEngine(clock, BUCKET_MILLIS, buckets);
     }
 
-    public synchronized long record(boolean buyerInitiated, int volume, double absoluteSlippage) {
-        if (volume < 0 || !Double.isFinite(absoluteSlippage) || absoluteSlippage < 0) {
-            throw new IllegalArgumentException("Invalid trade metrics");
-        }
+    public long record(boolean buyerInitiated, int volume, double absoluteSlippage) {
         long timestamp = clock.millis();
-        trades.addLast(new Trade(timestamp, buyerInitiated, volume, absoluteSlippage));
-        prune(timestamp);
+        engine.record(timestamp, buyerInitiated, volume, absoluteSlippage);
         return timestamp;
     }
 
-    public synchronized Snapshot snapshot() {
-        prune(clock.millis());
-        if (trades.isEmpty()) {
+    public Snapshot snapshot() {
+        TapeMetricsEngine.Window window = engine.window(windowMillis);
+        if (window.isEmpty()) {
             return Snapshot.empty();
         }
-        int tradeCount = 0;
-        long totalVolume = 0;
-        long buyVolume = 0;
-        long sellVolume = 0;
-        double slippageSum = 0;
-        int maximumBuyStreak = 0;
-        int maximumSellStreak = 0;
-        int currentStreak = 0;
-        Boolean currentSide = null;
-
-        for (Trade trade : trades) {
-            tradeCount++;
-            totalVolume += trade.volume();
-            if (trade.buyerInitiated()) buyVolume += trade.volume();
-            else sellVolume += trade.volume();
-            slippageSum += trade.absoluteSlippage();
-            if (currentSide == null || currentSide != trade.buyerInitiated()) {
-                currentSide = trade.buyerInitiated();
-                currentStreak = 1;
-            } else {
-                currentStreak++;
-            }
-            if (trade.buyerInitiated()) maximumBuyStreak = Math.max(maximumBuyStreak, currentStreak);
-            else maximumSellStreak = Math.max(maximumSellStreak, currentStreak);
-        }
-
-        double seconds = windowMillis / 1000.0;
-        long directionalVolume = buyVolume + sellVolume;
-        double buyPercentage = directionalVolume == 0 ? 0 : buyVolume * 100.0 / directionalVolume;
-        return new Snapshot(tradeCount, totalVolume, buyPercentage, 100.0 - buyPercentage,
-                tradeCount / seconds, totalVolume / seconds, slippageSum / tradeCount,
-                totalVolume / (double) tradeCount, maximumBuyStreak, maximumSellStreak);
+        double buyPercentage = window.buyPercentage();
+        return new Snapshot(window.tradeCount(), window.totalVolume(), buyPercentage, 100.0 - buyPercentage,
+                window.tradesPerWindowSecond(), window.volumePerWindowSecond(), window.averageSlippage(),
+                window.averageVolume(), window.maximumBuyStreak(), window.maximumSellStreak());
     }
 
-    private void prune(long now) {
-        while (!trades.isEmpty() && now - trades.peekFirst().timestamp() > windowMillis) {
-            trades.removeFirst();
-        }
-    }
-
-    private record Trade(long timestamp, boolean buyerInitiated, int volume,
-            double absoluteSlippage) { }
-
     public record Snapshot(int tradeCount, long totalVolume, double buyPercentage,
             double sellPercentage, double tradesPerSecond, double volumePerSecond,
             double averageSlippage, double averageVolume, int maximumBuyStreak,
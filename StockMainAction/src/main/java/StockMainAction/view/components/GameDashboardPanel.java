@@ -1,5 +1,6 @@
 package StockMainAction.view.components;
 
+import StockMainAction.model.TickScheduler;
 import StockMainAction.model.game.GameMode;
 import StockMainAction.model.game.GameSettings;
 import StockMainAction.model.game.MarketWatchlist;
@@ -28,6 +29,9 @@ import javax.swing.SwingUtilities;
 public class GameDashboardPanel extends JPanel {
     private final JComboBox<GameMode> modeCombo = new JComboBox<>(GameMode.values());
     private final JComboBox<SimulationSpeed> speedCombo = new JComboBox<>(SimulationSpeed.values());
+    private final JComboBox<TickScheduler.OverrunPolicy> overrunCombo =
+            new JComboBox<>(TickScheduler.OverrunPolicy.values());
+    private final JLabel tickRateLabel = new JLabel("-");
     private final JLabel seedLabel = new JLabel("-");
     private final JLabel scoreLabel = new JLabel("0");
     private final JLabel rankLabel = new JLabel("-");
@@ -90,6 +94,16 @@ public class GameDashboardPanel extends JPanel {
         });
     }
 
+    /**
+     * 顯示實際/目標 tick 速率（target 為無限大時表示極速模式）
+     */
+    public void updateTickRate(double actual, double target, long skippedFrames, long overruns) {
+        String targetText = Double.isInfinite(target) ? "不限" : String.format("%.1f", target);
+        String text = String.format("%.1f / %s tick/s（略過畫面 %d，落後 %d）",
+                actual, targetText, skippedFrames, overruns);
+        SwingUtilities.invokeLater(() -> tickRateLabel.setText(text));
+    }
+
     public void appendEvent(String text) {
         if (text == null || text.isBlank()) return;
         SwingUtilities.invokeLater(() -> {
@@ -124,12 +138,27 @@ public class GameDashboardPanel extends JPanel {
         JButton saveButton = new JButton("保存設定");
         panel.add(saveButton, gc);
 
+        gc.gridx = 0; gc.gridy = 2;
+        panel.add(new JLabel("落後處理"), gc);
+        gc.gridx = 1;
+        overrunCombo.setToolTipText("tick 耗時超過週期時：略過落後的 tick、連續補跑追趕，或暫時拉長週期");
+        panel.add(overrunCombo, gc);
+        gc.gridx = 2;
+        panel.add(new JLabel("實際/目標"), gc);
+        gc.gridx = 3;
+        panel.add(tickRateLabel, gc);
+
         modeCombo.addActionListener(e -> {
             if (listener != null) listener.onModeChanged((GameMode) modeCombo.getSelectedItem());
         });
         speedCombo.addActionListener(e -> {
             if (listener != null) listener.onSpeedChanged((SimulationSpeed) speedCombo.getSelectedItem());
         });
+        overrunCombo.addActionListener(e -> {
+            if (listener != null) {
+                listener.onOverrunPolicyChanged((TickScheduler.OverrunPolicy) overrunCombo.getSelectedItem());
+            }
+        });
         saveButton.addActionListener(e -> {
             if (listener != null) listener.onSaveSettings();
         });
@@ -182,6 +211,7 @@ public class GameDashboardPanel extends JPanel {
     public interface Listener {
         void onModeChanged(GameMode mode);
         void onSpeedChanged(SimulationSpeed speed);
+        void onOverrunPolicyChanged(TickScheduler.OverrunPolicy policy);
         void onSaveSettings();
     }
 }
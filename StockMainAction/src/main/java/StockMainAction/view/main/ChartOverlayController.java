@@ -1,5 +1,11 @@
 package StockMainAction.view.main;
 
+import StockMainAction.model.indicator.Ema;
+import StockMainAction.model.indicator.Indicator;
+import StockMainAction.model.indicator.IndicatorPipeline;
+import StockMainAction.model.indicator.Sma;
+import StockMainAction.model.indicator.TimeframeIndicators;
+import java.util.function.Consumer;
 import org.jfree.data.time.ohlc.OHLCItem;
 import org.jfree.data.time.ohlc.OHLCSeries;
 import org.jfree.data.xy.XYSeries;
@@ -11,6 +17,58 @@ public final class ChartOverlayController {
     private ChartOverlayController() {
     }
 
+    /**
+     * 模型端週期管線在最近一根收盤 K 線後的均線狀態（於 {@link TimeframeIndicators#read} 內擷取）。
+     * 收盤 K 線直接取管線的值；尚未收盤的 K 線以保留的視窗和與前一根 EMA 加上目前收盤價推算，
+     * 規則與 {@link #smaAt}、{@link #ema} 相同，不需回掃序列。
+     *
+     * @param barStartMillis 最近一根收盤 K 線的開始時間；尚無收盤 K 線時為 {@link TimeframeIndicators#NO_BAR}
+     */
+    public record PipelineOverlay(long barStartMillis, int emaPeriod, double smaFast, double smaSlow, double ema,
+            Sma.Tail smaFastTail, Sma.Tail smaSlowTail) {
+
+        /** 擷取狀態；管線尚未註冊 {@link #stages} 的指標時回傳 null */
+        public static PipelineOverlay capture(long barStartMillis, IndicatorPipeline pipeline,
+                int smaFastPeriod, int smaSlowPeriod, int emaPeriod) {
+            Indicator fast = pipeline.get("SMA" + Math.max(1, smaFastPeriod));
+            Indicator slow = pipeline.get("SMA" + Math.max(1, smaSlowPeriod));
+            Indicator ema = pipeline.get(Ema.name(Math.max(1, emaPeriod), Ema.Seed.FIRST));
+            if (!(fast instanceof Sma f) || !(slow instanceof Sma s) || ema == null) {
+                return null;
+            }
+            return new PipelineOverlay(barStartMillis, emaPeriod, f.partialMean(), s.partialMean(), ema.value(),
+                    f.tail(), s.tail());
+        }
+
+        public boolean hasClosedBar() {
+            return barStartMillis != TimeframeIndicators.NO_BAR;
+        }
+
+        /** 尚未收盤的 K 線以 close 收盤時的快速 SMA */
+        public double smaFastWith(double close) {
+            return smaFastTail.meanWith(close);
+        }
+
+        public double smaSlowWith(double close) {
+            return smaSlowTail.meanWith(close);
+        }
+
+        public double emaWith(double close) {
+            return ChartOverlayController.ema(close, ema, emaPeriod);
+        }
+    }
+
+    /**
+     * 疊加均線需要的管線指標（SMA 兩條、以第一根收盤為種子的 EMA），供 {@link TimeframeIndicators#extend} 註冊
+     */
+    public static Consumer<IndicatorPipeline> stages(int smaFastPeriod, int smaSlowPeriod, int emaPeriod) {
+        return pipeline -> {
+            pipeline.sma(Math.max(1, smaFastPeriod));
+            pipeline.sma(Math.max(1, smaSlowPeriod));
+            pipeline.ema(Math.max(1, emaPeriod), Ema.Seed.FIRST);
+        };
+    }
+
     public static double smaAt(OHLCSeries series, int period, int indexInclusive) {
         if (series == null || series.getItemCount() == 0) {
             return Double.NaN;
@@ -63,4 +121,20 @@ public final class ChartOverlayController {
         series.add(xMillis, yValue, false);
         return true;
     }
+
+    /**
+     * 依 X 更新既有點，不存在時加入（可更新非最後一點，例如收盤後回寫上一根 K 線）
+     */
+    public static boolean upsert(XYSeries series, long xMillis, double yValue) {
+        if (series == null || !Double.isFinite(yValue)) {
+            return false;
+        }
+        int index = series.indexOf((double) xMillis);
+        if (index >= 0) {
+            series.updateByIndex(index, yValue);
+        } else {
+            series.add(xMillis, yValue, false);
+        }
+        return true;
+    }
 }
@@ -30,7 +30,7 @@ public final class KlineOhlcAggregator {
             Long closedBarXMillis,
             Double closedBarClose
     ) {
-        static Result unchanged(long currentBarXMillis) {
+        public static Result unchanged(long currentBarXMillis) {
             return new Result(false, false, false, currentBarXMillis, null, null);
         }
     }
@@ -87,6 +87,47 @@ public final class KlineOhlcAggregator {
         return new Result(true, startedNewBar, trimmed, currentBarXMillis, closedBarXMillis, closedBarClose);
     }
 
+    /**
+     * 以模型端已聚合好的 K 線更新序列（同一週期則覆寫，新週期則先觸發前一根的收盤回呼）。
+     * 收盤事件可能晚於下一根的即時更新抵達，因此較舊的週期會就地覆寫。
+     */
+    public static Result applyBar(OHLCSeries series, long startMillis, double open, double high,
+            double low, double close, int periodKey, int maxBars, CandleClosedHandler closedHandler) {
+        long barXMillis = alignTimestampMillis(startMillis, periodKey);
+        if (series == null || !Double.isFinite(close)) {
+            return Result.unchanged(barXMillis);
+        }
+
+        boolean previousNotify = series.getNotify();
+        boolean startedNewBar = false;
+        boolean trimmed = false;
+        Long closedBarXMillis = null;
+        Double closedBarClose = null;
+
+        try {
+            series.setNotify(false);
+            RegularTimePeriod period = periodFor(startMillis, periodKey);
+            int count = series.getItemCount();
+            OHLCItem lastItem = count == 0 ? null : (OHLCItem) series.getDataItem(count - 1);
+            if (lastItem != null && Long.compare(period.getFirstMillisecond(), itemXMillis(lastItem)) > 0) {
+                startedNewBar = true;
+                closedBarXMillis = itemXMillis(lastItem);
+                closedBarClose = lastItem.getCloseValue();
+                if (closedHandler != null) {
+                    closedHandler.onClosed(closedBarXMillis, closedBarClose);
+                }
+            } else if (series.indexOf(period) >= 0) {
+                series.remove(period);
+            }
+            series.add(period, open, high, low, close);
+            trimmed = trimToMaxBars(series, maxBars) > 0;
+        } finally {
+            series.setNotify(previousNotify);
+        }
+
+        return new Result(true, startedNewBar, trimmed, barXMillis, closedBarXMillis, closedBarClose);
+    }
+
     public static RegularTimePeriod periodFor(long timestampMillis, int periodKey) {
         long aligned = alignTimestampMillis(timestampMillis, periodKey);
         if (periodKey < 0) {
@@ -117,7 +158,10 @@ public final class KlineOhlcAggregator {
         return removed;
     }
 
-    private static long bucketMillis(int periodKey) {
+    /**
+     * 週期 key（負值 = 秒，正值 = 分）對應的毫秒數
+     */
+    public static long bucketMillis(int periodKey) {
         if (periodKey < 0) {
             return 1000L * Math.max(1, -periodKey);
         }
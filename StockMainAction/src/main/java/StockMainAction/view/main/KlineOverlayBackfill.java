@@ -0,0 +1,183 @@
+package StockMainAction.view.main;
+
+import StockMainAction.model.indicator.Bollinger;
+import StockMainAction.model.indicator.Ema;
+import StockMainAction.model.indicator.IndicatorPipeline;
+import StockMainAction.model.indicator.Sma;
+import org.jfree.data.time.ohlc.OHLCItem;
+import org.jfree.data.time.ohlc.OHLCSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * K 線疊加指標的背景回填。
+ *
+ * <p>切換週期時 EDT 只把 K 線時間與收盤價複製成 primitive 陣列（{@link Snapshot#capture}），
+ * SMA/EMA/布林帶在背景 ForkJoinPool 以 {@link IndicatorPipeline} 的指標計算，規則與即時疊加
+ * （{@link ChartOverlayController}）相同：SMA 在前 period 根以已有 K 線平均、EMA 以第一根收盤為種子。
+ * 滑動視窗類指標把歷史切成多段平行計算（每段向前多讀 period-1 根作為暖機），
+ * EMA 這類遞迴指標則各自一個工作。
+ * 完成後由呼叫端回到 EDT 一次換入所有 series；以世代編號丟棄過期結果，
+ * 連續切換週期時只會套用最後一次。</p>
+ */
+public final class KlineOverlayBackfill {
+
+    /** 每段最少的 K 線數；歷史較短時不切段 */
+    static final int MIN_CHUNK = 512;
+
+    /**
+     * EDT 上擷取的 K 線快照
+     */
+    public record Snapshot(int periodKey, long[] xMillis, double[] close) {
+
+        public static Snapshot capture(OHLCSeries series, int periodKey) {
+            int n = series == null ? 0 : series.getItemCount();
+            long[] x = new long[n];
+            double[] close = new double[n];
+            for (int i = 0; i < n; i++) {
+                OHLCItem item = (OHLCItem) series.getDataItem(i);
+                x[i] = KlineOhlcAggregator.itemXMillis(item);
+                close[i] = item.getCloseValue();
+            }
+            return new Snapshot(periodKey, x, close);
+        }
+
+        public int size() {
+            return close.length;
+        }
+    }
+
+    /**
+     * 疊加指標參數（與 MainView 的均線設定一致）
+     */
+    public record Params(int smaFast, int smaSlow, int smaLong, int emaFast, int emaSlow,
+            int bollPeriod, double bollMultiplier) {
+    }
+
+    /**
+     * 回填結果；各陣列與 {@link #xMillis()} 等長，資料不足的位置為 NaN
+     */
+    public record Result(int periodKey, long generation, long[] xMillis,
+            double[] smaFast, double[] smaSlow, double[] smaLong,
+            double[] emaFast, double[] emaSlow,
+            double[] bollUpper, double[] bollMiddle, double[] bollLower) {
+
+        public int size() {
+            return xMillis.length;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final AtomicLong generation = new AtomicLong();
+
+    public KlineOverlayBackfill() {
+        this(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    public KlineOverlayBackfill(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * 提交一次回填；之前尚未套用的結果自動視為過期
+     */
+    public CompletableFuture<Result> submit(Snapshot snapshot, Params params) {
+        long gen = generation.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> compute(snapshot, params, gen, pool), pool);
+    }
+
+    /** 結果是否仍是最新一次提交（EDT 套用前檢查） */
+    public boolean isCurrent(Result result) {
+        return result != null && result.generation() == generation.get();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 計算所有疊加指標（可在任何執行緒呼叫；pool 為 null 時在呼叫端執行緒依序計算）
+     */
+    public static Result compute(Snapshot snapshot, Params params, long generation, ForkJoinPool pool) {
+        double[] close = snapshot.close();
+        int n = close.length;
+        double[] smaFast = new double[n];
+        double[] smaSlow = new double[n];
+        double[] smaLong = new double[n];
+        double[] emaFast = new double[n];
+        double[] emaSlow = new double[n];
+        double[] upper = new double[n];
+        double[] middle = new double[n];
+        double[] lower = new double[n];
+
+        List<Runnable> work = new ArrayList<>();
+        int chunk = Math.max(MIN_CHUNK, (n + 7) / 8);
+        for (int from = 0; from < n; from += chunk) {
+            int start = from;
+            int end = Math.min(n, from + chunk);
+            work.add(() -> windowed(close, params, smaFast, smaSlow, smaLong, upper, middle, lower, start, end));
+        }
+        work.add(() -> ema(close, params.emaFast(), emaFast));
+        work.add(() -> ema(close, params.emaSlow(), emaSlow));
+
+        if (pool == null || work.size() == 1) {
+            work.forEach(Runnable::run);
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(work.size());
+            for (Runnable r : work) {
+                tasks.add(ForkJoinTask.adapt(r));
+            }
+            if (ForkJoinTask.inForkJoinPool()) {
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                tasks.forEach(pool::execute);
+                tasks.forEach(ForkJoinTask::join);
+            }
+        }
+        return new Result(snapshot.periodKey(), generation, snapshot.xMillis(),
+                smaFast, smaSlow, smaLong, emaFast, emaSlow, upper, middle, lower);
+    }
+
+    /**
+     * 區段 [from, to) 的 SMA 與布林帶：每段一條 {@link IndicatorPipeline}（布林帶與同週期 SMA 共用滾動和），
+     * 先以 from 之前的 K 線暖機到最長視窗；SMA 不足 period 根時以已有 K 線平均，布林帶為 NaN
+     */
+    static void windowed(double[] close, Params params, double[] smaFast, double[] smaSlow, double[] smaLong,
+            double[] upper, double[] middle, double[] lower, int from, int to) {
+        IndicatorPipeline pipeline = new IndicatorPipeline();
+        Sma fast = pipeline.sma(Math.max(1, params.smaFast()));
+        Sma slow = pipeline.sma(Math.max(1, params.smaSlow()));
+        Sma longSma = pipeline.sma(Math.max(1, params.smaLong()));
+        Bollinger boll = pipeline.add(new Bollinger(pipeline, Math.max(1, params.bollPeriod()), params.bollMultiplier()));
+        int window = Math.max(Math.max(fast.getPeriod(), slow.getPeriod()),
+                Math.max(longSma.getPeriod(), Math.max(1, params.bollPeriod())));
+        for (int i = Math.max(0, from - window + 1); i < from; i++) {
+            pipeline.updatePrice(close[i]);
+        }
+        for (int i = from; i < to; i++) {
+            pipeline.updatePrice(close[i]);
+            smaFast[i] = fast.partialMean();
+            smaSlow[i] = slow.partialMean();
+            smaLong[i] = longSma.partialMean();
+            upper[i] = boll.value(0);
+            middle[i] = boll.value(1);
+            lower[i] = boll.value(2);
+        }
+    }
+
+    /**
+     * 整段序列的 EMA（遞迴指標無法分段）；以第一根收盤為種子，與 {@link ChartOverlayController#ema} 一致
+     */
+    static void ema(double[] close, int period, double[] out) {
+        Ema ema = new Ema(Math.max(1, period), Ema.Seed.FIRST);
+        for (int i = 0; i < close.length; i++) {
+            ema.push(close[i]);
+            out[i] = ema.value();
+        }
+    }
+}
@@ -30,6 +30,32 @@ public final class TechnicalIndicatorSeriesUpdater {
         return true;
     }
 
+    /**
+     * Replaces the whole series with precomputed samples in one change event.
+     * Non-finite values are skipped; only the last {@code maxPoints} samples are kept.
+     */
+    public static int replaceAll(XYSeries series, long[] xValues, double[] yValues, int maxPoints) {
+        if (series == null || xValues == null || yValues == null) {
+            return 0;
+        }
+        int n = Math.min(xValues.length, yValues.length);
+        int from = Math.max(0, n - Math.max(1, maxPoints));
+        boolean notify = series.getNotify();
+        series.setNotify(false);
+        try {
+            series.clear();
+            for (int i = from; i < n; i++) {
+                if (Double.isFinite(yValues[i])) {
+                    series.add(xValues[i], yValues[i], false);
+                }
+            }
+        } finally {
+            // restoring notify fires a single seriesChanged event
+            series.setNotify(notify);
+        }
+        return series.getItemCount();
+    }
+
     private static void addOrUpdate(XYSeries series, int timeStep, double value, int maxPoints) {
         int existingIndex = findByX(series, timeStep);
         if (existingIndex >= 0) {
@@ -28,7 +28,7 @@ public record OrderBookSnapshot(List<OrderRow> buys, List<OrderRow> sells) {
         Map<String, Long> timestamps = new HashMap<>();
         orderBook.getBuyOrders().forEach(order -> timestamps.put(order.getId(), order.getTimestamp()));
         orderBook.getSellOrders().forEach(order -> timestamps.put(order.getId(), order.getTimestamp()));
-        long capturedAt = System.currentTimeMillis();
+        long capturedAt = orderBook.getClock().millis();
         return fromCore(coreSnapshot, timestamps, capturedAt);
     }
 
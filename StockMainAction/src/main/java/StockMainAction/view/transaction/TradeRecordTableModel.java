@@ -0,0 +1,73 @@
+package StockMainAction.view.transaction;
+
+import StockMainAction.model.history.TradeRecord;
+import java.util.Date;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/** Read-only table over one page of stored trade history. */
+public final class TradeRecordTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {
+        "成交時間", "交易 ID", "方向", "類型", "價格", "數量", "成交額", "買方", "賣方"
+    };
+
+    private List<TradeRecord> rows = List.of();
+
+    public void setRecords(List<TradeRecord> records) {
+        rows = records == null ? List.of() : List.copyOf(records);
+        fireTableDataChanged();
+    }
+
+    public List<TradeRecord> getRecords() {
+        return rows;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return switch (column) {
+            case 0 -> Date.class;
+            case 4, 6 -> Double.class;
+            case 5 -> Integer.class;
+            default -> String.class;
+        };
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        TradeRecord record = rows.get(rowIndex);
+        return switch (columnIndex) {
+            case 0 -> new Date(record.timestamp());
+            case 1 -> record.id();
+            case 2 -> record.buyerInitiated() ? "買方主動" : "賣方主動";
+            case 3 -> record.orderKind().getDisplayName();
+            case 4 -> record.price();
+            case 5 -> record.volume();
+            case 6 -> record.amount();
+            case 7 -> TransactionViewSupport.traderTypeDisplay(record.buyerType())
+                    + (record.buyerInitiated() ? "（主動）" : "");
+            case 8 -> TransactionViewSupport.traderTypeDisplay(record.sellerType())
+                    + (record.buyerInitiated() ? "" : "（主動）");
+            default -> throw new IndexOutOfBoundsException("columnIndex=" + columnIndex);
+        };
+    }
+}
@@ -1,11 +1,14 @@
 package StockMainAction.view.transaction;
 
 import StockMainAction.model.core.Transaction;
-import StockMainAction.model.core.Trader;
+import StockMainAction.model.history.TradeQuery;
+import StockMainAction.model.history.TradeRecord;
+import StockMainAction.model.history.TransactionHistoryStore;
 import java.awt.BasicStroke;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -22,8 +25,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -33,11 +41,16 @@ import javax.swing.JTable;
 import javax.swing.RowSorter;
 import javax.swing.SortOrder;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableRowSorter;
 
-/** Complete transaction history surface backed by bounded incremental models. */
+/**
+ * Complete transaction history surface backed by bounded incremental models. The live tabs keep the
+ * newest {@code maxTransactions}; the history tab pages through the full session from a
+ * {@link TransactionHistoryStore} without loading it into memory.
+ */
 public final class TransactionHistoryPanel extends JPanel {
     public enum View {
         ALL, BUY, SELL, PERSONAL, MARKET, LIMIT
@@ -45,6 +58,7 @@ public final class TransactionHistoryPanel extends JPanel {
 
     public static final int DEFAULT_MAX_ROWS = 2_000;
     public static final int DEFAULT_MAX_CHART_POINTS = 500;
+    public static final int HISTORY_PAGE_SIZE = 200;
     private static final int REFRESH_DELAY_MS = 250;
 
     private final int maxTransactions;
@@ -69,6 +83,40 @@ public final class TransactionHistoryPanel extends JPanel {
     private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
     private boolean derivedViewsDirty = true;
 
+    // Paged history tab; queries run on one background thread, results are applied on the EDT.
+    private final TradeRecordTableModel historyTableModel = new TradeRecordTableModel();
+    private final JLabel historyPageLabel = new JLabel("尚未查詢");
+    private final JComboBox<FilterOption<String>> traderFilter = filter(List.of(
+            new FilterOption<String>("全部交易者", null),
+            new FilterOption<>("用戶", "PERSONAL"),
+            new FilterOption<>("主力", "MAIN_FORCE"),
+            new FilterOption<>("散戶", "RETAIL_INVESTOR"),
+            new FilterOption<>("市場", "MarketBehavior")));
+    private final JComboBox<FilterOption<Boolean>> sideFilter = filter(List.of(
+            new FilterOption<Boolean>("全部方向", null),
+            new FilterOption<>("買方主動", Boolean.TRUE),
+            new FilterOption<>("賣方主動", Boolean.FALSE)));
+    private final JComboBox<FilterOption<TradeRecord.OrderKind>> kindFilter = filter(List.of(
+            new FilterOption<TradeRecord.OrderKind>("全部類型", null),
+            new FilterOption<>("限價單", TradeRecord.OrderKind.LIMIT),
+            new FilterOption<>("市價單", TradeRecord.OrderKind.MARKET),
+            new FilterOption<>("FOK單", TradeRecord.OrderKind.FOK)));
+    private final JComboBox<FilterOption<Long>> timeFilter = filter(List.of(
+            new FilterOption<Long>("全部時間", null),
+            new FilterOption<>("最近 5 分鐘", 5 * 60_000L),
+            new FilterOption<>("最近 30 分鐘", 30 * 60_000L),
+            new FilterOption<>("最近 1 小時", 60 * 60_000L)));
+    private final ExecutorService historyQueryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trade-history-query");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private TransactionHistoryStore historyStore;
+    private TransactionHistoryStore.Result historyResult;
+    private int historyPage;
+    private int historyPageCount;
+    private long historyGeneration;
+
     public TransactionHistoryPanel() {
         this(DEFAULT_MAX_ROWS, DEFAULT_MAX_CHART_POINTS);
     }
@@ -184,9 +232,145 @@ public final class TransactionHistoryPanel extends JPanel {
     public void dispose() {
         if (disposed.compareAndSet(false, true)) {
             refreshTimer.stop();
+            historyQueryExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Connects the full-session store and loads the newest history page.
+     */
+    public CompletableFuture<Void> setHistoryStore(TransactionHistoryStore store) {
+        historyStore = store;
+        return runHistoryQuery();
+    }
+
+    /**
+     * Re-runs the history query with the current filters and shows the newest page.
+     */
+    public CompletableFuture<Void> runHistoryQuery() {
+        TransactionHistoryStore store = historyStore;
+        if (store == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        TradeQuery query = TradeQuery.all()
+                .withTraderType(selected(traderFilter))
+                .withBuyerInitiated(selected(sideFilter))
+                .withOrderKind(selected(kindFilter));
+        Long window = selected(timeFilter);
+        if (window != null) {
+            long latest = store.getLatestTimestamp();
+            query = query.between(latest == Long.MIN_VALUE ? Long.MIN_VALUE : latest - window, Long.MAX_VALUE);
+        }
+        TradeQuery finalQuery = query;
+        return loadHistoryPage(() -> store.query(finalQuery), 0);
+    }
+
+    /**
+     * Shows another page of the current query result (0 = newest).
+     */
+    public CompletableFuture<Void> showHistoryPage(int page) {
+        TransactionHistoryStore.Result result = historyResult;
+        if (result == null) {
+            return runHistoryQuery();
+        }
+        return loadHistoryPage(() -> result, page);
+    }
+
+    public TradeRecordTableModel getHistoryTableModel() {
+        return historyTableModel;
+    }
+
+    int getHistoryPage() {
+        return historyPage;
+    }
+
+    int getHistoryPageCount() {
+        return historyPageCount;
+    }
+
+    private CompletableFuture<Void> loadHistoryPage(
+            java.util.function.Supplier<TransactionHistoryStore.Result> source, int requestedPage) {
+        if (disposed.get()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long generation = ++historyGeneration;
+        historyPageLabel.setText("查詢中…");
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> {
+            TransactionHistoryStore.Result result = source.get();
+            long total = result.total();
+            int pages = (int) Math.max(1L, (total + HISTORY_PAGE_SIZE - 1) / HISTORY_PAGE_SIZE);
+            int page = Math.max(0, Math.min(requestedPage, pages - 1));
+            return new HistoryPage(result, page, pages, total, result.newestPage(page, HISTORY_PAGE_SIZE));
+        }, historyQueryExecutor).whenComplete((loaded, failure) -> SwingUtilities.invokeLater(() -> {
+            try {
+                if (generation == historyGeneration && !disposed.get()) {
+                    if (failure != null) {
+                        historyPageLabel.setText("查詢失敗：" + failure.getMessage());
+                    } else {
+                        historyResult = loaded.result();
+                        historyPage = loaded.page();
+                        historyPageCount = loaded.pageCount();
+                        historyTableModel.setRecords(loaded.records());
+                        historyPageLabel.setText("第 " + integerFormat.format(loaded.page() + 1L)
+                                + " / " + integerFormat.format(loaded.pageCount()) + " 頁，共 "
+                                + integerFormat.format(loaded.total()) + " 筆");
+                    }
+                }
+            } finally {
+                applied.complete(null);
+            }
+        }));
+        return applied;
+    }
+
+    private JPanel createHistoryTab() {
+        JPanel panel = new JPanel(new BorderLayout(4, 4));
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 4));
+        JButton search = new JButton("查詢");
+        JButton newer = new JButton("◀ 較新");
+        JButton older = new JButton("較舊 ▶");
+        JButton newest = new JButton("最新");
+        search.addActionListener(event -> runHistoryQuery());
+        newer.addActionListener(event -> showHistoryPage(historyPage - 1));
+        older.addActionListener(event -> showHistoryPage(historyPage + 1));
+        newest.addActionListener(event -> showHistoryPage(0));
+        for (javax.swing.JComponent component : List.of(timeFilter, traderFilter, sideFilter, kindFilter,
+                search, newest, newer, older, historyPageLabel)) {
+            filters.add(component);
+        }
+        panel.add(filters, BorderLayout.NORTH);
+        JTable table = new JTable(historyTableModel);
+        configureTable(table);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        return panel;
+    }
+
+    private static <T> JComboBox<FilterOption<T>> filter(List<FilterOption<T>> options) {
+        JComboBox<FilterOption<T>> comboBox = new JComboBox<>();
+        for (FilterOption<T> option : options) {
+            comboBox.addItem(option);
+        }
+        return comboBox;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T selected(JComboBox<FilterOption<T>> comboBox) {
+        Object item = comboBox.getSelectedItem();
+        return item == null ? null : ((FilterOption<T>) item).value();
+    }
+
+    private record FilterOption<T>(String label, T value) {
+        @Override
+        public String toString() {
+            return label;
         }
     }
 
+    private record HistoryPage(TransactionHistoryStore.Result result, int page, int pageCount,
+            long total, List<TradeRecord> records) {
+    }
+
     private JPanel createSummaryPanel() {
         JPanel panel = new JPanel(new GridLayout(1, 7, 8, 0));
         panel.setBackground(new Color(48, 63, 159));
@@ -209,6 +393,7 @@ public final class TransactionHistoryPanel extends JPanel {
         addTableTab(tabs, "我的成交", View.PERSONAL);
         addTableTab(tabs, "市價單", View.MARKET);
         addTableTab(tabs, "限價單", View.LIMIT);
+        tabs.addTab("歷史查詢", createHistoryTab());
         tabs.setForegroundAt(1, TransactionCellRenderer.BUY_COLOR);
         tabs.setForegroundAt(2, TransactionCellRenderer.SELL_COLOR);
         return tabs;
@@ -222,6 +407,11 @@ public final class TransactionHistoryPanel extends JPanel {
         sorter.setSortsOnUpdates(true);
         sorter.setSortKeys(List.of(new RowSorter.SortKey(0, SortOrder.DESCENDING)));
         table.setRowSorter(sorter);
+        configureTable(table);
+        tabs.addTab(title, new JScrollPane(table));
+    }
+
+    private static void configureTable(JTable table) {
         table.setFillsViewportHeight(true);
         table.setRowHeight(28);
         table.setIntercellSpacing(new Dimension(0, 1));
@@ -239,7 +429,6 @@ public final class TransactionHistoryPanel extends JPanel {
         header.setBackground(new Color(55, 71, 79));
         header.setForeground(Color.WHITE);
         header.setReorderingAllowed(false);
-        tabs.addTab(title, new JScrollPane(table));
     }
 
     private void refreshDerivedViews() {
@@ -279,15 +468,11 @@ public final class TransactionHistoryPanel extends JPanel {
     }
 
     private static boolean isPersonal(Transaction transaction) {
-        return isPersonal(transaction.getBuyer())
-                || isPersonal(transaction.getSeller())
+        return "PERSONAL".equals(transaction.getBuyerType())
+                || "PERSONAL".equals(transaction.getSellerType())
                 || "PERSONAL".equals(transaction.getInitiatingTraderType());
     }
 
-    private static boolean isPersonal(Trader trader) {
-        return trader != null && "PERSONAL".equals(trader.getTraderType());
-    }
-
     private static boolean isBuyerInitiated(Transaction transaction) {
         return transaction.isBuyerInitiated()
                 || "MARKET_BUY".equals(transaction.getOrderType())
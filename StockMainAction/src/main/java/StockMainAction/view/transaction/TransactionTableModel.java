@@ -100,9 +100,9 @@ public final class TransactionTableModel extends AbstractTableModel {
             case 4 -> transaction.getPrice();
             case 5 -> transaction.getVolume();
             case 6 -> transaction.getTotalValue();
-            case 7 -> traderType(transaction.getBuyer())
+            case 7 -> TransactionViewSupport.traderTypeDisplay(transaction.getBuyerType())
                     + (isBuyerInitiated(transaction) ? "（主動）" : "");
-            case 8 -> traderType(transaction.getSeller())
+            case 8 -> TransactionViewSupport.traderTypeDisplay(transaction.getSellerType())
                     + (isBuyerInitiated(transaction) ? "" : "（主動）");
             case 9 -> transaction.getFillRate();
             case 10 -> transaction.getSlippagePercentage();
@@ -110,19 +110,6 @@ public final class TransactionTableModel extends AbstractTableModel {
         };
     }
 
-    private static String traderType(StockMainAction.model.core.Trader trader) {
-        if (trader == null) {
-            return "未知";
-        }
-        return switch (trader.getTraderType()) {
-            case "PERSONAL" -> "用戶";
-            case "MAIN_FORCE" -> "主力";
-            case "RETAIL_INVESTOR" -> "散戶";
-            case "MarketBehavior", "MARKET_BEHAVIOR" -> "市場";
-            default -> trader.getTraderType();
-        };
-    }
-
     private static boolean isBuyerInitiated(Transaction transaction) {
         return transaction.isBuyerInitiated()
                 || "MARKET_BUY".equals(transaction.getOrderType())
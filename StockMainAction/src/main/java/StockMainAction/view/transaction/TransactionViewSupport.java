@@ -14,4 +14,17 @@ final class TransactionViewSupport {
         String id = transaction.getId();
         return id == null || id.trim().isEmpty() ? null : id.trim();
     }
+
+    static String traderTypeDisplay(String traderType) {
+        if (traderType == null) {
+            return "未知";
+        }
+        return switch (traderType) {
+            case "PERSONAL" -> "用戶";
+            case "MAIN_FORCE" -> "主力";
+            case "RETAIL_INVESTOR" -> "散戶";
+            case "MarketBehavior", "MARKET_BEHAVIOR" -> "市場";
+            default -> traderType;
+        };
+    }
 }
@@ -0,0 +1,54 @@
+package StockMainAction;
+
+import StockMainAction.model.game.GameMode;
+import StockMainAction.model.game.GameSettings;
+import StockMainAction.model.game.SimulationSpeed;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class HeadlessSimulationRunnerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameSeedProducesSameSummary() {
+        GameSettings settings = new GameSettings(11L, GameMode.PRO, SimulationSpeed.TURBO);
+
+        HeadlessSimulationRunner.Summary first = new HeadlessSimulationRunner(settings, 60, false, 0).run();
+        HeadlessSimulationRunner.Summary second = new HeadlessSimulationRunner(settings, 60, false, 0).run();
+
+        assertEquals(60, first.ticks());
+        assertEquals(first.trades(), second.trades());
+        assertEquals(first.volume(), second.volume());
+        assertEquals(first.finalPrice(), second.finalPrice(), 0.0);
+        assertEquals(first.traders(), second.traders());
+        assertFalse(first.traders().isEmpty());
+    }
+
+    @Test
+    public void summaryFileListsTotalsAndEveryTrader() throws Exception {
+        GameSettings settings = new GameSettings(3L, GameMode.BEGINNER, SimulationSpeed.NORMAL);
+        HeadlessSimulationRunner.Summary summary = new HeadlessSimulationRunner(settings, 20, false, 0).run();
+        Path file = folder.getRoot().toPath().resolve("out/summary.txt");
+
+        summary.writeTo(file);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertTrue(lines.contains("ticks=20"));
+        assertTrue(lines.contains("trades=" + summary.trades()));
+        int header = lines.indexOf("index,traderType,role,startAssets,endAssets,pnl,pnlPct");
+        assertTrue(header > 0);
+        int end = lines.indexOf("[phases]") - 1;
+        assertEquals("", lines.get(end));
+        assertEquals(summary.traders().size(), end - header - 1);
+        assertTrue(lines.contains("tickOverruns=" + summary.profile().overruns()));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("TOTAL,20,")));
+    }
+}
@@ -0,0 +1,106 @@
+package StockMainAction;
+
+import StockMainAction.model.StockMarketModel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ParameterSweepTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void gridExpandsEveryCombinationTimesReplicas() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("retail.riskPerTrade", "0.01,0.02,0.03");
+        params.put("noise.biasWeight", "0.1:0.5:3");
+        ParameterSweep.Spec spec = ParameterSweep.Spec.of(ParameterSweep.Spec.Mode.GRID, 10, 2, 1L, 0, params);
+
+        List<ParameterSweep.RunPlan> plans = spec.plan();
+
+        assertEquals(3 * 3 * 2, plans.size());
+        assertEquals(0.1, plans.get(0).parameters().get("noise.biasWeight"), 1e-12);
+        assertEquals(0.3, plans.get(2).parameters().get("noise.biasWeight"), 1e-12);
+        assertEquals(0.5, plans.get(plans.size() - 1).parameters().get("noise.biasWeight"), 1e-12);
+        assertNotEquals(plans.get(0).seed(), plans.get(1).seed());
+        assertEquals(plans, spec.plan());
+    }
+
+    @Test
+    public void randomSamplesStayInsideRanges() {
+        ParameterSweep.Spec spec = ParameterSweep.Spec.of(ParameterSweep.Spec.Mode.RANDOM, 10, 1, 9L, 25,
+                Map.of("mainForce.maxDeviationMarkup", "0.02:0.08", "retail.minTradeWaitTicks", "2,4,8"));
+
+        List<ParameterSweep.RunPlan> plans = spec.plan();
+
+        assertEquals(25, plans.size());
+        for (ParameterSweep.RunPlan plan : plans) {
+            double deviation = plan.parameters().get("mainForce.maxDeviationMarkup");
+            assertTrue(deviation >= 0.02 && deviation < 0.08);
+            assertTrue(List.of(2.0, 4.0, 8.0).contains(plan.parameters().get("retail.minTradeWaitTicks")));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownParameterIsRejected() {
+        ParameterSweep.Spec.of(ParameterSweep.Spec.Mode.GRID, 10, 1, 1L, 0, Map.of("retail.noSuchField", "1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownMainForceParameterIsRejected() {
+        ParameterSweep.Spec.of(ParameterSweep.Spec.Mode.GRID, 10, 1, 1L, 0, Map.of("mainForce.noSuchField", "1"));
+    }
+
+    @Test
+    public void parametersAreAppliedToModel() {
+        StockMarketModel model = new StockMarketModel(5L,
+                Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC));
+        try {
+            ParameterSweep.applyParameters(model, Map.of(
+                    "retail.riskPerTrade", 0.05,
+                    "noise.maxChaseTicks", 3.0,
+                    "mainForce.maxDeviationMarkup", 0.07));
+
+            assertEquals(0.05, model.getRetailStrategyConfig().riskPerTrade, 1e-12);
+            assertEquals(3, model.getNoiseAdaptiveConfig().maxChaseTicks);
+            assertEquals(0.07, model.getMainForce().getLimitConfig().maxDeviationMarkup, 1e-12);
+        } finally {
+            model.close();
+        }
+    }
+
+    @Test
+    public void parallelSweepMatchesSerialSweep() throws Exception {
+        ParameterSweep.Spec spec = ParameterSweep.Spec.of(ParameterSweep.Spec.Mode.GRID, 25, 2, 3L, 0,
+                Map.of("retail.randomTradeProb", "0.05,0.2"));
+
+        List<ParameterSweep.RunResult> parallel = new ParameterSweep(spec, 4, null).run();
+        List<ParameterSweep.RunResult> serial = new ParameterSweep(spec, 1, null).run();
+
+        assertEquals(4, parallel.size());
+        for (int i = 0; i < parallel.size(); i++) {
+            assertEquals(serial.get(i).plan(), parallel.get(i).plan());
+            assertEquals(serial.get(i).summary().trades(), parallel.get(i).summary().trades());
+            assertEquals(serial.get(i).summary().finalPrice(), parallel.get(i).summary().finalPrice(), 0.0);
+            assertEquals(serial.get(i).summary().traders(), parallel.get(i).summary().traders());
+        }
+
+        Path file = folder.getRoot().toPath().resolve("sweep.csv");
+        ParameterSweep.writeResults(spec, parallel, file);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).startsWith("run,seed,retail.randomTradeProb,ticks,trades"));
+        assertTrue(lines.get(0).contains("mainForcePnl"));
+    }
+}
@@ -1,5 +1,8 @@
 package StockMainAction.controller;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -52,4 +55,104 @@ public class TechnicalIndicatorsCalculatorTest {
         assertTrue(Double.isFinite(macd[1]));
         assertTrue(Double.isFinite(macd[2]));
     }
+
+    @Test
+    public void streamingIndicatorsMatchFullRecomputation() {
+        TechnicalIndicatorsCalculator calculator = new TechnicalIndicatorsCalculator();
+        List<Double> prices = new ArrayList<>();
+        List<Double> highs = new ArrayList<>();
+        List<Double> lows = new ArrayList<>();
+        Random random = new Random(7L);
+        double price = 10.0;
+
+        for (int i = 0; i < 400; i++) {
+            // 中段加入一段無波動區間，覆蓋 RSV 分母為 0 的情況
+            price = (i >= 150 && i < 170) ? price : Math.max(1.0, price + random.nextGaussian() * 0.05);
+            double high = price + random.nextDouble() * 0.05;
+            double low = price - random.nextDouble() * 0.05;
+            if (i >= 150 && i < 170) {
+                high = price;
+                low = price;
+            }
+            calculator.updatePriceData(price, high, low);
+            prices.add(price);
+            highs.add(high);
+            lows.add(low);
+
+            double[] macd = calculator.calculateMACD();
+            double[] boll = calculator.calculateBollingerBands();
+            double[] kdj = calculator.calculateKDJ();
+            if (prices.size() < 35) {
+                assertNull(macd);
+            } else {
+                assertArrayEquals(referenceMacd(prices), macd, 1e-9);
+            }
+            if (prices.size() >= 20) {
+                assertArrayEquals(referenceBollinger(prices), boll, 1e-9);
+            }
+            if (prices.size() >= 9) {
+                assertArrayEquals(referenceKdj(prices, highs, lows), kdj, 1e-9);
+            }
+        }
+    }
+
+    // ===== 以完整重算作為對照（原本每 tick 重算的做法） =====
+
+    private static double ema(List<Double> data, int period) {
+        double sum = 0;
+        for (int i = 0; i < period; i++) sum += data.get(i);
+        double ema = sum / period;
+        double multiplier = 2.0 / (period + 1);
+        for (int i = period; i < data.size(); i++) {
+            ema = (data.get(i) - ema) * multiplier + ema;
+        }
+        return ema;
+    }
+
+    private static double[] referenceMacd(List<Double> prices) {
+        List<Double> history = new ArrayList<>();
+        for (int i = 26; i <= prices.size(); i++) {
+            List<Double> prefix = prices.subList(0, i);
+            history.add(ema(prefix, 12) - ema(prefix, 26));
+        }
+        double macd = ema(prices, 12) - ema(prices, 26);
+        double signal = ema(history, 9);
+        return new double[]{macd, signal, macd - signal};
+    }
+
+    private static double[] referenceBollinger(List<Double> prices) {
+        int n = prices.size();
+        double sum = 0;
+        for (int i = n - 20; i < n; i++) sum += prices.get(i);
+        double mean = sum / 20;
+        double sq = 0;
+        for (int i = n - 20; i < n; i++) sq += (prices.get(i) - mean) * (prices.get(i) - mean);
+        double sd = Math.sqrt(sq / 20);
+        return new double[]{mean + 2 * sd, mean, mean - 2 * sd};
+    }
+
+    private static double rsvAt(List<Double> prices, List<Double> highs, List<Double> lows, int index,
+            double flatValue) {
+        double high = Double.NEGATIVE_INFINITY;
+        double low = Double.POSITIVE_INFINITY;
+        for (int i = Math.max(0, index - 8); i <= index; i++) {
+            high = Math.max(high, highs.get(i));
+            low = Math.min(low, lows.get(i));
+        }
+        return high != low ? (prices.get(index) - low) / (high - low) * 100 : flatValue;
+    }
+
+    private static double[] referenceKdj(List<Double> prices, List<Double> highs, List<Double> lows) {
+        int n = prices.size();
+        double k = rsvAt(prices, highs, lows, n - 1, 50.0);
+        List<Double> kHist = new ArrayList<>();
+        for (int i = Math.max(0, n - 3); i < n; i++) {
+            if (i >= 8) kHist.add(rsvAt(prices, highs, lows, i, 0.0));
+        }
+        double d = k;
+        if (kHist.size() >= 3) {
+            d = (kHist.get(0) + kHist.get(1) + kHist.get(2)) / 3;
+        }
+        return new double[]{k, d, 3 * k - 2 * d};
+    }
 }
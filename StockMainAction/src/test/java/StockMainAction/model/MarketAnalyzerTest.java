@@ -0,0 +1,82 @@
+package StockMainAction.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MarketAnalyzerTest {
+
+    @Test
+    public void rollingStatisticsMatchFullWindowScan() {
+        MarketAnalyzer analyzer = new MarketAnalyzer(30);
+        Deque<Double> window = new ArrayDeque<>();
+        Random random = new Random(3L);
+        double price = 20.0;
+
+        for (int i = 0; i < 2_000; i++) {
+            price = Math.max(1.0, price + random.nextGaussian() * 0.2);
+            analyzer.addPrice(price);
+            window.addLast(price);
+            if (window.size() > 30) window.removeFirst();
+
+            double sum = 0;
+            double high = Double.NEGATIVE_INFINITY;
+            double low = Double.POSITIVE_INFINITY;
+            for (double p : window) {
+                sum += p;
+                high = Math.max(high, p);
+                low = Math.min(low, p);
+            }
+            double mean = sum / window.size();
+            double sq = 0;
+            for (double p : window) sq += (p - mean) * (p - mean);
+
+            MarketAnalyzer.Snapshot snapshot = analyzer.snapshot();
+            if (window.size() < 30) {
+                assertTrue(Double.isNaN(snapshot.sma()));
+            } else {
+                assertEquals(mean, snapshot.sma(), 1e-9);
+            }
+            double expectedVolatility = window.size() < 2 ? 0.0 : Math.sqrt(sq / window.size());
+            assertEquals(expectedVolatility, analyzer.calculateVolatility(), 1e-9);
+            assertEquals(high, analyzer.getRecentHigh(100), 0.0);
+            assertEquals(low, analyzer.getRecentLow(30), 0.0);
+            assertEquals(price, analyzer.getLastPrice(), 0.0);
+        }
+
+        // 小於視窗的區間改為掃描最近幾筆
+        Double[] last = window.toArray(new Double[0]);
+        double high5 = Double.NEGATIVE_INFINITY;
+        for (int i = last.length - 5; i < last.length; i++) high5 = Math.max(high5, last[i]);
+        assertEquals(high5, analyzer.getRecentHigh(5), 0.0);
+        assertTrue(analyzer.getRSI() >= 0 && analyzer.getRSI() <= 100);
+    }
+
+    @Test
+    public void weightedAveragePriceAndVolumeUseSlidingWindow() {
+        MarketAnalyzer analyzer = new MarketAnalyzer(2);
+        assertTrue(Double.isNaN(analyzer.getWeightedAveragePrice()));
+        assertEquals(0.0, analyzer.getRecentAverageVolume(), 0.0);
+
+        analyzer.addTransaction(10.0, 100);
+        analyzer.addTransaction(11.0, 300);
+        analyzer.addTransaction(12.0, 100); // 擠出第一筆
+
+        assertEquals((11.0 * 300 + 12.0 * 100) / 400, analyzer.getWeightedAveragePrice(), 1e-12);
+        assertEquals(200.0, analyzer.getRecentAverageVolume(), 1e-12);
+    }
+
+    @Test
+    public void rsiStartsAfterFourteenChanges() {
+        MarketAnalyzer analyzer = new MarketAnalyzer(5);
+        for (int i = 0; i < 14; i++) {
+            analyzer.addPrice(10.0 + i);
+            assertTrue(Double.isNaN(analyzer.getRSI()));
+        }
+        analyzer.addPrice(24.0);
+        assertEquals(100.0, analyzer.getRSI(), 0.0);
+    }
+}
@@ -0,0 +1,47 @@
+package StockMainAction.model;
+
+import StockMainAction.model.core.TapeMetricsEngine;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MarketContextTest {
+    @Test
+    public void contextIsCapturedOncePerTick() {
+        StockMarketModel model = new StockMarketModel(42L,
+                Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC));
+        model.runTick();
+        MarketContext first = model.getMarketContext();
+
+        assertSame(first, model.getMarketContext());
+        assertEquals(model.getTimeStep(), first.getTimeStep());
+
+        model.runTick();
+        MarketContext second = model.getMarketContext();
+        assertNotSame(first, second);
+        assertEquals(first.getTimeStep() + 1, second.getTimeStep());
+        model.close();
+    }
+
+    @Test
+    public void tapeStatsUseTradesInsideTimeWindow() {
+        TapeMetricsEngine engine = new TapeMetricsEngine(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+        engine.record(0L, false, 10, 0.0);
+        engine.record(1_000L, false, 20, 0.0);
+        engine.record(4_000L, false, 30, 0.0);
+
+        MarketContext.TapeStats all = MarketContext.TapeStats.of(engine.window(50_000L, 5_000L));
+        MarketContext.TapeStats lastTwoSeconds = MarketContext.TapeStats.of(engine.window(2_000L, 5_000L));
+
+        assertEquals(0.6, all.tps(), 1e-9);
+        assertEquals(12.0, all.vps(), 1e-9);
+        assertEquals(1.0, lastTwoSeconds.tps(), 1e-9);
+        assertEquals(30.0, lastTwoSeconds.vps(), 1e-9);
+        assertEquals(100, lastTwoSeconds.inPct());
+        assertEquals(-1.0, lastTwoSeconds.tickImbalance(), 1e-9);
+        assertSame(MarketContext.TapeStats.EMPTY, MarketContext.TapeStats.of(engine.window(1_000L, 60_000L)));
+    }
+}
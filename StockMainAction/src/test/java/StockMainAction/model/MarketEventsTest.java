@@ -0,0 +1,57 @@
+package StockMainAction.model;
+
+import StockMainAction.util.logging.event.EventLog;
+import StockMainAction.util.logging.event.EventLogDecoder;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class MarketEventsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void simulationWritesDecodableTelemetryEvents() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("market.evl");
+        EventLog log = EventLog.open(file);
+        EventLog previous = MarketEvents.install(log);
+        Clock clock = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+        try (StockMarketModel model = new StockMarketModel(11L, clock)) {
+            model.setUiNotificationsEnabled(false);
+            for (int i = 0; i < 30; i++) {
+                model.runTick();
+            }
+        } finally {
+            MarketEvents.install(previous);
+            log.close();
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        long[] fillVolume = new long[1];
+        EventLogDecoder.read(file, event -> {
+            counts.merge(event.name(), 1, Integer::sum);
+            if (event.schema().getId() == MarketEvents.FILL.getId()) {
+                fillVolume[0] += (Integer) event.value("volume");
+                assertNotNull(event.value("buyerType"));
+            }
+            if (event.schema().getId() == MarketEvents.TICK_PHASES.getId()) {
+                assertEquals(clock.millis(), event.timestamp());
+            }
+        });
+        assertEquals(Integer.valueOf(30), counts.get("TICK_PHASES"));
+        // 每個市場行為代理人每 tick 一筆
+        assertTrue(counts.getOrDefault("MARKET_FLUCTUATION", 0) >= 30);
+        assertTrue(counts.getOrDefault("ORDER_SUBMITTED", 0) > 0);
+        assertTrue(counts.getOrDefault("FILL", 0) > 0);
+        assertTrue(fillVolume[0] > 0);
+    }
+}
@@ -0,0 +1,63 @@
+package StockMainAction.model;
+
+import StockMainAction.model.account.AccountTotals;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RetailPopulationTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    public void populationStateMatchesAggregateAccount() {
+        try (StockMarketModel model = new StockMarketModel(21L, CLOCK)) {
+            model.setUiNotificationsEnabled(false);
+            AccountTotals.Snapshot before = model.getAccountTotals();
+            RetailPopulation population = model.enableRetailPopulation(20_000, 5_000.0);
+            assertEquals(before.totalCashCents() + 20_000L * 500_000L, model.getAccountTotals().totalCashCents());
+
+            for (int i = 0; i < 80; i++) {
+                model.runTick();
+            }
+
+            assertTrue(population.getOrdersSubmitted() > 0);
+            assertEquals(population.getAccount().getTotalStocks(), population.getTotalAgentShares());
+            double accountCash = population.getAccount().getAvailableFunds()
+                    + population.getAccount().getFrozenFunds();
+            double reservedCash = population.getAccount().getFrozenFunds();
+            assertEquals(accountCash - reservedCash, population.getTotalAgentCash(), 20_000 * 0.01);
+            assertEquals(model.calculateMarketInventory(), model.getAccountTotals().totalStocks());
+        }
+    }
+
+    @Test
+    public void sameSeedProducesSamePopulation() {
+        long[] filled = new long[2];
+        double[] cash = new double[2];
+        for (int run = 0; run < 2; run++) {
+            try (StockMarketModel model = new StockMarketModel(4L, CLOCK)) {
+                model.setUiNotificationsEnabled(false);
+                RetailPopulation population = model.enableRetailPopulation(5_000, 8_000.0);
+                for (int i = 0; i < 60; i++) {
+                    model.runTick();
+                }
+                filled[run] = population.getFilledVolume();
+                cash[run] = population.getTotalAgentCash();
+            }
+        }
+        assertEquals(filled[0], filled[1]);
+        assertEquals(cash[0], cash[1], 0.0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void populationCannotBeEnabledAfterFirstTick() {
+        try (StockMarketModel model = new StockMarketModel(1L, CLOCK)) {
+            model.setUiNotificationsEnabled(false);
+            model.runTick();
+            model.enableRetailPopulation(10, 1_000.0);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package StockMainAction.model;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import StockMainAction.model.core.Order;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimulationClockTest {
+
+    @Test
+    public void advancesOnlyWhenTold() {
+        SimulationClock clock = new SimulationClock(1_000L, ZoneOffset.UTC);
+        assertEquals(1_000L, clock.millis());
+
+        clock.setTickMillis(250L);
+        assertEquals(1_250L, clock.advanceTick());
+        assertEquals(1_300L, clock.advance(50L));
+        // 事件推進不會讓時間倒退
+        assertEquals(1_300L, clock.advanceTo(1_200L));
+        assertEquals(2_000L, clock.advanceTo(2_000L));
+
+        Clock taipei = clock.withZone(ZoneId.of("Asia/Taipei"));
+        clock.advanceTick();
+        assertEquals(clock.millis(), taipei.millis());
+        assertEquals(ZoneOffset.UTC, clock.getZone());
+    }
+
+    @Test
+    public void modelAdvancesVirtualTimePerTickIndependentOfWallTime() {
+        SimulationClock clock = new SimulationClock(0L, ZoneOffset.UTC);
+        try (StockMarketModel model = new StockMarketModel(11L, clock)) {
+            model.setUiNotificationsEnabled(false);
+            for (int i = 0; i < 60; i++) {
+                model.runTick();
+            }
+
+            // 60 個 tick 即 60 秒模擬時間，與實際耗時無關
+            assertEquals(60_000L, clock.millis());
+            for (Order order : model.getOrderBook().getBuyOrders()) {
+                assertTrue(order.getTimestamp() <= 60_000L);
+            }
+            model.getRecentTransactions(50)
+                    .forEach(tx -> assertTrue(tx.getTimestamp() <= 60_000L));
+        }
+    }
+}
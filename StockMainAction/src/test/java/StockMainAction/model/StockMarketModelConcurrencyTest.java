@@ -75,6 +75,50 @@ public class StockMarketModelConcurrencyTest {
         model.close();
     }
 
+    @Test
+    public void conservationCountersMatchFullInventoryScan() {
+        StockMarketModel model = new StockMarketModel(42L,
+                Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC));
+
+        assertEquals(model.calculateMarketInventory(), model.getAccountTotals().totalStocks());
+        assertTrue(model.getMarketMakers().get(0).getAccount().freezeStocks(100));
+        assertTrue(model.getRetailInvestors().get(0).getAccount().freezeFunds(1_000));
+
+        assertEquals(model.calculateMarketInventory(), model.getAccountTotals().totalStocks());
+        assertEquals(100, model.getAccountTotals().frozenStocks());
+        assertEquals(100_000, model.getAccountTotals().frozenCashCents());
+        model.close();
+    }
+
+    @Test
+    public void parallelDecisionPhaseIsIndependentOfCoreCount() {
+        String serialPool = runParallelTicks(1, 40);
+        String widePool = runParallelTicks(4, 40);
+
+        assertEquals(serialPool, runParallelTicks(1, 40));
+        assertEquals(serialPool, widePool);
+    }
+
+    private static String runParallelTicks(int parallelism, int ticks) {
+        StockMarketModel model = new StockMarketModel(7L,
+                Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC));
+        model.setParallelDecisionPhase(true);
+        model.setDecisionParallelism(parallelism);
+        for (int i = 0; i < ticks; i++) model.runTick();
+
+        StringBuilder state = new StringBuilder();
+        state.append(model.getStock().getPrice()).append('|')
+                .append(model.getOrderBook().getBuyOrders().size()).append('|')
+                .append(model.getOrderBook().getSellOrders().size());
+        for (StockMarketModel.TraderSnapshot snapshot : model.getTraderSnapshots()) {
+            state.append('\n').append(snapshot.traderType).append(':')
+                    .append(snapshot.availableFunds).append('/').append(snapshot.frozenFunds)
+                    .append('/').append(snapshot.availableStocks).append('/').append(snapshot.frozenStocks);
+        }
+        model.close();
+        return state.toString();
+    }
+
     @Test
     public void closedModelCannotRestart() {
         StockMarketModel model = new StockMarketModel(42L,
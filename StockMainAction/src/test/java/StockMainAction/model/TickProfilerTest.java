@@ -0,0 +1,57 @@
+package StockMainAction.model;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TickProfilerTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void percentilesAndOverrunsFollowRecordedPhases() {
+        TickProfiler profiler = new TickProfiler(100);
+        for (int i = 1; i <= 100; i++) {
+            profiler.beginTick();
+            long now = System.nanoTime();
+            profiler.recordPhase(TickProfiler.Phase.MATCHING, now - i * MS);
+            profiler.recordPhase(TickProfiler.Phase.NOTIFY, now - MS / 2);
+            profiler.endTick(now - i * MS - MS / 2, 50);
+        }
+
+        TickProfiler.Snapshot snapshot = profiler.snapshot();
+        TickProfiler.Stat matching = snapshot.phase(TickProfiler.Phase.MATCHING);
+
+        assertEquals(100, snapshot.ticks());
+        assertEquals(100, matching.count());
+        assertEquals(50, matching.p50Nanos() / MS);
+        assertEquals(99, matching.p99Nanos() / MS);
+        assertEquals(100, matching.allTimeMaxNanos() / MS);
+        // 總耗時 i+0.5 ms，超過 50ms 週期的是 i=50..100
+        assertEquals(51, snapshot.overruns());
+        assertEquals(Long.valueOf(51), snapshot.overrunsByPhase().get("MATCHING"));
+    }
+
+    @Test
+    public void modelRecordsPhasesAndAgentClassesPerTick() {
+        try (StockMarketModel model = new StockMarketModel(8L,
+                Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC))) {
+            model.setUiNotificationsEnabled(false);
+            for (int i = 0; i < 5; i++) {
+                model.runTick();
+            }
+
+            TickProfiler.Snapshot snapshot = model.getTickProfiler().snapshot();
+            assertEquals(5, snapshot.ticks());
+            assertEquals(5, snapshot.phase(TickProfiler.Phase.TOTAL).count());
+            assertNotNull(snapshot.phase(TickProfiler.Phase.MATCHING));
+            assertTrue(snapshot.agentClasses().stream()
+                    .anyMatch(stat -> stat.name().equals("RetailInvestorAI") && stat.count() > 0));
+
+            model.getTickProfiler().reset();
+            assertEquals(0, model.getTickProfiler().snapshot().ticks());
+        }
+    }
+}
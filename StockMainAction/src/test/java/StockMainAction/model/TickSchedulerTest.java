@@ -0,0 +1,87 @@
+package StockMainAction.model;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TickSchedulerTest {
+
+    @Test
+    public void skipPolicyDropsMissedTicksInsteadOfQueueing() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        // 每個 tick 耗時 30ms，週期 10ms：每次都落後約 2 個週期
+        TickScheduler scheduler = new TickScheduler(() -> {
+            runs.incrementAndGet();
+            sleepQuietly(30);
+        }, 10, "tick-test");
+        scheduler.setOverrunPolicy(TickScheduler.OverrunPolicy.SKIP);
+        scheduler.start();
+        Thread.sleep(400);
+        assertTrue(scheduler.stop(1000));
+
+        TickScheduler.Stats stats = scheduler.stats();
+        assertEquals(runs.get(), stats.ticks());
+        assertTrue(stats.overruns() > 0);
+        assertTrue(stats.skippedTicks() >= stats.overruns());
+        assertEquals(0, stats.burstTicks());
+        assertEquals(100.0, stats.targetTicksPerSecond(), 1e-9);
+    }
+
+    @Test
+    public void catchUpPolicyBurstsThenSkipsBeyondLimit() throws Exception {
+        TickScheduler scheduler = new TickScheduler(() -> sleepQuietly(30), 10, "tick-test");
+        scheduler.setOverrunPolicy(TickScheduler.OverrunPolicy.CATCH_UP);
+        scheduler.setMaxBurst(2);
+        scheduler.start();
+        Thread.sleep(400);
+        assertTrue(scheduler.stop(1000));
+
+        TickScheduler.Stats stats = scheduler.stats();
+        assertTrue(stats.burstTicks() > 0);
+        assertTrue(stats.skippedTicks() > 0);
+    }
+
+    @Test
+    public void stretchPolicyWidensEffectivePeriod() throws Exception {
+        TickScheduler scheduler = new TickScheduler(() -> sleepQuietly(25), 5, "tick-test");
+        scheduler.setOverrunPolicy(TickScheduler.OverrunPolicy.STRETCH);
+        scheduler.start();
+        Thread.sleep(300);
+        TickScheduler.Stats stats = scheduler.stats();
+        assertTrue(scheduler.stop(1000));
+
+        assertTrue(stats.overruns() > 0);
+        assertTrue(stats.effectivePeriodNanos() > TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(0, stats.skippedTicks());
+    }
+
+    @Test
+    public void unthrottledPeriodRunsBackToBackAndPeriodChangesLive() throws Exception {
+        CountDownLatch many = new CountDownLatch(1_000);
+        TickScheduler scheduler = new TickScheduler(many::countDown, 0, "tick-test");
+        scheduler.start();
+        assertTrue(many.await(5, TimeUnit.SECONDS));
+        assertTrue(Double.isInfinite(scheduler.stats().targetTicksPerSecond()));
+
+        // 執行中改成 200ms 週期：之後 300ms 內最多再跑 2~3 個 tick
+        scheduler.setPeriodMillis(200);
+        Thread.sleep(50);
+        long before = scheduler.stats().ticks();
+        Thread.sleep(300);
+        long after = scheduler.stats().ticks();
+        assertTrue(scheduler.stop(1000));
+        assertTrue("ticks after slowdown: " + (after - before), after - before <= 3);
+        assertFalse(scheduler.isRunning());
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package StockMainAction.model.account;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.junit.Assert.*;
 
 public class AccountLedgerTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
     @Test
     public void reserveReleaseAndLimitSettlementUseExactCents() {
         AccountLedger ledger = new AccountLedger(1_000.00, 20);
@@ -60,6 +72,71 @@ public class AccountLedgerTest {
         assertEquals(AccountOperation.RESERVE_FUNDS, failure.operation());
     }
 
+    @Test
+    public void auditTrailKeepsNewestThousandEntriesInOrder() {
+        AccountLedger ledger = new AccountLedger(10_000, 0);
+        for (int i = 0; i < 1_250; i++) {
+            assertTrue(ledger.reserveFunds(1));
+        }
+
+        List<AccountMutationResult> trail = ledger.auditTrail();
+        assertEquals(1_000, trail.size());
+        assertEquals(251, trail.get(0).sequence());
+        assertEquals(1_250, trail.get(999).sequence());
+        assertEquals(new AccountSnapshot(875_100, 124_900, 0, 0), trail.get(999).before());
+        assertEquals(new AccountSnapshot(875_000, 125_000, 0, 0), trail.get(999).after());
+        assertEquals(trail.get(998).after(), trail.get(999).before());
+    }
+
+    @Test
+    public void journalModeSpillsEntriesInsteadOfRetainingThem() {
+        List<AccountMutationResult> spilled = new ArrayList<>();
+        AccountLedger ledger = new AccountLedger(10, 2, collectInto(spilled));
+
+        assertTrue(ledger.reserveStocks(2));
+        AccountMutationResult failure = ledger.reserveFundsResult(11);
+
+        assertTrue(ledger.auditTrail().isEmpty());
+        assertEquals(2, spilled.size());
+        assertEquals(AccountOperation.RESERVE_STOCKS, spilled.get(0).operation());
+        assertEquals(new AccountSnapshot(1_000, 0, 0, 2), spilled.get(0).after());
+        assertEquals(failure, spilled.get(1));
+        assertEquals("insufficient available funds", failure.failureReason());
+    }
+
+    @Test
+    public void auditFileReplaysSpilledEntries() throws Exception {
+        Path file = temp.getRoot().toPath().resolve("audit.aaj");
+        AccountLedger ledger;
+        try (AccountAuditFile journal = AccountAuditFile.open(file)) {
+            ledger = new AccountLedger(100, 5, journal);
+            assertTrue(ledger.reserveFunds(40));
+            assertFalse(ledger.reserveStocks(6));
+            ledger.settleLimitBuy(40, 35, 1);
+        }
+
+        List<AccountMutationResult> replayed = new ArrayList<>();
+        assertEquals(3, AccountAuditFile.replay(file, collectInto(replayed)));
+        assertEquals(AccountOperation.RESERVE_FUNDS, replayed.get(0).operation());
+        assertEquals(new AccountSnapshot(6_000, 4_000, 5, 0), replayed.get(0).after());
+        assertFalse(replayed.get(1).success());
+        assertEquals("insufficient available stocks", replayed.get(1).failureReason());
+        assertEquals(AccountOperation.SETTLE_LIMIT_BUY, replayed.get(2).operation());
+        assertEquals(3, replayed.get(2).sequence());
+        assertEquals(ledger.snapshot(), replayed.get(2).after());
+    }
+
+    private static AccountAuditJournal collectInto(List<AccountMutationResult> entries) {
+        return (ledgerSequence, sequence, operation, failureReason,
+                availableCashBefore, frozenCashBefore, availableStocksBefore, frozenStocksBefore,
+                availableCashAfter, frozenCashAfter, availableStocksAfter, frozenStocksAfter) ->
+                entries.add(new AccountMutationResult(sequence, operation, failureReason == null, failureReason,
+                        new AccountSnapshot(availableCashBefore, frozenCashBefore,
+                                availableStocksBefore, frozenStocksBefore),
+                        new AccountSnapshot(availableCashAfter, frozenCashAfter,
+                                availableStocksAfter, frozenStocksAfter)));
+    }
+
     @Test
     public void tradeSettlementChangesBothLedgersAtomically() {
         AccountLedger buyer = new AccountLedger(1_000, 0);
@@ -73,6 +150,28 @@ public class AccountLedgerTest {
         assertEquals(new AccountSnapshot(20_000, 0, 8, 0), seller.snapshot());
     }
 
+    @Test
+    public void attachedTotalsFollowEveryMutation() {
+        AccountTotals totals = new AccountTotals();
+        AccountLedger buyer = new AccountLedger(1_000, 0);
+        AccountLedger seller = new AccountLedger(0, 10);
+        buyer.attachTotals(totals);
+        seller.attachTotals(totals);
+        assertEquals(new AccountTotals.Snapshot(100_000, 0, 10, 0), totals.snapshot());
+
+        assertTrue(buyer.reserveFunds(250));
+        assertTrue(seller.reserveStocks(2));
+        assertFalse(seller.reserveStocks(20));
+        assertEquals(new AccountTotals.Snapshot(75_000, 25_000, 8, 2), totals.snapshot());
+
+        AccountLedger.settleTrade(buyer, seller, 250, 200, 2, true, true);
+        assertEquals(new AccountTotals.Snapshot(100_000, 0, 10, 0), totals.snapshot());
+
+        AccountLedger other = new AccountLedger(1, 1);
+        other.attachTotals(new AccountTotals());
+        assertIllegalState(() -> other.attachTotals(totals));
+    }
+
     @Test
     public void failedTradeSettlementLeavesBothLedgersUnchanged() {
         AccountLedger buyer = new AccountLedger(100, 0);
@@ -111,6 +210,78 @@ public class AccountLedgerTest {
         assertEquals(secondSellerBefore, secondSeller.snapshot());
     }
 
+    @Test
+    public void balanceReadsDoNotWaitForSettlementLock() throws Exception {
+        AccountLedger ledger = new AccountLedger(500, 7);
+        assertTrue(ledger.reserveFunds(100));
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread settlement = new Thread(() -> {
+            synchronized (ledger) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        settlement.start();
+        try {
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            Future<AccountSnapshot> read = readers.submit(() -> {
+                assertEquals(400.0, ledger.getAvailableFunds(), 0.0);
+                assertEquals(100.0, ledger.getFrozenFunds(), 0.0);
+                assertEquals(7, ledger.getAvailableStocks());
+                return ledger.snapshot();
+            });
+            assertEquals(new AccountSnapshot(40_000, 10_000, 7, 0), read.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            settlement.join();
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentReadersAlwaysObserveConsistentSnapshots() throws Exception {
+        AccountLedger ledger = new AccountLedger(1_000, 100);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20_000; i++) {
+                    assertTrue(ledger.reserveFunds(1));
+                    assertTrue(ledger.reserveStocks(1));
+                    assertTrue(ledger.releaseFunds(1));
+                    assertTrue(ledger.releaseStocks(1));
+                }
+                return null;
+            });
+            List<Future<?>> readers = List.of(pool.submit(() -> readSnapshots(ledger, start)),
+                    pool.submit(() -> readSnapshots(ledger, start)),
+                    pool.submit(() -> readSnapshots(ledger, start)));
+            start.countDown();
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(new AccountSnapshot(100_000, 0, 100, 0), ledger.snapshot());
+    }
+
+    private static Void readSnapshots(AccountLedger ledger, CountDownLatch start) throws Exception {
+        start.await();
+        for (int i = 0; i < 50_000; i++) {
+            AccountSnapshot snapshot = ledger.snapshot();
+            assertEquals(100_000, snapshot.totalCashCents());
+            assertEquals(100, snapshot.totalStocks());
+        }
+        return null;
+    }
+
     private static void assertIllegalArgument(Runnable action) {
         try {
             action.run();
@@ -0,0 +1,98 @@
+package StockMainAction.model.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OhlcvBarEngineTest {
+
+    @Test
+    public void buildsBarsPerTimeframeWithRealVolume() {
+        OhlcvBarEngine engine = new OhlcvBarEngine();
+        List<OhlcvBar> closed = new ArrayList<>();
+        engine.addBarClosedListener(closed::add);
+
+        engine.onTrade(10.0, 100, 0L);
+        engine.onTrade(10.4, 50, 400L);
+        engine.onTrade(9.8, 20, 900L);
+        engine.onTrade(10.1, 30, 1_200L); // 進入下一秒：1 秒 K 收盤
+
+        assertEquals(1, closed.size());
+        OhlcvBar second = closed.get(0);
+        assertEquals(OhlcvBarEngine.SECOND, second.timeframeMillis());
+        assertEquals(0L, second.startMillis());
+        assertEquals(10.0, second.open(), 0.0);
+        assertEquals(10.4, second.high(), 0.0);
+        assertEquals(9.8, second.low(), 0.0);
+        assertEquals(9.8, second.close(), 0.0);
+        assertEquals(170L, second.volume());
+        assertEquals(3, second.trades());
+
+        OhlcvBar minute = engine.currentBar(OhlcvBarEngine.MINUTE);
+        assertEquals(200L, minute.volume());
+        assertEquals(4, minute.trades());
+        assertEquals(10.1, minute.close(), 0.0);
+
+        engine.onTrade(10.3, 10, 61_000L);
+        assertEquals(OhlcvBarEngine.MINUTE, closed.stream()
+                .filter(bar -> bar.timeframeMillis() == OhlcvBarEngine.MINUTE)
+                .findFirst().orElseThrow().timeframeMillis());
+        assertEquals(2, engine.bars(OhlcvBarEngine.MINUTE).size());
+        assertNull(engine.currentBar(5 * OhlcvBarEngine.MINUTE));
+    }
+
+    @Test
+    public void ringKeepsMostRecentClosedBars() {
+        OhlcvBarEngine engine = new OhlcvBarEngine(new long[]{OhlcvBarEngine.SECOND}, 3);
+        for (int i = 0; i < 10; i++) {
+            engine.onTrade(10.0 + i, 1, i * 1_000L);
+        }
+
+        List<OhlcvBar> bars = engine.bars(OhlcvBarEngine.SECOND);
+        assertEquals(3, engine.closedBarCount(OhlcvBarEngine.SECOND));
+        assertEquals(4, bars.size());
+        assertEquals(6_000L, bars.get(0).startMillis());
+        assertEquals(9_000L, bars.get(3).startMillis());
+    }
+
+    @Test
+    public void lateTradeExtendsCurrentBarRange() {
+        OhlcvBarEngine engine = new OhlcvBarEngine(new long[]{OhlcvBarEngine.SECOND}, 3);
+        engine.onTrade(10.0, 1, 5_000L);
+        engine.onTrade(12.0, 1, 4_500L);
+        engine.onTrade(9.0, 1, 3_000L);
+
+        OhlcvBar current = engine.currentBar(OhlcvBarEngine.SECOND);
+        assertEquals(5_000L, current.startMillis());
+        assertEquals(12.0, current.high(), 1e-9);
+        assertEquals(9.0, current.low(), 1e-9);
+        assertEquals(9.0, current.close(), 1e-9);
+        assertEquals(3, current.trades());
+    }
+
+    @Test
+    public void modelFeedsBarsFromExecutedTrades() {
+        java.time.Clock clock = new StockMainAction.model.SimulationClock(0L, java.time.ZoneOffset.UTC);
+        try (StockMainAction.model.StockMarketModel model =
+                new StockMainAction.model.StockMarketModel(5L, clock)) {
+            model.setUiNotificationsEnabled(false);
+            List<OhlcvBar> closed = new ArrayList<>();
+            model.getBarEngine().addBarClosedListener(closed::add);
+            model.getOrderBook().addTradeExecutedListener(event -> { });
+            for (int i = 0; i < 120; i++) {
+                model.runTick();
+            }
+
+            long volume = 0;
+            for (OhlcvBar bar : model.getBarEngine().bars(OhlcvBarEngine.SECOND)) {
+                volume += bar.volume();
+                assertTrue(bar.low() <= bar.open() && bar.open() <= bar.high());
+                assertTrue(bar.low() <= bar.close() && bar.close() <= bar.high());
+            }
+            assertTrue(volume > 0);
+            assertFalse(closed.isEmpty());
+        }
+    }
+}
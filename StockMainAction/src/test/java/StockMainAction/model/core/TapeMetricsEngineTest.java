@@ -0,0 +1,83 @@
+package StockMainAction.model.core;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TapeMetricsEngineTest {
+    private static final Clock EPOCH = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+
+    @Test
+    public void windowQueriesMatchBruteForceOverRawTrades() {
+        TapeMetricsEngine engine = new TapeMetricsEngine(EPOCH, 1_000L, 120);
+        List<long[]> trades = new ArrayList<>();
+        Random random = new Random(3L);
+        long ts = 0L;
+        for (int i = 0; i < 2_000; i++) {
+            ts += random.nextInt(150);
+            boolean buy = random.nextDouble() < (i % 300 < 150 ? 0.7 : 0.3);
+            int volume = 1 + random.nextInt(500);
+            engine.record(ts, buy, volume, 0.0);
+            trades.add(new long[]{ts, buy ? 1 : 0, volume});
+        }
+
+        for (long window : new long[]{1_000L, 10_000L, 60_000L}) {
+            long from = (Math.floorDiv(ts, 1_000L) - window / 1_000L + 1) * 1_000L;
+            int count = 0, buys = 0, maxBuy = 0, maxSell = 0, run = 0;
+            long buyVol = 0, sellVol = 0;
+            int lastSide = -1;
+            for (long[] t : trades) {
+                if (t[0] < from) continue;
+                count++;
+                if (t[1] == 1) { buys++; buyVol += t[2]; } else { sellVol += t[2]; }
+                run = t[1] == lastSide ? run + 1 : 1;
+                lastSide = (int) t[1];
+                if (t[1] == 1) maxBuy = Math.max(maxBuy, run); else maxSell = Math.max(maxSell, run);
+            }
+
+            TapeMetricsEngine.Window w = engine.window(window, ts);
+            assertEquals(count, w.tradeCount());
+            assertEquals(buyVol, w.buyVolume());
+            assertEquals(sellVol, w.sellVolume());
+            assertEquals((buys - (count - buys)) / (double) count, w.tickImbalance(), 1e-12);
+            assertEquals(maxBuy, w.maximumBuyStreak());
+            assertEquals(maxSell, w.maximumSellStreak());
+        }
+    }
+
+    @Test
+    public void modelAnswersTapeQueriesFromExecutedTrades() {
+        try (StockMainAction.model.StockMarketModel model = new StockMainAction.model.StockMarketModel(9L,
+                new StockMainAction.model.SimulationClock(0L, ZoneOffset.UTC))) {
+            model.setUiNotificationsEnabled(false);
+            for (int i = 0; i < 60; i++) {
+                model.runTick();
+            }
+
+            TapeMetricsEngine.Window window = model.getTapeMetrics().window(60_000L);
+            assertTrue(window.tradeCount() > 0);
+            assertEquals(window.tradesPerSecond(), model.getRecentTPS(60), 1e-12);
+            assertEquals(window.inPct() + window.outPct(), 100);
+        }
+    }
+
+    @Test
+    public void oldBucketsAreOverwrittenAndLateTradesIgnored() {
+        TapeMetricsEngine engine = new TapeMetricsEngine(EPOCH, 1_000L, 10);
+        engine.record(500L, true, 10, 0.5);
+        engine.record(20_500L, false, 5, 0.1);
+        engine.record(1_500L, true, 99, 0.0); // 早於環狀容量，忽略
+
+        TapeMetricsEngine.Window w = engine.window(10_000L, 20_900L);
+        assertEquals(1, w.tradeCount());
+        assertEquals(5, w.totalVolume());
+        assertEquals(0.1, w.averageSlippage(), 1e-12);
+        assertTrue(engine.window(10_000L, 40_000L).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package StockMainAction.model.core;
+
+import StockMainAction.model.StockMarketModel;
+import StockMainAction.util.logging.MarketLogger;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TradeTest {
+
+    @Test
+    public void marketTradeBuildsRichTransactionOnDemand() {
+        Trade trade = new Trade(42L, Trade.toTicks(10.05), 300, true, OrderType.MARKET,
+                TraderTypes.ordinal("MAIN_FORCE"), TraderTypes.ordinal("RETAIL_INVESTOR"),
+                1_000L, Trade.toTicks(10.00), MatchingMode.TWSE_STRICT);
+
+        Transaction transaction = trade.toTransaction(Clock.systemUTC());
+
+        assertEquals("42", transaction.getId());
+        assertEquals(10.05, transaction.getPrice(), 1e-9);
+        assertEquals("MARKET_BUY", transaction.getOrderType());
+        assertEquals("MAIN_FORCE", transaction.getInitiatingTraderType());
+        assertEquals("MAIN_FORCE", transaction.getBuyerType());
+        assertEquals("RETAIL_INVESTOR", transaction.getSellerType());
+        assertEquals(0.05, transaction.getSlippage(), 1e-9);
+        assertEquals(1, transaction.getFillCount());
+        assertEquals(1_000L, transaction.getFillRecords().get(0).getTimestamp());
+        assertTrue(transaction.getDetailedDescription().contains("300/300股"));
+        assertNull(transaction.getBuyOrder());
+    }
+
+    @Test
+    public void viewBuiltFromTradeUsesTheGivenClock() {
+        Trade trade = new Trade(7L, Trade.toTicks(10.00), 100, true, OrderType.MARKET,
+                TraderTypes.ordinal("MAIN_FORCE"), TraderTypes.ordinal("RETAIL_INVESTOR"),
+                1_000L, Trade.toTicks(10.00), MatchingMode.TWSE_STRICT);
+
+        Transaction transaction = trade.toTransaction(Clock.fixed(Instant.ofEpochMilli(5_000L), ZoneOffset.UTC));
+        transaction.addFillRecord(10.01, 50, "RETAIL_INVESTOR", 2);
+
+        assertEquals(5_000L, transaction.getFillRecords().get(1).getTimestamp());
+    }
+
+    @Test
+    public void modelJournalsCompactTradesAndBuildsViewsLazily() {
+        try (StockMarketModel model = new StockMarketModel(11L,
+                Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC))) {
+            model.setUiNotificationsEnabled(false);
+            for (int i = 0; i < 30 && model.getTransactionJournal().size() == 0; i++) {
+                model.runTick();
+            }
+            TransactionJournal journal = model.getTransactionJournal();
+            assertTrue(journal.size() > 0);
+
+            long last = journal.sequence() - 1;
+            Trade trade = journal.trade(last);
+            List<Transaction> recent = model.getRecentTransactions(1);
+            assertEquals(trade.idString(), recent.get(0).getId());
+            assertEquals(trade.price(), recent.get(0).getPrice(), 1e-9);
+            assertNotNull(recent.get(0).getBuyerType());
+            assertEquals(journal.sequence(), model.getTransactionHistoryStore().size());
+        }
+    }
+
+    @Test
+    public void isolatedModelKeepsNoTradeHistoryStore() {
+        try (MarketLogger.Scope scope = MarketLogger.isolate(MarketLogger.isolated(MarketLogger.LEVEL_ERROR, null));
+             StockMarketModel model = new StockMarketModel(11L,
+                     Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC))) {
+            model.setUiNotificationsEnabled(false);
+            model.runTick();
+            assertNull(model.getTransactionHistoryStore());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package StockMainAction.model.core;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
 public class TransactionJournalTest {
@@ -19,6 +20,44 @@ public class TransactionJournalTest {
         assertEquals(0, journal.recent(0).size());
     }
 
+    @Test
+    public void cursorReadsOnlyNewEntriesAsPrimitiveColumns() {
+        TransactionJournal journal = new TransactionJournal(4);
+        journal.add(transaction("T1"));
+        TransactionJournal.Cursor cursor = journal.cursor();
+        journal.add(new Transaction("T2", (Order) null, (Order) null, 12.5, 300, 2_000L));
+        journal.add(new Transaction("T3", (Order) null, (Order) null, 12.6, 100, 3_000L));
+
+        StringBuilder seen = new StringBuilder();
+        int read = cursor.poll(0, (sequence, price, volume, buyerInitiated, timestamp, buyerType, sellerType) ->
+                seen.append(sequence).append(':').append(price).append('x').append(volume)
+                        .append('@').append(timestamp).append(';'));
+
+        assertEquals(2, read);
+        assertEquals("1:12.5x300@2000;2:12.6x100@3000;", seen.toString());
+        assertEquals(0, cursor.poll(0, (s, p, v, b, t, bt, st) -> fail("no new entries")));
+        assertEquals("T3", journal.get(2).getId());
+    }
+
+    @Test
+    public void slowCursorSkipsOverwrittenEntries() {
+        TransactionJournal journal = new TransactionJournal(2);
+        TransactionJournal.Cursor cursor = journal.cursor();
+        for (int i = 1; i <= 5; i++) {
+            journal.add(transaction("T" + i));
+        }
+
+        StringBuilder seen = new StringBuilder();
+        cursor.poll(0, (sequence, price, volume, buyerInitiated, timestamp, buyerType, sellerType) ->
+                seen.append(sequence).append(';'));
+
+        assertEquals("3;4;", seen.toString());
+        assertEquals(3, cursor.missed());
+        assertEquals(0, cursor.lag());
+        assertNull(journal.get(0));
+        assertEquals(3, journal.firstSequence());
+    }
+
     @Test
     public void rejectsInvalidCapacityAndCount() {
         assertIllegalArgument(() -> new TransactionJournal(0));
@@ -0,0 +1,72 @@
+package StockMainAction.model.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VolumeProfileEngineTest {
+
+    @Test
+    public void sessionVwapMatchesVolumeWeightedBruteForce() {
+        VolumeProfileEngine engine = new VolumeProfileEngine();
+        double[] prices = {10.00, 10.05, 9.95, 10.10, 10.00};
+        long[] volumes = {100, 300, 50, 200, 350};
+        double pv = 0, v = 0;
+        for (int i = 0; i < prices.length; i++) {
+            engine.record(prices[i], volumes[i], 1_000L * i);
+            pv += prices[i] * volumes[i];
+            v += volumes[i];
+        }
+        double vwap = pv / v;
+        double var = 0;
+        for (int i = 0; i < prices.length; i++) {
+            var += volumes[i] * (prices[i] - vwap) * (prices[i] - vwap);
+        }
+
+        VolumeProfileEngine.VwapStats stats = engine.sessionVwap();
+        assertEquals(vwap, stats.vwap(), 1e-9);
+        assertEquals(Math.sqrt(var / v), stats.stdDev(), 1e-9);
+        assertEquals(1_000L, stats.volume());
+        assertEquals(450L, engine.volumeAt(10.00));
+        assertEquals(750L, engine.volumeBetween(10.00, 10.05));
+    }
+
+    @Test
+    public void pointOfControlAndValueAreaFollowVolumeDistribution() {
+        VolumeProfileEngine engine = new VolumeProfileEngine();
+        engine.record(20.00, 10, 0L);
+        engine.record(20.01, 20, 0L);
+        engine.record(20.02, 40, 0L);
+        engine.record(20.03, 20, 0L);
+        engine.record(20.04, 10, 0L);
+        // 價格跳離初始範圍，直方圖需擴充
+        engine.record(35.00, 1, 0L);
+        engine.record(5.00, 1, 0L);
+
+        assertEquals(20.02, engine.pointOfControl(), 1e-9);
+        VolumeProfileEngine.ValueArea area = engine.valueArea(0.70);
+        assertEquals(20.01, area.low(), 1e-9);
+        assertEquals(20.03, area.high(), 1e-9);
+        assertEquals(80L, area.volume());
+        assertEquals(102L, engine.getTotalVolume());
+    }
+
+    @Test
+    public void anchoredVwapBackfillsFromAnchorAndContinuesIncrementally() {
+        VolumeProfileEngine engine = new VolumeProfileEngine(60);
+        engine.record(10.0, 100, 1_000L);
+        engine.record(12.0, 100, 5_000L);
+        engine.setAnchor("a", 5_000L);
+        assertEquals(12.0, engine.anchoredVwap("a").vwap(), 1e-9);
+
+        engine.record(14.0, 100, 6_000L);
+        assertEquals(13.0, engine.anchoredVwap("a").vwap(), 1e-9);
+        assertEquals(12.0, engine.sessionVwap().vwap(), 1e-9);
+
+        engine.removeAnchor("a");
+        assertNull(engine.anchoredVwap("a"));
+        engine.clear();
+        assertTrue(engine.sessionVwap().isEmpty());
+        assertTrue(Double.isNaN(engine.pointOfControl()));
+    }
+}
@@ -0,0 +1,109 @@
+package StockMainAction.model.history;
+
+import StockMainAction.model.core.Order;
+import StockMainAction.model.core.OrderType;
+import StockMainAction.model.core.Trade;
+import StockMainAction.model.core.TraderTypes;
+import StockMainAction.model.core.Transaction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionHistoryStoreTest {
+
+    @Test
+    public void spillsFullSegmentsAndPagesAcrossTiers() throws Exception {
+        Path dir;
+        try (TransactionHistoryStore store = new TransactionHistoryStore(null, 4, 1)) {
+            for (int i = 0; i < 10; i++) {
+                store.append(limit("L" + i, 10.0 + i, i * 1_000L));
+            }
+            store.awaitSpilled(5, TimeUnit.SECONDS);
+
+            assertEquals(2, store.getSegmentCount());
+            assertEquals(2, store.getSpilledSegmentCount());
+            dir = store.getDirectory();
+            assertTrue(Files.exists(dir.resolve("segment-000000.trd.gz")));
+            assertEquals(3_000L, store.getSegmentIndexes().get(0).getMaxTime());
+            assertEquals(13.0, store.getSegmentIndexes().get(0).getMaxPrice(), 1e-9);
+
+            TransactionHistoryStore.Result all = store.query(TradeQuery.all());
+            assertEquals(10, all.total());
+            assertEquals(List.of("L3", "L4", "L5"), ids(all.page(3, 3)));
+            assertEquals(List.of("L9", "L8", "L7"), ids(all.newestPage(0, 3)));
+            assertEquals(List.of("L0"), ids(all.newestPage(3, 3)));
+            assertEquals(14.0, all.page(4, 1).get(0).price(), 1e-9);
+
+            TransactionHistoryStore.Result window = store.query(TradeQuery.all().between(2_000L, 5_000L));
+            assertEquals(4, window.total());
+            assertEquals(List.of("L2", "L3", "L4", "L5"), ids(window.page(0, 10)));
+        }
+        assertFalse(Files.exists(dir));
+    }
+
+    @Test
+    public void filtersByTraderTypeSideAndOrderKind() throws Exception {
+        try (TransactionHistoryStore store = new TransactionHistoryStore(null, 3, 2)) {
+            for (int i = 0; i < 9; i++) {
+                store.append(i % 3 == 0 ? marketBuy("M" + i, "MAIN_FORCE", i * 1_000L)
+                        : limit("L" + i, 10.0, i * 1_000L));
+            }
+            store.awaitSpilled(5, TimeUnit.SECONDS);
+
+            TradeQuery mainForce = TradeQuery.all().withTraderType("MAIN_FORCE");
+            assertEquals(List.of("M0", "M3", "M6"), ids(store.query(mainForce).page(0, 10)));
+            assertEquals(0, store.query(TradeQuery.all().withTraderType("PERSONAL")).total());
+            assertEquals(3, store.query(TradeQuery.all().withBuyerInitiated(true)).total());
+            assertEquals(6, store.query(TradeQuery.all().withOrderKind(TradeRecord.OrderKind.LIMIT)).total());
+            assertEquals(List.of("M6"), ids(store.query(mainForce
+                    .withOrderKind(TradeRecord.OrderKind.MARKET).between(4_000L, 8_000L)).page(0, 10)));
+        }
+    }
+
+    @Test
+    public void engineTradesKeepNumericIdsAcrossSpill() throws Exception {
+        try (TransactionHistoryStore store = new TransactionHistoryStore(null, 2, 0)) {
+            for (int i = 0; i < 5; i++) {
+                store.append(new Trade(100L + i, Trade.toTicks(10.0 + i), 1, i % 2 == 0, OrderType.LIMIT,
+                        TraderTypes.ordinal("MAIN_FORCE"), TraderTypes.UNKNOWN, i * 1_000L,
+                        Trade.toTicks(10.0 + i), null));
+            }
+            store.append(limit("T5", 15.0, 5_000L));
+            store.awaitSpilled(5, TimeUnit.SECONDS);
+
+            assertEquals(3, store.getSpilledSegmentCount());
+            TransactionHistoryStore.Result all = store.query(TradeQuery.all());
+            assertEquals(List.of("100", "101", "102", "103", "104", "T5"), ids(all.page(0, 10)));
+            TradeRecord record = all.page(2, 1).get(0);
+            assertEquals(2L, record.sequence());
+            assertEquals(12.0, record.price(), 1e-9);
+            assertEquals("MAIN_FORCE", record.buyerType());
+            assertNull(record.sellerType());
+            assertEquals(3, store.query(TradeQuery.all().withBuyerInitiated(true)).total());
+            assertEquals(5, store.query(TradeQuery.all().withTraderType("MAIN_FORCE")).total());
+        }
+    }
+
+    static Transaction limit(String id, double price, long timestamp) {
+        return new Transaction(id, (Order) null, (Order) null, price, 1, timestamp);
+    }
+
+    static Transaction marketBuy(String id, String traderType, long timestamp) {
+        return new Transaction(id, traderType, "MARKET_BUY", 1, 10.0, 10.0,
+                Clock.fixed(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC));
+    }
+
+    private static List<String> ids(List<TradeRecord> records) {
+        return records.stream().map(TradeRecord::id).toList();
+    }
+}
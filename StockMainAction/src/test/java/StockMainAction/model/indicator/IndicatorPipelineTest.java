@@ -0,0 +1,176 @@
+package StockMainAction.model.indicator;
+
+import StockMainAction.model.core.OhlcvBarEngine;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IndicatorPipelineTest {
+
+    @Test
+    public void sharedIntermediatesAreRegisteredOnceBeforeTheirConsumers() {
+        IndicatorPipeline pipeline = IndicatorPipeline.standard();
+
+        assertSame(pipeline.get("EMA12"), pipeline.ema(12));
+        assertSame(pipeline.get("SMA20"), pipeline.sma(20));
+        assertTrue(pipeline.names().indexOf("EMA26") < pipeline.names().indexOf("MACD(12,26,9)"));
+        assertTrue(pipeline.names().indexOf("RSI14") < pipeline.names().indexOf("STOCHRSI(14,14,3,3)"));
+        assertEquals(1, pipeline.names().stream().filter("EMA12"::equals).count());
+        try {
+            pipeline.add(new Obv());
+            fail("duplicate indicator should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void atrObvAndStochRsiMatchReferenceComputation() {
+        IndicatorPipeline pipeline = IndicatorPipeline.standard();
+        int n = 200;
+        double[] high = new double[n], low = new double[n], close = new double[n];
+        long[] volume = new long[n];
+        Random random = new Random(11L);
+        double price = 50.0;
+        for (int i = 0; i < n; i++) {
+            double open = price;
+            price = Math.max(1.0, price + random.nextGaussian() * 0.4);
+            close[i] = price;
+            high[i] = Math.max(open, price) + random.nextDouble() * 0.2;
+            low[i] = Math.min(open, price) - random.nextDouble() * 0.2;
+            volume[i] = 100 + random.nextInt(900);
+            pipeline.update(open, high[i], low[i], close[i], volume[i]);
+        }
+
+        assertEquals(referenceAtr(high, low, close, 14), pipeline.values("ATR14")[0], 1e-9);
+        assertEquals(referenceObv(close, volume), pipeline.values("OBV")[0], 0.0);
+        double[] stoch = referenceStochRsi(close, 14, 14, 3, 3);
+        double[] actual = pipeline.values("STOCHRSI(14,14,3,3)");
+        assertEquals(stoch[0], actual[0], 1e-9);
+        assertEquals(stoch[1], actual[1], 1e-9);
+        assertEquals(200, pipeline.getUpdateCount());
+    }
+
+    @Test
+    public void firstSeededEmaAndPartialMeanHaveValuesFromTheFirstBar() {
+        IndicatorPipeline pipeline = IndicatorPipeline.standard();
+        Ema first = pipeline.ema(12, Ema.Seed.FIRST);
+        Sma sma = pipeline.sma(5);
+
+        assertNotSame(pipeline.ema(12), first);
+        assertSame(first, pipeline.get("EMA12F"));
+        pipeline.updatePrice(10.0);
+        assertEquals(10.0, first.value(), 0.0);
+        assertEquals(10.0, sma.partialMean(), 0.0);
+        assertTrue(Double.isNaN(sma.mean()));
+        assertNull(pipeline.values("EMA12"));
+
+        pipeline.updatePrice(23.0);
+        assertEquals(12.0, first.value(), 1e-12);
+        assertEquals(16.5, sma.partialMean(), 1e-12);
+    }
+
+    @Test
+    public void timeframeIndicatorsFollowClosedBars() {
+        OhlcvBarEngine engine = new OhlcvBarEngine(new long[]{OhlcvBarEngine.SECOND, OhlcvBarEngine.MINUTE}, 100);
+        TimeframeIndicators indicators = new TimeframeIndicators(engine.getTimeframes(), IndicatorPipeline::standard);
+        engine.addBarClosedListener(indicators);
+
+        for (int i = 0; i <= 30; i++) {
+            engine.onTrade(10.0 + i * 0.1, 10, i * 1_000L);
+        }
+
+        assertEquals(30, indicators.pipeline(OhlcvBarEngine.SECOND).getUpdateCount());
+        assertEquals(0, indicators.pipeline(OhlcvBarEngine.MINUTE).getUpdateCount());
+        assertEquals(12.7, indicators.values(OhlcvBarEngine.SECOND, "SMA5")[0], 1e-9);
+        assertNull(indicators.values(OhlcvBarEngine.MINUTE, "SMA5"));
+        assertEquals(29_000L, indicators.lastClosedStart(OhlcvBarEngine.SECOND));
+        assertEquals(TimeframeIndicators.NO_BAR, indicators.lastClosedStart(OhlcvBarEngine.MINUTE));
+
+        indicators.clear();
+        assertEquals(0, indicators.pipeline(OhlcvBarEngine.SECOND).getUpdateCount());
+    }
+
+    @Test
+    public void extendedStagesWarmUpFromClosedBarsAndSurviveClear() {
+        OhlcvBarEngine engine = new OhlcvBarEngine(new long[]{OhlcvBarEngine.SECOND}, 100);
+        TimeframeIndicators indicators = new TimeframeIndicators(engine.getTimeframes(), IndicatorPipeline::standard);
+        engine.addBarClosedListener(indicators);
+        for (int i = 0; i <= 10; i++) {
+            engine.onTrade(10.0 + i, 10, i * 1_000L);
+        }
+
+        indicators.extend(engine, pipeline -> pipeline.sma(3));
+        Sma sma3 = (Sma) indicators.pipeline(OhlcvBarEngine.SECOND).get("SMA3");
+        // 10 根已收盤（10..19），目前 K 線（20）不列入
+        assertEquals(18.0, sma3.mean(), 1e-12);
+        engine.onTrade(21.0, 10, 11_000L);
+        assertEquals(19.0, sma3.mean(), 1e-12);
+
+        indicators.clear();
+        assertNotNull(indicators.pipeline(OhlcvBarEngine.SECOND).get("SMA3"));
+        assertNotSame(sma3, indicators.pipeline(OhlcvBarEngine.SECOND).get("SMA3"));
+    }
+
+    private static double referenceAtr(double[] high, double[] low, double[] close, int period) {
+        double atr = 0;
+        for (int i = 0; i < high.length; i++) {
+            double tr = high[i] - low[i];
+            if (i > 0) {
+                tr = Math.max(tr, Math.max(Math.abs(high[i] - close[i - 1]), Math.abs(low[i] - close[i - 1])));
+            }
+            if (i < period) {
+                atr += tr / period;
+            } else {
+                atr = (atr * (period - 1) + tr) / period;
+            }
+        }
+        return atr;
+    }
+
+    private static double referenceObv(double[] close, long[] volume) {
+        long obv = 0;
+        for (int i = 1; i < close.length; i++) {
+            obv += close[i] > close[i - 1] ? volume[i] : close[i] < close[i - 1] ? -volume[i] : 0;
+        }
+        return obv;
+    }
+
+    private static double[] referenceStochRsi(double[] close, int rsiPeriod, int stochPeriod, int kPeriod, int dPeriod) {
+        int n = close.length;
+        double[] rsi = new double[n];
+        double gain = 0, loss = 0;
+        for (int i = 1; i < n; i++) {
+            double change = close[i] - close[i - 1];
+            double g = Math.max(change, 0), l = Math.max(-change, 0);
+            if (i <= rsiPeriod) {
+                gain += g / rsiPeriod;
+                loss += l / rsiPeriod;
+            } else {
+                gain = (gain * (rsiPeriod - 1) + g) / rsiPeriod;
+                loss = (loss * (rsiPeriod - 1) + l) / rsiPeriod;
+            }
+            rsi[i] = loss == 0 ? (gain == 0 ? 50 : 100) : 100 - 100 / (1 + gain / loss);
+        }
+        double[] stoch = new double[n];
+        int first = rsiPeriod + stochPeriod - 1;
+        for (int i = first; i < n; i++) {
+            double hh = Double.NEGATIVE_INFINITY, ll = Double.POSITIVE_INFINITY;
+            for (int j = i - stochPeriod + 1; j <= i; j++) {
+                hh = Math.max(hh, rsi[j]);
+                ll = Math.min(ll, rsi[j]);
+            }
+            stoch[i] = hh != ll ? (rsi[i] - ll) / (hh - ll) * 100 : 50;
+        }
+        double[] k = new double[n];
+        for (int i = first + kPeriod - 1; i < n; i++) {
+            double s = 0;
+            for (int j = i - kPeriod + 1; j <= i; j++) s += stoch[j];
+            k[i] = s / kPeriod;
+        }
+        double d = 0;
+        for (int j = n - dPeriod; j < n; j++) d += k[j];
+        return new double[]{k[n - 1], d / dPeriod};
+    }
+}
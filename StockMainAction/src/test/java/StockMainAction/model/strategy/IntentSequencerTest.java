@@ -0,0 +1,148 @@
+package StockMainAction.model.strategy;
+
+import StockMainAction.model.core.OrderBook;
+import StockMainAction.model.core.OrderSide;
+import StockMainAction.model.core.Stock;
+import StockMainAction.model.core.Trader;
+import StockMainAction.model.user.UserAccount;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntentSequencerTest {
+    private static final long SEED = 20260101L;
+
+    @Test
+    public void deferredIntentReturnsPendingResult() {
+        OrderBook book = new OrderBook(null);
+        Agent agent = new Agent(0, book, new Random(1));
+        StrategyExecutionResult[] seen = new StrategyExecutionResult[2];
+
+        IntentSequencer.AgentBatch batch = IntentSequencer.capture(agent, book, () ->
+                seen[0] = agent.executeIntent(book, OrderIntent.limit(OrderSide.BUY, 1, 10, "test"),
+                        result -> seen[1] = result));
+
+        assertTrue(seen[0].pending());
+        assertFalse(seen[0].accepted());
+        assertNull(seen[1]);
+        assertTrue(book.snapshot().buys().isEmpty());
+
+        batch.replay();
+        assertFalse(seen[1].pending());
+        assertTrue(seen[1].accepted());
+        assertEquals(1, book.snapshot().buys().size());
+    }
+
+    @Test
+    public void parallelRunMatchesSerialRunForSameSeed() throws Exception {
+        String serial = run(false);
+
+        assertEquals(serial, run(true));
+        assertTrue(serial, serial.contains("filled="));
+    }
+
+    /**
+     * Agents decide from their own RNG and from state updated by earlier results, so the frozen
+     * book does not change their intents; only result delivery differs between the two modes.
+     */
+    private static String run(boolean parallel) throws Exception {
+        OrderBook book = new OrderBook(null);
+        Stock stock = new Stock("T", 10, 1000);
+        Agent maker = new Agent(-1, book, new Random(0), 1_000_000, 100_000);
+        List<Agent> agents = new ArrayList<>();
+        for (int i = 0; i < 8; i++) agents.add(new Agent(i, book, new Random(SEED + i)));
+        Random sequencing = new Random(SEED);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int tick = 0; tick < 40; tick++) {
+                for (int level = 0; level < 3; level++) {
+                    maker.executeIntent(book, OrderIntent.limit(OrderSide.SELL, 4, 10.0 + level * 0.05, "quote"));
+                }
+                long seed = sequencing.nextLong();
+                if (parallel) {
+                    List<Callable<IntentSequencer.AgentBatch>> decisions = new ArrayList<>();
+                    for (Agent agent : agents) {
+                        decisions.add(() -> IntentSequencer.capture(agent, book, agent::decide));
+                    }
+                    List<IntentSequencer.AgentBatch> batches = new ArrayList<>();
+                    for (Future<IntentSequencer.AgentBatch> future : pool.invokeAll(decisions)) {
+                        batches.add(future.get());
+                    }
+                    for (IntentSequencer.AgentBatch batch : IntentSequencer.order(batches, seed)) batch.replay();
+                } else {
+                    for (Agent agent : IntentSequencer.order(agents, seed)) agent.decide();
+                }
+                book.processOrders(stock);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        StringBuilder state = new StringBuilder();
+        for (Agent agent : agents) state.append(agent.describe()).append('\n');
+        return state.toString();
+    }
+
+    private static final class Agent implements Trader {
+        private final int id;
+        private final OrderBook book;
+        private final Random random;
+        private final UserAccount account;
+        // Bookkeeping updated only from execution results.
+        private int filled;
+        private int fokAccepted;
+        private int fokRejected;
+        private int cancelled;
+        private double stopLoss;
+        private String restingOrderId;
+
+        private Agent(int id, OrderBook book, Random random) {
+            this(id, book, random, 500, 0);
+        }
+
+        private Agent(int id, OrderBook book, Random random, double cash, int stocks) {
+            this.id = id;
+            this.book = book;
+            this.random = random;
+            this.account = new UserAccount(cash, stocks);
+        }
+
+        void decide() {
+            int quantity = 1 + random.nextInt(4);
+            double price = 9.9 + random.nextInt(4) * 0.05;
+            switch (random.nextInt(4)) {
+                case 0 -> executeIntent(book, OrderIntent.market(OrderSide.BUY, quantity, "market"), result -> {
+                    filled += result.filledVolume();
+                    if (result.filledVolume() > 0) stopLoss = result.execution().averagePrice() * 0.95;
+                });
+                case 1 -> executeIntent(book, OrderIntent.fok(OrderSide.BUY, quantity, price, "fok"), result -> {
+                    if (result.accepted()) fokAccepted++;
+                    else fokRejected++;
+                });
+                case 2 -> executeIntent(book, OrderIntent.limit(OrderSide.BUY, quantity, price, "limit"), result -> {
+                    if (result.accepted()) restingOrderId = result.submission().orderId();
+                });
+                default -> {
+                    String orderId = restingOrderId;
+                    if (orderId != null) cancelOrder(book, orderId, () -> cancelled++);
+                }
+            }
+        }
+
+        String describe() {
+            return id + ":" + account.snapshot() + " filled=" + filled + " fok=" + fokAccepted + "/" + fokRejected
+                    + " cancelled=" + cancelled + " stop=" + stopLoss;
+        }
+
+        @Override public UserAccount getAccount() { return account; }
+        @Override public String getTraderType() { return "agent" + id; }
+        @Override public void updateAfterTransaction(String side, int volume, double price) { }
+        @Override public void updateAverageCostPrice(String side, int volume, double price) { }
+    }
+}
@@ -0,0 +1,103 @@
+package StockMainAction.util.logging;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class DecisionFactorWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesDailyCsvAndColumnarFilesThatExportIdentically() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long day1 = Instant.parse("2026-03-01T23:59:58Z").toEpochMilli();
+        long day2 = Instant.parse("2026-03-02T00:00:01Z").toEpochMilli();
+        DecisionFactorWriter writer = new DecisionFactorWriter(dir, DecisionFactorWriter.Format.BOTH,
+                ZoneOffset.UTC, 10_000);
+        for (int i = 0; i < 2_500; i++) {
+            assertTrue(writer.offer(row(day1 + i % 1000, i)));
+        }
+        assertTrue(writer.offer(row(day2, 7)));
+        writer.close();
+        assertFalse(writer.offer(row(day2, 8)));
+
+        assertEquals(2_501, writer.getWrittenCount());
+        assertEquals(1, writer.getDroppedCount());
+        Path csv1 = writer.csvFile(LocalDate.of(2026, 3, 1));
+        Path csv2 = writer.csvFile(LocalDate.of(2026, 3, 2));
+        List<String> lines = Files.readAllLines(csv1);
+        assertEquals(DecisionFactorWriter.CSV_HEADER, lines.get(0));
+        assertEquals(2_501, lines.size());
+        assertEquals("2026-03-01 23:59:58,MainForce,PUMP;HOLD,LIFT,MARKET,0,10.500000,40,60,20,1.250,300,"
+                + "-0.125,65,0.50,0.0125,NaN,true,false", lines.get(1));
+        assertEquals(2, Files.readAllLines(csv2).size());
+
+        StringWriter exported = new StringWriter();
+        assertEquals(2_500, DecisionFactorExporter.exportCsv(writer.binaryFile(LocalDate.of(2026, 3, 1)),
+                exported, ZoneOffset.UTC));
+        assertEquals(Files.readString(csv1), exported.toString());
+        assertTrue(Files.size(writer.binaryFile(LocalDate.of(2026, 3, 1))) < Files.size(csv1));
+    }
+
+    @Test
+    public void symbolCodesBeyondShortRangeAndNullsRoundTrip() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long day = Instant.parse("2026-03-01T00:00:00Z").toEpochMilli();
+        DecisionFactorWriter writer = new DecisionFactorWriter(dir, DecisionFactorWriter.Format.BINARY,
+                ZoneOffset.UTC, 50_000);
+        int n = 40_000;
+        for (int i = 0; i < n; i++) {
+            assertTrue(writer.offer(new DecisionFactorWriter.Row(day, "actor-" + i, null, "LIFT", null, i,
+                    10.0, 0, 0, 0L, 0, 0, 0, 0, 0, 0, 0, false, false)));
+        }
+        writer.close();
+
+        int[] read = new int[1];
+        DecisionFactorExporter.read(writer.binaryFile(LocalDate.of(2026, 3, 1)), row -> {
+            assertEquals("actor-" + row.volume(), row.actor());
+            assertNull(row.phase());
+            assertNull(row.orderType());
+            read[0]++;
+        });
+        assertEquals(n, read[0]);
+    }
+
+    @Test
+    public void rowsOfferedWhileClosingAreWrittenOrCounted() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        long day = Instant.parse("2026-03-01T00:00:00Z").toEpochMilli();
+        DecisionFactorWriter writer = new DecisionFactorWriter(dir, DecisionFactorWriter.Format.BINARY,
+                ZoneOffset.UTC, 1_000_000);
+        int perThread = 20_000;
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) writer.offer(row(day, i));
+            });
+            producers[t].start();
+        }
+        Thread.sleep(5);
+        writer.close();
+        for (Thread producer : producers) producer.join();
+
+        assertEquals(producers.length * (long) perThread, writer.getWrittenCount() + writer.getDroppedCount());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    private static DecisionFactorWriter.Row row(long timestamp, int volume) {
+        return new DecisionFactorWriter.Row(timestamp, "MainForce", "PUMP,HOLD", "LIFT",
+                volume % 2 == 0 ? "MARKET" : "LIMIT", volume, 10.5, 40, 60, 20L, 1.25, 300.0, -0.125,
+                65, 0.5, 0.0125, Double.NaN, true, false);
+    }
+}
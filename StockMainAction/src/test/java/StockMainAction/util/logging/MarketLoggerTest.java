@@ -0,0 +1,50 @@
+package StockMainAction.util.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class MarketLoggerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void disabledLevelsSkipSuppliersAndFormatting() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("market.log");
+        MarketLogger logger = MarketLogger.isolated(MarketLogger.LEVEL_INFO, file);
+        logger.setCategoryMinLevel("QUIET", MarketLogger.LEVEL_ERROR);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertFalse(logger.isDebugEnabled("TEST"));
+        assertTrue(logger.isEnabled(MarketLogger.LEVEL_INFO, "TEST"));
+        assertFalse(logger.isEnabled(MarketLogger.LEVEL_WARN, "QUIET"));
+
+        logger.debug(() -> "debug " + calls.incrementAndGet(), "TEST");
+        logger.info(() -> "info " + calls.incrementAndGet(), "QUIET");
+        // 格式錯誤只在啟用時才會被觸發，停用時不會拋出
+        logger.debugf("TEST", "%d", "not a number");
+        assertEquals(0, calls.get());
+
+        logger.info(() -> "supplied " + calls.incrementAndGet(), "TEST");
+        logger.infof("TEST", "price=%.2f volume=%d", 10.5, 300);
+        logger.warnf("TEST", "%d", "bad");
+        logger.shutdown();
+
+        assertEquals(1, calls.get());
+        assertEquals(3, logger.getWrittenLogCount());
+        assertEquals(0, logger.getQueueDepth());
+        assertEquals(0, logger.getDroppedLogCount());
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(content.contains("[INFO] [TEST] supplied 1"));
+        assertTrue(content.contains("[INFO] [TEST] price=10.50 volume=300"));
+        assertTrue(content.contains("[WARN] [TEST] %d [bad]"));
+        assertFalse(content.contains("DEBUG"));
+    }
+}
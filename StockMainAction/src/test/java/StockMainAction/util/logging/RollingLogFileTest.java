@@ -0,0 +1,73 @@
+package StockMainAction.util.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class RollingLogFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rotatesBySizeAndKeepsCompressedBackups() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("market.log");
+        RollingLogFile log = new RollingLogFile(file, 160, 2);
+        for (int i = 1; i <= 7; i++) {
+            log.writeLine("line-" + i + "-" + "x".repeat(70));
+            log.flush();
+        }
+        log.close();
+
+        assertEquals(3, log.getRotationCount());
+        assertTrue(Files.exists(log.backup(1)));
+        assertTrue(Files.exists(log.backup(2)));
+        assertFalse(Files.exists(log.backup(3)));
+        assertTrue(file.resolveSibling("market.1.log.gz").equals(log.backup(1)));
+
+        String current = Files.readString(file);
+        String newest = gunzip(log.backup(1));
+        String oldest = gunzip(log.backup(2));
+        assertTrue(current.contains("line-7-"));
+        assertTrue(newest.contains("line-5-") && newest.contains("line-6-"));
+        assertTrue(oldest.contains("line-3-") && oldest.contains("line-4-"));
+        assertFalse(oldest.contains("line-1-"));
+        try (var files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(3, files.count());
+        }
+    }
+
+    @Test
+    public void bufferedLinesCountTowardsSizeLimit() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("market.log");
+        RollingLogFile log = new RollingLogFile(file, 500, 10);
+        for (int i = 0; i < 50; i++) {
+            log.writeLine("第" + i + "筆成交-" + "x".repeat(30));
+        }
+        log.close();
+
+        assertTrue(log.getRotationCount() >= 4);
+        assertTrue(Files.size(file) <= 500);
+        int lines = (int) Files.readString(file).lines().count();
+        for (int i = 1; i <= log.getRotationCount(); i++) {
+            byte[] archived = gunzip(log.backup(i)).getBytes(StandardCharsets.UTF_8);
+            assertTrue(archived.length <= 500);
+            lines += (int) new String(archived, StandardCharsets.UTF_8).lines().count();
+        }
+        assertEquals(50, lines);
+    }
+
+    private static String gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package StockMainAction.util.logging.event;
+
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class EventLogTest {
+
+    private static final EventSchema ORDER = EventSchema.builder(1, "ORDER")
+            .symbolField("trader")
+            .booleanField("buy")
+            .doubleField("price")
+            .intField("volume")
+            .longField("sequence")
+            .build();
+    private static final EventSchema TICK = EventSchema.builder(2, "TICK")
+            .longField("nanos")
+            .build();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsEventsAcrossBuffersWithSymbolsDefinedOnce() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("events.evl");
+        int count = 60_000; // 超過單一緩衝區，跨越多次交接
+        try (EventLog log = EventLog.open(file)) {
+            for (int i = 0; i < count; i++) {
+                assertTrue(log.begin(ORDER, 1_000L + i));
+                try {
+                    log.putSymbol(i % 3 == 0 ? "RETAIL,A" : "MAIN_FORCE").putBoolean(i % 2 == 0)
+                            .putDouble(10.0 + i * 0.01).putInt(i).putLong(i * 7L);
+                } finally {
+                    log.end();
+                }
+                if (i % 1000 == 0) {
+                    log.begin(TICK, 1_000L + i);
+                    log.putLong(i);
+                    log.end();
+                }
+            }
+            // 欄位不符定義的事件會被捨棄
+            log.begin(ORDER, 0L);
+            log.putSymbol("NEVER_WRITTEN");
+            try {
+                log.end();
+                fail("expected schema mismatch");
+            } catch (IllegalStateException expected) {
+            }
+            assertEquals(count + 60, log.getEventCount());
+        }
+
+        List<EventLogDecoder.Event> events = new ArrayList<>();
+        EventLogDecoder.read(file, events::add);
+        assertEquals(count + 60, events.size());
+        EventLogDecoder.Event first = events.get(0);
+        assertEquals("ORDER", first.name());
+        assertEquals("RETAIL,A", first.value("trader"));
+        assertEquals(Boolean.TRUE, first.value("buy"));
+        assertEquals(10.0, (Double) first.value("price"), 0.0);
+        EventLogDecoder.Event last = events.get(events.size() - 1);
+        assertEquals(count - 1, last.value("volume"));
+        assertEquals((count - 1) * 7L, last.value("sequence"));
+        assertEquals(1_000L + count - 1, last.timestamp());
+        // 60k 筆事件約 1.6 MB，遠小於逐行文字
+        assertTrue(Files.size(file) < count * 40L);
+
+        StringWriter text = new StringWriter();
+        assertEquals(60, EventLogDecoder.writeText(file, text, "TICK"));
+        assertTrue(text.toString().contains(" TICK nanos=59000"));
+
+        StringWriter csv = new StringWriter();
+        assertEquals(count, EventLogDecoder.writeCsv(file, csv, "ORDER"));
+        String[] lines = csv.toString().split("\\R");
+        assertEquals("timestamp,trader,buy,price,volume,sequence", lines[0]);
+        assertEquals("1000,\"RETAIL,A\",true,10.0,0,0", lines[1]);
+    }
+}
@@ -1,11 +1,14 @@
 package StockMainAction.view.main;
 
+import StockMainAction.model.indicator.IndicatorPipeline;
+import StockMainAction.model.indicator.TimeframeIndicators;
 import org.jfree.data.time.ohlc.OHLCSeries;
 import org.jfree.data.xy.XYSeries;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class ChartOverlayControllerTest {
@@ -40,6 +43,49 @@ public class ChartOverlayControllerTest {
         assertEquals(12.0, series.getY(1).doubleValue(), 0.001);
     }
 
+    @Test
+    public void pipelineOverlayExtendsClosedBarsWithTheLiveRules() {
+        OHLCSeries series = new OHLCSeries("K");
+        IndicatorPipeline pipeline = new IndicatorPipeline();
+        ChartOverlayController.stages(3, 5, 4).accept(pipeline);
+        ChartOverlayController.PipelineOverlay empty = ChartOverlayController.PipelineOverlay.capture(
+                TimeframeIndicators.NO_BAR, pipeline, 3, 5, 4);
+        assertFalse(empty.hasClosedBar());
+        assertEquals(7.0, empty.smaFastWith(7.0), 0.0);
+        assertEquals(7.0, empty.emaWith(7.0), 0.0);
+
+        double ema = Double.NaN;
+        double[] closes = {10.0, 12.0, 11.0, 15.0, 14.0, 9.0};
+        for (int i = 0; i < closes.length; i++) {
+            KlineOhlcAggregator.applyTick(series, closes[i], (i + 1) * 1_000L, -1, 20);
+            ChartOverlayController.PipelineOverlay overlay = ChartOverlayController.PipelineOverlay.capture(
+                    i * 1_000L, pipeline, 3, 5, 4);
+            // 尚未收盤的最後一根：管線狀態 + 目前 close
+            assertEquals(ChartOverlayController.smaAt(series, 3, i), overlay.smaFastWith(closes[i]), 1e-12);
+            assertEquals(ChartOverlayController.smaAt(series, 5, i), overlay.smaSlowWith(closes[i]), 1e-12);
+            ema = ChartOverlayController.ema(closes[i], ema, 4);
+            assertEquals(ema, overlay.emaWith(closes[i]), 1e-12);
+
+            pipeline.updatePrice(closes[i]);
+            ChartOverlayController.PipelineOverlay closed = ChartOverlayController.PipelineOverlay.capture(
+                    (i + 1) * 1_000L, pipeline, 3, 5, 4);
+            assertEquals(ChartOverlayController.smaAt(series, 3, i), closed.smaFast(), 1e-12);
+            assertEquals(ema, closed.ema(), 1e-12);
+        }
+        assertNull(ChartOverlayController.PipelineOverlay.capture(0L, pipeline, 7, 5, 4));
+    }
+
+    @Test
+    public void upsertUpdatesEarlierPointsInPlace() {
+        XYSeries series = new XYSeries("overlay");
+        ChartOverlayController.upsert(series, 1_000L, 10.0);
+        ChartOverlayController.upsert(series, 2_000L, 12.0);
+        ChartOverlayController.upsert(series, 1_000L, 11.0);
+
+        assertEquals(2, series.getItemCount());
+        assertEquals(11.0, series.getY(0).doubleValue(), 0.0);
+    }
+
     @Test
     public void shouldUpdateCurrentHonorsNewCandleOrThrottle() {
         assertTrue(ChartOverlayController.shouldUpdateCurrent(true, 1_000L, 999L, 500L));
@@ -87,6 +87,25 @@ public class KlineOhlcAggregatorTest {
         assertEquals(0L, KlineOhlcAggregator.alignTimestampMillis(119_999L, 2));
     }
 
+    @Test
+    public void applyBarReplacesCurrentBarAndClosesPreviousOnNewPeriod() {
+        OHLCSeries series = new OHLCSeries("K");
+        AtomicReference<Double> closedAt = new AtomicReference<>();
+
+        KlineOhlcAggregator.applyBar(series, 60_000L, 10.0, 10.5, 9.9, 10.2, 1, 10, null);
+        KlineOhlcAggregator.applyBar(series, 60_000L, 10.0, 10.8, 9.9, 10.7, 1, 10, null);
+        KlineOhlcAggregator.Result next = KlineOhlcAggregator.applyBar(series, 120_000L,
+                10.6, 10.6, 10.6, 10.6, 1, 10, (x, close) -> closedAt.set(close));
+        // 收盤事件晚到：就地覆寫較舊的 K 線
+        KlineOhlcAggregator.applyBar(series, 60_000L, 10.0, 10.9, 9.9, 10.8, 1, 10, null);
+
+        assertTrue(next.startedNewBar());
+        assertEquals(Double.valueOf(10.7), closedAt.get());
+        assertEquals(2, series.getItemCount());
+        assertOhlc(series, 0, 10.0, 10.9, 9.9, 10.8);
+        assertOhlc(series, 1, 10.6, 10.6, 10.6, 10.6);
+    }
+
     private static void assertOhlc(OHLCSeries series, int index,
             double open, double high, double low, double close) {
         OHLCItem item = (OHLCItem) series.getDataItem(index);
@@ -0,0 +1,98 @@
+package StockMainAction.view.main;
+
+import StockMainAction.model.indicator.Bollinger;
+import StockMainAction.model.indicator.Ema;
+import StockMainAction.model.indicator.IndicatorPipeline;
+import StockMainAction.model.indicator.Sma;
+import java.util.concurrent.ForkJoinPool;
+import org.jfree.data.time.Second;
+import org.jfree.data.time.ohlc.OHLCSeries;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KlineOverlayBackfillTest {
+
+    private static final KlineOverlayBackfill.Params PARAMS =
+            new KlineOverlayBackfill.Params(5, 10, 20, 12, 26, 20, 2.0);
+
+    @Test
+    public void chunkedParallelBackfillMatchesSequentialOverlayMath() {
+        OHLCSeries series = new OHLCSeries("K");
+        int n = KlineOverlayBackfill.MIN_CHUNK * 3 + 17;
+        long start = 1_700_000_000_000L;
+        for (int i = 0; i < n; i++) {
+            double close = 10.0 + Math.sin(i / 7.0) + i * 0.001;
+            series.add(new Second(new java.util.Date(start + i * 1_000L)), close, close + 0.1, close - 0.1, close);
+        }
+        KlineOverlayBackfill.Snapshot snapshot = KlineOverlayBackfill.Snapshot.capture(series, -1);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            KlineOverlayBackfill.Result result = KlineOverlayBackfill.compute(snapshot, PARAMS, 1L, pool);
+
+            assertEquals(n, result.size());
+            double ema = Double.NaN;
+            for (int i = 0; i < n; i++) {
+                assertEquals(ChartOverlayController.smaAt(series, 5, i), result.smaFast()[i], 1e-9);
+                assertEquals(ChartOverlayController.smaAt(series, 20, i), result.smaLong()[i], 1e-9);
+                ema = ChartOverlayController.ema(snapshot.close()[i], ema, 12);
+                assertEquals(ema, result.emaFast()[i], 1e-12);
+            }
+            assertTrue(Double.isNaN(result.bollMiddle()[18]));
+            assertEquals(result.smaLong()[n - 1], result.bollMiddle()[n - 1], 1e-9);
+            assertTrue(result.bollUpper()[n - 1] > result.bollLower()[n - 1]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void backfillMatchesStreamingIndicatorStages() {
+        int n = KlineOverlayBackfill.MIN_CHUNK * 2 + 41;
+        double[] close = new double[n];
+        long[] x = new long[n];
+        for (int i = 0; i < n; i++) {
+            close[i] = 50.0 + 3 * Math.sin(i / 11.0) + (i % 7) * 0.05;
+            x[i] = i * 60_000L;
+        }
+        KlineOverlayBackfill.Result result = KlineOverlayBackfill.compute(
+                new KlineOverlayBackfill.Snapshot(1, x, close), PARAMS, 1L, ForkJoinPool.commonPool());
+
+        IndicatorPipeline pipeline = new IndicatorPipeline();
+        Sma fast = pipeline.sma(5);
+        Sma slow = pipeline.sma(10);
+        Sma longSma = pipeline.sma(20);
+        Ema emaFast = pipeline.ema(12, Ema.Seed.FIRST);
+        Ema emaSlow = pipeline.ema(26, Ema.Seed.FIRST);
+        Bollinger boll = pipeline.add(new Bollinger(pipeline, 20, 2.0));
+        for (int i = 0; i < n; i++) {
+            pipeline.updatePrice(close[i]);
+            assertEquals(fast.partialMean(), result.smaFast()[i], 1e-9);
+            assertEquals(slow.partialMean(), result.smaSlow()[i], 1e-9);
+            assertEquals(longSma.partialMean(), result.smaLong()[i], 1e-9);
+            assertEquals(emaFast.value(), result.emaFast()[i], 1e-12);
+            assertEquals(emaSlow.value(), result.emaSlow()[i], 1e-12);
+            assertEquals(boll.value(0), result.bollUpper()[i], 1e-9);
+            assertEquals(boll.value(1), result.bollMiddle()[i], 1e-9);
+            assertEquals(boll.value(2), result.bollLower()[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void onlyLatestSubmissionIsCurrent() throws Exception {
+        KlineOverlayBackfill backfill = new KlineOverlayBackfill(2);
+        try {
+            KlineOverlayBackfill.Snapshot snapshot = new KlineOverlayBackfill.Snapshot(
+                    5, new long[]{0L, 60_000L}, new double[]{10.0, 11.0});
+            KlineOverlayBackfill.Result first = backfill.submit(snapshot, PARAMS).get();
+            KlineOverlayBackfill.Result second = backfill.submit(snapshot, PARAMS).get();
+
+            assertFalse(backfill.isCurrent(first));
+            assertTrue(backfill.isCurrent(second));
+            assertEquals(5, second.periodKey());
+            assertEquals(10.5, second.smaFast()[1], 1e-12);
+        } finally {
+            backfill.shutdown();
+        }
+    }
+}
@@ -54,4 +54,20 @@ public class TechnicalIndicatorSeriesUpdaterTest {
         assertEquals(3, second.getItemCount());
         assertEquals(3, third.getItemCount());
     }
+
+    @Test
+    public void replaceAllSwapsSamplesInOneChangeEventAndSkipsGaps() {
+        XYSeries series = new XYSeries("sma");
+        series.add(1, 99.0);
+        int[] events = new int[1];
+        series.addChangeListener(e -> events[0]++);
+
+        int count = TechnicalIndicatorSeriesUpdater.replaceAll(series,
+                new long[]{10, 20, 30, 40}, new double[]{Double.NaN, 1.0, 2.0, 3.0}, 2);
+
+        assertEquals(2, count);
+        assertEquals(30.0, series.getX(0).doubleValue(), 0.0);
+        assertEquals(3.0, series.getY(1).doubleValue(), 0.0);
+        assertEquals(1, events[0]);
+    }
 }
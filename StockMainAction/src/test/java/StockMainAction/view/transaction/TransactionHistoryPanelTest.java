@@ -3,9 +3,12 @@ package StockMainAction.view.transaction;
 import StockMainAction.model.core.Order;
 import StockMainAction.model.core.Trader;
 import StockMainAction.model.core.Transaction;
+import StockMainAction.model.history.TransactionHistoryStore;
 import StockMainAction.model.user.UserAccount;
 import java.awt.Component;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.JTable;
 import javax.swing.SwingUtilities;
@@ -109,6 +112,33 @@ public class TransactionHistoryPanelTest {
         });
     }
 
+    @Test
+    public void historyTabPagesThroughTheFullSessionStore() throws Exception {
+        try (TransactionHistoryStore store = new TransactionHistoryStore(null, 100, 2)) {
+            int total = TransactionHistoryPanel.HISTORY_PAGE_SIZE * 2 + 5;
+            for (int index = 0; index < total; index++) {
+                store.append(new Transaction("H" + index, (Order) null, (Order) null, 10.0, 1, index));
+            }
+            AtomicReference<TransactionHistoryPanel> reference = new AtomicReference<>();
+            AtomicReference<CompletableFuture<Void>> loaded = new AtomicReference<>();
+            onEdt(() -> {
+                reference.set(new TransactionHistoryPanel(3, 3));
+                loaded.set(reference.get().setHistoryStore(store));
+            });
+            loaded.get().get(5, TimeUnit.SECONDS);
+            TransactionHistoryPanel panel = reference.get();
+            assertEquals(3, panel.getHistoryPageCount());
+            assertEquals(TransactionHistoryPanel.HISTORY_PAGE_SIZE, panel.getHistoryTableModel().getRowCount());
+            assertEquals("H" + (total - 1), panel.getHistoryTableModel().getValueAt(0, 1));
+
+            onEdt(() -> loaded.set(panel.showHistoryPage(2)));
+            loaded.get().get(5, TimeUnit.SECONDS);
+            assertEquals(5, panel.getHistoryTableModel().getRowCount());
+            assertEquals("H0", panel.getHistoryTableModel().getValueAt(4, 1));
+            onEdt(panel::dispose);
+        }
+    }
+
     private static Transaction marketBuy(String id, double price) {
         Trader buyer = new TestTrader("PERSONAL");
         Trader seller = new TestTrader("MAIN_FORCE");